@@ -0,0 +1,38 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the gc profiler attached, so every result reports the allocation
+ * rate (gc.alloc.rate and gc.alloc.rate.norm) next to the throughput. The results are also
+ * written to benchmarks/results.json.
+ * The optional first argument is a regular expression selecting the benchmarks to run, for
+ * example "ImageOperationBenchmark.blur"; the optional second argument is a comma separated
+ * list of image sizes, for example "256,1024".
+ */
+public class BenchmarkRunner {
+
+  /**
+   * Runs the selected benchmarks.
+   *
+   * @param args the optional benchmark pattern and image sizes
+   * @throws RunnerException if a benchmark fails
+   */
+  public static void main(String[] args) throws RunnerException {
+    OptionsBuilder builder = new OptionsBuilder();
+    builder.include(args.length > 0 ? args[0] : "benchmarks\\..*Benchmark")
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result("benchmarks/results.json");
+    if (args.length > 1) {
+      builder.param("size", args[1].split(","));
+    }
+    Options options = builder.build();
+    new Runner(options).run();
+  }
+}
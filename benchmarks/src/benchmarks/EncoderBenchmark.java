@@ -0,0 +1,126 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import controller.EncoderOptions;
+import controller.IImageFileParser;
+import controller.JPGParser;
+import controller.PNGParser;
+import controller.PackedRaster;
+import model.image.Image;
+import model.image.Pixel;
+
+/**
+ * Measures the encode time of PNG and JPEG files at different encoder settings. The size of
+ * the file each setting produces is printed when the trial ends, so encode time can be traded
+ * against output size. The image is a smooth gradient with a little noise, which compresses
+ * like a photograph; random pixels would not compress at any setting.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx12g"})
+public class EncoderBenchmark {
+
+  /**
+   * The width and height of the image in pixels.
+   */
+  @Param({"1024", "4096"})
+  public int size;
+
+  /**
+   * The format and encoder setting: the PNG deflate level, or the JPEG quality in percent,
+   * optionally progressive.
+   */
+  @Param({"png-0", "png-1", "png-6", "png-9", "jpg-50", "jpg-75", "jpg-90", "jpg-75-progressive"})
+  public String setting;
+
+  private IImageFileParser parser;
+  private EncoderOptions options;
+  private PackedRaster raster;
+  private Path directory;
+  private String savePath;
+
+  /**
+   * Packs the image and selects the parser and encoder settings.
+   *
+   * @throws IOException if the temporary directory cannot be created
+   */
+  @Setup(Level.Trial)
+  public void prepare() throws IOException {
+    String[] words = setting.split("-");
+    if ("png".equals(words[0])) {
+      parser = new PNGParser();
+      options = EncoderOptions.DEFAULTS.withCompressionLevel(Integer.parseInt(words[1]));
+    } else {
+      parser = new JPGParser();
+      options = EncoderOptions.DEFAULTS.withQuality(Integer.parseInt(words[1]) / 100f)
+              .withProgressive(words.length > 2);
+    }
+    raster = PackedRaster.of(smoothImage(size, 42));
+    directory = Files.createTempDirectory("encoder-benchmark");
+    savePath = directory.resolve("save." + words[0]).toString();
+  }
+
+  /**
+   * Prints the size of the file the setting produced and deletes the temporary files.
+   */
+  @TearDown(Level.Trial)
+  public void reportSize() {
+    File file = new File(savePath);
+    System.out.println(setting + " " + size + "x" + size + ": " + file.length() + " bytes");
+    file.delete();
+    directory.toFile().delete();
+  }
+
+  /**
+   * Measures encoding the packed image into a file with the setting.
+   *
+   * @throws IOException if the file cannot be written
+   */
+  @Benchmark
+  public void encode() throws IOException {
+    parser.saveRaster(savePath, raster, options);
+  }
+
+  /**
+   * Creates an image of diagonal color gradients with a little random noise.
+   *
+   * @param size the width and height of the image
+   * @param seed the seed of the random generator
+   * @return the image
+   */
+  static Image smoothImage(int size, long seed) {
+    Random random = new Random(seed);
+    Pixel[][] pixels = new Pixel[size][size];
+    for (int y = 0; y < size; y++) {
+      for (int x = 0; x < size; x++) {
+        int noise = random.nextInt(9) - 4;
+        pixels[y][x] = new Pixel(255 * x / size + noise, 255 * y / size + noise,
+                255 * (x + y) / (2 * size) + noise);
+      }
+    }
+    return new Image(pixels);
+  }
+}
@@ -0,0 +1,53 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import controller.HistogramRenderer;
+import model.image.Image;
+
+/**
+ * Measures the throughput of {@link HistogramRenderer}, both on its own and together with the
+ * histogram calculation it renders, as the GUI does after every operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx12g"})
+public class HistogramRendererBenchmark {
+
+  /**
+   * Renders histograms that were calculated once per trial. The renderer normalises its input
+   * in place, so every invocation renders a fresh copy.
+   *
+   * @param state the image whose histograms are rendered
+   * @return the rendered histogram image
+   */
+  @Benchmark
+  public Image createHistogramImage(HistogramState state) {
+    int[][] histograms = new int[state.histograms.length][];
+    for (int channel = 0; channel < histograms.length; channel++) {
+      histograms[channel] = state.histograms[channel].clone();
+    }
+    return HistogramRenderer.createHistogramImage(histograms);
+  }
+
+  /**
+   * Calculates and renders the histograms of the image.
+   *
+   * @param state the image whose histograms are rendered
+   * @return the rendered histogram image
+   */
+  @Benchmark
+  public Image calculateAndRender(ImageState state) {
+    return HistogramRenderer.createHistogramImage(state.image.calculateHistograms());
+  }
+}
@@ -0,0 +1,27 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark state holding the histograms of a random 1024x1024 image. Rendering does not depend
+ * on the image size, so a single size is enough.
+ */
+@State(Scope.Benchmark)
+public class HistogramState {
+
+  /**
+   * The red, green and blue histograms to render.
+   */
+  public int[][] histograms;
+
+  /**
+   * Calculates the histograms once per trial.
+   */
+  @Setup(Level.Trial)
+  public void calculateHistograms() {
+    histograms = ImageState.randomImage(1024, 1024, 42).calculateHistograms();
+  }
+}
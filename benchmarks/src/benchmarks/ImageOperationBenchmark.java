@@ -0,0 +1,282 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.image.Image;
+import model.image.ResizeFilter;
+
+/**
+ * Measures the throughput of every public operation of {@link Image}. Every operation returns
+ * a new image, so the benchmarks return it to keep the work from being eliminated.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx12g"})
+public class ImageOperationBenchmark {
+
+  /**
+   * Measures flipping the image horizontally.
+   *
+   * @param state the image to operate on
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image horizontalFlip(ImageState state) {
+    return state.image.horizontalFlip();
+  }
+
+  /**
+   * Measures flipping the image vertically.
+   *
+   * @param state the image to operate on
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image verticalFlip(ImageState state) {
+    return state.image.verticalFlip();
+  }
+
+  /**
+   * Measures brightening the image.
+   *
+   * @param state the image to operate on
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image brighten(ImageState state) {
+    return state.image.brighten(30);
+  }
+
+  /**
+   * Measures darkening the image through a negative brighten.
+   *
+   * @param state the image to operate on
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image darken(ImageState state) {
+    return state.image.brighten(-30);
+  }
+
+  /**
+   * Measures blurring the image.
+   *
+   * @param state the image to operate on
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image blur(ImageState state) {
+    return state.image.blur();
+  }
+
+  /**
+   * Measures sharpening the image.
+   *
+   * @param state the image to operate on
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image sharpen(ImageState state) {
+    return state.image.sharpen();
+  }
+
+  /**
+   * Measures extracting the red component.
+   *
+   * @param state the image to operate on
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image extractRedComponent(ImageState state) {
+    return state.image.extractRedComponent();
+  }
+
+  /**
+   * Measures extracting the green component.
+   *
+   * @param state the image to operate on
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image extractGreenComponent(ImageState state) {
+    return state.image.extractGreenComponent();
+  }
+
+  /**
+   * Measures extracting the blue component.
+   *
+   * @param state the image to operate on
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image extractBlueComponent(ImageState state) {
+    return state.image.extractBlueComponent();
+  }
+
+  /**
+   * Measures computing the value component.
+   *
+   * @param state the image to operate on
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image toValueComponent(ImageState state) {
+    return state.image.toValueComponent();
+  }
+
+  /**
+   * Measures computing the luma component.
+   *
+   * @param state the image to operate on
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image toLumaComponent(ImageState state) {
+    return state.image.toLumaComponent();
+  }
+
+  /**
+   * Measures computing the intensity component.
+   *
+   * @param state the image to operate on
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image toIntensityComponent(ImageState state) {
+    return state.image.toIntensityComponent();
+  }
+
+  /**
+   * Measures applying the sepia tone.
+   *
+   * @param state the image to operate on
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image toSepia(ImageState state) {
+    return state.image.toSepia();
+  }
+
+  /**
+   * Measures combining three images into one by channel.
+   *
+   * @param state the image to operate on
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image combineColorChannels(ImageState state) {
+    return Image.combineColorChannels(state.image, state.image, state.image);
+  }
+
+  /**
+   * Measures color correcting the image.
+   *
+   * @param state the image to operate on
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image colorCorrect(ImageState state) {
+    return state.image.colorCorrect();
+  }
+
+  /**
+   * Measures adjusting the levels of the image.
+   *
+   * @param state the image to operate on
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image adjustLevels(ImageState state) {
+    return state.image.adjustLevels(20, 128, 230);
+  }
+
+  /**
+   * Measures compressing the image by 50 percent.
+   *
+   * @param state the image to operate on
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image compress(ImageState state) {
+    return state.image.compress(50);
+  }
+
+  /**
+   * Measures calculating the red, green and blue histograms.
+   *
+   * @param state the image to operate on
+   * @return the histograms
+   */
+  @Benchmark
+  public int[][] calculateHistograms(ImageState state) {
+    return state.image.calculateHistograms();
+  }
+
+  /**
+   * Measures halving the image by block averaging.
+   *
+   * @param state the image to operate on
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image resizeHalfBox(ImageState state) {
+    return state.image.resize(state.size / 2, state.size / 2);
+  }
+
+  /**
+   * Measures resizing the image to 37 percent of its size with Lanczos.
+   *
+   * @param state the image to operate on
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image resizeLanczos(ImageState state) {
+    int size = state.size * 37 / 100;
+    return state.image.resize(size, size, ResizeFilter.LANCZOS);
+  }
+
+  /**
+   * Measures resizing the image to 37 percent of its size with bilinear interpolation.
+   *
+   * @param state the image to operate on
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image resizeBilinear(ImageState state) {
+    int size = state.size * 37 / 100;
+    return state.image.resize(size, size, ResizeFilter.BILINEAR);
+  }
+
+  /**
+   * Measures creating a 150 pixel thumbnail through the mip levels of the image.
+   *
+   * @param state the image to operate on
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image thumbnail(ImageState state) {
+    return state.image.thumbnail(150);
+  }
+
+  /**
+   * Measures creating a 150 pixel thumbnail with one Lanczos pass over the full image, the
+   * baseline of {@link #thumbnail(ImageState)}.
+   *
+   * @param state the image to operate on
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image thumbnailDirect(ImageState state) {
+    return state.image.resize(150, 150, ResizeFilter.LANCZOS);
+  }
+}
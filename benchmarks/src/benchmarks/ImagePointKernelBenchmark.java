@@ -0,0 +1,197 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.image.Image;
+import model.image.Pixel;
+import model.image.PixelKernel;
+import model.image.RasterKernel;
+import model.image.RasterKernels;
+
+/**
+ * Measures the point operations of {@link Image} as they run, on rows of {@link Pixel}
+ * objects, against the same operations run through the scalar and the vector
+ * {@link RasterKernels}: every row is packed into 0xRRGGBB values, mapped by the kernel and
+ * unpacked into pixels again. The comparison decides whether the image operations should use
+ * the raster kernels; packing and unpacking the pixel objects costs more than the arithmetic
+ * the vector kernels save. The forked runtime gets {@code --add-modules jdk.incubator.vector};
+ * the vector path fails if the vector kernels are not on the class path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx12g", "--add-modules", "jdk.incubator.vector"})
+public class ImagePointKernelBenchmark {
+
+  /**
+   * The width and height of the images in pixels.
+   */
+  @Param({"256", "1024", "2048"})
+  public int size;
+
+  /**
+   * How the operations run: "pixels" calls the {@link Image} methods, "scalar" and "vector"
+   * run the raster kernels on packed rows.
+   */
+  @Param({"pixels", "scalar", "vector"})
+  public String path;
+
+  private RasterKernels kernels;
+  private Image image;
+  private Image green;
+  private Image blue;
+
+  /**
+   * Selects the kernels and creates the images once per trial.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    kernels = "vector".equals(path)
+            ? RasterKernels.vector().orElseThrow(() -> new IllegalStateException(
+                    "The vector kernels are not available."))
+            : RasterKernels.scalar();
+    image = ImageState.randomImage(size, size, 42);
+    green = ImageState.randomImage(size, size, 43);
+    blue = ImageState.randomImage(size, size, 44);
+  }
+
+  /**
+   * Returns whether the image methods are measured rather than the raster kernels.
+   *
+   * @return true for the "pixels" path
+   */
+  private boolean direct() {
+    return "pixels".equals(path);
+  }
+
+  /**
+   * Packs a row of pixels into 0xRRGGBB values.
+   *
+   * @param row    the pixels
+   * @param packed the array that receives the packed values
+   */
+  private static void pack(Pixel[] row, int[] packed) {
+    for (int i = 0; i < row.length; i++) {
+      Pixel pixel = row[i];
+      packed[i] = pixel.getRed() << 16 | pixel.getGreen() << 8 | pixel.getBlue();
+    }
+  }
+
+  /**
+   * Unpacks 0xRRGGBB values into a row of pixels.
+   *
+   * @param packed the packed values
+   * @param row    the row that receives the pixels
+   */
+  private static void unpack(int[] packed, Pixel[] row) {
+    for (int i = 0; i < row.length; i++) {
+      int rgb = packed[i];
+      row[i] = Pixel.of(rgb >>> 16, rgb >>> 8 & 0xff, rgb & 0xff);
+    }
+  }
+
+  /**
+   * Maps the image through a raster kernel on packed rows.
+   *
+   * @param kernel the operation on packed pixels
+   * @return the resulting image
+   */
+  private Image packed(RasterKernel kernel) {
+    int[] source = new int[size];
+    int[] target = new int[size];
+    PixelKernel rows = (row, mapped) -> {
+      pack(row, source);
+      kernel.apply(source, target, row.length);
+      unpack(target, mapped);
+    };
+    return image.mapPixels(rows);
+  }
+
+  /**
+   * Measures brightening the image.
+   *
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image brighten() {
+    return direct() ? image.brighten(30)
+            : packed((source, target, length) -> kernels.brighten(30, source, target, length));
+  }
+
+  /**
+   * Measures the value component.
+   *
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image toValueComponent() {
+    return direct() ? image.toValueComponent() : packed(kernels::value);
+  }
+
+  /**
+   * Measures the luma component.
+   *
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image toLumaComponent() {
+    return direct() ? image.toLumaComponent() : packed(kernels::luma);
+  }
+
+  /**
+   * Measures the intensity component.
+   *
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image toIntensityComponent() {
+    return direct() ? image.toIntensityComponent() : packed(kernels::intensity);
+  }
+
+  /**
+   * Measures the sepia tone.
+   *
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image toSepia() {
+    return direct() ? image.toSepia() : packed(kernels::sepia);
+  }
+
+  /**
+   * Measures combining the channels of three images.
+   *
+   * @return the resulting image
+   */
+  @Benchmark
+  public Image combineColorChannels() {
+    if (direct()) {
+      return Image.combineColorChannels(image, green, blue);
+    }
+    Pixel[][] combined = new Pixel[size][size];
+    int[][] rows = new int[4][size];
+    for (int y = 0; y < size; y++) {
+      pack(image.getPixels()[y], rows[0]);
+      pack(green.getPixels()[y], rows[1]);
+      pack(blue.getPixels()[y], rows[2]);
+      kernels.combine(rows[0], rows[1], rows[2], rows[3], size);
+      unpack(rows[3], combined[y]);
+    }
+    return new Image(combined);
+  }
+}
@@ -0,0 +1,59 @@
+package benchmarks;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import model.image.Image;
+import model.image.Pixel;
+
+/**
+ * Benchmark state holding a square image of random pixels. The side length is a benchmark
+ * parameter ranging from 256 to 8192 pixels, so every benchmark using this state is measured
+ * from thumbnail sizes up to 8K.
+ */
+@State(Scope.Benchmark)
+public class ImageState {
+
+  /**
+   * The width and height of the image in pixels.
+   */
+  @Param({"256", "1024", "2048", "4096", "8192"})
+  public int size;
+
+  /**
+   * The image the benchmarks operate on.
+   */
+  public Image image;
+
+  /**
+   * Creates the image once per trial. A fixed seed keeps the content identical between runs.
+   */
+  @Setup(Level.Trial)
+  public void createImage() {
+    image = randomImage(size, size, 42);
+  }
+
+  /**
+   * Creates an image of the given size filled with random pixels.
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @param seed   the seed of the random generator
+   * @return the random image
+   */
+  static Image randomImage(int width, int height, long seed) {
+    Random random = new Random(seed);
+    Pixel[][] pixels = new Pixel[height][width];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        pixels[y][x] = new Pixel(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+      }
+    }
+    return new Image(pixels);
+  }
+}
@@ -0,0 +1,153 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import controller.DecodeOptions;
+import controller.IImageFileParser;
+import controller.JPEGParser;
+import controller.JPGParser;
+import controller.PNGParser;
+import controller.PPMParser;
+import controller.RawImageParser;
+import model.image.Image;
+
+/**
+ * Measures the throughput of loading and saving images with every {@link IImageFileParser}.
+ * The files are written to a temporary directory once per trial and deleted afterwards.
+ * Loading a thumbnail is measured both with a reduced decode and as a full decode followed by
+ * a resize.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx12g"})
+public class ParserBenchmark {
+
+  /**
+   * The file format, which selects the parser.
+   */
+  @Param({"png", "jpg", "jpeg", "ppm", "rawimg"})
+  public String format;
+
+  /**
+   * The settings that decode a thumbnail.
+   */
+  private static final DecodeOptions THUMBNAIL = DecodeOptions.DEFAULTS.withMaxDimension(256);
+
+  private IImageFileParser parser;
+  private Path directory;
+  private String loadPath;
+  private String savePath;
+
+  /**
+   * Selects the parser and writes the image that the load benchmark reads.
+   *
+   * @param state the image to write
+   * @throws IOException if the temporary files cannot be written
+   */
+  @Setup(Level.Trial)
+  public void writeFiles(ImageState state) throws IOException {
+    parser = parserFor(format);
+    directory = Files.createTempDirectory("parser-benchmark");
+    loadPath = directory.resolve("load." + format).toString();
+    savePath = directory.resolve("save." + format).toString();
+    parser.saveImage(loadPath, state.image);
+  }
+
+  /**
+   * Deletes the temporary files.
+   */
+  @TearDown(Level.Trial)
+  public void deleteFiles() {
+    new File(loadPath).delete();
+    new File(savePath).delete();
+    directory.toFile().delete();
+  }
+
+  /**
+   * Measures decoding an image file into an image.
+   *
+   * @return the loaded image
+   * @throws IOException if the file cannot be read
+   */
+  @Benchmark
+  public Image load() throws IOException {
+    return parser.loadImage(loadPath);
+  }
+
+  /**
+   * Measures decoding a thumbnail of an image file with a reduced decode.
+   *
+   * @return the loaded thumbnail
+   * @throws IOException if the file cannot be read
+   */
+  @Benchmark
+  public Image loadThumbnail() throws IOException {
+    return parser.loadImage(loadPath, THUMBNAIL);
+  }
+
+  /**
+   * Measures decoding an image file in full and then reducing it to a thumbnail.
+   *
+   * @return the thumbnail
+   * @throws IOException if the file cannot be read
+   */
+  @Benchmark
+  public Image loadFullThenThumbnail() throws IOException {
+    return parser.loadImage(loadPath).thumbnail(256);
+  }
+
+  /**
+   * Measures encoding an image into a file.
+   *
+   * @param state the image to save
+   * @throws IOException if the file cannot be written
+   */
+  @Benchmark
+  public void save(ImageState state) throws IOException {
+    parser.saveImage(savePath, state.image);
+  }
+
+  /**
+   * Returns the parser for the given file format.
+   *
+   * @param format the file extension
+   * @return the parser for the format
+   */
+  private static IImageFileParser parserFor(String format) {
+    switch (format) {
+      case "png":
+        return new PNGParser();
+      case "jpg":
+        return new JPGParser();
+      case "jpeg":
+        return new JPEGParser();
+      case "ppm":
+        return new PPMParser();
+      case "rawimg":
+        return new RawImageParser();
+      default:
+        throw new IllegalArgumentException("Unsupported format " + format);
+    }
+  }
+}
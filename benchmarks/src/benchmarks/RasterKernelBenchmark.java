@@ -0,0 +1,179 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.image.RasterKernels;
+import model.image.TiledImage;
+
+/**
+ * Compares the scalar and the vector {@link RasterKernels} on a raster of random packed
+ * pixels, and the luma of a whole {@link TiledImage}, which adds copying the tiles in and out
+ * of the mapped file. The forked runtime gets {@code --add-modules jdk.incubator.vector}; the
+ * vector parameter fails if the vector kernels are not on the class path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx12g", "--add-modules", "jdk.incubator.vector"})
+public class RasterKernelBenchmark {
+
+  /**
+   * The width and height of the raster in pixels.
+   */
+  @Param({"256", "1024", "2048"})
+  public int size;
+
+  /**
+   * The kernels to measure, scalar or vector.
+   */
+  @Param({"scalar", "vector"})
+  public String kernels;
+
+  private RasterKernels implementation;
+  private int[] source;
+  private int[] target;
+  private TiledImage tiled;
+
+  /**
+   * Selects the kernels and creates the raster and the tiled image once per trial.
+   *
+   * @throws IOException If the tile file cannot be created.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    implementation = "vector".equals(kernels)
+            ? RasterKernels.vector().orElseThrow(() -> new IllegalStateException(
+                    "The vector kernels are not available."))
+            : RasterKernels.scalar();
+    Random random = new Random(42);
+    source = new int[size * size];
+    for (int i = 0; i < source.length; i++) {
+      source[i] = random.nextInt(1 << 24);
+    }
+    target = new int[source.length];
+    tiled = new TiledImage(size, size);
+    for (int y = 0; y < size; y++) {
+      for (int x = 0; x < size; x++) {
+        tiled.setRGB(x, y, source[y * size + x]);
+      }
+    }
+  }
+
+  /**
+   * Deletes the tiled image.
+   *
+   * @throws IOException If the tile file cannot be deleted.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    tiled.close();
+  }
+
+  /**
+   * Measures extracting the red component.
+   *
+   * @return the mapped pixels
+   */
+  @Benchmark
+  public int[] red() {
+    implementation.red(source, target, source.length);
+    return target;
+  }
+
+  /**
+   * Measures computing the value component.
+   *
+   * @return the mapped pixels
+   */
+  @Benchmark
+  public int[] value() {
+    implementation.value(source, target, source.length);
+    return target;
+  }
+
+  /**
+   * Measures computing the luma component.
+   *
+   * @return the mapped pixels
+   */
+  @Benchmark
+  public int[] luma() {
+    implementation.luma(source, target, source.length);
+    return target;
+  }
+
+  /**
+   * Measures computing the intensity component.
+   *
+   * @return the mapped pixels
+   */
+  @Benchmark
+  public int[] intensity() {
+    implementation.intensity(source, target, source.length);
+    return target;
+  }
+
+  /**
+   * Measures applying the sepia tone.
+   *
+   * @return the mapped pixels
+   */
+  @Benchmark
+  public int[] sepia() {
+    implementation.sepia(source, target, source.length);
+    return target;
+  }
+
+  /**
+   * Measures brightening.
+   *
+   * @return the mapped pixels
+   */
+  @Benchmark
+  public int[] brighten() {
+    implementation.brighten(30, source, target, source.length);
+    return target;
+  }
+
+  /**
+   * Measures combining three rasters into one by channel.
+   *
+   * @return the combined pixels
+   */
+  @Benchmark
+  public int[] combine() {
+    implementation.combine(source, source, source, target, source.length);
+    return target;
+  }
+
+  /**
+   * Measures the luma of the whole tiled image, including the tile copies.
+   *
+   * @return a pixel of the result, read before the result is deleted
+   * @throws IOException If the tile file of the result cannot be created or deleted.
+   */
+  @Benchmark
+  public int tiledLuma() throws IOException {
+    try (TiledImage result = tiled.mapPixels(implementation::luma)) {
+      return result.getRGB(size - 1, size - 1);
+    }
+  }
+}
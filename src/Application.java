@@ -1,8 +1,19 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import controller.BatchJournal;
+import controller.BatchRunner;
+import controller.CommandRegistry;
+import controller.FolderWatcher;
 import controller.GUIController;
 import controller.IController;
 import controller.ImageController;
+import controller.MetricsRecorder;
+import controller.ScriptMode;
+import model.ConcurrentImageModel;
 import model.IImageModel;
-import model.ImageModel;
+import model.TracingImageModel;
 import view.ConsoleView;
 import view.GUIView;
 import view.IGUIView;
@@ -19,7 +30,7 @@ public class Application {
    * @param args Command-line arguments to specify the mode of the application.
    */
   public static void main(String[] args) {
-    IImageModel model = new ImageModel();
+    IImageModel model = new TracingImageModel(new ConcurrentImageModel());
     IView view;
     IController controller;
 
@@ -30,6 +41,34 @@ public class Application {
       view = new ConsoleView();
       controller = new ImageController(model, view);
       ((ImageController) controller).runScript(scriptFilePath);
+    } else if (args.length == 3 && "-file".equals(args[0]) && "-optimize".equals(args[2])) {
+      // Run in script mode, removing the commands whose results are never saved or used
+      String scriptFilePath = args[1];
+      view = new ConsoleView();
+      controller = new ImageController(model, view);
+      ((ImageController) controller).runScript(scriptFilePath, ScriptMode.OPTIMIZED);
+    } else if (args.length == 3 && "-file".equals(args[0]) && "-stream".equals(args[2])) {
+      // Run in script mode, streaming chains of a load, filters and a save in row strips
+      String scriptFilePath = args[1];
+      view = new ConsoleView();
+      controller = new ImageController(model, view);
+      ((ImageController) controller).runScript(scriptFilePath, ScriptMode.STREAMED);
+    } else if (args.length == 4 && "-file".equals(args[0]) && "-metrics".equals(args[2])) {
+      // Run in script mode and record per-command metrics into the given JSON or CSV file
+      String scriptFilePath = args[1];
+      view = new ConsoleView();
+      controller = new ImageController(model, view, new MetricsRecorder(args[3]));
+      ((ImageController) controller).runScript(scriptFilePath);
+    } else if (args.length >= 4 && args.length <= 7 && "-watch".equals(args[0])) {
+      // Watch a folder and run a script template on every image file that appears in it
+      if (!watch(args)) {
+        printUsage();
+      }
+    } else if (args.length >= 4 && args.length <= 7 && "-batch".equals(args[0])) {
+      // Run a script template on every image file of a folder, resuming a stopped batch
+      if (!batch(args)) {
+        printUsage();
+      }
     } else if (args.length == 1 && "-text".equals(args[0])) {
       // Run in text mode if the "-text" option is provided
       view = new ConsoleView();
@@ -41,12 +80,121 @@ public class Application {
       controller = new GUIController(model, (IGUIView) view);
       controller.execute();
     } else {
-      // Print usage information for invalid command-line arguments
-      System.err.println("Invalid arguments. Usage:");
-      System.err.println("java -jar Program.jar -file path-of-script-file");
-      System.err.println("java -jar Program.jar -text");
-      System.err.println("java -jar Program.jar");
-      System.exit(1); // Exit with an error status
+      printUsage();
+    }
+  }
+
+  /**
+   * Runs the watch mode: {@code -watch input-folder output-folder template-file [workers
+   * [queue-capacity]] [-optimize|-stream]}. The watcher runs until the application is stopped,
+   * and its counters are shown when it stops.
+   *
+   * @param args Command-line arguments starting with "-watch".
+   * @return false if the arguments are malformed, otherwise true once the watcher has stopped.
+   */
+  private static boolean watch(String[] args) {
+    int[] counts = {Runtime.getRuntime().availableProcessors(),
+        FolderWatcher.DEFAULT_QUEUE_CAPACITY};
+    int numbers = 0;
+    ScriptMode mode = ScriptMode.DIRECT;
+    for (int i = 4; i < args.length; i++) {
+      if ("-optimize".equals(args[i]) && i == args.length - 1) {
+        mode = ScriptMode.OPTIMIZED;
+      } else if ("-stream".equals(args[i]) && i == args.length - 1) {
+        mode = ScriptMode.STREAMED;
+      } else if (args[i].matches("\\d{1,6}") && numbers < counts.length) {
+        counts[numbers++] = Integer.parseInt(args[i]);
+      } else {
+        return false;
+      }
+    }
+    IView view = new ConsoleView();
+    try {
+      FolderWatcher watcher = new FolderWatcher(Paths.get(args[1]), Paths.get(args[2]),
+              Files.readAllLines(Paths.get(args[3])), counts[0], counts[1], mode,
+              CommandRegistry.getDefault(), view);
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        try {
+          watcher.close();
+        } catch (IOException e) {
+          view.showError("Error stopping the watcher: " + e.getMessage());
+        }
+        view.showMessage(watcher.getCounters().format());
+      }));
+      watcher.start();
+      view.showMessage("Watching " + args[1] + " with " + counts[0] + " workers.");
+      watcher.awaitTermination();
+    } catch (IOException | IllegalArgumentException e) {
+      view.showError("Error starting the watcher: " + e.getMessage());
+      System.exit(1);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return true;
+  }
+
+  /**
+   * Runs the batch mode: {@code -batch input-folder output-folder template-file [workers]
+   * [-verify] [-optimize|-stream]}. Finished files are recorded in a journal in the output
+   * folder, so a batch that was stopped resumes with the files it had not finished.
+   *
+   * @param args Command-line arguments starting with "-batch".
+   * @return false if the arguments are malformed, otherwise true once the batch has finished.
+   */
+  private static boolean batch(String[] args) {
+    int workers = Runtime.getRuntime().availableProcessors();
+    boolean verify = false;
+    ScriptMode mode = ScriptMode.DIRECT;
+    for (int i = 4; i < args.length; i++) {
+      if ("-optimize".equals(args[i]) && i == args.length - 1) {
+        mode = ScriptMode.OPTIMIZED;
+      } else if ("-stream".equals(args[i]) && i == args.length - 1) {
+        mode = ScriptMode.STREAMED;
+      } else if ("-verify".equals(args[i]) && !verify) {
+        verify = true;
+      } else if (args[i].matches("\\d{1,6}") && i == 4) {
+        workers = Integer.parseInt(args[i]);
+      } else {
+        return false;
+      }
     }
+    IView view = new ConsoleView();
+    try {
+      BatchRunner runner = new BatchRunner(Paths.get(args[1]), Paths.get(args[2]),
+              Files.readAllLines(Paths.get(args[3])), workers, mode,
+              CommandRegistry.getDefault(), view);
+      try (BatchJournal journal = new BatchJournal(
+              Paths.get(args[2], BatchRunner.JOURNAL_NAME))) {
+        if (journal.getEntryCount() > 0) {
+          view.showMessage("Resuming: " + journal.getEntryCount() + " files were finished.");
+        }
+        runner.run(journal, verify);
+      }
+      view.showMessage(runner.formatSummary());
+    } catch (IOException | IllegalArgumentException e) {
+      view.showError("Error running the batch: " + e.getMessage());
+      System.exit(1);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return true;
+  }
+
+  /**
+   * Prints usage information for invalid command-line arguments and exits.
+   */
+  private static void printUsage() {
+    System.err.println("Invalid arguments. Usage:");
+    System.err.println("java -jar Program.jar -file path-of-script-file");
+    System.err.println("java -jar Program.jar -file path-of-script-file -optimize");
+    System.err.println("java -jar Program.jar -file path-of-script-file -stream");
+    System.err.println("java -jar Program.jar -file path-of-script-file -metrics metrics.json");
+    System.err.println("java -jar Program.jar -watch input-folder output-folder template-file"
+            + " [workers [queue-capacity]] [-optimize|-stream]");
+    System.err.println("java -jar Program.jar -batch input-folder output-folder template-file"
+            + " [workers] [-verify] [-optimize|-stream]");
+    System.err.println("java -jar Program.jar -text");
+    System.err.println("java -jar Program.jar");
+    System.exit(1); // Exit with an error status
   }
 }
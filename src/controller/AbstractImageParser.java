@@ -1,13 +1,27 @@
 package controller;
 
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
 
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
 
 import model.image.Image;
 import model.image.Pixel;
+import model.image.StripSource;
 
 /**
  * Provides an abstract implementation of the IImageFileParser
@@ -26,25 +40,207 @@ public abstract class AbstractImageParser implements IImageFileParser {
    */
   @Override
   public Image loadImage(String path) throws IOException {
+    ImageFileEvent event = ImageFileEvent.begin("load", path, getImageFormat());
+    Image image = null;
+    try {
+      image = readImage(path);
+      return image;
+    } finally {
+      event.end(image, image != null);
+    }
+  }
+
+  /**
+   * Reads and decodes the image file at the given path.
+   *
+   * @param path the path to the image file
+   * @return the loaded Image object
+   * @throws IOException if an error occurs while reading the file
+   */
+  private Image readImage(String path) throws IOException {
     BufferedImage bufferedImage = ImageIO.read(new File(path));
+    if (bufferedImage == null) {
+      throw new IOException("Unsupported image file " + path);
+    }
+    return toImage(bufferedImage);
+  }
+
+  /**
+   * Loads the image at the given path at a reduced resolution. The decoder steps over the rows
+   * and columns that are not kept through source subsampling, so a large file is decoded in a
+   * fraction of the time and memory of the full image. For a maximum dimension the step is
+   * chosen to leave the decoded image slightly larger, and the rest of the reduction is
+   * filtered by the resampler.
+   *
+   * @param path    the path to the image file
+   * @param options the subsampling and maximum dimension of the loaded image
+   * @return the loaded Image object
+   * @throws IOException if an error occurs while reading the file
+   */
+  @Override
+  public Image loadImage(String path, DecodeOptions options) throws IOException {
+    if (options.isDefault()) {
+      return loadImage(path);
+    }
+    ImageFileEvent event = ImageFileEvent.begin("load", path, getImageFormat());
+    Image image = null;
+    try {
+      Image decoded = read(path, reader ->
+              options.sourceStep(reader.getWidth(0), reader.getHeight(0)));
+      image = options.fit(decoded != null ? decoded : readImage(path));
+      return image;
+    } finally {
+      event.end(image, image != null);
+    }
+  }
+
+  /**
+   * Loads a reduced version of the image at the given path whose width and height do not exceed
+   * the given size. The decoder skips the rows and columns that are not needed through source
+   * subsampling, so the reduced image is available much sooner than the full image.
+   *
+   * @param path          the path to the image file
+   * @param maxDimension  the largest width or height the reduced image may have
+   * @return the reduced image, or an empty Optional if the image is not larger than the given
+   *         size and has to be decoded in full anyway
+   * @throws IOException if an error occurs while reading the file
+   */
+  public Optional<Image> loadSubsampled(String path, int maxDimension) throws IOException {
+    if (maxDimension <= 0) {
+      throw new IllegalArgumentException("Maximum dimension must be positive.");
+    }
+    return Optional.ofNullable(read(path, reader -> {
+      int largestSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+      return (largestSide - 1) / maxDimension + 1;
+    }));
+  }
+
+  /**
+   * Chooses the subsampling step of a decode once the size of the stored image is known.
+   */
+  private interface SubsamplingStep {
+
+    /**
+     * Returns the step through the rows and columns of the first image of the reader.
+     *
+     * @param reader the reader, positioned on the file
+     * @return the step, 1 to read every pixel
+     * @throws IOException if the size of the image cannot be read
+     */
+    int choose(ImageReader reader) throws IOException;
+  }
+
+  /**
+   * Decodes the image at the given path with source subsampling.
+   *
+   * @param path the path to the image file
+   * @param step chooses the subsampling step from the size of the stored image
+   * @return the decoded image, or null if the step is 1, since a full decode through
+   *         {@link #loadImage(String)} is no slower
+   * @throws IOException if an error occurs while reading the file
+   */
+  private Image read(String path, SubsamplingStep step) throws IOException {
+    try (ImageInputStream input = ImageIO.createImageInputStream(new File(path))) {
+      if (input == null) {
+        throw new IOException("File " + path + " not found!");
+      }
+      Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+      if (!readers.hasNext()) {
+        throw new IOException("Unsupported image file " + path);
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(input, true, true);
+        int chosen = step.choose(reader);
+        if (chosen <= 1) {
+          return null;
+        }
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(chosen, chosen, 0, 0);
+        return toImage(reader.read(0, param));
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  /**
+   * Opens the image at the given path for reading in strips. ImageIO decodes the whole file
+   * at once, so the file is decoded into its packed BufferedImage, which takes a fraction of
+   * the memory of an Image, and the pixels of every strip are created only when it is read.
+   *
+   * @param path the path to the image file
+   * @return a source of the rows of the image
+   * @throws IOException if an error occurs while reading the file
+   */
+  @Override
+  public StripSource openStrips(String path) throws IOException {
+    ImageFileEvent event = ImageFileEvent.begin("load", path, getImageFormat());
+    BufferedImage bufferedImage = null;
+    try {
+      bufferedImage = ImageIO.read(new File(path));
+      if (bufferedImage == null) {
+        throw new IOException("Unsupported image file " + path);
+      }
+    } finally {
+      event.end(bufferedImage == null ? -1 : bufferedImage.getWidth(),
+              bufferedImage == null ? -1 : bufferedImage.getHeight(), bufferedImage != null);
+    }
+    BufferedImage decoded = bufferedImage;
+    return new StripSource() {
+      private int next;
+
+      @Override
+      public int getWidth() {
+        return decoded.getWidth();
+      }
+
+      @Override
+      public int getHeight() {
+        return decoded.getHeight();
+      }
+
+      @Override
+      public Image readStrip(int maxRows) {
+        if (maxRows <= 0) {
+          throw new IllegalArgumentException("Strip height must be positive.");
+        }
+        if (next >= decoded.getHeight()) {
+          return null;
+        }
+        int rows = Math.min(maxRows, decoded.getHeight() - next);
+        Image strip = toImage(decoded.getSubimage(0, next, decoded.getWidth(), rows));
+        next += rows;
+        return strip;
+      }
+    };
+  }
 
+  /**
+   * Converts a decoded BufferedImage into an Image, reading one row of pixels at a time.
+   *
+   * @param bufferedImage the decoded image
+   * @return the Image holding the same pixels
+   */
+  private static Image toImage(BufferedImage bufferedImage) {
     int width = bufferedImage.getWidth();
     int height = bufferedImage.getHeight();
 
-    Image image = new Image(new Pixel[height][width]);
-
+    Pixel[][] pixels = new Pixel[height][width];
+    int[] row = new int[width];
     for (int y = 0; y < height; y++) {
+      bufferedImage.getRGB(0, y, width, 1, row, 0, width);
       for (int x = 0; x < width; x++) {
-        int argb = bufferedImage.getRGB(x, y);
+        int argb = row[x];
 
         int red = (argb >> 16) & 0xff;
         int green = (argb >> 8) & 0xff;
         int blue = argb & 0xff;
 
-        image.setPixel(x, y, new Pixel(red, green, blue));
+        pixels[y][x] = Pixel.cached(red, green, blue);
       }
     }
-    return image;
+    return new Image(pixels);
   }
 
   /**
@@ -57,29 +253,124 @@ public abstract class AbstractImageParser implements IImageFileParser {
    */
   @Override
   public void saveImage(String path, Image image) throws IOException {
-    if (image.getPixels() == null) {
-      throw new IOException("No image data to save.");
+    ImageFileEvent event = ImageFileEvent.begin("save", path, getImageFormat());
+    boolean saved = false;
+    try {
+      if (image.isEmpty()) {
+        throw new IOException("No image data to save.");
+      }
+      writeRaster(path, PackedRaster.of(image), EncoderOptions.DEFAULTS);
+      saved = true;
+    } finally {
+      event.end(image, saved);
     }
+  }
 
-    int height = image.getHeight();
-    int width = image.getWidth();
-
-    BufferedImage bufferedImage = new BufferedImage(width, height, getImageType());
-
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        Pixel pixel = image.getPixel(x, y);
-
-        int red = pixel.getRed();
-        int green = pixel.getGreen();
-        int blue = pixel.getBlue();
+  /**
+   * Saves the given packed image to the specified path with the default encoder settings.
+   *
+   * @param path   the path where the image should be saved
+   * @param raster the packed pixels of the image
+   * @throws IOException if an error occurs while writing to the file
+   */
+  @Override
+  public void saveRaster(String path, PackedRaster raster) throws IOException {
+    saveRaster(path, raster, EncoderOptions.DEFAULTS);
+  }
 
-        int argb = (255 << 24) | (red << 16) | (green << 8) | blue;
+  /**
+   * Saves the given packed image to the specified path with the given encoder settings.
+   *
+   * @param path    the path where the image should be saved
+   * @param raster  the packed pixels of the image
+   * @param options the encoder settings
+   * @throws IOException if an error occurs while writing to the file
+   */
+  @Override
+  public void saveRaster(String path, PackedRaster raster, EncoderOptions options)
+          throws IOException {
+    ImageFileEvent event = ImageFileEvent.begin("save", path, getImageFormat());
+    boolean saved = false;
+    try {
+      writeRaster(path, raster, options);
+      saved = true;
+    } finally {
+      event.end(raster.getWidth(), raster.getHeight(), saved);
+    }
+  }
 
-        bufferedImage.setRGB(x, y, argb);
+  /**
+   * Encodes the given packed image and writes it to the specified path. The raster is handed
+   * to the ImageIO writer as a BufferedImage that shares its samples, so nothing is copied per
+   * format unless the format asks for another image type. The encoder settings are applied
+   * through the writer's ImageWriteParam by {@link #configureWriteParam}.
+   *
+   * @param path    the path where the image should be saved
+   * @param raster  the packed pixels of the image
+   * @param options the encoder settings
+   * @throws IOException if an error occurs while writing to the file
+   */
+  private void writeRaster(String path, PackedRaster raster, EncoderOptions options)
+          throws IOException {
+    BufferedImage bufferedImage = raster.toBufferedImage();
+    if (bufferedImage.getType() != getImageType()) {
+      BufferedImage converted = new BufferedImage(raster.getWidth(), raster.getHeight(),
+              getImageType());
+      Graphics2D graphics = converted.createGraphics();
+      graphics.drawImage(bufferedImage, 0, 0, null);
+      graphics.dispose();
+      bufferedImage = converted;
+    }
+    Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(getImageFormat());
+    if (!writers.hasNext()) {
+      throw new IOException("No writer for image format " + getImageFormat());
+    }
+    ImageWriter writer = writers.next();
+    try {
+      ImageWriteParam param = null;
+      if (!options.isDefault()) {
+        param = writer.getDefaultWriteParam();
+        configureWriteParam(param, options);
+      }
+      File file = new File(path);
+      Files.deleteIfExists(file.toPath());
+      try (ImageOutputStream output = ImageIO.createImageOutputStream(file)) {
+        if (output == null) {
+          throw new IOException("Cannot write to " + path);
+        }
+        writer.setOutput(output);
+        writer.write(null, new IIOImage(bufferedImage, null, null), param);
       }
+    } finally {
+      writer.dispose();
     }
-    ImageIO.write(bufferedImage, getImageFormat(), new File(path));
+  }
+
+  /**
+   * Applies the encoder settings that the format has to the parameters of its ImageIO
+   * writer. The default implementation applies none.
+   *
+   * @param param   the parameters of the writer
+   * @param options the encoder settings, of which at least one is given
+   */
+  protected void configureWriteParam(ImageWriteParam param, EncoderOptions options) {
+    // Formats without encoder settings keep the writer defaults.
+  }
+
+  /**
+   * Applies the JPEG quality and progressive mode to the parameters of a JPEG writer.
+   *
+   * @param param   the parameters of the writer
+   * @param options the encoder settings
+   */
+  protected static void configureJpegWriteParam(ImageWriteParam param,
+                                                EncoderOptions options) {
+    options.getQuality().ifPresent(quality -> {
+      param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+      param.setCompressionQuality(quality);
+    });
+    options.getProgressive().ifPresent(progressive -> param.setProgressiveMode(
+            progressive ? ImageWriteParam.MODE_DEFAULT : ImageWriteParam.MODE_DISABLED));
   }
 
   /**
@@ -96,4 +387,34 @@ public abstract class AbstractImageParser implements IImageFileParser {
    * @return the image type constant
    */
   protected abstract int getImageType();
+
+  /**
+   * Returns the extension of the format, which is also its ImageIO format name.
+   *
+   * @return a list holding the image format string
+   */
+  @Override
+  public List<String> getExtensions() {
+    return Collections.singletonList(getImageFormat());
+  }
+
+  /**
+   * Returns whether a file header starts with the given magic bytes.
+   *
+   * @param header the first bytes of the file
+   * @param length the number of valid bytes in the header
+   * @param magic  the expected first bytes, each between 0 and 255
+   * @return true if the header starts with the magic bytes, otherwise false
+   */
+  protected static boolean startsWith(byte[] header, int length, int... magic) {
+    if (length < magic.length) {
+      return false;
+    }
+    for (int i = 0; i < magic.length; i++) {
+      if ((header[i] & 0xff) != magic[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
 }
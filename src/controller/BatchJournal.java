@@ -0,0 +1,291 @@
+package controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only record of the input files a batch job has finished, so that a job that was
+ * stopped can be restarted without processing those files again. Every finished input is
+ * recorded as one line holding its name, size and modification time and the name, size and
+ * CRC-32C checksum of every output written for it, separated by tabs. The outputs are named
+ * relative to the folder of the journal.
+ * A line is only written once all outputs of its input are in place, and a line that was not
+ * completely written when the job stopped is ignored, so an input is either recorded with all
+ * its outputs or processed again. When the journal is opened again, an input counts as
+ * finished if it has not changed since it was recorded and all its outputs still have their
+ * recorded sizes; verifying also compares the checksums, which reads every output.
+ * Inputs may be recorded by several threads at once.
+ */
+public final class BatchJournal implements Closeable {
+  private static final String HEADER = "# image-processor batch journal 1";
+
+  private final Path file;
+  private final Path folder;
+  private final Map<String, Entry> entries = new HashMap<>();
+  private final FileChannel channel;
+  private int discardedLines;
+
+  /**
+   * A finished input and its outputs.
+   */
+  private static final class Entry {
+    private final long size;
+    private final long modified;
+    private final List<String> outputs;
+    private final long[] outputSizes;
+    private final long[] checksums;
+
+    /**
+     * Constructs an entry.
+     *
+     * @param size        the size of the input in bytes
+     * @param modified    the modification time of the input in milliseconds
+     * @param outputs     the names of the outputs relative to the folder of the journal
+     * @param outputSizes the sizes of the outputs in bytes
+     * @param checksums   the CRC-32C checksums of the outputs
+     */
+    private Entry(long size, long modified, List<String> outputs, long[] outputSizes,
+                  long[] checksums) {
+      this.size = size;
+      this.modified = modified;
+      this.outputs = outputs;
+      this.outputSizes = outputSizes;
+      this.checksums = checksums;
+    }
+  }
+
+  /**
+   * Opens a journal, reading the inputs it records, or creates it if the file does not exist.
+   *
+   * @param file the journal file
+   * @throws IOException If the file cannot be read or written, or is not a batch journal.
+   */
+  public BatchJournal(Path file) throws IOException {
+    this.file = file.toAbsolutePath().normalize();
+    this.folder = this.file.getParent();
+    byte[] content;
+    try {
+      content = Files.readAllBytes(file);
+    } catch (NoSuchFileException e) {
+      content = new byte[0];
+    }
+    String text = new String(content, StandardCharsets.UTF_8);
+    if (!text.isEmpty() && !text.startsWith(HEADER + "\n")) {
+      throw new IOException("Not a batch journal: " + file);
+    }
+    String[] lines = text.split("\n", -1);
+    // The last element follows the last line break, so it is empty unless a line was cut off.
+    for (int i = 1; i < lines.length - 1; i++) {
+      if (!parse(lines[i])) {
+        discardedLines++;
+      }
+    }
+    if (lines.length > 1 && !lines[lines.length - 1].isEmpty()) {
+      discardedLines++;
+    }
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+    if (text.isEmpty()) {
+      append(HEADER + "\n");
+    } else if (!text.endsWith("\n")) {
+      append("\n");
+    }
+  }
+
+  /**
+   * Reads one line of the journal into the entries. A later line for the same input replaces
+   * an earlier one.
+   *
+   * @param line the line
+   * @return true if the line was valid, otherwise false
+   */
+  private boolean parse(String line) {
+    String[] fields = line.split("\t", -1);
+    if (fields.length < 4) {
+      return false;
+    }
+    try {
+      int count = Integer.parseInt(fields[3]);
+      if (count < 0 || fields.length != 4 + 3 * count) {
+        return false;
+      }
+      List<String> outputs = new ArrayList<>(count);
+      long[] sizes = new long[count];
+      long[] checksums = new long[count];
+      for (int i = 0; i < count; i++) {
+        outputs.add(fields[4 + 3 * i]);
+        sizes[i] = Long.parseLong(fields[5 + 3 * i]);
+        checksums[i] = Long.parseLong(fields[6 + 3 * i], 16);
+      }
+      entries.put(fields[0], new Entry(Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+              outputs, sizes, checksums));
+      return true;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns whether an input was finished and has not changed since, and its outputs are
+   * still in place.
+   *
+   * @param input    the name of the input
+   * @param size     the current size of the input in bytes
+   * @param modified the current modification time of the input in milliseconds
+   * @param verify   whether to compare the checksums of the outputs as well as their sizes
+   * @return true if the input does not need to be processed again, otherwise false
+   * @throws IOException If an output cannot be read.
+   */
+  public boolean isFinished(String input, long size, long modified, boolean verify)
+          throws IOException {
+    Entry entry;
+    synchronized (this) {
+      entry = entries.get(input);
+    }
+    if (entry == null || entry.size != size || entry.modified != modified) {
+      return false;
+    }
+    for (int i = 0; i < entry.outputs.size(); i++) {
+      Path output = folder.resolve(entry.outputs.get(i));
+      if (!Files.isRegularFile(output) || Files.size(output) != entry.outputSizes[i]
+              || verify && checksum(output) != entry.checksums[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Records a finished input with the checksums of its outputs, which must all be written.
+   * The line reaches the operating system before this method returns.
+   *
+   * @param input    the name of the input, without tabs or line breaks
+   * @param size     the size of the input in bytes
+   * @param modified the modification time of the input in milliseconds
+   * @param outputs  the outputs written for the input
+   * @throws IOException If an output cannot be read or the journal cannot be written.
+   */
+  public void record(String input, long size, long modified, List<Path> outputs)
+          throws IOException {
+    if (input.indexOf('\t') >= 0 || input.indexOf('\n') >= 0) {
+      throw new IllegalArgumentException("Input names cannot contain tabs or line breaks.");
+    }
+    List<String> names = new ArrayList<>(outputs.size());
+    long[] sizes = new long[outputs.size()];
+    long[] checksums = new long[outputs.size()];
+    StringBuilder line = new StringBuilder(input).append('\t').append(size).append('\t')
+            .append(modified).append('\t').append(outputs.size());
+    for (int i = 0; i < outputs.size(); i++) {
+      Path output = outputs.get(i).toAbsolutePath().normalize();
+      names.add(folder.relativize(output).toString());
+      sizes[i] = Files.size(output);
+      checksums[i] = checksum(output);
+      line.append('\t').append(names.get(i)).append('\t').append(sizes[i]).append('\t')
+              .append(Long.toHexString(checksums[i]));
+    }
+    synchronized (this) {
+      append(line.append('\n').toString());
+      entries.put(input, new Entry(size, modified, names, sizes, checksums));
+    }
+  }
+
+  /**
+   * Writes text to the end of the journal with one write.
+   *
+   * @param text the text
+   * @throws IOException If the journal cannot be written.
+   */
+  private synchronized void append(String text) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /**
+   * Computes the CRC-32C checksum of a file.
+   *
+   * @param path the file
+   * @return the checksum
+   * @throws IOException If the file cannot be read.
+   */
+  public static long checksum(Path path) throws IOException {
+    CRC32C crc = new CRC32C();
+    byte[] buffer = new byte[1 << 16];
+    try (InputStream in = Files.newInputStream(path)) {
+      int read;
+      while ((read = in.read(buffer)) > 0) {
+        crc.update(buffer, 0, read);
+      }
+    }
+    return crc.getValue();
+  }
+
+  /**
+   * Returns the journal file.
+   *
+   * @return the absolute path of the journal
+   */
+  public Path getFile() {
+    return file;
+  }
+
+  /**
+   * Returns the number of inputs the journal records.
+   *
+   * @return the number of finished inputs
+   */
+  public synchronized int getEntryCount() {
+    return entries.size();
+  }
+
+  /**
+   * Returns the outputs recorded for an input.
+   *
+   * @param input the name of the input
+   * @return the names of its outputs relative to the folder of the journal, or an empty list
+   *         if the input is not recorded
+   */
+  public synchronized List<String> getOutputs(String input) {
+    Entry entry = entries.get(input);
+    return entry == null ? Collections.emptyList()
+            : Collections.unmodifiableList(entry.outputs);
+  }
+
+  /**
+   * Returns the number of lines that were ignored when the journal was opened because they
+   * were not completely written.
+   *
+   * @return the number of ignored lines
+   */
+  public int getDiscardedLines() {
+    return discardedLines;
+  }
+
+  /**
+   * Forces the journal to the storage device and closes it.
+   *
+   * @throws IOException If the journal cannot be written.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (channel.isOpen()) {
+      channel.force(true);
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,211 @@
+package controller;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs batch work on two kinds of threads: tasks that mostly wait for files, such as decoding
+ * and encoding images, run on I/O threads, and the CPU-bound image operations they hand over
+ * run on a fixed pool of platform threads, one per processor by default. The I/O threads are
+ * virtual threads when the runtime has them, so any number of files can wait for the disk
+ * without holding a platform thread each; on older runtimes they are a pool of platform
+ * threads, one per task that may be in flight.
+ * Both sides are bounded: the number of I/O tasks in flight is limited, and submitting one
+ * waits while the limit is reached, and CPU work waits in a bounded queue, which an I/O task
+ * blocks on while it is full. Images therefore never pile up between the disk and the
+ * processors, while enough files are in flight to keep both busy.
+ */
+public final class BatchPipeline implements Closeable {
+  private final ExecutorService io;
+  private final ThreadPoolExecutor cpu;
+  private final boolean virtual;
+  private final Semaphore inFlight;
+  private final int maxInFlight;
+
+  /**
+   * Constructs a pipeline sized to the processors of the machine: one CPU thread per
+   * processor, a CPU queue of two tasks per thread and four I/O tasks in flight per thread.
+   */
+  public BatchPipeline() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructs a pipeline with the given number of CPU threads, a CPU queue of two tasks per
+   * thread and four I/O tasks in flight per thread.
+   *
+   * @param cpuThreads the number of CPU threads
+   * @throws IllegalArgumentException if the number of threads is not positive
+   */
+  public BatchPipeline(int cpuThreads) {
+    this(cpuThreads, 2 * cpuThreads, 4 * cpuThreads);
+  }
+
+  /**
+   * Constructs a pipeline.
+   *
+   * @param cpuThreads       the number of CPU threads
+   * @param cpuQueueCapacity the number of CPU tasks that wait for a thread
+   * @param maxInFlight      the number of I/O tasks that run at the same time
+   * @throws IllegalArgumentException if a count is not positive
+   */
+  public BatchPipeline(int cpuThreads, int cpuQueueCapacity, int maxInFlight) {
+    if (cpuThreads <= 0 || cpuQueueCapacity <= 0 || maxInFlight <= 0) {
+      throw new IllegalArgumentException("Threads, queue capacity and tasks in flight must be "
+              + "positive.");
+    }
+    AtomicInteger cpuCount = new AtomicInteger();
+    this.cpu = new ThreadPoolExecutor(cpuThreads, cpuThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(cpuQueueCapacity), runnable -> {
+              Thread thread = new Thread(runnable, "batch-cpu-" + cpuCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            }, (runnable, executor) -> {
+              if (executor.isShutdown()) {
+                throw new RejectedExecutionException("The pipeline is closed.");
+              }
+              try {
+                executor.getQueue().put(runnable);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for the queue.");
+              }
+            });
+    ExecutorService virtualThreads = newVirtualThreadPerTaskExecutor();
+    this.virtual = virtualThreads != null;
+    if (virtual) {
+      this.io = virtualThreads;
+    } else {
+      AtomicInteger ioCount = new AtomicInteger();
+      this.io = Executors.newFixedThreadPool(maxInFlight, runnable -> {
+        Thread thread = new Thread(runnable, "batch-io-" + ioCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    this.maxInFlight = maxInFlight;
+    this.inFlight = new Semaphore(maxInFlight);
+  }
+
+  /**
+   * Creates an executor that starts a virtual thread per task, if the runtime has virtual
+   * threads. The method is looked up reflectively, since the code is compiled for runtimes
+   * that do not have it.
+   *
+   * @return the executor, or null if virtual threads are not available
+   */
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+              .invoke(null);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // Older runtimes have no such method; preview runtimes refuse it without the flag.
+      return null;
+    }
+  }
+
+  /**
+   * Returns whether the I/O tasks run on virtual threads.
+   *
+   * @return true on runtimes with virtual threads, otherwise false
+   */
+  public boolean usesVirtualThreads() {
+    return virtual;
+  }
+
+  /**
+   * Starts an I/O task, first waiting while the largest number of tasks is in flight.
+   *
+   * @param task the task
+   * @throws InterruptedException       if the calling thread is interrupted while waiting
+   * @throws RejectedExecutionException if the pipeline is closed
+   */
+  public void execute(Runnable task) throws InterruptedException {
+    inFlight.acquire();
+    try {
+      io.execute(() -> {
+        try {
+          task.run();
+        } finally {
+          inFlight.release();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      inFlight.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Runs CPU-bound work on a CPU thread and waits for its result. Called from an I/O task,
+   * this waits while the CPU queue is full.
+   *
+   * @param task the work
+   * @param <T>  the type of the result
+   * @return the result of the work
+   * @throws Exception the exception the work threw, or an {@link InterruptedException} if the
+   *                   calling thread is interrupted while waiting
+   */
+  public <T> T compute(Callable<T> task) throws Exception {
+    Future<T> result = cpu.submit(task);
+    try {
+      return result.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Exception) {
+        throw (Exception) cause;
+      }
+      throw (Error) cause;
+    } catch (InterruptedException e) {
+      result.cancel(true);
+      throw e;
+    }
+  }
+
+  /**
+   * Waits until no I/O task is in flight.
+   *
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public void awaitIdle() throws InterruptedException {
+    inFlight.acquire(maxInFlight);
+    inFlight.release(maxInFlight);
+  }
+
+  /**
+   * Returns the number of I/O tasks in flight.
+   *
+   * @return the number of running I/O tasks
+   */
+  public int getInFlight() {
+    return maxInFlight - inFlight.availablePermits();
+  }
+
+  /**
+   * Returns the number of CPU tasks waiting for a CPU thread.
+   *
+   * @return the CPU queue depth
+   */
+  public int getCpuQueueDepth() {
+    return cpu.getQueue().size();
+  }
+
+  /**
+   * Stops the threads once the tasks that were started have finished.
+   */
+  @Override
+  public void close() {
+    io.shutdown();
+    cpu.shutdown();
+  }
+}
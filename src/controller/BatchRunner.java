@@ -0,0 +1,188 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import view.IView;
+
+/**
+ * Runs a script template once on every image file of an input folder, as a
+ * {@link TemplateProcessor} does, recording every finished file in a {@link BatchJournal}.
+ * When a job that was stopped is run again with the same journal, the files it finished are
+ * skipped after a check of the journal, and only the rest are processed; the staging folders
+ * of the files that were in progress are deleted first. The files are processed on a
+ * {@link BatchPipeline}: every file is loaded, checked against the journal and saved on an
+ * I/O thread, a virtual thread where the runtime has them, while its image operations run on
+ * the CPU threads. Listing the folder waits while the pipeline is full, so it never runs far
+ * ahead of the work.
+ */
+public final class BatchRunner {
+  /**
+   * The name of the journal in the output folder, which the application uses.
+   */
+  public static final String JOURNAL_NAME = ".batch-journal";
+
+  private final Path inputFolder;
+  private final TemplateProcessor processor;
+  private final int workers;
+  private final IView view;
+  private final AtomicLong skipped = new AtomicLong();
+  private final AtomicLong completed = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private long elapsedNanos;
+
+  /**
+   * Constructs a runner.
+   *
+   * @param inputFolder  the folder whose image files are processed
+   * @param outputFolder the folder that results are moved into
+   * @param template     the lines of the script template
+   * @param workers      the number of CPU threads that run the image operations
+   * @param mode         how the template is run for every file
+   * @param registry     the registry that compiles the template
+   * @param view         the view that shows errors
+   * @throws IllegalArgumentException if a folder does not exist or has a space in its path,
+   *                                  both folders are the same, the number of workers is not
+   *                                  positive or the template is invalid, as described by
+   *                                  {@link TemplateProcessor}
+   */
+  public BatchRunner(Path inputFolder, Path outputFolder, List<String> template, int workers,
+                     ScriptMode mode, CommandRegistry registry, IView view) {
+    if (workers <= 0) {
+      throw new IllegalArgumentException("Workers must be positive.");
+    }
+    this.inputFolder = TemplateProcessor.folder(inputFolder);
+    this.processor = new TemplateProcessor(outputFolder, template, mode, registry);
+    if (this.inputFolder.equals(processor.getOutputFolder())) {
+      throw new IllegalArgumentException("The input and output folders must differ.");
+    }
+    this.workers = workers;
+    this.view = view;
+  }
+
+  /**
+   * Processes every image file of the input folder that the journal does not record as
+   * finished, and waits until all are done. A file that fails is reported and not recorded,
+   * so it is tried again by the next run.
+   *
+   * @param journal the journal to check and record finished files in
+   * @param verify  whether to compare the checksums of the outputs of recorded files, which
+   *                reads every output, rather than only their sizes
+   * @throws IOException          If the folders cannot be listed.
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public void run(BatchJournal journal, boolean verify) throws IOException,
+          InterruptedException {
+    try (BatchPipeline pipeline = new BatchPipeline(workers)) {
+      run(journal, verify, pipeline);
+    }
+  }
+
+  /**
+   * Processes every image file of the input folder that the journal does not record as
+   * finished on the given pipeline, and waits until all are done.
+   *
+   * @param journal  the journal to check and record finished files in
+   * @param verify   whether to compare the checksums of the outputs of recorded files
+   * @param pipeline the pipeline, on which no other work may run at the same time
+   * @throws IOException          If the folders cannot be listed.
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public void run(BatchJournal journal, boolean verify, BatchPipeline pipeline)
+          throws IOException, InterruptedException {
+    long start = System.nanoTime();
+    skipped.set(0);
+    completed.set(0);
+    failed.set(0);
+    int deleted = processor.deleteStaging();
+    if (deleted > 0) {
+      view.showMessage("Deleted the partial results of " + deleted + " unfinished files.");
+    }
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(inputFolder,
+            TemplateProcessor::isImageFile)) {
+      stream.forEach(files::add);
+    }
+    files.sort(null);
+    try {
+      for (Path file : files) {
+        pipeline.execute(() -> process(file, journal, verify, pipeline));
+      }
+    } finally {
+      pipeline.awaitIdle();
+      elapsedNanos = System.nanoTime() - start;
+    }
+  }
+
+  /**
+   * Processes one file unless the journal records it as finished, and records it once its
+   * results are in place.
+   *
+   * @param file     the file
+   * @param journal  the journal
+   * @param verify   whether to compare the checksums of recorded outputs
+   * @param pipeline the pipeline whose CPU threads run the image operations
+   */
+  private void process(Path file, BatchJournal journal, boolean verify,
+                       BatchPipeline pipeline) {
+    String name = inputFolder.relativize(file).toString();
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+      long size = attributes.size();
+      long modified = attributes.lastModifiedTime().toMillis();
+      if (journal.isFinished(name, size, modified, verify)) {
+        skipped.incrementAndGet();
+        return;
+      }
+      List<Path> outputs = processor.process(file, pipeline);
+      journal.record(name, size, modified, outputs);
+      completed.incrementAndGet();
+    } catch (Exception e) {
+      failed.incrementAndGet();
+      view.showError("Error processing " + name + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Returns the number of files of the last run that were skipped as finished.
+   *
+   * @return the number of skipped files
+   */
+  public long getSkipped() {
+    return skipped.get();
+  }
+
+  /**
+   * Returns the number of files of the last run that were processed and recorded.
+   *
+   * @return the number of completed files
+   */
+  public long getCompleted() {
+    return completed.get();
+  }
+
+  /**
+   * Returns the number of files of the last run that failed.
+   *
+   * @return the number of failed files
+   */
+  public long getFailed() {
+    return failed.get();
+  }
+
+  /**
+   * Formats the counts of the last run as one line.
+   *
+   * @return the counts and the elapsed time
+   */
+  public String formatSummary() {
+    return String.format("Batch: %d skipped as finished, %d processed, %d failed in %.1f s.",
+            getSkipped(), getCompleted(), getFailed(), elapsedNanos / 1e9);
+  }
+}
@@ -0,0 +1,20 @@
+package controller;
+
+/**
+ * Compiles the words of one script line into a {@link CompiledCommand}. A factory parses and
+ * validates every argument, so that a script with a mistake is rejected before any of its
+ * commands runs, and nothing is parsed again when the compiled command is executed.
+ */
+@FunctionalInterface
+public interface CommandFactory {
+
+  /**
+   * Parses and validates the words of a command.
+   *
+   * @param text  the line of the script, without surrounding whitespace
+   * @param words the words of the line; the first is the name of the command
+   * @return the compiled command
+   * @throws IllegalArgumentException if an argument is missing, surplus or invalid
+   */
+  CompiledCommand compile(String text, String[] words);
+}
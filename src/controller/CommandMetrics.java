@@ -0,0 +1,129 @@
+package controller;
+
+/**
+ * Holds the measurements taken while one script command was executed: the elapsed wall time,
+ * the CPU time and the bytes allocated by all threads of the JVM, including the worker threads
+ * the command handed work to, and the dimensions of the image the command produced.
+ */
+public final class CommandMetrics {
+  private final String command;
+  private final boolean successful;
+  private final long wallNanos;
+  private final long cpuNanos;
+  private final long allocatedBytes;
+  private final boolean partial;
+  private final int width;
+  private final int height;
+
+  /**
+   * Constructs the measurements of one command.
+   *
+   * @param command        the command line that was executed
+   * @param successful     whether the command succeeded
+   * @param wallNanos      the elapsed wall time in nanoseconds
+   * @param cpuNanos       the CPU time of all threads in nanoseconds, or -1 if it could not be
+   *                       measured
+   * @param allocatedBytes the bytes allocated by all threads, or -1 if they could not be
+   *                       measured
+   * @param partial        whether a thread ended while the command ran, so its share of the
+   *                       CPU time and allocations is missing
+   * @param width          the width of the produced image, or -1 if there is none
+   * @param height         the height of the produced image, or -1 if there is none
+   */
+  public CommandMetrics(String command, boolean successful, long wallNanos, long cpuNanos,
+                        long allocatedBytes, boolean partial, int width, int height) {
+    this.command = command;
+    this.successful = successful;
+    this.wallNanos = wallNanos;
+    this.cpuNanos = cpuNanos;
+    this.allocatedBytes = allocatedBytes;
+    this.partial = partial;
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Returns the name of the command, which is the first word of the command line.
+   *
+   * @return the command name
+   */
+  public String getName() {
+    int space = command.indexOf(' ');
+    return space == -1 ? command : command.substring(0, space);
+  }
+
+  /**
+   * Returns the command line that was executed.
+   *
+   * @return the command line
+   */
+  public String getCommand() {
+    return command;
+  }
+
+  /**
+   * Returns whether the command succeeded.
+   *
+   * @return true if the command succeeded, otherwise false
+   */
+  public boolean isSuccessful() {
+    return successful;
+  }
+
+  /**
+   * Returns the elapsed wall time.
+   *
+   * @return the wall time in nanoseconds
+   */
+  public long getWallNanos() {
+    return wallNanos;
+  }
+
+  /**
+   * Returns the CPU time of all threads while the command ran, including the pools it used.
+   *
+   * @return the CPU time in nanoseconds, or -1 if it could not be measured
+   */
+  public long getCpuNanos() {
+    return cpuNanos;
+  }
+
+  /**
+   * Returns the bytes allocated by all threads while the command ran, including the pools it
+   * used, for example by parallel histogram stripes.
+   *
+   * @return the allocated bytes, or -1 if they could not be measured
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /**
+   * Returns whether the CPU time and allocations are only a lower bound. A thread that ends
+   * while the command runs, such as a thread of a streamed chain, can no longer be read, so its
+   * share is missing.
+   *
+   * @return true if a thread ended while the command ran, otherwise false
+   */
+  public boolean isPartial() {
+    return partial;
+  }
+
+  /**
+   * Returns the width of the image the command produced.
+   *
+   * @return the width, or -1 if the command produced no image
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the height of the image the command produced.
+   *
+   * @return the height, or -1 if the command produced no image
+   */
+  public int getHeight() {
+    return height;
+  }
+}
@@ -0,0 +1,785 @@
+package controller;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32C;
+
+import controller.commands.AdjustLevelsCommand;
+import controller.commands.BlueComponentCommand;
+import controller.commands.BlurCommand;
+import controller.commands.BrightenCommand;
+import controller.commands.ColorCorrectCommand;
+import controller.commands.CompressCommand;
+import controller.commands.GreenComponentCommand;
+import controller.commands.HistogramCommand;
+import controller.commands.HorizontalFlipCommand;
+import controller.commands.ICommand;
+import controller.commands.IntensityComponentCommand;
+import controller.commands.LoadCommand;
+import controller.commands.LumaComponentCommand;
+import controller.commands.RGBCombineCommand;
+import controller.commands.RGBSplitCommand;
+import controller.commands.RedComponentCommand;
+import controller.commands.ResizeCommand;
+import controller.commands.SaveCommand;
+import controller.commands.SepiaCommand;
+import controller.commands.SharpenCommand;
+import controller.commands.ThumbnailCommand;
+import controller.commands.TileCommand;
+import controller.commands.ValueComponentCommand;
+import controller.commands.VerticalFlipCommand;
+import model.IImageModel;
+import model.image.RasterKernel;
+import model.image.RasterKernels;
+import model.image.ResizeFilter;
+import model.image.TiledImage;
+import model.strategy.AdjustLevelsFilterStrategy;
+import model.strategy.BlurFilterStrategy;
+import model.strategy.BrightenFilterStrategy;
+import model.strategy.FilterStrategy;
+import model.strategy.IntensityFilterStrategy;
+import model.strategy.LumaFilterStrategy;
+import model.strategy.SepiaFilterStrategy;
+import model.strategy.SharpenFilterStrategy;
+import model.strategy.SplitFilterDecorator;
+import model.strategy.ValueFilterStrategy;
+
+/**
+ * A registry of the script commands, mapping the name of every command to the
+ * {@link CommandFactory} that compiles it. Scripts are compiled as a whole into a
+ * {@link ScriptPlan} before any of their commands runs, so a mistake on any line is reported
+ * at once, with its line number, instead of when execution reaches it.
+ * The registry keeps the plans of the scripts it compiled recently and reuses a plan as long as
+ * the content of its file has not changed, so running the same script again does not parse it
+ * again. The
+ * registry is immutable apart from that cache, which is safe for use by several threads.
+ */
+public final class CommandRegistry {
+  /**
+   * The number of compiled scripts kept for reuse.
+   */
+  public static final int MAX_CACHED_PLANS = 16;
+
+  private static final Pattern WORDS = Pattern.compile("\\s+");
+
+  private final Map<String, CommandFactory> factories;
+  private final Map<Path, CachedPlan> plans = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Path, CachedPlan> eldest) {
+      return size() > MAX_CACHED_PLANS;
+    }
+  };
+
+  /**
+   * Holds the registry of the built-in commands, created on first use.
+   */
+  private static final class DefaultRegistry {
+    private static final CommandRegistry INSTANCE = new CommandRegistry(builtIns());
+  }
+
+  /**
+   * A compiled script together with the size and the CRC-32C checksum of the content it was
+   * compiled from. The content is compared rather than the modification time, which a file
+   * system may record too coarsely to notice an edit, and which tools can restore.
+   */
+  private static final class CachedPlan {
+    private final long size;
+    private final long checksum;
+    private final ScriptPlan plan;
+
+    /**
+     * Constructs a cache entry.
+     *
+     * @param size     the number of bytes of the script
+     * @param checksum the checksum of the bytes of the script
+     * @param plan     the compiled script
+     */
+    private CachedPlan(long size, long checksum, ScriptPlan plan) {
+      this.size = size;
+      this.checksum = checksum;
+      this.plan = plan;
+    }
+
+    /**
+     * Returns whether the script still has the content it was compiled from.
+     *
+     * @param size     the current number of bytes of the script
+     * @param checksum the checksum of the current bytes of the script
+     * @return true if the plan can be reused, otherwise false
+     */
+    private boolean isCurrent(long size, long checksum) {
+      return this.size == size && this.checksum == checksum;
+    }
+  }
+
+  /**
+   * Creates a command that transforms a source image into a destination image.
+   */
+  private interface TransformConstructor {
+
+    /**
+     * Creates the command.
+     *
+     * @param imageName     the name of the source image
+     * @param destImageName the name of the destination image
+     * @param model         the model the command operates on
+     * @return the command
+     */
+    ICommand create(String imageName, String destImageName, IImageModel model);
+  }
+
+  /**
+   * Creates a command that transforms a source image into a destination image, optionally
+   * only up to a split line.
+   */
+  private interface SplitConstructor {
+
+    /**
+     * Creates the command.
+     *
+     * @param imageName       the name of the source image
+     * @param destImageName   the name of the destination image
+     * @param model           the model the command operates on
+     * @param splitPercentage the optional split percentage
+     * @return the command
+     */
+    ICommand create(String imageName, String destImageName, IImageModel model,
+                    Optional<Double> splitPercentage);
+  }
+
+  /**
+   * Constructs a registry of the given commands.
+   *
+   * @param factories the factory of every command, by command name
+   */
+  public CommandRegistry(Map<String, CommandFactory> factories) {
+    this.factories = Collections.unmodifiableMap(new LinkedHashMap<>(factories));
+  }
+
+  /**
+   * Returns the registry of the built-in commands.
+   *
+   * @return the shared default registry
+   */
+  public static CommandRegistry getDefault() {
+    return DefaultRegistry.INSTANCE;
+  }
+
+  /**
+   * Returns the factories of the built-in commands. The map is a new modifiable copy, so a
+   * caller can add or replace commands and construct a registry of its own from it.
+   *
+   * @return the factory of every built-in command, by command name
+   */
+  public static Map<String, CommandFactory> builtIns() {
+    Map<String, CommandFactory> builtIns = new LinkedHashMap<>();
+    builtIns.put("load", CommandRegistry::load);
+    builtIns.put("save", CommandRegistry::save);
+    builtIns.put("red-component", transform(RedComponentCommand::new));
+    builtIns.put("green-component", transform(GreenComponentCommand::new));
+    builtIns.put("blue-component", transform(BlueComponentCommand::new));
+    builtIns.put("value-component", split(ValueComponentCommand::new, new ValueFilterStrategy()));
+    builtIns.put("luma-component", split(LumaComponentCommand::new, new LumaFilterStrategy()));
+    builtIns.put("intensity-component", split(IntensityComponentCommand::new,
+        new IntensityFilterStrategy()));
+    builtIns.put("horizontal-flip", transform(HorizontalFlipCommand::new));
+    builtIns.put("vertical-flip", transform(VerticalFlipCommand::new));
+    builtIns.put("brighten", CommandRegistry::brighten);
+    builtIns.put("rgb-split", CommandRegistry::rgbSplit);
+    builtIns.put("rgb-combine", CommandRegistry::rgbCombine);
+    builtIns.put("blur", split(BlurCommand::new, new BlurFilterStrategy()));
+    builtIns.put("sharpen", split(SharpenCommand::new, new SharpenFilterStrategy()));
+    builtIns.put("sepia", split(SepiaCommand::new, new SepiaFilterStrategy()));
+    builtIns.put("compress", CommandRegistry::compress);
+    builtIns.put("histogram", transform(HistogramCommand::new));
+    builtIns.put("color-correct", split(ColorCorrectCommand::new, null));
+    builtIns.put("levels-adjust", CommandRegistry::levelsAdjust);
+    builtIns.put("resize", CommandRegistry::resize);
+    builtIns.put("thumbnail", CommandRegistry::thumbnail);
+    builtIns.put("tile", CommandRegistry::tile);
+    builtIns.put("alias", CommandRegistry::alias);
+    builtIns.put("run", CommandRegistry::run);
+    return builtIns;
+  }
+
+  /**
+   * Returns the names of the registered commands.
+   *
+   * @return an unmodifiable set of the names
+   */
+  public Set<String> getCommandNames() {
+    return factories.keySet();
+  }
+
+  /**
+   * Compiles one command.
+   *
+   * @param line the command
+   * @return the compiled command
+   * @throws IllegalArgumentException if the command is unknown or its arguments are invalid
+   */
+  public CompiledCommand compile(String line) {
+    String text = line.trim();
+    String[] words = WORDS.split(text);
+    CommandFactory factory = factories.get(words[0]);
+    if (factory == null) {
+      throw new IllegalArgumentException("Unknown command " + words[0]);
+    }
+    return factory.compile(text, words);
+  }
+
+  /**
+   * Compiles the lines of a script. Lines starting with "#" and empty lines are skipped, as
+   * by {@link ScriptParser}. Compilation stops at the first line with a mistake.
+   *
+   * @param lines the lines of the script
+   * @return the plan of the script
+   * @throws IllegalArgumentException if a command is unknown or its arguments are invalid; the
+   *                                  message starts with the line number
+   */
+  public ScriptPlan compile(List<String> lines) {
+    List<CompiledCommand> commands = new ArrayList<>(lines.size());
+    for (int i = 0; i < lines.size(); i++) {
+      String line = lines.get(i).trim();
+      if (!ScriptParser.isCommand(line)) {
+        continue;
+      }
+      try {
+        commands.add(compile(line));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Line " + (i + 1) + ": " + e.getMessage(), e);
+      }
+    }
+    return new ScriptPlan(commands);
+  }
+
+  /**
+   * Compiles the script file at the given path, or returns the plan compiled before if the
+   * content of the file has not changed since. The file is read once, and the same bytes are
+   * checked against the cache and compiled.
+   *
+   * @param scriptFilePath the path of the script
+   * @return the plan of the script
+   * @throws IOException              If the script cannot be read or is not valid UTF-8.
+   * @throws IllegalArgumentException if a command is unknown or its arguments are invalid
+   */
+  public ScriptPlan compileScript(String scriptFilePath) throws IOException {
+    Path path = Paths.get(scriptFilePath).toAbsolutePath().normalize();
+    byte[] content = Files.readAllBytes(path);
+    CRC32C crc = new CRC32C();
+    crc.update(content);
+    long checksum = crc.getValue();
+    synchronized (plans) {
+      CachedPlan cached = plans.get(path);
+      if (cached != null && cached.isCurrent(content.length, checksum)) {
+        return cached.plan;
+      }
+    }
+    ScriptPlan plan = compile(lines(content));
+    synchronized (plans) {
+      plans.put(path, new CachedPlan(content.length, checksum, plan));
+    }
+    return plan;
+  }
+
+  /**
+   * Splits the content of a script into lines, like {@link Files#readAllLines(Path)} does.
+   *
+   * @param content the bytes of the script
+   * @return the lines of the script
+   * @throws IOException If the content is not valid UTF-8.
+   */
+  private static List<String> lines(byte[] content) throws IOException {
+    String text = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(content))
+            .toString();
+    try (BufferedReader reader = new BufferedReader(new StringReader(text))) {
+      return reader.lines().collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * Returns the number of compiled scripts kept for reuse.
+   *
+   * @return the number of cached plans
+   */
+  public int getCachedPlanCount() {
+    synchronized (plans) {
+      return plans.size();
+    }
+  }
+
+  /**
+   * Returns a factory for a command that takes a source and a destination image.
+   *
+   * @param constructor creates the command
+   * @return the factory
+   */
+  private static CommandFactory transform(TransformConstructor constructor) {
+    return (text, words) -> {
+      arguments(words, 2, 2, "<source image name> <destination image name>");
+      String imageName = words[1];
+      String destImageName = words[2];
+      return CompiledCommand.pure(text, words[0], Collections.singletonList(imageName),
+              Collections.singletonList(destImageName), Collections.singletonList(words[0]),
+              model -> constructor.create(imageName, destImageName, model));
+    };
+  }
+
+  /**
+   * Returns a factory for a command that takes a source and a destination image and an
+   * optional split percentage.
+   *
+   * @param constructor creates the command
+   * @param filter      the filter the command applies, or null if it cannot be applied in
+   *                    strips of rows
+   * @return the factory
+   */
+  private static CommandFactory split(SplitConstructor constructor, FilterStrategy filter) {
+    return (text, words) -> {
+      arguments(words, 2, 4,
+              "<source image name> <destination image name> [split <percentage>]");
+      String imageName = words[1];
+      String destImageName = words[2];
+      Optional<Double> splitPercentage = splitPercentage(words, 3);
+      CompiledCommand compiled = CompiledCommand.pure(text, words[0],
+              Collections.singletonList(imageName), Collections.singletonList(destImageName),
+              Collections.singletonList(operation(words[0], splitPercentage)),
+              model -> constructor.create(imageName, destImageName, model, splitPercentage));
+      return filter == null ? compiled : compiled.withFilter(splitFilter(filter, splitPercentage));
+    };
+  }
+
+  /**
+   * Compiles a load command: a path, an image name and optional decode settings.
+   *
+   * @param text  the line of the script
+   * @param words the words of the line
+   * @return the compiled command
+   */
+  private static CompiledCommand load(String text, String[] words) {
+    arguments(words, 2, Integer.MAX_VALUE,
+            "<file path> <image name> [size <n>] [subsample <n>]");
+    String imagePath = words[1];
+    String imageName = words[2];
+    DecodeOptions options = DecodeOptions.parse(Arrays.asList(words).subList(3, words.length));
+    CompiledCommand compiled = CompiledCommand.source(text, words[0], imageName,
+            model -> new LoadCommand(imagePath, imageName, model, options));
+    return options.isDefault() ? compiled.withFiles(Collections.singletonList(imagePath))
+            : compiled;
+  }
+
+  /**
+   * Compiles a save command: one or more paths, an image name and optional encoder settings.
+   *
+   * @param text  the line of the script
+   * @param words the words of the line
+   * @return the compiled command
+   */
+  private static CompiledCommand save(String text, String[] words) {
+    arguments(words, 2, Integer.MAX_VALUE, "<file path>... <image name> [settings]");
+    int settings = 3;
+    while (settings < words.length && !EncoderOptions.isSetting(words[settings])) {
+      settings++;
+    }
+    List<String> imagePaths = Collections.unmodifiableList(
+            new ArrayList<>(Arrays.asList(words).subList(1, settings - 1)));
+    String imageName = words[settings - 1];
+    EncoderOptions options = EncoderOptions.parse(
+            Arrays.asList(words).subList(settings, words.length));
+    return CompiledCommand.sink(text, words[0], imageName,
+            model -> new SaveCommand(imagePaths, imageName, model, options))
+            .withFiles(imagePaths).withEncoderOptions(options);
+  }
+
+  /**
+   * Compiles a brighten command: an increment, a source and a destination image.
+   *
+   * @param text  the line of the script
+   * @param words the words of the line
+   * @return the compiled command
+   */
+  private static CompiledCommand brighten(String text, String[] words) {
+    arguments(words, 3, 3, "<increment> <source image name> <destination image name>");
+    int increment = integer(words[1]);
+    return CompiledCommand.pure(text, words[0], Collections.singletonList(words[2]),
+            Collections.singletonList(words[3]),
+            Collections.singletonList(words[0] + " " + increment),
+            model -> new BrightenCommand(increment, words[2], words[3], model))
+            .withFilter(new BrightenFilterStrategy(increment));
+  }
+
+  /**
+   * Compiles an rgb-split command: a source image and the three channel images.
+   *
+   * @param text  the line of the script
+   * @param words the words of the line
+   * @return the compiled command
+   */
+  private static CompiledCommand rgbSplit(String text, String[] words) {
+    arguments(words, 4, 4,
+            "<source image name> <red image name> <green image name> <blue image name>");
+    return CompiledCommand.pure(text, words[0], Collections.singletonList(words[1]),
+            Arrays.asList(words[2], words[3], words[4]),
+            Arrays.asList("red-component", "green-component", "blue-component"),
+            model -> new RGBSplitCommand(words[1], words[2], words[3], words[4], model));
+  }
+
+  /**
+   * Compiles an rgb-combine command: a destination image and the three channel images.
+   *
+   * @param text  the line of the script
+   * @param words the words of the line
+   * @return the compiled command
+   */
+  private static CompiledCommand rgbCombine(String text, String[] words) {
+    arguments(words, 4, 4,
+            "<destination image name> <red image name> <green image name> <blue image name>");
+    return CompiledCommand.pure(text, words[0], Arrays.asList(words[2], words[3], words[4]),
+            Collections.singletonList(words[1]), Collections.singletonList(words[0]),
+            model -> new RGBCombineCommand(words[1], words[2], words[3], words[4], model));
+  }
+
+  /**
+   * Compiles a compress command: a percentage, a source and a destination image.
+   *
+   * @param text  the line of the script
+   * @param words the words of the line
+   * @return the compiled command
+   */
+  private static CompiledCommand compress(String text, String[] words) {
+    arguments(words, 3, 3, "<percentage> <source image name> <destination image name>");
+    int percentage = integer(words[1]);
+    return CompiledCommand.pure(text, words[0], Collections.singletonList(words[2]),
+            Collections.singletonList(words[3]),
+            Collections.singletonList(words[0] + " " + percentage),
+            model -> new CompressCommand(percentage, words[2], words[3], model));
+  }
+
+  /**
+   * Compiles a levels-adjust command: the black, mid and white points, a source and a
+   * destination image and an optional split percentage.
+   *
+   * @param text  the line of the script
+   * @param words the words of the line
+   * @return the compiled command
+   */
+  private static CompiledCommand levelsAdjust(String text, String[] words) {
+    arguments(words, 5, 7, "<black> <mid> <white> <source image name> "
+            + "<destination image name> [split <percentage>]");
+    int black = integer(words[1]);
+    int mid = integer(words[2]);
+    int white = integer(words[3]);
+    Optional<Double> splitPercentage = splitPercentage(words, 6);
+    return CompiledCommand.pure(text, words[0], Collections.singletonList(words[4]),
+            Collections.singletonList(words[5]), Collections.singletonList(operation(
+                    words[0] + " " + black + " " + mid + " " + white, splitPercentage)),
+            model -> new AdjustLevelsCommand(black, mid, white, words[4], words[5], model,
+                splitPercentage))
+            .withFilter(splitFilter(new AdjustLevelsFilterStrategy(black, mid, white),
+                    splitPercentage));
+  }
+
+  /**
+   * Compiles a resize command: a width and a height, a source and a destination image and an
+   * optional filter.
+   *
+   * @param text  the line of the script
+   * @param words the words of the line
+   * @return the compiled command
+   */
+  private static CompiledCommand resize(String text, String[] words) {
+    arguments(words, 4, 5, "<width> <height> <source image name> <destination image name> "
+            + "[box|bilinear|lanczos]");
+    int width = positive(words[1]);
+    int height = positive(words[2]);
+    Optional<ResizeFilter> filter = Optional.empty();
+    if (words.length > 5) {
+      try {
+        filter = Optional.of(ResizeFilter.valueOf(words[5].toUpperCase(Locale.ROOT)));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Unknown filter " + words[5]);
+      }
+    }
+    Optional<ResizeFilter> filterOpt = filter;
+    return CompiledCommand.pure(text, words[0], Collections.singletonList(words[3]),
+            Collections.singletonList(words[4]), Collections.singletonList(words[0] + " "
+                    + width + " " + height + filter.map(f -> " " + f).orElse("")),
+            model -> new ResizeCommand(width, height, words[3], words[4], model, filterOpt));
+  }
+
+  /**
+   * Compiles a thumbnail command: a maximum dimension, a source and a destination image.
+   *
+   * @param text  the line of the script
+   * @param words the words of the line
+   * @return the compiled command
+   */
+  private static CompiledCommand thumbnail(String text, String[] words) {
+    arguments(words, 3, 3, "<maximum dimension> <source image name> <destination image name>");
+    int maxDimension = positive(words[1]);
+    return CompiledCommand.pure(text, words[0], Collections.singletonList(words[2]),
+            Collections.singletonList(words[3]),
+            Collections.singletonList(words[0] + " " + maxDimension),
+            model -> new ThumbnailCommand(maxDimension, words[2], words[3], model));
+  }
+
+  /**
+   * Compiles a tile command: a source and a target file and an operation with its arguments,
+   * which is applied to the image tile by tile. The command does not use the model.
+   *
+   * @param text  the line of the script
+   * @param words the words of the line
+   * @return the compiled command
+   */
+  private static CompiledCommand tile(String text, String[] words) {
+    arguments(words, 3, Integer.MAX_VALUE,
+            "<source file path> <target file path> <operation> [arguments]");
+    String sourcePath = words[1];
+    String targetPath = words[2];
+    TileCommand.TileOperation operation = tileOperation(
+            Arrays.copyOfRange(words, 3, words.length));
+    return CompiledCommand.of(text, words[0], null,
+        model -> new TileCommand(sourcePath, operation, targetPath, EncoderOptions.DEFAULTS));
+  }
+
+  /**
+   * Parses the operation of a tile command. Point operations without a split run through the
+   * {@link RasterKernels} of this runtime; the others are applied as filters with a halo.
+   *
+   * @param words the name of the operation followed by its arguments
+   * @return the operation
+   * @throws IllegalArgumentException if the operation is unknown or its arguments are invalid
+   */
+  private static TileCommand.TileOperation tileOperation(String[] words) {
+    RasterKernels kernels = RasterKernels.get();
+    switch (words[0]) {
+      case "red-component":
+        return tilePoint(words, kernels::red, null);
+      case "green-component":
+        return tilePoint(words, kernels::green, null);
+      case "blue-component":
+        return tilePoint(words, kernels::blue, null);
+      case "value-component":
+        return tilePoint(words, kernels::value, new ValueFilterStrategy());
+      case "luma-component":
+        return tilePoint(words, kernels::luma, new LumaFilterStrategy());
+      case "intensity-component":
+        return tilePoint(words, kernels::intensity, new IntensityFilterStrategy());
+      case "sepia":
+        return tilePoint(words, kernels::sepia, new SepiaFilterStrategy());
+      case "brighten":
+        arguments(words, 1, 1, "<increment>");
+        int increment = integer(words[1]);
+        return image -> image.mapPixels(
+            (source, target, length) -> kernels.brighten(increment, source, target, length));
+      case "horizontal-flip":
+        arguments(words, 0, 0, "");
+        return TiledImage::horizontalFlip;
+      case "vertical-flip":
+        arguments(words, 0, 0, "");
+        return TiledImage::verticalFlip;
+      case "blur":
+        return tileFilter(words, 1, new BlurFilterStrategy());
+      case "sharpen":
+        return tileFilter(words, 1, new SharpenFilterStrategy());
+      case "levels-adjust":
+        arguments(words, 3, 5, "<black> <mid> <white> [split <percentage>]");
+        return tileFilter(words, 4, new AdjustLevelsFilterStrategy(integer(words[1]),
+                integer(words[2]), integer(words[3])));
+      default:
+        throw new IllegalArgumentException("Unknown tile operation " + words[0]);
+    }
+  }
+
+  /**
+   * Returns a tiled point operation that may be split. Without a split it maps the packed
+   * pixels of every tile with a kernel; with one it applies the split filter.
+   *
+   * @param words  the name of the operation followed by its arguments
+   * @param kernel the kernel of the operation
+   * @param filter the filter of the operation, or null if it cannot be split
+   * @return the operation
+   */
+  private static TileCommand.TileOperation tilePoint(String[] words, RasterKernel kernel,
+                                                     FilterStrategy filter) {
+    if (filter == null) {
+      arguments(words, 0, 0, "");
+      return image -> image.mapPixels(kernel);
+    }
+    arguments(words, 0, 2, "[split <percentage>]");
+    Optional<Double> splitPercentage = splitPercentage(words, 1);
+    if (splitPercentage.isPresent()) {
+      FilterStrategy split = splitFilter(filter, splitPercentage);
+      return image -> image.applyFilter(split);
+    }
+    return image -> image.mapPixels(kernel);
+  }
+
+  /**
+   * Returns a tiled filter operation with an optional split percentage after its arguments.
+   *
+   * @param words  the name of the operation followed by its arguments
+   * @param index  the index at which "split" may appear
+   * @param filter the filter of the operation
+   * @return the operation
+   */
+  private static TileCommand.TileOperation tileFilter(String[] words, int index,
+                                                      FilterStrategy filter) {
+    arguments(words, index - 1, index + 1, "[split <percentage>]");
+    FilterStrategy split = splitFilter(filter, splitPercentage(words, index));
+    return image -> image.applyFilter(split);
+  }
+
+  /**
+   * Compiles a run command, which names the script to run.
+   *
+   * @param text  the line of the script
+   * @param words the words of the line
+   * @return the compiled command
+   */
+  private static CompiledCommand run(String text, String[] words) {
+    arguments(words, 1, 2, "<script file path> [optimize|stream]");
+    ScriptMode mode = ScriptMode.DIRECT;
+    if (words.length > 2) {
+      if ("optimize".equals(words[2])) {
+        mode = ScriptMode.OPTIMIZED;
+      } else if ("stream".equals(words[2])) {
+        mode = ScriptMode.STREAMED;
+      } else {
+        throw new IllegalArgumentException("Usage: run <script file path> [optimize|stream]");
+      }
+    }
+    return CompiledCommand.script(text, words[0], words[1], mode);
+  }
+
+  /**
+   * Compiles an alias command, which stores an image under a second name.
+   *
+   * @param text  the line of the script
+   * @param words the words of the line
+   * @return the compiled command
+   */
+  private static CompiledCommand alias(String text, String[] words) {
+    arguments(words, 2, 2, "<source image name> <destination image name>");
+    return CompiledCommand.alias(words[1], words[2]);
+  }
+
+  /**
+   * Returns the operation of a command that may be split, which names the split percentage
+   * when there is one.
+   *
+   * @param operation       the operation without a split
+   * @param splitPercentage the optional split percentage
+   * @return the operation
+   */
+  private static String operation(String operation, Optional<Double> splitPercentage) {
+    return splitPercentage.map(percentage -> operation + " split " + percentage)
+            .orElse(operation);
+  }
+
+  /**
+   * Returns the filter of a command that may be split, which is limited to the split
+   * percentage when there is one.
+   *
+   * @param filter          the filter without a split
+   * @param splitPercentage the optional split percentage
+   * @return the filter
+   */
+  private static FilterStrategy splitFilter(FilterStrategy filter,
+                                            Optional<Double> splitPercentage) {
+    return splitPercentage.<FilterStrategy>map(
+        percentage -> new SplitFilterDecorator(filter, percentage)).orElse(filter);
+  }
+
+  /**
+   * Checks the number of arguments of a command.
+   *
+   * @param words the words of the command, starting with its name
+   * @param min   the smallest number of arguments
+   * @param max   the largest number of arguments
+   * @param usage the arguments the command takes, for the error message
+   * @throws IllegalArgumentException if the command has too few or too many arguments
+   */
+  private static void arguments(String[] words, int min, int max, String usage) {
+    int count = words.length - 1;
+    if (count < min || count > max) {
+      throw new IllegalArgumentException("Usage: " + words[0] + " " + usage);
+    }
+  }
+
+  /**
+   * Parses a whole number argument.
+   *
+   * @param word the argument
+   * @return the number
+   * @throws IllegalArgumentException if the argument is not a whole number
+   */
+  private static int integer(String word) {
+    try {
+      return Integer.parseInt(word);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Not a whole number: " + word);
+    }
+  }
+
+  /**
+   * Parses a positive whole number argument.
+   *
+   * @param word the argument
+   * @return the number
+   * @throws IllegalArgumentException if the argument is not a positive whole number
+   */
+  private static int positive(String word) {
+    int value = integer(word);
+    if (value <= 0) {
+      throw new IllegalArgumentException("Not a positive number: " + word);
+    }
+    return value;
+  }
+
+  /**
+   * Parses the optional split percentage at the end of a command.
+   *
+   * @param words the words of the command
+   * @param index the index at which "split" may appear
+   * @return the split percentage, or empty if the command ends before the index
+   * @throws IllegalArgumentException if the words at the index are not "split" and a
+   *                                  percentage between 0 and 100
+   */
+  private static Optional<Double> splitPercentage(String[] words, int index) {
+    if (words.length <= index) {
+      return Optional.empty();
+    }
+    if (!"split".equals(words[index]) || words.length != index + 2) {
+      throw new IllegalArgumentException("Expected split <percentage> after "
+              + words[index - 1]);
+    }
+    double percentage;
+    try {
+      percentage = Double.parseDouble(words[index + 1]);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Not a number: " + words[index + 1]);
+    }
+    if (!(percentage >= 0 && percentage <= 100)) {
+      throw new IllegalArgumentException("Split percentage must be between 0 and 100.");
+    }
+    return Optional.of(percentage);
+  }
+}
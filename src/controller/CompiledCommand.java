@@ -0,0 +1,397 @@
+package controller;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import controller.commands.AliasCommand;
+import controller.commands.ICommand;
+import model.IImageModel;
+import model.strategy.FilterStrategy;
+
+/**
+ * One line of a script whose arguments have been parsed and validated. A compiled command is
+ * immutable and holds no model, so the same compiled command can be executed any number of
+ * times and against any model: every execution binds it to a model, which creates the command
+ * object from the already parsed arguments.
+ * A compiled command also describes how it uses the images of the model, which lets the
+ * {@link ScriptOptimizer} remove and share work: the images it reads and writes, and whether
+ * its result depends on nothing but those images. Commands compiled without that description
+ * are treated as reading and writing every image.
+ * Filters that can be applied in strips of rows also carry their {@link FilterStrategy}, and
+ * loads and saves the files they read and write, so that the {@link ScriptStreamer} can stream
+ * a chain of them without the model.
+ * The run command, which executes another script, is compiled to a command that names the
+ * script instead of creating a command object.
+ */
+public final class CompiledCommand {
+
+  /**
+   * How a command uses the images of the model.
+   */
+  public enum Kind {
+    /**
+     * Computes its outputs from its inputs and its arguments alone.
+     */
+    PURE,
+    /**
+     * Stores an image from outside the model, such as a file, under its output name.
+     */
+    SOURCE,
+    /**
+     * Only reads its input, with an effect outside the model, such as writing a file.
+     */
+    SINK,
+    /**
+     * Stores its input under its output name.
+     */
+    ALIAS,
+    /**
+     * May read and write any image, and have effects outside the model.
+     */
+    OPAQUE
+  }
+
+  private final String text;
+  private final String name;
+  private final Kind kind;
+  private final List<String> inputs;
+  private final List<String> outputs;
+  private final List<String> operations;
+  private final String outputImageName;
+  private final String scriptPath;
+  private final ScriptMode scriptMode;
+  private final FilterStrategy filter;
+  private final List<String> files;
+  private final EncoderOptions encoderOptions;
+  private final Function<IImageModel, ICommand> binder;
+
+  /**
+   * Constructs a compiled command.
+   *
+   * @param text            the line of the script
+   * @param name            the name of the command
+   * @param kind            how the command uses the images of the model
+   * @param inputs          the images the command reads
+   * @param outputs         the images the command writes
+   * @param operations      the operation that computes each output of a pure command
+   * @param outputImageName the image the command produces or saves, or null
+   * @param scriptPath      the script a run command executes, or null
+   * @param scriptMode      how a run command runs its script, or null
+   * @param filter          the filter of a command that can be streamed, or null
+   * @param files           the files a load reads or a save writes
+   * @param encoderOptions  the encoder settings of a save
+   * @param binder          creates the command object for a model, or null for run commands
+   */
+  private CompiledCommand(String text, String name, Kind kind, List<String> inputs,
+                          List<String> outputs, List<String> operations,
+                          String outputImageName, String scriptPath, ScriptMode scriptMode,
+                          FilterStrategy filter, List<String> files,
+                          EncoderOptions encoderOptions,
+                          Function<IImageModel, ICommand> binder) {
+    this.text = text;
+    this.name = name;
+    this.kind = kind;
+    this.inputs = Collections.unmodifiableList(inputs);
+    this.outputs = Collections.unmodifiableList(outputs);
+    this.operations = Collections.unmodifiableList(operations);
+    this.outputImageName = outputImageName;
+    this.scriptPath = scriptPath;
+    this.scriptMode = scriptMode;
+    this.filter = filter;
+    this.files = Collections.unmodifiableList(files);
+    this.encoderOptions = encoderOptions;
+    this.binder = binder;
+  }
+
+  /**
+   * Returns a compiled command that creates a command object for every execution and whose
+   * use of the images is not described, so it is never removed or shared by the optimizer.
+   *
+   * @param text            the line of the script
+   * @param name            the name of the command
+   * @param outputImageName the image the command produces or saves, or null if it names none
+   * @param binder          creates the command object from the parsed arguments and a model
+   * @return the compiled command
+   */
+  public static CompiledCommand of(String text, String name, String outputImageName,
+                                   Function<IImageModel, ICommand> binder) {
+    return new CompiledCommand(text, name, Kind.OPAQUE, Collections.emptyList(),
+            Collections.emptyList(), Collections.emptyList(), outputImageName, null, null, null,
+            Collections.emptyList(), EncoderOptions.DEFAULTS, binder);
+  }
+
+  /**
+   * Returns a compiled command whose outputs depend on nothing but its inputs and arguments.
+   * Each output is described by an operation, such as "blur" or "brighten 10", that computes
+   * it from the inputs; two outputs computed by the same operation from the same images are
+   * the same image, even when they come from different commands.
+   *
+   * @param text       the line of the script
+   * @param name       the name of the command
+   * @param inputs     the images the command reads
+   * @param outputs    the images the command writes
+   * @param operations the operation that computes each output from the inputs
+   * @param binder     creates the command object from the parsed arguments and a model
+   * @return the compiled command
+   * @throws IllegalArgumentException if there is not one operation for every output
+   */
+  public static CompiledCommand pure(String text, String name, List<String> inputs,
+                                     List<String> outputs, List<String> operations,
+                                     Function<IImageModel, ICommand> binder) {
+    if (outputs.isEmpty() || outputs.size() != operations.size()) {
+      throw new IllegalArgumentException("Every output needs an operation.");
+    }
+    return new CompiledCommand(text, name, Kind.PURE, copy(inputs), copy(outputs),
+            copy(operations), outputs.get(0), null, null, null, Collections.emptyList(),
+            EncoderOptions.DEFAULTS, binder);
+  }
+
+  /**
+   * Returns a compiled command that stores an image from outside the model, such as a file.
+   *
+   * @param text   the line of the script
+   * @param name   the name of the command
+   * @param output the image the command writes
+   * @param binder creates the command object from the parsed arguments and a model
+   * @return the compiled command
+   */
+  public static CompiledCommand source(String text, String name, String output,
+                                       Function<IImageModel, ICommand> binder) {
+    return new CompiledCommand(text, name, Kind.SOURCE, Collections.emptyList(),
+            Collections.singletonList(output), Collections.emptyList(), output, null, null, null,
+            Collections.emptyList(), EncoderOptions.DEFAULTS, binder);
+  }
+
+  /**
+   * Returns a compiled command that only reads an image, with an effect outside the model,
+   * such as writing a file.
+   *
+   * @param text   the line of the script
+   * @param name   the name of the command
+   * @param input  the image the command reads
+   * @param binder creates the command object from the parsed arguments and a model
+   * @return the compiled command
+   */
+  public static CompiledCommand sink(String text, String name, String input,
+                                     Function<IImageModel, ICommand> binder) {
+    return new CompiledCommand(text, name, Kind.SINK, Collections.singletonList(input),
+            Collections.emptyList(), Collections.emptyList(), input, null, null, null,
+            Collections.emptyList(), EncoderOptions.DEFAULTS, binder);
+  }
+
+  /**
+   * Returns a compiled command that stores an image under a second name.
+   *
+   * @param imageName     the name of the existing image
+   * @param destImageName the second name
+   * @return the compiled command
+   */
+  public static CompiledCommand alias(String imageName, String destImageName) {
+    return new CompiledCommand("alias " + imageName + " " + destImageName, "alias", Kind.ALIAS,
+            Collections.singletonList(imageName), Collections.singletonList(destImageName),
+            Collections.emptyList(), destImageName, null, null, null, Collections.emptyList(),
+            EncoderOptions.DEFAULTS, model -> new AliasCommand(imageName, destImageName, model));
+  }
+
+  /**
+   * Returns a compiled command that runs another script.
+   *
+   * @param text       the line of the script
+   * @param name       the name of the command
+   * @param scriptPath the path of the script to run
+   * @param scriptMode how the script is run
+   * @return the compiled command
+   */
+  public static CompiledCommand script(String text, String name, String scriptPath,
+                                       ScriptMode scriptMode) {
+    return new CompiledCommand(text, name, Kind.OPAQUE, Collections.emptyList(),
+            Collections.emptyList(), Collections.emptyList(), null, scriptPath, scriptMode,
+            null, Collections.emptyList(), EncoderOptions.DEFAULTS, null);
+  }
+
+  /**
+   * Returns a copy of this command that applies the given filter to its one input. Only pure
+   * commands whose output is the filter applied to their input, and whose filter can be
+   * applied in strips of rows, should carry a filter.
+   *
+   * @param filter the filter the command applies
+   * @return the compiled command with the filter
+   */
+  public CompiledCommand withFilter(FilterStrategy filter) {
+    return new CompiledCommand(text, name, kind, inputs, outputs, operations, outputImageName,
+            scriptPath, scriptMode, filter, files, encoderOptions, binder);
+  }
+
+  /**
+   * Returns a copy of this command that reads or writes the given files: the file of a load
+   * that decodes the whole image, or the files of a save.
+   *
+   * @param files the paths of the files
+   * @return the compiled command with the files
+   */
+  public CompiledCommand withFiles(List<String> files) {
+    return new CompiledCommand(text, name, kind, inputs, outputs, operations, outputImageName,
+            scriptPath, scriptMode, filter, copy(files), encoderOptions, binder);
+  }
+
+  /**
+   * Returns a copy of this command that saves its files with the given encoder settings.
+   *
+   * @param encoderOptions the encoder settings
+   * @return the compiled command with the encoder settings
+   */
+  public CompiledCommand withEncoderOptions(EncoderOptions encoderOptions) {
+    return new CompiledCommand(text, name, kind, inputs, outputs, operations, outputImageName,
+            scriptPath, scriptMode, filter, files, encoderOptions, binder);
+  }
+
+  /**
+   * Returns an unmodifiable copy of a list.
+   *
+   * @param list the list
+   * @return the copy
+   */
+  private static List<String> copy(List<String> list) {
+    return Arrays.asList(list.toArray(new String[0]));
+  }
+
+  /**
+   * Returns the line of the script this command was compiled from.
+   *
+   * @return the line, without surrounding whitespace
+   */
+  public String getText() {
+    return text;
+  }
+
+  /**
+   * Returns the name of the command, its first word.
+   *
+   * @return the name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns how the command uses the images of the model.
+   *
+   * @return the kind of the command
+   */
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * Returns the images the command reads.
+   *
+   * @return an unmodifiable list of image names, empty for opaque commands
+   */
+  public List<String> getInputs() {
+    return inputs;
+  }
+
+  /**
+   * Returns the images the command writes.
+   *
+   * @return an unmodifiable list of image names, empty for opaque commands
+   */
+  public List<String> getOutputs() {
+    return outputs;
+  }
+
+  /**
+   * Returns the operation that computes each output of a pure command.
+   *
+   * @return an unmodifiable list with one operation per output, empty unless the command is
+   *         pure
+   */
+  public List<String> getOperations() {
+    return operations;
+  }
+
+  /**
+   * Returns the name of the image the command produces, or saves in the case of the save
+   * command, so its dimensions can be recorded.
+   *
+   * @return the image name, or empty if the command does not name one
+   */
+  public Optional<String> getOutputImageName() {
+    return Optional.ofNullable(outputImageName);
+  }
+
+  /**
+   * Returns the script a run command executes.
+   *
+   * @return the path of the script, or empty if this is not a run command
+   */
+  public Optional<String> getScriptPath() {
+    return Optional.ofNullable(scriptPath);
+  }
+
+  /**
+   * Returns how a run command runs its script.
+   *
+   * @return the mode, or empty if this is not a run command
+   */
+  public Optional<ScriptMode> getScriptMode() {
+    return Optional.ofNullable(scriptMode);
+  }
+
+  /**
+   * Returns the filter the command applies to its one input, if it can be applied in strips
+   * of rows.
+   *
+   * @return the filter, or empty if the command cannot be streamed
+   */
+  public Optional<FilterStrategy> getFilter() {
+    return Optional.ofNullable(filter);
+  }
+
+  /**
+   * Returns the files the command reads or writes.
+   *
+   * @return an unmodifiable list of paths, empty unless the command is a load that decodes
+   *         the whole image or a save
+   */
+  public List<String> getFiles() {
+    return files;
+  }
+
+  /**
+   * Returns the encoder settings of a save.
+   *
+   * @return the encoder settings, the defaults for other commands
+   */
+  public EncoderOptions getEncoderOptions() {
+    return encoderOptions;
+  }
+
+  /**
+   * Creates the command object that executes this command against the given model.
+   *
+   * @param model the model the command operates on
+   * @return a new command object
+   * @throws IllegalStateException if this is a run command, which the controller executes
+   *                               itself
+   */
+  public ICommand bind(IImageModel model) {
+    if (binder == null) {
+      throw new IllegalStateException(name + " is executed by the controller.");
+    }
+    return binder.apply(model);
+  }
+
+  /**
+   * Returns the line of the script this command was compiled from.
+   *
+   * @return the line
+   */
+  @Override
+  public String toString() {
+    return text;
+  }
+}
@@ -0,0 +1,295 @@
+package controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.image.Image;
+
+/**
+ * Saves one image to several files, in any mix of formats, at once. The image is packed into
+ * a {@link PackedRaster} once, and every target file is then encoded from that shared raster
+ * by its own task on a pool of I/O threads, so a slow encoder or disk does not hold up the
+ * other formats.
+ * The rasters of all saves that have not finished are counted against a budget of in-flight
+ * bytes. A save waits, before packing its image, until its raster fits into the budget, so
+ * producers that save faster than the disk can write are slowed down instead of filling the
+ * heap with rasters. A raster larger than the whole budget is saved on its own.
+ */
+public final class ConcurrentImageSaver implements Closeable {
+  /**
+   * The number of I/O threads of the shared saver.
+   */
+  public static final int DEFAULT_THREADS = 4;
+
+  /**
+   * The largest number of in-flight bytes of the shared saver.
+   */
+  public static final long DEFAULT_MAX_IN_FLIGHT_BYTES =
+          Math.min(256L << 20, Runtime.getRuntime().maxMemory() / 4);
+
+  private final ExecutorService encoders;
+  private final ImageParserRegistry registry;
+  private final long maxInFlightBytes;
+  private long inFlightBytes;
+
+  /**
+   * Holds the saver shared by all save commands, created on first use.
+   */
+  private static final class DefaultSaver {
+    private static final ConcurrentImageSaver INSTANCE =
+            new ConcurrentImageSaver(DEFAULT_THREADS, DEFAULT_MAX_IN_FLIGHT_BYTES);
+  }
+
+  /**
+   * Constructs a saver with its own pool of I/O threads that uses the default parser registry.
+   *
+   * @param threads          the number of files encoded at the same time
+   * @param maxInFlightBytes the largest number of raster bytes held by unfinished saves
+   * @throws IllegalArgumentException if the number of threads or the budget is not positive
+   */
+  public ConcurrentImageSaver(int threads, long maxInFlightBytes) {
+    this(threads, maxInFlightBytes, ImageParserRegistry.getDefault());
+  }
+
+  /**
+   * Constructs a saver with its own pool of I/O threads.
+   *
+   * @param threads          the number of files encoded at the same time
+   * @param maxInFlightBytes the largest number of raster bytes held by unfinished saves
+   * @param registry         the registry that chooses the parser of every target file
+   * @throws IllegalArgumentException if the number of threads or the budget is not positive
+   */
+  public ConcurrentImageSaver(int threads, long maxInFlightBytes,
+                              ImageParserRegistry registry) {
+    if (threads <= 0 || maxInFlightBytes <= 0) {
+      throw new IllegalArgumentException("Threads and in-flight bytes must be positive.");
+    }
+    this.maxInFlightBytes = maxInFlightBytes;
+    this.registry = registry;
+    AtomicInteger count = new AtomicInteger();
+    this.encoders = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "image-encoder-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Returns the saver shared by all save commands.
+   *
+   * @return the shared saver
+   */
+  public static ConcurrentImageSaver getDefault() {
+    return DefaultSaver.INSTANCE;
+  }
+
+  /**
+   * Saves the image to every given path and waits until all files are written. If some files
+   * cannot be written, the others are still written and the first failure is thrown with
+   * the remaining ones suppressed.
+   *
+   * @param image the image to save
+   * @param paths the paths of the files, whose extensions choose the formats
+   * @throws IOException If the image is empty, a file cannot be written or the calling
+   *                     thread is interrupted while waiting.
+   */
+  public void save(Image image, List<String> paths) throws IOException {
+    save(image, paths, EncoderOptions.DEFAULTS);
+  }
+
+  /**
+   * Saves the image to every given path with the given encoder settings and waits until all
+   * files are written. If some files cannot be written, the others are still written and the
+   * first failure is thrown with the remaining ones suppressed.
+   *
+   * @param image   the image to save
+   * @param paths   the paths of the files, whose extensions choose the formats
+   * @param options the encoder settings, which every format applies as far as it has them
+   * @throws IOException If the image is empty, a file cannot be written or the calling
+   *                     thread is interrupted while waiting.
+   */
+  public void save(Image image, List<String> paths, EncoderOptions options) throws IOException {
+    try {
+      saveAsync(image, paths, options).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while saving " + paths);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  /**
+   * Starts saving the image to every given path. The parsers are chosen and the image is
+   * packed on the calling thread, which first waits for room in the in-flight budget; the
+   * files are then encoded and written on the I/O threads. Duplicate paths are written once.
+   *
+   * @param image the image to save
+   * @param paths the paths of the files, whose extensions choose the formats
+   * @return a future completed when every file is written, or completed exceptionally with
+   *         the first failure and the others suppressed
+   * @throws IOException                   If the image is empty or the calling thread is
+   *                                       interrupted while waiting for room.
+   * @throws IllegalArgumentException      if a path has no extension or no path is given
+   * @throws UnsupportedOperationException if no parser handles the extension of a path
+   */
+  public CompletableFuture<Void> saveAsync(Image image, List<String> paths) throws IOException {
+    return saveAsync(image, paths, EncoderOptions.DEFAULTS);
+  }
+
+  /**
+   * Starts saving the image to every given path with the given encoder settings, like
+   * {@link #saveAsync(Image, List)}.
+   *
+   * @param image   the image to save
+   * @param paths   the paths of the files, whose extensions choose the formats
+   * @param options the encoder settings, which every format applies as far as it has them
+   * @return a future completed when every file is written, or completed exceptionally with
+   *         the first failure and the others suppressed
+   * @throws IOException                   If the image is empty or the calling thread is
+   *                                       interrupted while waiting for room.
+   * @throws IllegalArgumentException      if a path has no extension or no path is given
+   * @throws UnsupportedOperationException if no parser handles the extension of a path
+   */
+  public CompletableFuture<Void> saveAsync(Image image, List<String> paths,
+                                           EncoderOptions options) throws IOException {
+    if (paths.isEmpty()) {
+      throw new IllegalArgumentException("No file to save to.");
+    }
+    if (image.isEmpty()) {
+      throw new IOException("No image data to save.");
+    }
+    Map<String, IImageFileParser> targets = new LinkedHashMap<>();
+    for (String path : paths) {
+      targets.put(path, registry.forSaving(path));
+    }
+
+    long bytes = Math.min(4L * image.getWidth() * image.getHeight(), maxInFlightBytes);
+    acquire(bytes);
+    List<CompletableFuture<Void>> writes = new ArrayList<>();
+    try {
+      PackedRaster raster = PackedRaster.of(image);
+      for (Map.Entry<String, IImageFileParser> target : targets.entrySet()) {
+        writes.add(CompletableFuture.runAsync(() -> {
+          try {
+            target.getValue().saveRaster(target.getKey(), raster, options);
+          } catch (IOException e) {
+            throw new CompletionException(e);
+          }
+        }, encoders));
+      }
+    } catch (Throwable e) {
+      // Also errors, such as running out of memory for the raster, must give the room back.
+      CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0]))
+              .whenComplete((ignored, failure) -> release(bytes));
+      throw e;
+    }
+
+    CompletableFuture<Void> result = new CompletableFuture<>();
+    CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0]))
+            .whenComplete((ignored, failure) -> {
+              release(bytes);
+              if (failure == null) {
+                result.complete(null);
+              } else {
+                result.completeExceptionally(collectFailures(writes));
+              }
+            });
+    return result;
+  }
+
+  /**
+   * Combines the failures of finished writes into one exception.
+   *
+   * @param writes the finished writes
+   * @return the first failure, with the others added as suppressed exceptions
+   */
+  private static Throwable collectFailures(List<CompletableFuture<Void>> writes) {
+    Throwable first = null;
+    for (CompletableFuture<Void> write : writes) {
+      try {
+        write.join();
+      } catch (CompletionException e) {
+        Throwable cause = e.getCause() == null ? e : e.getCause();
+        if (first == null) {
+          first = cause;
+        } else {
+          first.addSuppressed(cause);
+        }
+      }
+    }
+    return first;
+  }
+
+  /**
+   * Waits until the given number of bytes fits into the in-flight budget and reserves them.
+   *
+   * @param bytes the number of bytes to reserve, at most the whole budget
+   * @throws InterruptedIOException If the calling thread is interrupted while waiting.
+   */
+  private synchronized void acquire(long bytes) throws InterruptedIOException {
+    while (inFlightBytes + bytes > maxInFlightBytes) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting to save an image.");
+      }
+    }
+    inFlightBytes += bytes;
+  }
+
+  /**
+   * Returns reserved bytes to the in-flight budget and wakes the waiting saves.
+   *
+   * @param bytes the number of bytes to return
+   */
+  private synchronized void release(long bytes) {
+    inFlightBytes -= bytes;
+    notifyAll();
+  }
+
+  /**
+   * Returns the number of raster bytes held by saves that have not finished.
+   *
+   * @return the in-flight bytes
+   */
+  public synchronized long getInFlightBytes() {
+    return inFlightBytes;
+  }
+
+  /**
+   * Returns the largest number of raster bytes held by unfinished saves.
+   *
+   * @return the in-flight budget in bytes
+   */
+  public long getMaxInFlightBytes() {
+    return maxInFlightBytes;
+  }
+
+  /**
+   * Stops the I/O threads once the saves that were started have finished.
+   */
+  @Override
+  public void close() {
+    encoders.shutdown();
+  }
+}
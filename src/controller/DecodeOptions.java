@@ -0,0 +1,234 @@
+package controller;
+
+import java.util.List;
+import java.util.Optional;
+
+import model.image.Image;
+import model.image.Pixel;
+
+/**
+ * Immutable settings for decoding an image at less than its full resolution, handed to ImageIO
+ * through an ImageReadParam. Every setting is optional; without settings the image is decoded
+ * in full.
+ * <ul>
+ *   <li>subsampling: keep only every n-th column of every n-th row</li>
+ *   <li>maximum dimension: reduce the image, keeping its proportions, until neither its width
+ *   nor its height exceeds the given size</li>
+ * </ul>
+ * When both are given, the image is subsampled first and then reduced to the maximum
+ * dimension.
+ */
+public final class DecodeOptions {
+  /**
+   * The options that decode the full image.
+   */
+  public static final DecodeOptions DEFAULTS = new DecodeOptions(null, null);
+
+  private final Integer subsampling;
+  private final Integer maxDimension;
+
+  /**
+   * Constructs options with the given settings, each null to leave it out.
+   *
+   * @param subsampling  the subsampling factor
+   * @param maxDimension the largest width or height of the decoded image
+   */
+  private DecodeOptions(Integer subsampling, Integer maxDimension) {
+    this.subsampling = subsampling;
+    this.maxDimension = maxDimension;
+  }
+
+  /**
+   * Returns whether a word of a load command starts a decode setting.
+   *
+   * @param word the word
+   * @return true if the word is size or subsample
+   */
+  public static boolean isSetting(String word) {
+    return "size".equals(word) || "subsample".equals(word);
+  }
+
+  /**
+   * Parses the decode settings of a load command: "size" followed by the largest width or
+   * height, and "subsample" followed by a factor.
+   *
+   * @param words the words of the settings
+   * @return the parsed options
+   * @throws IllegalArgumentException if a word is not a setting or a value is missing or out
+   *                                  of range
+   */
+  public static DecodeOptions parse(List<String> words) {
+    DecodeOptions options = DEFAULTS;
+    for (int i = 0; i < words.size(); i++) {
+      switch (words.get(i)) {
+        case "size":
+          options = options.withMaxDimension(Integer.parseInt(value(words, ++i)));
+          break;
+        case "subsample":
+          options = options.withSubsampling(Integer.parseInt(value(words, ++i)));
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown decode setting " + words.get(i));
+      }
+    }
+    return options;
+  }
+
+  /**
+   * Returns the value of a setting.
+   *
+   * @param words the words of the settings
+   * @param index the index of the value
+   * @return the value
+   * @throws IllegalArgumentException if the value is missing
+   */
+  private static String value(List<String> words, int index) {
+    if (index >= words.size()) {
+      throw new IllegalArgumentException("Missing value for " + words.get(index - 1));
+    }
+    return words.get(index);
+  }
+
+  /**
+   * Returns a copy of these options that keeps only every n-th column of every n-th row.
+   *
+   * @param subsampling the factor, 1 to keep every pixel
+   * @return the new options
+   * @throws IllegalArgumentException if the factor is less than 1
+   */
+  public DecodeOptions withSubsampling(int subsampling) {
+    if (subsampling < 1) {
+      throw new IllegalArgumentException("Subsampling factor must be at least 1.");
+    }
+    return new DecodeOptions(subsampling, maxDimension);
+  }
+
+  /**
+   * Returns a copy of these options that reduces the image to the given largest dimension.
+   *
+   * @param maxDimension the largest width or height
+   * @return the new options
+   * @throws IllegalArgumentException if the dimension is not positive
+   */
+  public DecodeOptions withMaxDimension(int maxDimension) {
+    if (maxDimension <= 0) {
+      throw new IllegalArgumentException("Maximum dimension must be positive.");
+    }
+    return new DecodeOptions(subsampling, maxDimension);
+  }
+
+  /**
+   * Returns the subsampling factor.
+   *
+   * @return the factor, or empty to keep every pixel
+   */
+  public Optional<Integer> getSubsampling() {
+    return Optional.ofNullable(subsampling);
+  }
+
+  /**
+   * Returns the largest width or height of the decoded image.
+   *
+   * @return the dimension, or empty to keep the size
+   */
+  public Optional<Integer> getMaxDimension() {
+    return Optional.ofNullable(maxDimension);
+  }
+
+  /**
+   * Returns whether the image is decoded in full.
+   *
+   * @return true if no setting is given, otherwise false
+   */
+  public boolean isDefault() {
+    return subsampling == null && maxDimension == null;
+  }
+
+  /**
+   * Returns the step a decoder should take through the rows and columns of an image of the
+   * given size. The step applies the subsampling and, for a maximum dimension, the largest
+   * further whole step that still leaves the image at least as large as that dimension, so
+   * that {@link #fit(Image)} only has a small reduction left to make.
+   *
+   * @param width  the width of the stored image
+   * @param height the height of the stored image
+   * @return the step, 1 to read every pixel
+   */
+  public int sourceStep(int width, int height) {
+    int step = subsampling == null ? 1 : subsampling;
+    if (maxDimension != null) {
+      int largestSide = Math.max((width - 1) / step + 1, (height - 1) / step + 1);
+      step *= Math.max(1, largestSide / maxDimension);
+    }
+    return step;
+  }
+
+  /**
+   * Applies the settings to an image that was decoded in full: the subsampling keeps every
+   * n-th pixel, and the image is then reduced to the maximum dimension.
+   *
+   * @param image the decoded image
+   * @return the image with the settings applied, which is the given image if no setting
+   *         changes it
+   */
+  public Image apply(Image image) {
+    return fit(subsample(image, sourceStep(image.getWidth(), image.getHeight())));
+  }
+
+  /**
+   * Reduces an image, keeping its proportions, so that neither its width nor its height
+   * exceeds the maximum dimension.
+   *
+   * @param image the image, already subsampled
+   * @return the reduced image, or the given image if it already fits
+   */
+  public Image fit(Image image) {
+    if (maxDimension == null || image.isEmpty()
+            || Math.max(image.getWidth(), image.getHeight()) <= maxDimension) {
+      return image;
+    }
+    return image.thumbnail(maxDimension);
+  }
+
+  /**
+   * Keeps every n-th column of every n-th row of an image, starting with the first, like the
+   * source subsampling of an ImageIO decoder.
+   *
+   * @param image the image
+   * @param step  the subsampling factor
+   * @return the subsampled image, or the given image if the factor is 1
+   */
+  private static Image subsample(Image image, int step) {
+    if (step <= 1 || image.isEmpty()) {
+      return image;
+    }
+    Pixel[][] source = image.getPixels();
+    int width = (image.getWidth() - 1) / step + 1;
+    int height = (image.getHeight() - 1) / step + 1;
+    Pixel[][] pixels = new Pixel[height][width];
+    for (int y = 0; y < height; y++) {
+      Pixel[] row = source[y * step];
+      for (int x = 0; x < width; x++) {
+        pixels[y][x] = row[x * step];
+      }
+    }
+    return new Image(pixels);
+  }
+
+  /**
+   * Returns the settings that are given, in the syntax of the load command.
+   *
+   * @return the settings, for example "size 256"
+   */
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    if (subsampling != null) {
+      builder.append("subsample ").append(subsampling).append(' ');
+    }
+    if (maxDimension != null) {
+      builder.append("size ").append(maxDimension).append(' ');
+    }
+    return builder.toString().trim();
+  }
+}
@@ -0,0 +1,198 @@
+package controller;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Immutable settings for the image encoders, handed to ImageIO through an ImageWriteParam.
+ * Every setting is optional; a setting that is not given keeps the encoder's default, and a
+ * setting that a format does not have is ignored by that format's parser.
+ * <ul>
+ *   <li>quality: the JPEG quality, from 0 for the smallest file to 1 for the best image</li>
+ *   <li>progressive: whether a JPEG is written progressively</li>
+ *   <li>compression level: the PNG deflate level, from 0 for no compression and the fastest
+ *   save to 9 for the smallest file</li>
+ * </ul>
+ */
+public final class EncoderOptions {
+  /**
+   * The options that keep every encoder default.
+   */
+  public static final EncoderOptions DEFAULTS = new EncoderOptions(null, null, null);
+
+  private final Float quality;
+  private final Boolean progressive;
+  private final Integer compressionLevel;
+
+  /**
+   * Constructs options with the given settings, each null to keep the default.
+   *
+   * @param quality          the JPEG quality
+   * @param progressive      whether a JPEG is written progressively
+   * @param compressionLevel the PNG deflate level
+   */
+  private EncoderOptions(Float quality, Boolean progressive, Integer compressionLevel) {
+    this.quality = quality;
+    this.progressive = progressive;
+    this.compressionLevel = compressionLevel;
+  }
+
+  /**
+   * Returns whether a word of a save command starts an encoder setting.
+   *
+   * @param word the word
+   * @return true if the word is quality, progressive, baseline or compression
+   */
+  public static boolean isSetting(String word) {
+    switch (word) {
+      case "quality":
+      case "progressive":
+      case "baseline":
+      case "compression":
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Parses the encoder settings of a save command: "quality" followed by a percentage,
+   * "progressive" or "baseline", and "compression" followed by a deflate level.
+   *
+   * @param words the words of the settings
+   * @return the parsed options
+   * @throws IllegalArgumentException if a word is not a setting or a value is missing or out
+   *                                  of range
+   */
+  public static EncoderOptions parse(List<String> words) {
+    EncoderOptions options = DEFAULTS;
+    for (int i = 0; i < words.size(); i++) {
+      switch (words.get(i)) {
+        case "quality":
+          options = options.withQuality(Integer.parseInt(value(words, ++i)) / 100f);
+          break;
+        case "progressive":
+          options = options.withProgressive(true);
+          break;
+        case "baseline":
+          options = options.withProgressive(false);
+          break;
+        case "compression":
+          options = options.withCompressionLevel(Integer.parseInt(value(words, ++i)));
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown encoder setting " + words.get(i));
+      }
+    }
+    return options;
+  }
+
+  /**
+   * Returns the value of a setting.
+   *
+   * @param words the words of the settings
+   * @param index the index of the value
+   * @return the value
+   * @throws IllegalArgumentException if the value is missing
+   */
+  private static String value(List<String> words, int index) {
+    if (index >= words.size()) {
+      throw new IllegalArgumentException("Missing value for " + words.get(index - 1));
+    }
+    return words.get(index);
+  }
+
+  /**
+   * Returns a copy of these options with the given JPEG quality.
+   *
+   * @param quality the quality, from 0 to 1
+   * @return the new options
+   * @throws IllegalArgumentException if the quality is not between 0 and 1
+   */
+  public EncoderOptions withQuality(float quality) {
+    if (!(quality >= 0 && quality <= 1)) {
+      throw new IllegalArgumentException("Quality must be between 0 and 1.");
+    }
+    return new EncoderOptions(quality, progressive, compressionLevel);
+  }
+
+  /**
+   * Returns a copy of these options that writes JPEG files progressively or not.
+   *
+   * @param progressive true for progressive, false for baseline JPEG files
+   * @return the new options
+   */
+  public EncoderOptions withProgressive(boolean progressive) {
+    return new EncoderOptions(quality, progressive, compressionLevel);
+  }
+
+  /**
+   * Returns a copy of these options with the given PNG deflate level.
+   *
+   * @param compressionLevel the level, from 0 to 9
+   * @return the new options
+   * @throws IllegalArgumentException if the level is not between 0 and 9
+   */
+  public EncoderOptions withCompressionLevel(int compressionLevel) {
+    if (compressionLevel < 0 || compressionLevel > 9) {
+      throw new IllegalArgumentException("Compression level must be between 0 and 9.");
+    }
+    return new EncoderOptions(quality, progressive, compressionLevel);
+  }
+
+  /**
+   * Returns the JPEG quality.
+   *
+   * @return the quality from 0 to 1, or empty to keep the encoder default
+   */
+  public Optional<Float> getQuality() {
+    return Optional.ofNullable(quality);
+  }
+
+  /**
+   * Returns whether JPEG files are written progressively.
+   *
+   * @return true or false, or empty to keep the encoder default
+   */
+  public Optional<Boolean> getProgressive() {
+    return Optional.ofNullable(progressive);
+  }
+
+  /**
+   * Returns the PNG deflate level.
+   *
+   * @return the level from 0 to 9, or empty to keep the encoder default
+   */
+  public Optional<Integer> getCompressionLevel() {
+    return Optional.ofNullable(compressionLevel);
+  }
+
+  /**
+   * Returns whether every setting keeps the encoder default.
+   *
+   * @return true if no setting is given, otherwise false
+   */
+  public boolean isDefault() {
+    return quality == null && progressive == null && compressionLevel == null;
+  }
+
+  /**
+   * Returns the settings that are given, in the syntax of the save command.
+   *
+   * @return the settings, for example "quality 85 progressive"
+   */
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    if (quality != null) {
+      builder.append("quality ").append(Math.round(quality * 100)).append(' ');
+    }
+    if (progressive != null) {
+      builder.append(progressive ? "progressive " : "baseline ");
+    }
+    if (compressionLevel != null) {
+      builder.append("compression ").append(compressionLevel).append(' ');
+    }
+    return builder.toString().trim();
+  }
+}
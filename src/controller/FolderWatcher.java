@@ -0,0 +1,310 @@
+package controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import view.IView;
+
+/**
+ * Watches an input folder and runs a script template on every image file that appears in it
+ * with a {@link TemplateProcessor}, which saves the results of a file into the output folder
+ * only once the whole template has succeeded.
+ * Files are detected with a {@link WatchService} and put into a bounded queue, which a fixed
+ * number of worker threads take them from. When the queue is full, the watcher waits until a
+ * worker takes a file, so a burst of uploads is absorbed by the queue and the operating
+ * system instead of the heap; events lost meanwhile are recovered by scanning the folder.
+ * Files whose name starts with a dot and files without the extension of a supported format
+ * are ignored, so producers should write a file under such a name and rename it once it is
+ * complete, just as the processor does with its results.
+ */
+public final class FolderWatcher implements Closeable {
+  /**
+   * The number of files that wait in the queue by default.
+   */
+  public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+  private static final Job END = new Job(null, 0);
+
+  private final Path inputFolder;
+  private final TemplateProcessor processor;
+  private final IView view;
+  private final BlockingQueue<Job> queue;
+  private final WatchCounters counters;
+  private final Set<Path> known = ConcurrentHashMap.newKeySet();
+  private final List<Thread> workers = new ArrayList<>();
+  private final int workerCount;
+  private WatchService watchService;
+  private Thread watcher;
+  private volatile boolean closed;
+
+  /**
+   * A file waiting to be processed.
+   */
+  private static final class Job {
+    private final Path file;
+    private final long detectedNanos;
+
+    /**
+     * Constructs a job for a new file.
+     *
+     * @param file          the new file
+     * @param detectedNanos the time the file was detected, from {@link System#nanoTime()}
+     */
+    private Job(Path file, long detectedNanos) {
+      this.file = file;
+      this.detectedNanos = detectedNanos;
+    }
+  }
+
+  /**
+   * Constructs a watcher that runs the template as written, with the default commands.
+   *
+   * @param inputFolder   the folder to watch
+   * @param outputFolder  the folder that results are moved into
+   * @param template      the lines of the script template
+   * @param workers       the number of files processed at the same time
+   * @param queueCapacity the number of files that wait to be processed before the watcher
+   *                      waits
+   * @param view          the view that shows progress and errors
+   * @throws IllegalArgumentException if a folder does not exist or has a space in its path,
+   *                                  both folders are the same, the counts are not positive
+   *                                  or the template is invalid, as described by
+   *                                  {@link TemplateProcessor}
+   */
+  public FolderWatcher(Path inputFolder, Path outputFolder, List<String> template, int workers,
+                       int queueCapacity, IView view) {
+    this(inputFolder, outputFolder, template, workers, queueCapacity, ScriptMode.DIRECT,
+            CommandRegistry.getDefault(), view);
+  }
+
+  /**
+   * Constructs a watcher.
+   *
+   * @param inputFolder   the folder to watch
+   * @param outputFolder  the folder that results are moved into
+   * @param template      the lines of the script template
+   * @param workers       the number of files processed at the same time
+   * @param queueCapacity the number of files that wait to be processed before the watcher
+   *                      waits
+   * @param mode          how the template is run for every file
+   * @param registry      the registry that compiles the template
+   * @param view          the view that shows progress and errors
+   * @throws IllegalArgumentException if a folder does not exist or has a space in its path,
+   *                                  both folders are the same, the counts are not positive
+   *                                  or the template is invalid, as described by
+   *                                  {@link TemplateProcessor}
+   */
+  public FolderWatcher(Path inputFolder, Path outputFolder, List<String> template, int workers,
+                       int queueCapacity, ScriptMode mode, CommandRegistry registry,
+                       IView view) {
+    if (workers <= 0 || queueCapacity <= 0) {
+      throw new IllegalArgumentException("Workers and queue capacity must be positive.");
+    }
+    this.inputFolder = TemplateProcessor.folder(inputFolder);
+    this.processor = new TemplateProcessor(outputFolder, template, mode, registry);
+    if (this.inputFolder.equals(processor.getOutputFolder())) {
+      throw new IllegalArgumentException("The input and output folders must differ.");
+    }
+    this.view = view;
+    this.workerCount = workers;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.counters = new WatchCounters(queue);
+  }
+
+  /**
+   * Starts watching the input folder and the worker threads. Image files that are already in
+   * the input folder are processed first.
+   *
+   * @throws IOException           If the input folder cannot be watched.
+   * @throws IllegalStateException if the watcher was already started
+   */
+  public synchronized void start() throws IOException {
+    if (watcher != null) {
+      throw new IllegalStateException("The watcher was already started.");
+    }
+    watchService = inputFolder.getFileSystem().newWatchService();
+    inputFolder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_DELETE);
+    for (int i = 1; i <= workerCount; i++) {
+      Thread worker = new Thread(this::work, "folder-worker-" + i);
+      workers.add(worker);
+      worker.start();
+    }
+    watcher = new Thread(this::watch, "folder-watcher");
+    watcher.start();
+  }
+
+  /**
+   * Queues the files already in the input folder, then every file that appears in it, until
+   * the watcher is closed.
+   */
+  private void watch() {
+    try {
+      scan();
+      while (!closed) {
+        WatchKey key = watchService.take();
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            scan();
+          } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+            known.remove(inputFolder.resolve((Path) event.context()));
+          } else {
+            submit(inputFolder.resolve((Path) event.context()));
+          }
+        }
+        if (!key.reset()) {
+          view.showError("The input folder can no longer be watched: " + inputFolder);
+          return;
+        }
+      }
+    } catch (ClosedWatchServiceException | InterruptedException e) {
+      // The watcher was closed.
+    } catch (IOException e) {
+      view.showError("Error reading the input folder: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Queues every image file in the input folder that has not been queued yet.
+   *
+   * @throws IOException          If the input folder cannot be listed.
+   * @throws InterruptedException if the watcher is closed while waiting for the queue
+   */
+  private void scan() throws IOException, InterruptedException {
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(inputFolder)) {
+      stream.forEach(files::add);
+    }
+    files.sort(null);
+    for (Path file : files) {
+      submit(file);
+    }
+  }
+
+  /**
+   * Queues a file if it is an image file that has not been queued yet, waiting while the
+   * queue is full.
+   *
+   * @param file the file
+   * @throws InterruptedException if the watcher is closed while waiting for the queue
+   */
+  private void submit(Path file) throws InterruptedException {
+    if (!TemplateProcessor.isImageFile(file) || !known.add(file)) {
+      return;
+    }
+    queue.put(new Job(file, System.nanoTime()));
+    counters.recordQueued();
+  }
+
+  /**
+   * Processes queued files until the end of the queue is reached.
+   */
+  private void work() {
+    while (true) {
+      Job job;
+      try {
+        job = queue.take();
+      } catch (InterruptedException e) {
+        return;
+      }
+      if (job == END) {
+        return;
+      }
+      counters.recordTaken(System.nanoTime() - job.detectedNanos);
+      boolean successful = process(job.file);
+      long latency = System.nanoTime() - job.detectedNanos;
+      counters.recordFinished(successful, latency);
+      if (successful) {
+        view.showMessage(String.format("Processed %s in %.1f ms, %d waiting.",
+                job.file.getFileName(), latency / 1e6, counters.getQueueDepth()));
+      }
+    }
+  }
+
+  /**
+   * Runs the template on a file, showing the reason if it fails.
+   *
+   * @param file the file to process
+   * @return true if the results were moved into the output folder, otherwise false
+   */
+  private boolean process(Path file) {
+    try {
+      processor.process(file);
+      return true;
+    } catch (Exception e) {
+      view.showError("Error processing " + file.getFileName() + ": " + e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Returns the counters of the watcher.
+   *
+   * @return the counters, which keep changing while the watcher runs
+   */
+  public WatchCounters getCounters() {
+    return counters;
+  }
+
+  /**
+   * Waits until the watcher has been closed and every queued file has been processed.
+   *
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public void awaitTermination() throws InterruptedException {
+    List<Thread> threads;
+    synchronized (this) {
+      threads = new ArrayList<>(workers);
+    }
+    for (Thread worker : threads) {
+      worker.join();
+    }
+  }
+
+  /**
+   * Stops watching the input folder. Files that are already queued are still processed
+   * before this method returns.
+   *
+   * @throws IOException If the watch service cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    Thread watchThread;
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      watchThread = watcher;
+    }
+    if (watchThread == null) {
+      return;
+    }
+    watchService.close();
+    watchThread.interrupt();
+    try {
+      watchThread.join();
+      for (int i = 0; i < workerCount; i++) {
+        queue.put(END);
+      }
+      awaitTermination();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for the workers.", e);
+    }
+  }
+}
@@ -2,7 +2,12 @@ package controller;
 
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.awt.Color;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.swing.SwingUtilities;
 
 import controller.commands.CommandBuilder;
 import controller.commands.CommandPair;
@@ -12,6 +17,13 @@ import controller.commands.ICommand;
 import model.IImageModel;
 import model.image.Image;
 import model.image.Pixel;
+import model.strategy.AdjustLevelsFilterStrategy;
+import model.strategy.BlurFilterStrategy;
+import model.strategy.ColorCorrectFilterStrategy;
+import model.strategy.FilterStrategy;
+import model.strategy.LumaFilterStrategy;
+import model.strategy.SepiaFilterStrategy;
+import model.strategy.SharpenFilterStrategy;
 import view.IGUIView;
 
 /**
@@ -20,12 +32,21 @@ import view.IGUIView;
  * and implements the features defined in the Features interface.
  */
 public class GUIController implements IController, Features {
+  private static final long PREVIEW_DEBOUNCE_MILLIS = 40;
+  private static final int LOAD_PREVIEW_SIZE = 1024;
+
   private final IImageModel model;
   private final CommandBuilder commandBuilder;
   private final IGUIView view;
+  private final LivePreview livePreview;
+  private final ExecutorService imageLoader;
   private String previewImageName;
   private String currentImageName;
   private CommandPair currentCommandPair;
+  private String pendingAction;
+  private FilterStrategy liveFilter;
+  private int[] liveLevels;
+  private boolean loading;
 
   /**
    * Constructs a GUIController with the specified image model and GUI view.
@@ -36,7 +57,13 @@ public class GUIController implements IController, Features {
   public GUIController(IImageModel model, IGUIView view) {
     this.model = model;
     this.view = view;
-    commandBuilder = new CommandBuilder(model, view);
+    commandBuilder = new CommandBuilder(model, view, LOAD_PREVIEW_SIZE, this::showLoadPreview);
+    imageLoader = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "image-loader");
+      thread.setDaemon(true);
+      return thread;
+    });
+    livePreview = new LivePreview(PREVIEW_DEBOUNCE_MILLIS, this::showLivePreview);
   }
 
   /**
@@ -51,12 +78,13 @@ public class GUIController implements IController, Features {
     int width = pixels[0].length;
 
     BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    int[] row = new int[width];
     for (int y = 0; y < height; y++) {
       for (int x = 0; x < width; x++) {
         Pixel pixel = pixels[y][x];
-        int rgb = new Color(pixel.getRed(), pixel.getGreen(), pixel.getBlue()).getRGB();
-        bufferedImage.setRGB(x, y, rgb);
+        row[x] = (255 << 24) | (pixel.getRed() << 16) | (pixel.getGreen() << 8) | pixel.getBlue();
       }
+      bufferedImage.setRGB(0, y, width, 1, row, 0, width);
     }
     return bufferedImage;
   }
@@ -79,8 +107,11 @@ public class GUIController implements IController, Features {
    * @param actionCommand The action command that determines the operation to be executed.
    */
   private void executeCommand(String actionCommand) {
+    if (rejectWhileLoading()) {
+      return;
+    }
     try {
-      currentCommandPair = commandBuilder.createCommand(actionCommand);
+      currentCommandPair = createCommand(actionCommand);
       if (currentCommandPair != null && currentCommandPair.hasPreview()) {
         boolean previewSuccess = currentCommandPair.getPreviewCommand().execute();
         if (previewSuccess) {
@@ -97,6 +128,144 @@ public class GUIController implements IController, Features {
     }
   }
 
+  /**
+   * Reports an error if an image is still being loaded in the background. No other operation
+   * may run until the loaded image is in the model.
+   *
+   * @return true if an image is still being loaded, otherwise false
+   */
+  private boolean rejectWhileLoading() {
+    if (loading) {
+      view.showError("Error: An image is still loading.");
+    }
+    return loading;
+  }
+
+  /**
+   * Shows a live preview rendered by {@link LivePreview}. The preview is converted on the
+   * calling background thread and dropped on the event dispatch thread if a newer request or a
+   * cancellation arrived in the meantime, so a late preview never replaces the image shown after
+   * the operation was confirmed or cancelled.
+   *
+   * @param preview    the rendered preview
+   * @param generation the generation of the request the preview was rendered for
+   */
+  private void showLivePreview(Image preview, long generation) {
+    BufferedImage bufferedImage = convertImageToBufferedImage(preview);
+    SwingUtilities.invokeLater(() -> {
+      if (livePreview.isCurrent(generation)) {
+        view.setImage(bufferedImage);
+      }
+    });
+  }
+
+  /**
+   * Shows the reduced version of an image that is still being loaded. The reduced image is
+   * converted on the calling background thread and discarded if the full image is already
+   * displayed.
+   *
+   * @param preview the reduced version of the image being loaded
+   */
+  private void showLoadPreview(Image preview) {
+    BufferedImage bufferedImage = convertImageToBufferedImage(preview);
+    SwingUtilities.invokeLater(() -> {
+      if (loading) {
+        view.setImage(bufferedImage);
+      }
+    });
+  }
+
+  /**
+   * Executes the load command on the background image loader. Once the full image is in the
+   * model, its display image and its histogram are prepared in parallel and both are handed to
+   * the view on the event dispatch thread.
+   *
+   * @param loadCommand the command that loads the image into the model
+   */
+  private void finishLoad(ICommand loadCommand) {
+    try {
+      loadCommand.execute();
+      Image image = model.getImage(currentImageName);
+      CompletableFuture<BufferedImage> histogram = CompletableFuture.supplyAsync(() ->
+              convertImageToBufferedImage(HistogramRenderer.createHistogramImage(
+                      image.calculateHistograms())));
+      BufferedImage displayImage = convertImageToBufferedImage(image);
+      BufferedImage histogramImage = histogram.join();
+      SwingUtilities.invokeLater(() -> {
+        loading = false;
+        view.setImage(displayImage);
+        view.setHistogram(histogramImage);
+      });
+    } catch (Exception ex) {
+      SwingUtilities.invokeLater(() -> {
+        loading = false;
+        view.showError("Error: " + ex.getMessage());
+      });
+    }
+  }
+
+  /**
+   * Creates the command pair for the given action command. While the builder prompts the user
+   * for parameters, live previews requested by the view are rendered for this action; they are
+   * discarded once the prompts are closed.
+   *
+   * @param actionCommand The action command that determines the operation to be executed.
+   * @return the command pair for the action, or null if the action was cancelled
+   */
+  private CommandPair createCommand(String actionCommand) {
+    pendingAction = actionCommand;
+    try {
+      return commandBuilder.createCommand(actionCommand);
+    } finally {
+      livePreview.cancel();
+      pendingAction = null;
+      liveFilter = null;
+      liveLevels = null;
+    }
+  }
+
+  /**
+   * Returns the filter strategy previewed live for the given action command.
+   *
+   * @param actionCommand The action command being configured.
+   * @return the filter strategy of the action, or null if the action has no live preview
+   */
+  private static FilterStrategy filterFor(String actionCommand) {
+    if (actionCommand == null) {
+      return null;
+    }
+    switch (actionCommand) {
+      case "blur":
+        return new BlurFilterStrategy();
+      case "sharpen":
+        return new SharpenFilterStrategy();
+      case "luma":
+        return new LumaFilterStrategy();
+      case "sepia":
+        return new SepiaFilterStrategy();
+      case "colorCorrect":
+        return new ColorCorrectFilterStrategy();
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Requests a live preview of the current filter on the working image.
+   *
+   * @param splitPercentage the percentage of the image width the filter is applied to
+   */
+  private void requestLivePreview(double splitPercentage) {
+    if (liveFilter == null) {
+      return;
+    }
+    try {
+      livePreview.request(model.getImage(currentImageName), liveFilter, splitPercentage);
+    } catch (IOException ex) {
+      view.showError("Error: " + ex.getMessage());
+    }
+  }
+
   /**
    * Applies the operation represented by the current command pair. It executes the apply command
    * and updates the view with the final image state, including setting the histogram.
@@ -150,11 +319,27 @@ public class GUIController implements IController, Features {
   }
 
   /**
-   * Loads an image into the application.
+   * Loads an image into the application. The file is chosen and checked on the calling thread,
+   * and decoded on the background image loader: a reduced version of the image is shown as soon
+   * as it is decoded, followed by the full image and its histogram. The load command is handed
+   * to the loader and is no longer the current command, so confirm cannot run it again.
    */
   @Override
   public void loadImage() {
-    executeCommand("load");
+    if (rejectWhileLoading()) {
+      return;
+    }
+    try {
+      currentCommandPair = createCommand("load");
+      if (currentCommandPair != null && currentCommandPair.hasApply()) {
+        ICommand loadCommand = currentCommandPair.getApplyCommand();
+        currentCommandPair = null;
+        loading = true;
+        imageLoader.execute(() -> finishLoad(loadCommand));
+      }
+    } catch (Exception ex) {
+      view.showError("Error: " + ex.getMessage());
+    }
   }
 
   /**
@@ -262,18 +447,76 @@ public class GUIController implements IController, Features {
   }
 
   /**
-   * Confirms the current operation or selection.
+   * Shows a live preview of the filter currently being configured, applied up to the given
+   * split percentage. Only the first request of a filter runs it; moving the split point
+   * afterwards recomposites the cached result.
+   *
+   * @param splitPercentage the percentage of the image width the filter is applied to
+   */
+  @Override
+  public void previewSplit(double splitPercentage) {
+    if (liveFilter == null) {
+      liveFilter = filterFor(pendingAction);
+    }
+    requestLivePreview(splitPercentage);
+  }
+
+  /**
+   * Shows a live preview of the levels adjustment currently being configured. Values that are
+   * not in ascending order are ignored until they are corrected.
+   *
+   * @param b the black point value
+   * @param m the mid point value
+   * @param w the white point value
+   */
+  @Override
+  public void previewLevels(int b, int m, int w) {
+    if (!"adjustLevels".equals(pendingAction) || b < 0 || b > m || m > w || w > 255) {
+      return;
+    }
+    int[] levels = {b, m, w};
+    if (!Arrays.equals(levels, liveLevels)) {
+      liveLevels = levels;
+      liveFilter = new AdjustLevelsFilterStrategy(b, m, w);
+    }
+    requestLivePreview(100);
+  }
+
+  /**
+   * Reverts the image to its state before the last applied operation.
+   */
+  @Override
+  public void undo() {
+    executeCommand("undo");
+  }
+
+  /**
+   * Reapplies the operation that was last undone.
+   */
+  @Override
+  public void redo() {
+    executeCommand("redo");
+  }
+
+  /**
+   * Confirms the current operation or selection. Rejected while an image is loading, since the
+   * load belongs to the background image loader alone.
    */
   @Override
   public void confirm() {
-    applyOperation();
+    if (!rejectWhileLoading()) {
+      applyOperation();
+    }
   }
 
   /**
-   * Cancels the current operation or selection.
+   * Cancels the current operation or selection. Rejected while an image is loading, since the
+   * image to restore is not in the model yet.
    */
   @Override
   public void cancel() {
-    cancelOperation();
+    if (!rejectWhileLoading()) {
+      cancelOperation();
+    }
   }
 }
@@ -124,7 +124,7 @@ public class HistogramRenderer {
       for (int x = 0; x < bufferedImage.getWidth(); x++) {
         int rgb = bufferedImage.getRGB(x, y);
         Color color = new Color(rgb, true);
-        pixels[y][x] = new Pixel(color.getRed(), color.getGreen(), color.getBlue());
+        pixels[y][x] = Pixel.of(color.getRed(), color.getGreen(), color.getBlue());
       }
     }
     return new Image(pixels);
@@ -1,13 +1,19 @@
 package controller;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
 import model.image.Image;
+import model.image.StripSource;
 
 /**
  * Interface for image file parsing operations.
  * Provides methods for loading an image from a file and
  * saving an image to a file.
+ * Parsers are discovered by {@link ImageParserRegistry} as services of this interface and are
+ * shared between all commands and threads, so implementations must be stateless or
+ * thread-safe and have a public no-argument constructor.
  */
 public interface IImageFileParser {
 
@@ -20,6 +26,21 @@ public interface IImageFileParser {
    */
   Image loadImage(String path) throws IOException;
 
+  /**
+   * Loads an image from a specified path at a reduced resolution. The default implementation
+   * decodes the full image and then applies the settings; parsers whose decoder can skip
+   * pixels override it to decode only what is kept.
+   *
+   * @param path    The path from which to load the image.
+   * @param options The subsampling and maximum dimension of the loaded image.
+   * @return The loaded image with the settings applied.
+   * @throws IOException If there's an error during the loading process.
+   */
+  default Image loadImage(String path, DecodeOptions options) throws IOException {
+    Image image = loadImage(path);
+    return options.isDefault() ? image : options.apply(image);
+  }
+
   /**
    * Saves an IImage object to a specified path.
    *
@@ -28,4 +49,82 @@ public interface IImageFileParser {
    * @throws IOException If there's an error during the saving process.
    */
   void saveImage(String path, Image image) throws IOException;
+
+  /**
+   * Saves an image that has already been packed, so that one conversion can be shared by
+   * several formats. The raster is only read, and the same raster may be saved by several
+   * threads at once. The default implementation unpacks the raster and calls
+   * {@link #saveImage(String, Image)}.
+   *
+   * @param path   The path where the image should be saved.
+   * @param raster The packed pixels of the image.
+   * @throws IOException If there's an error during the saving process.
+   */
+  default void saveRaster(String path, PackedRaster raster) throws IOException {
+    saveImage(path, raster.toImage());
+  }
+
+  /**
+   * Saves an image that has already been packed with the given encoder settings. Settings
+   * that the format does not have are ignored. The default implementation ignores all
+   * settings and calls {@link #saveRaster(String, PackedRaster)}.
+   *
+   * @param path    The path where the image should be saved.
+   * @param raster  The packed pixels of the image.
+   * @param options The encoder settings.
+   * @throws IOException If there's an error during the saving process.
+   */
+  default void saveRaster(String path, PackedRaster raster, EncoderOptions options)
+          throws IOException {
+    saveRaster(path, raster);
+  }
+
+  /**
+   * Opens an image file for reading its rows in strips from top to bottom. The default
+   * implementation loads the whole image and hands out its rows; parsers whose format can be
+   * read a few rows at a time override it to read only the rows asked for.
+   *
+   * @param path The path from which to load the image.
+   * @return a source of the rows of the image, which the caller must close
+   * @throws IOException If the file cannot be opened or is not a valid image.
+   */
+  default StripSource openStrips(String path) throws IOException {
+    return StripSource.of(loadImage(path));
+  }
+
+  /**
+   * Saves the rows of a strip source with the given encoder settings, reading the source to
+   * its end. The default implementation packs all rows into a {@link PackedRaster} and calls
+   * {@link #saveRaster(String, PackedRaster, EncoderOptions)}; parsers whose format can be
+   * written a few rows at a time override it to write every strip as soon as it is read.
+   *
+   * @param path    The path where the image should be saved.
+   * @param source  The rows of the image.
+   * @param options The encoder settings.
+   * @throws IOException If the rows cannot be read or the file cannot be written.
+   */
+  default void saveStrips(String path, StripSource source, EncoderOptions options)
+          throws IOException {
+    saveRaster(path, PackedRaster.of(source), options);
+  }
+
+  /**
+   * Returns the file extensions of the format, in lower case and without the dot.
+   *
+   * @return the extensions handled by this parser
+   */
+  default List<String> getExtensions() {
+    return Collections.emptyList();
+  }
+
+  /**
+   * Returns whether the first bytes of a file identify it as this parser's format.
+   *
+   * @param header the first bytes of the file
+   * @param length the number of valid bytes in the header, which may be fewer than its length
+   * @return true if the file is in this format, otherwise false
+   */
+  default boolean matchesHeader(byte[] header, int length) {
+    return false;
+  }
 }
@@ -1,36 +1,17 @@
 package controller;
 
-import java.util.List;
-import java.util.Optional;
+import java.io.IOException;
 
-import controller.commands.AdjustLevelsCommand;
-import controller.commands.BlueComponentCommand;
-import controller.commands.BlurCommand;
-import controller.commands.BrightenCommand;
-import controller.commands.ColorCorrectCommand;
-import controller.commands.CompressCommand;
-import controller.commands.GreenComponentCommand;
-import controller.commands.HistogramCommand;
-import controller.commands.HorizontalFlipCommand;
-import controller.commands.ICommand;
-import controller.commands.IntensityComponentCommand;
-import controller.commands.LoadCommand;
-import controller.commands.LumaComponentCommand;
-import controller.commands.RGBCombineCommand;
-import controller.commands.RGBSplitCommand;
-import controller.commands.RedComponentCommand;
-import controller.commands.SaveCommand;
-import controller.commands.SepiaCommand;
-import controller.commands.SharpenCommand;
-import controller.commands.ValueComponentCommand;
-import controller.commands.VerticalFlipCommand;
 import model.IImageModel;
+import model.image.Image;
 import view.IView;
 
 /**
  * Implementation of the IController interface for image manipulation.
  * This controller takes user input commands from a given view and processes
  * them using an image model to perform various image operations.
+ * Commands are compiled by a {@link CommandRegistry}; a script is compiled as a whole before
+ * any of its commands runs, and the plan of a script that is run again is reused.
  */
 public class ImageController implements IController {
   /**
@@ -41,6 +22,18 @@ public class ImageController implements IController {
    * The view through which user input is received and feedback is given.
    */
   private final IView view;
+  /**
+   * The recorder of per-command metrics, or null if commands are not measured.
+   */
+  private final MetricsRecorder metrics;
+  /**
+   * The registry that compiles the commands.
+   */
+  private final CommandRegistry registry;
+  /**
+   * The number of scripts currently running, counting scripts started by the run command.
+   */
+  private int scriptDepth;
 
   /**
    * Constructs an ImageController with a given image model and view.
@@ -49,8 +42,34 @@ public class ImageController implements IController {
    * @param view  The view to be used for user interaction.
    */
   public ImageController(IImageModel model, IView view) {
+    this(model, view, null);
+  }
+
+  /**
+   * Constructs an ImageController that measures every command it executes.
+   *
+   * @param model   The model to be used for image manipulations.
+   * @param view    The view to be used for user interaction.
+   * @param metrics The recorder of per-command metrics, or null if commands are not measured.
+   */
+  public ImageController(IImageModel model, IView view, MetricsRecorder metrics) {
+    this(model, view, metrics, CommandRegistry.getDefault());
+  }
+
+  /**
+   * Constructs an ImageController that compiles commands with the given registry.
+   *
+   * @param model    The model to be used for image manipulations.
+   * @param view     The view to be used for user interaction.
+   * @param metrics  The recorder of per-command metrics, or null if commands are not measured.
+   * @param registry The registry that compiles the commands.
+   */
+  public ImageController(IImageModel model, IView view, MetricsRecorder metrics,
+                         CommandRegistry registry) {
     this.model = model;
     this.view = view;
+    this.metrics = metrics;
+    this.registry = registry;
   }
 
   /**
@@ -74,157 +93,159 @@ public class ImageController implements IController {
   }
 
   /**
-   * Parses a script file and executes a list of commands.
-   * This method allows batch processing of multiple commands.
+   * Compiles a script file and executes its commands.
+   * This method allows batch processing of multiple commands. The whole script is compiled
+   * before its first command runs, so a script with an unknown command or an invalid argument
+   * on any line is rejected without executing anything.
+   * If commands are measured, a summary table of the metrics is shown and the metrics file is
+   * written once the outermost script has finished, and the metrics are then reset, so the
+   * next script is reported on its own.
    *
    * @param filePath Path to the script file containing a list of commands.
    */
   public void runScript(String filePath) {
+    runScript(filePath, ScriptMode.DIRECT);
+  }
+
+  /**
+   * Compiles a script file and executes its commands in the given mode.
+   * An optimized script does not compute images that it neither saves nor uses, and computes
+   * an image that it asks for more than once only once; a report of the commands removed is
+   * shown before the script runs. A streamed script is optimized, and then its chains of a
+   * load, filters and a save are run in strips of rows without storing their images.
+   * A script run by another script is optimized and streamed with every image live at its end,
+   * since the commands after the run may read any image, so it only drops images that it
+   * overwrites itself.
+   *
+   * @param filePath Path to the script file containing a list of commands.
+   * @param mode     How the script is run.
+   */
+  public void runScript(String filePath, ScriptMode mode) {
+    boolean nested = scriptDepth > 0;
+    scriptDepth++;
     try {
-      IScriptParser scriptParser = new ScriptParser();
-      List<String> commands = scriptParser.parse(filePath);
-      for (String command : commands) {
-        executeCommand(command);
+      ScriptPlan plan = registry.compileScript(filePath);
+      if (mode != ScriptMode.DIRECT) {
+        OptimizationReport report = ScriptOptimizer.optimize(plan, nested);
+        view.showMessage(report.format());
+        plan = report.getPlan();
+      }
+      if (mode == ScriptMode.STREAMED) {
+        plan = ScriptStreamer.stream(plan, nested);
       }
+      for (CompiledCommand command : plan.getCommands()) {
+        executeCommand(command, metrics == null ? null : metrics.start());
+      }
+    } catch (IllegalArgumentException e) {
+      view.showError(e.getMessage());
+      view.showError("Error running the script file.");
     } catch (Exception e) {
       view.showError("Error running the script file.");
+    } finally {
+      scriptDepth--;
+    }
+    if (metrics != null && scriptDepth == 0) {
+      reportMetrics();
     }
+  }
 
+  /**
+   * Shows the summary table of the recorded metrics, writes the metrics file and resets the
+   * metrics.
+   */
+  private void reportMetrics() {
+    view.showMessage(metrics.formatSummary());
+    try {
+      metrics.writeMetricsFile();
+    } catch (IOException e) {
+      view.showError("Error writing the metrics file: " + e.getMessage());
+    } finally {
+      metrics.reset();
+    }
   }
 
   /**
-   * Parses the given command and delegates it to the corresponding
-   * command implementation.
-   * After executing the command, it provides feedback about the
-   * operation's success or failure.
+   * Records the metrics of a finished command together with the dimensions of the image it
+   * produced. Run commands are not recorded themselves because the commands of the script
+   * they run are.
+   *
+   * @param sample     The measurement started before the command.
+   * @param command    The command that was executed.
+   * @param successful Whether the command succeeded.
+   */
+  private void recordMetrics(MetricsRecorder.Sample sample, CompiledCommand command,
+                             boolean successful) {
+    if (command.getScriptPath().isPresent()) {
+      return;
+    }
+    int width = -1;
+    int height = -1;
+    if (successful && command.getOutputImageName().isPresent()) {
+      try {
+        Image image = model.getImage(command.getOutputImageName().get());
+        width = image.getWidth();
+        height = image.getHeight();
+      } catch (IOException e) {
+        // The command did not leave an image under that name; dimensions stay unknown.
+      }
+    }
+    metrics.stop(sample, command.getText(), successful, width, height);
+  }
+
+  /**
+   * Compiles the given command and executes it.
+   * If the command is unknown or its arguments are invalid, the reason is shown and the
+   * command fails without being executed.
    *
    * @param command The command string input by the user.
    */
   private void executeCommand(String command) {
-    String[] parts = command.split(" ");
+    MetricsRecorder.Sample sample = metrics == null ? null : metrics.start();
+    CompiledCommand compiled;
+    try {
+      compiled = registry.compile(command);
+    } catch (IllegalArgumentException e) {
+      String name = command.trim().split("\\s+")[0];
+      view.showError(e.getMessage());
+      if (metrics != null && !"run".equals(name)) {
+        metrics.stop(sample, command, false, -1, -1);
+      }
+      view.showError(name + " operation failed.");
+      return;
+    }
+    executeCommand(compiled, sample);
+  }
+
+  /**
+   * Executes a compiled command against the model, or runs the script of a run command.
+   * After executing the command, it provides feedback about the
+   * operation's success or failure.
+   *
+   * @param command The compiled command.
+   * @param sample  The measurement started before the command, or null if commands are not
+   *                measured.
+   */
+  private void executeCommand(CompiledCommand command, MetricsRecorder.Sample sample) {
     boolean commandSuccessful;
-    ICommand newCommand;
     try {
-      commandSuccessful = true;
-      Optional<Double> splitPercentage;
-      switch (parts[0]) {
-        case "load":
-          newCommand = new LoadCommand(parts[1], parts[2], model);
-          commandSuccessful = newCommand.execute();
-          break;
-        case "save":
-          newCommand = new SaveCommand(parts[1], parts[2], model);
-          commandSuccessful = newCommand.execute();
-          break;
-        case "red-component":
-          newCommand = new RedComponentCommand(parts[1], parts[2], model);
-          commandSuccessful = newCommand.execute();
-          break;
-        case "green-component":
-          newCommand = new GreenComponentCommand(parts[1], parts[2], model);
-          commandSuccessful = newCommand.execute();
-          break;
-        case "blue-component":
-          newCommand = new BlueComponentCommand(parts[1], parts[2], model);
-          commandSuccessful = newCommand.execute();
-          break;
-        case "value-component":
-          splitPercentage = parts.length > 3 && parts[3].equals("split")
-                  ? Optional.of(Double.parseDouble(parts[4])) : Optional.empty();
-          newCommand = new ValueComponentCommand(parts[1], parts[2], model, splitPercentage);
-          commandSuccessful = newCommand.execute();
-          break;
-        case "luma-component":
-          splitPercentage = parts.length > 3 && parts[3].equals("split")
-                  ? Optional.of(Double.parseDouble(parts[4])) : Optional.empty();
-          newCommand = new LumaComponentCommand(parts[1], parts[2], model, splitPercentage);
-          commandSuccessful = newCommand.execute();
-          break;
-        case "intensity-component":
-          splitPercentage = parts.length > 3 && parts[3].equals("split")
-                  ? Optional.of(Double.parseDouble(parts[4])) : Optional.empty();
-          newCommand = new IntensityComponentCommand(parts[1], parts[2], model, splitPercentage);
-          commandSuccessful = newCommand.execute();
-          break;
-        case "horizontal-flip":
-          newCommand = new HorizontalFlipCommand(parts[1], parts[2], model);
-          commandSuccessful = newCommand.execute();
-          break;
-        case "vertical-flip":
-          newCommand = new VerticalFlipCommand(parts[1], parts[2], model);
-          commandSuccessful = newCommand.execute();
-          break;
-        case "brighten":
-          int inc = Integer.parseInt(parts[1]);
-          newCommand = new BrightenCommand(inc, parts[2], parts[3], model);
-          commandSuccessful = newCommand.execute();
-          break;
-        case "rgb-split":
-          newCommand = new RGBSplitCommand(parts[1], parts[2], parts[3], parts[4], model);
-          commandSuccessful = newCommand.execute();
-          break;
-        case "rgb-combine":
-          newCommand = new RGBCombineCommand(parts[1], parts[2], parts[3], parts[4], model);
-          commandSuccessful = newCommand.execute();
-          break;
-        case "blur":
-          splitPercentage = parts.length > 3 && parts[3].equals("split")
-                  ? Optional.of(Double.parseDouble(parts[4])) : Optional.empty();
-          newCommand = new BlurCommand(parts[1], parts[2], model, splitPercentage);
-          commandSuccessful = newCommand.execute();
-          break;
-        case "sharpen":
-          splitPercentage = parts.length > 3 && parts[3].equals("split")
-                  ? Optional.of(Double.parseDouble(parts[4])) : Optional.empty();
-          newCommand = new SharpenCommand(parts[1], parts[2], model, splitPercentage);
-          commandSuccessful = newCommand.execute();
-          break;
-        case "sepia":
-          splitPercentage = parts.length > 3 && parts[3].equals("split")
-                  ? Optional.of(Double.parseDouble(parts[4])) : Optional.empty();
-          newCommand = new SepiaCommand(parts[1], parts[2], model, splitPercentage);
-          commandSuccessful = newCommand.execute();
-          break;
-        case "compress":
-          double cr = Integer.parseInt(parts[1]);
-          newCommand = new CompressCommand(cr, parts[2], parts[3], model);
-          commandSuccessful = newCommand.execute();
-          break;
-        case "histogram":
-          newCommand = new HistogramCommand(parts[1], parts[2], model);
-          commandSuccessful = newCommand.execute();
-          break;
-        case "color-correct":
-          splitPercentage = parts.length > 3 && parts[3].equals("split")
-                  ? Optional.of(Double.parseDouble(parts[4])) : Optional.empty();
-          newCommand = new ColorCorrectCommand(parts[1], parts[2], model, splitPercentage);
-          commandSuccessful = newCommand.execute();
-          break;
-        case "levels-adjust":
-          splitPercentage = parts.length > 6 && parts[6].equals("split")
-                  ? Optional.of(Double.parseDouble(parts[7])) : Optional.empty();
-          int b = Integer.parseInt(parts[1]);
-          int m = Integer.parseInt(parts[2]);
-          int w = Integer.parseInt(parts[3]);
-          newCommand = new AdjustLevelsCommand(b, m, w, parts[4], parts[5], model, splitPercentage);
-          commandSuccessful = newCommand.execute();
-          break;
-        case "run":
-          runScript(parts[1]);
-          break;
-        default:
-          view.showError("Unknown command " + parts[0]);
-          commandSuccessful = false;
-          break;
+      if (command.getScriptPath().isPresent()) {
+        runScript(command.getScriptPath().get(),
+                command.getScriptMode().orElse(ScriptMode.DIRECT));
+        commandSuccessful = true;
+      } else {
+        commandSuccessful = command.bind(model).execute();
       }
     } catch (Exception e) {
       view.showError("Error executing command: " + e.getMessage());
       commandSuccessful = false;
     }
+    if (metrics != null) {
+      recordMetrics(sample, command, commandSuccessful);
+    }
     if (commandSuccessful) {
-      view.showMessage(parts[0] + " operation successful.");
+      view.showMessage(command.getName() + " operation successful.");
     } else {
-      view.showError(parts[0] + " operation failed.");
+      view.showError(command.getName() + " operation failed.");
     }
   }
 }
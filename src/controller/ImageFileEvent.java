@@ -0,0 +1,96 @@
+package controller;
+
+import java.io.File;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import model.image.Image;
+
+/**
+ * A Java Flight Recorder event emitted around every load and save of an image file by an
+ * image file parser. It records the file, its format, the image dimensions and the size of the
+ * file.
+ */
+@Name("imageprocessor.ImageFile")
+@Label("Image File")
+@Category({"Image Processor", "I/O"})
+@Description("An image file loaded or saved by a parser")
+public class ImageFileEvent extends Event {
+
+  @Label("Operation")
+  @Description("Either load or save")
+  String operation;
+
+  @Label("Path")
+  String path;
+
+  @Label("Format")
+  String format;
+
+  @Label("Width")
+  int width;
+
+  @Label("Height")
+  int height;
+
+  @Label("File Bytes")
+  @DataAmount
+  long fileBytes;
+
+  @Label("Successful")
+  boolean successful;
+
+  /**
+   * Starts timing a load or save of the given file.
+   *
+   * @param operation either load or save
+   * @param path      the path of the file
+   * @param format    the image format of the file
+   * @return the started event
+   */
+  static ImageFileEvent begin(String operation, String path, String format) {
+    ImageFileEvent event = new ImageFileEvent();
+    event.begin();
+    event.operation = operation;
+    event.path = path;
+    event.format = format;
+    return event;
+  }
+
+  /**
+   * Finishes the event and commits it if the event is enabled in the running recording.
+   *
+   * @param image      the image that was loaded or saved, or null if there is none
+   * @param successful whether the file was loaded or saved successfully
+   */
+  void end(Image image, boolean successful) {
+    if (image != null && !image.isEmpty()) {
+      end(image.getWidth(), image.getHeight(), successful);
+    } else {
+      end(0, 0, successful);
+    }
+  }
+
+  /**
+   * Finishes the event for an image of the given dimensions and commits it if the event is
+   * enabled in the running recording.
+   *
+   * @param width      the width of the image that was loaded or saved
+   * @param height     the height of the image that was loaded or saved
+   * @param successful whether the file was loaded or saved successfully
+   */
+  void end(int width, int height, boolean successful) {
+    end();
+    if (shouldCommit()) {
+      this.successful = successful;
+      this.width = width;
+      this.height = height;
+      fileBytes = new File(path).length();
+      commit();
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * A registry of the image file parsers available to the application. Parsers are discovered
+ * with {@link ServiceLoader} as services of {@link IImageFileParser}, created once and shared,
+ * so every lookup returns the same thread-safe parser instance.
+ * A parser is chosen for saving by the extension of the path, compared case-insensitively.
+ * For loading, the first bytes of the file are checked against the magic bytes of every
+ * format first, so a misnamed file is still read by the parser of its real format; the
+ * extension is used only when no format recognises the file.
+ */
+public final class ImageParserRegistry {
+  /**
+   * The number of bytes read from the start of a file to detect its format.
+   */
+  public static final int HEADER_LENGTH = 16;
+
+  private final List<IImageFileParser> parsers;
+  private final Map<String, IImageFileParser> parsersByExtension;
+
+  /**
+   * Holds the registry of the discovered parsers, created on first use.
+   */
+  private static final class DefaultRegistry {
+    private static final ImageParserRegistry INSTANCE = new ImageParserRegistry(discover());
+  }
+
+  /**
+   * Constructs a registry of the given parsers. If two parsers claim the same extension, the
+   * first one is used.
+   *
+   * @param parsers the parsers, in the order in which they are asked to detect a file
+   */
+  public ImageParserRegistry(List<IImageFileParser> parsers) {
+    this.parsers = Collections.unmodifiableList(new ArrayList<>(parsers));
+    Map<String, IImageFileParser> byExtension = new LinkedHashMap<>();
+    for (IImageFileParser parser : parsers) {
+      for (String extension : parser.getExtensions()) {
+        byExtension.putIfAbsent(extension.toLowerCase(Locale.ROOT), parser);
+      }
+    }
+    this.parsersByExtension = Collections.unmodifiableMap(byExtension);
+  }
+
+  /**
+   * Returns the registry of the parsers found by the service loader.
+   *
+   * @return the shared default registry
+   */
+  public static ImageParserRegistry getDefault() {
+    return DefaultRegistry.INSTANCE;
+  }
+
+  /**
+   * Loads the parsers registered as services. If no service is registered, for example when
+   * the service file was not copied to the class path, the built-in parsers are used.
+   *
+   * @return the discovered parsers
+   */
+  private static List<IImageFileParser> discover() {
+    List<IImageFileParser> found = new ArrayList<>();
+    for (IImageFileParser parser : ServiceLoader.load(IImageFileParser.class,
+            IImageFileParser.class.getClassLoader())) {
+      found.add(parser);
+    }
+    if (found.isEmpty()) {
+      found.addAll(Arrays.asList(new PNGParser(), new JPGParser(), new JPEGParser(),
+              new PPMParser(), new RawImageParser()));
+    }
+    return found;
+  }
+
+  /**
+   * Returns the registered parsers, in detection order.
+   *
+   * @return an unmodifiable list of the parsers
+   */
+  public List<IImageFileParser> getParsers() {
+    return parsers;
+  }
+
+  /**
+   * Returns the extensions that have a parser, in lower case.
+   *
+   * @return an unmodifiable set of the supported extensions
+   */
+  public Set<String> getExtensions() {
+    return parsersByExtension.keySet();
+  }
+
+  /**
+   * Returns the parser for the extension of the given path, ignoring its case.
+   *
+   * @param path the path of the image file
+   * @return the parser registered for the extension
+   * @throws IllegalArgumentException      if the path does not contain a file extension
+   * @throws UnsupportedOperationException if no parser handles the extension
+   */
+  public IImageFileParser forSaving(String path) {
+    int lastIndex = path.lastIndexOf(".");
+    if (lastIndex == -1) {
+      throw new IllegalArgumentException("File path does not contain an extension.");
+    }
+    IImageFileParser parser = parsersByExtension.get(
+            path.substring(lastIndex + 1).toLowerCase(Locale.ROOT));
+    if (parser == null) {
+      throw new UnsupportedOperationException();
+    }
+    return parser;
+  }
+
+  /**
+   * Returns the parser for loading the given file. The format is detected from the first
+   * bytes of the file if it can be read, and from the extension of the path otherwise.
+   *
+   * @param path the path of the image file
+   * @return the parser of the file's format
+   * @throws IllegalArgumentException      if the format is not detected and the path does not
+   *                                       contain a file extension
+   * @throws UnsupportedOperationException if the format is not detected and no parser handles
+   *                                       the extension
+   */
+  public IImageFileParser forLoading(String path) {
+    return detect(path).orElseGet(() -> forSaving(path));
+  }
+
+  /**
+   * Detects the format of a file from its first bytes.
+   *
+   * @param path the path of the image file
+   * @return the parser whose format matches the file, or empty if the file cannot be read or
+   *         no format matches
+   */
+  public Optional<IImageFileParser> detect(String path) {
+    byte[] header = new byte[HEADER_LENGTH];
+    int length = 0;
+    try {
+      Path file = Paths.get(path);
+      if (!Files.isRegularFile(file)) {
+        return Optional.empty();
+      }
+      try (InputStream in = Files.newInputStream(file)) {
+        int read;
+        while (length < HEADER_LENGTH
+                && (read = in.read(header, length, HEADER_LENGTH - length)) > 0) {
+          length += read;
+        }
+      }
+    } catch (IOException | InvalidPathException e) {
+      return Optional.empty();
+    }
+    for (IImageFileParser parser : parsers) {
+      if (parser.matchesHeader(header, length)) {
+        return Optional.of(parser);
+      }
+    }
+    return Optional.empty();
+  }
+}
@@ -2,6 +2,8 @@ package controller;
 
 import java.awt.image.BufferedImage;
 
+import javax.imageio.ImageWriteParam;
+
 /**
  * Provides a concrete implementation of the AbstractImageParser
  * for the JPEG image format.
@@ -27,4 +29,27 @@ public class JPEGParser extends AbstractImageParser {
   protected int getImageType() {
     return BufferedImage.TYPE_INT_RGB;
   }
+
+  /**
+   * Returns whether the header starts with the JPEG start-of-image marker.
+   *
+   * @param header the first bytes of the file
+   * @param length the number of valid bytes in the header
+   * @return true if the file is a JPEG image, otherwise false
+   */
+  @Override
+  public boolean matchesHeader(byte[] header, int length) {
+    return startsWith(header, length, 0xff, 0xd8, 0xff);
+  }
+
+  /**
+   * Applies the JPEG quality and progressive mode.
+   *
+   * @param param   the parameters of the JPEG writer
+   * @param options the encoder settings
+   */
+  @Override
+  protected void configureWriteParam(ImageWriteParam param, EncoderOptions options) {
+    configureJpegWriteParam(param, options);
+  }
 }
@@ -0,0 +1,172 @@
+package controller;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import model.image.Image;
+import model.strategy.FilterStrategy;
+import model.strategy.SplitFilterDecorator;
+
+/**
+ * Renders interactive previews of a filter while its parameters are being changed, for example
+ * while a split slider is dragged. Requests are debounced: a render only starts once no new
+ * request has arrived for the debounce delay, and all requests made in the meantime are coalesced
+ * into the latest one. Rendering happens on a single background worker, never on the caller's
+ * thread.
+ * The fully filtered image is cached per source image and filter, so a request that only moves
+ * the split point recomposites the cached result instead of running the filter again.
+ * A listener that shows the preview on another thread checks {@link #isCurrent(long)} there,
+ * since a request or cancellation may arrive after the preview was handed over.
+ */
+public class LivePreview {
+  private final ScheduledExecutorService worker;
+  private final long debounceMillis;
+  private final Listener onRendered;
+
+  private ScheduledFuture<?> pendingRender;
+  private Image cachedSource;
+  private FilterStrategy cachedFilter;
+  private Image cachedFiltered;
+  private long generation;
+
+  /**
+   * Receives the rendered previews together with the generation of the request they were
+   * rendered for.
+   */
+  public interface Listener {
+
+    /**
+     * Receives a rendered preview on the background worker.
+     *
+     * @param preview    the rendered preview
+     * @param generation the generation of the request, to be passed to
+     *                   {@link LivePreview#isCurrent(long)} before the preview is shown
+     */
+    void rendered(Image preview, long generation);
+  }
+
+  /**
+   * Constructs a LivePreview that hands every rendered preview to the given consumer.
+   * The consumer is called on the background worker.
+   *
+   * @param debounceMillis the time in milliseconds without new requests before a render starts
+   * @param onRendered     the consumer that receives each rendered preview
+   */
+  public LivePreview(long debounceMillis, Consumer<Image> onRendered) {
+    this(debounceMillis, (preview, generation) -> onRendered.accept(preview));
+  }
+
+  /**
+   * Constructs a LivePreview that hands every rendered preview and the generation of its
+   * request to the given listener. The listener is called on the background worker.
+   *
+   * @param debounceMillis the time in milliseconds without new requests before a render starts
+   * @param onRendered     the listener that receives each rendered preview
+   */
+  public LivePreview(long debounceMillis, Listener onRendered) {
+    this.debounceMillis = debounceMillis;
+    this.onRendered = onRendered;
+    this.worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "live-preview");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Requests a preview of the given filter applied to the source image up to the given split
+   * percentage. Any render requested earlier that has not started yet is replaced by this one.
+   *
+   * @param source          the unfiltered image
+   * @param filter          the filter to preview; passing the same instance again reuses the
+   *                        cached filtered image
+   * @param splitPercentage the percentage of the image width the filter is applied to
+   */
+  public synchronized void request(Image source, FilterStrategy filter, double splitPercentage) {
+    if (pendingRender != null) {
+      pendingRender.cancel(false);
+    }
+    long requestGeneration = ++generation;
+    pendingRender = worker.schedule(() -> render(source, filter, splitPercentage,
+            requestGeneration), debounceMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Discards any render that has not been delivered yet and drops the cached filtered image.
+   * A render that is already running finishes but its result is not delivered.
+   */
+  public synchronized void cancel() {
+    if (pendingRender != null) {
+      pendingRender.cancel(false);
+      pendingRender = null;
+    }
+    generation++;
+    cachedSource = null;
+    cachedFilter = null;
+    cachedFiltered = null;
+  }
+
+  /**
+   * Returns whether a preview is still wanted: no newer request and no cancellation arrived
+   * since the request of the given generation.
+   *
+   * @param requestGeneration the generation passed to the listener with the preview
+   * @return true if the preview may be shown, otherwise false
+   */
+  public synchronized boolean isCurrent(long requestGeneration) {
+    return requestGeneration == generation;
+  }
+
+  /**
+   * Stops the background worker. No preview is rendered after this call.
+   */
+  public void shutdown() {
+    cancel();
+    worker.shutdownNow();
+  }
+
+  /**
+   * Renders one preview on the background worker and delivers it unless a newer request or a
+   * cancellation arrived while it was being rendered.
+   *
+   * @param source            the unfiltered image
+   * @param filter            the filter to preview
+   * @param splitPercentage   the percentage of the image width the filter is applied to
+   * @param requestGeneration the generation of the request being rendered
+   */
+  private void render(Image source, FilterStrategy filter, double splitPercentage,
+                      long requestGeneration) {
+    Image filtered = filteredImage(source, filter);
+    Image preview = splitPercentage >= 100 ? filtered
+            : SplitFilterDecorator.composite(source, filtered, splitPercentage);
+    if (isCurrent(requestGeneration)) {
+      onRendered.rendered(preview, requestGeneration);
+    }
+  }
+
+  /**
+   * Returns the source image with the filter applied, reusing the cached result when neither the
+   * source nor the filter changed since the last render.
+   *
+   * @param source the unfiltered image
+   * @param filter the filter to apply
+   * @return the fully filtered image
+   */
+  private Image filteredImage(Image source, FilterStrategy filter) {
+    synchronized (this) {
+      if (source == cachedSource && filter == cachedFilter) {
+        return cachedFiltered;
+      }
+    }
+    Image filtered = source.applyFilter(filter);
+    synchronized (this) {
+      cachedSource = source;
+      cachedFilter = filter;
+      cachedFiltered = filtered;
+    }
+    return filtered;
+  }
+}
@@ -0,0 +1,367 @@
+package controller;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Records the wall time, CPU time, allocated bytes and image dimensions of every executed
+ * command. CPU time and allocations are summed over every live thread of the JVM from the
+ * ThreadMXBean, so work a command hands to a pool, such as parallel saves, resampling or
+ * histogram stripes, is included. A thread that ends while a command runs can no longer be
+ * read, so such a command is marked as partial. If the JVM does not support a measurement it
+ * is reported as -1.
+ * The recorded metrics can be formatted as a summary table and written to a metrics file in
+ * JSON or CSV format, chosen by the extension of the file.
+ */
+public class MetricsRecorder {
+  private final String metricsFile;
+  private final ThreadMXBean threads;
+  private final boolean allocationSupported;
+  private final List<CommandMetrics> metrics;
+
+  /**
+   * Represents a measurement that has been started but not finished yet.
+   */
+  public static final class Sample {
+    private final long wallStart;
+    private final long startedThreads;
+    private final long[] threadIds;
+    private final long[] cpuStart;
+    private final long[] allocatedStart;
+
+    private Sample(long wallStart, long startedThreads, long[] threadIds, long[] cpuStart,
+                   long[] allocatedStart) {
+      this.wallStart = wallStart;
+      this.startedThreads = startedThreads;
+      this.threadIds = threadIds;
+      this.cpuStart = cpuStart;
+      this.allocatedStart = allocatedStart;
+    }
+  }
+
+  /**
+   * Constructs a MetricsRecorder.
+   *
+   * @param metricsFile the path of the metrics file, ending in .json or .csv, or null if the
+   *                    metrics should only be summarised
+   * @throws IllegalArgumentException if the metrics file has another extension
+   */
+  public MetricsRecorder(String metricsFile) {
+    if (metricsFile != null && !isJson(metricsFile) && !isCsv(metricsFile)) {
+      throw new IllegalArgumentException("Metrics file must end in .json or .csv.");
+    }
+    this.metricsFile = metricsFile;
+    this.threads = ManagementFactory.getThreadMXBean();
+    this.allocationSupported = threads instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported();
+    if (allocationSupported) {
+      ((com.sun.management.ThreadMXBean) threads).setThreadAllocatedMemoryEnabled(true);
+    }
+    if (threads.isThreadCpuTimeSupported()) {
+      threads.setThreadCpuTimeEnabled(true);
+    }
+    this.metrics = new ArrayList<>();
+  }
+
+  /**
+   * Starts measuring a command. The counters of every live thread are read, so the threads the
+   * command hands work to are measured as well.
+   *
+   * @return the started measurement
+   */
+  public Sample start() {
+    long[] ids = threads.getAllThreadIds();
+    long started = threads.getTotalStartedThreadCount();
+    return new Sample(System.nanoTime(), started, ids, cpuTimes(ids), allocatedBytes(ids));
+  }
+
+  /**
+   * Finishes a measurement and records it. The CPU time and allocations are the growth of the
+   * counters of every live thread, where threads started during the command count from zero.
+   * The measurement is partial if a thread that was running at the start, or that was started
+   * since, has ended.
+   *
+   * @param sample     the measurement returned by {@link #start()}
+   * @param command    the command line that was executed
+   * @param successful whether the command succeeded
+   * @param width      the width of the produced image, or -1 if there is none
+   * @param height     the height of the produced image, or -1 if there is none
+   * @return the recorded metrics
+   */
+  public CommandMetrics stop(Sample sample, String command, boolean successful, int width,
+                             int height) {
+    long wall = System.nanoTime() - sample.wallStart;
+    long started = threads.getTotalStartedThreadCount();
+    long[] ids = threads.getAllThreadIds();
+    long[] cpuEnd = cpuTimes(ids);
+    long[] allocatedEnd = allocatedBytes(ids);
+    Map<Long, Integer> before = new HashMap<>();
+    for (int i = 0; i < sample.threadIds.length; i++) {
+      if (readable(sample.cpuStart, i) && readable(sample.allocatedStart, i)) {
+        before.put(sample.threadIds[i], i);
+      }
+    }
+    long cpu = cpuEnd == null ? -1 : 0;
+    long allocated = allocatedEnd == null ? -1 : 0;
+    int remaining = 0;
+    int newThreads = 0;
+    boolean partial = false;
+    for (int i = 0; i < ids.length; i++) {
+      Integer start = before.get(ids[i]);
+      if (start == null) {
+        newThreads++;
+      } else {
+        remaining++;
+      }
+      if (!readable(cpuEnd, i) || !readable(allocatedEnd, i)) {
+        partial = true;
+        continue;
+      }
+      if (cpuEnd != null) {
+        cpu += cpuEnd[i] - (start == null ? 0 : sample.cpuStart[start]);
+      }
+      if (allocatedEnd != null) {
+        allocated += allocatedEnd[i] - (start == null ? 0 : sample.allocatedStart[start]);
+      }
+    }
+    partial |= remaining < before.size() || newThreads < started - sample.startedThreads;
+    CommandMetrics result = new CommandMetrics(command, successful, wall, cpu, allocated,
+            partial && (cpu >= 0 || allocated >= 0), width, height);
+    metrics.add(result);
+    return result;
+  }
+
+  /**
+   * Returns the metrics recorded so far, in execution order.
+   *
+   * @return an unmodifiable list of the recorded metrics
+   */
+  public List<CommandMetrics> getMetrics() {
+    return Collections.unmodifiableList(metrics);
+  }
+
+  /**
+   * Forgets the metrics recorded so far, so the next summary starts from zero.
+   */
+  public void reset() {
+    metrics.clear();
+  }
+
+  /**
+   * Formats the recorded metrics as a table with one row per command name, holding the number
+   * of executions and the summed wall time, CPU time and allocations, followed by a total row.
+   * Rows holding a partial measurement are marked with an asterisk and explained below the
+   * table.
+   *
+   * @return the summary table
+   */
+  public String formatSummary() {
+    Map<String, long[]> totals = new LinkedHashMap<>();
+    long[] overall = new long[5];
+    for (CommandMetrics entry : metrics) {
+      long[] row = totals.computeIfAbsent(entry.getName(), name -> new long[5]);
+      add(row, entry);
+      add(overall, entry);
+    }
+    StringBuilder builder = new StringBuilder();
+    String format = "%-20s %6s %12s %12s %14s%n";
+    builder.append(String.format(Locale.ROOT, format, "command", "count", "wall ms", "cpu ms",
+            "allocated MB"));
+    for (Map.Entry<String, long[]> row : totals.entrySet()) {
+      appendRow(builder, format, row.getKey(), row.getValue());
+    }
+    appendRow(builder, format, "total", overall);
+    if (overall[4] > 0) {
+      builder.append(String.format(Locale.ROOT,
+              "* CPU time and allocations miss threads that ended during the command.%n"));
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Writes the recorded metrics to the metrics file, one entry per executed command. Does
+   * nothing if no metrics file was given.
+   *
+   * @throws IOException If the metrics file cannot be written.
+   */
+  public void writeMetricsFile() throws IOException {
+    if (metricsFile == null) {
+      return;
+    }
+    try (Writer writer = new FileWriter(metricsFile)) {
+      if (isJson(metricsFile)) {
+        writeJson(writer);
+      } else {
+        writeCsv(writer);
+      }
+    }
+  }
+
+  /**
+   * Writes the metrics as a JSON array of objects.
+   *
+   * @param writer the writer of the metrics file
+   * @throws IOException If the metrics cannot be written.
+   */
+  private void writeJson(Writer writer) throws IOException {
+    writer.write("[\n");
+    for (int i = 0; i < metrics.size(); i++) {
+      CommandMetrics entry = metrics.get(i);
+      writer.write(String.format(Locale.ROOT,
+              "  {\"command\": \"%s\", \"name\": \"%s\", \"successful\": %b, "
+                      + "\"wallNanos\": %d, \"cpuNanos\": %d, \"allocatedBytes\": %d, "
+                      + "\"partial\": %b, \"width\": %d, \"height\": %d}%s\n",
+              escapeJson(entry.getCommand()), escapeJson(entry.getName()),
+              entry.isSuccessful(), entry.getWallNanos(), entry.getCpuNanos(),
+              entry.getAllocatedBytes(), entry.isPartial(), entry.getWidth(), entry.getHeight(),
+              i < metrics.size() - 1 ? "," : ""));
+    }
+    writer.write("]\n");
+  }
+
+  /**
+   * Writes the metrics as CSV with a header row.
+   *
+   * @param writer the writer of the metrics file
+   * @throws IOException If the metrics cannot be written.
+   */
+  private void writeCsv(Writer writer) throws IOException {
+    writer.write("command,name,successful,wallNanos,cpuNanos,allocatedBytes,partial,width,"
+            + "height\n");
+    for (CommandMetrics entry : metrics) {
+      writer.write(String.format(Locale.ROOT, "\"%s\",%s,%b,%d,%d,%d,%b,%d,%d\n",
+              entry.getCommand().replace("\"", "\"\""), entry.getName(),
+              entry.isSuccessful(), entry.getWallNanos(), entry.getCpuNanos(),
+              entry.getAllocatedBytes(), entry.isPartial(), entry.getWidth(),
+              entry.getHeight()));
+    }
+  }
+
+  /**
+   * Adds the measurements of one command to a summary row of count, wall time, CPU time,
+   * allocated bytes and partial measurements. Measurements that are not available leave the
+   * row unchanged.
+   *
+   * @param row   the summary row
+   * @param entry the measurements to add
+   */
+  private static void add(long[] row, CommandMetrics entry) {
+    row[0]++;
+    row[1] += entry.getWallNanos();
+    row[2] += Math.max(0, entry.getCpuNanos());
+    row[3] += Math.max(0, entry.getAllocatedBytes());
+    row[4] += entry.isPartial() ? 1 : 0;
+  }
+
+  /**
+   * Appends one formatted summary row to the table.
+   *
+   * @param builder the table being built
+   * @param format  the row format
+   * @param name    the label of the row
+   * @param row     the count, wall time, CPU time, allocated bytes and partial measurements of
+   *                the row
+   */
+  private static void appendRow(StringBuilder builder, String format, String name, long[] row) {
+    builder.append(String.format(Locale.ROOT, format, row[4] > 0 ? name + "*" : name, row[0],
+            String.format(Locale.ROOT, "%.2f", row[1] / 1e6),
+            String.format(Locale.ROOT, "%.2f", row[2] / 1e6),
+            String.format(Locale.ROOT, "%.2f", row[3] / (1024.0 * 1024.0))));
+  }
+
+  /**
+   * Returns the CPU time of the given threads.
+   *
+   * @param ids the ids of the threads
+   * @return the CPU time of each thread in nanoseconds, -1 for a thread that has ended, or null
+   *         if CPU time is not supported
+   */
+  private long[] cpuTimes(long[] ids) {
+    if (!threads.isThreadCpuTimeSupported()) {
+      return null;
+    }
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threads).getThreadCpuTime(ids);
+    }
+    long[] times = new long[ids.length];
+    for (int i = 0; i < ids.length; i++) {
+      times[i] = threads.getThreadCpuTime(ids[i]);
+    }
+    return times;
+  }
+
+  /**
+   * Returns the bytes allocated so far by the given threads.
+   *
+   * @param ids the ids of the threads
+   * @return the allocated bytes of each thread, -1 for a thread that has ended, or null if this
+   *         is not supported
+   */
+  private long[] allocatedBytes(long[] ids) {
+    if (!allocationSupported) {
+      return null;
+    }
+    return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(ids);
+  }
+
+  /**
+   * Returns whether a counter of a thread could be read, or is not measured at all.
+   *
+   * @param counters the counters of the threads, or null if they are not measured
+   * @param index    the index of the thread
+   * @return false if the thread had ended when its counter was read, otherwise true
+   */
+  private static boolean readable(long[] counters, int index) {
+    return counters == null || counters[index] >= 0;
+  }
+
+  /**
+   * Escapes quotes, backslashes and control characters for use in a JSON string.
+   *
+   * @param value the string to escape
+   * @return the escaped string
+   */
+  private static String escapeJson(String value) {
+    StringBuilder builder = new StringBuilder();
+    for (char c : value.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        builder.append('\\').append(c);
+      } else if (c < 0x20) {
+        builder.append(String.format("\\u%04x", (int) c));
+      } else {
+        builder.append(c);
+      }
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Returns whether the given path names a JSON file.
+   *
+   * @param path the path to check
+   * @return true if the path ends in .json, otherwise false
+   */
+  private static boolean isJson(String path) {
+    return path.toLowerCase(Locale.ROOT).endsWith(".json");
+  }
+
+  /**
+   * Returns whether the given path names a CSV file.
+   *
+   * @param path the path to check
+   * @return true if the path ends in .csv, otherwise false
+   */
+  private static boolean isCsv(String path) {
+    return path.toLowerCase(Locale.ROOT).endsWith(".csv");
+  }
+}
@@ -0,0 +1,102 @@
+package controller;
+
+/**
+ * The result of optimizing a script with the {@link ScriptOptimizer}: the optimized plan and
+ * how much work was removed from it.
+ */
+public final class OptimizationReport {
+  private final ScriptPlan plan;
+  private final int originalCommands;
+  private final int removedCommands;
+  private final int sharedCommands;
+  private final int passesSaved;
+
+  /**
+   * Constructs a report.
+   *
+   * @param plan             the optimized plan
+   * @param originalCommands the number of commands before optimizing
+   * @param removedCommands  the number of commands removed because their results were never
+   *                         observed
+   * @param sharedCommands   the number of commands replaced by aliases of images that already
+   *                         held their results
+   * @param passesSaved      the estimated number of pixel passes saved
+   */
+  OptimizationReport(ScriptPlan plan, int originalCommands, int removedCommands,
+                     int sharedCommands, int passesSaved) {
+    this.plan = plan;
+    this.originalCommands = originalCommands;
+    this.removedCommands = removedCommands;
+    this.sharedCommands = sharedCommands;
+    this.passesSaved = passesSaved;
+  }
+
+  /**
+   * Returns the optimized plan.
+   *
+   * @return the plan to execute
+   */
+  public ScriptPlan getPlan() {
+    return plan;
+  }
+
+  /**
+   * Returns the number of commands of the script before optimizing.
+   *
+   * @return the number of commands
+   */
+  public int getOriginalCommands() {
+    return originalCommands;
+  }
+
+  /**
+   * Returns the number of commands removed because their results were never observed.
+   *
+   * @return the number of dead commands
+   */
+  public int getRemovedCommands() {
+    return removedCommands;
+  }
+
+  /**
+   * Returns the number of commands replaced by aliases of images that already held their
+   * results.
+   *
+   * @return the number of duplicate commands
+   */
+  public int getSharedCommands() {
+    return sharedCommands;
+  }
+
+  /**
+   * Returns the estimated number of passes over the pixels of an image that the optimized
+   * script no longer makes: one for every output of a removed or shared operation, and one for
+   * every removed load.
+   *
+   * @return the estimated number of pixel passes saved
+   */
+  public int getPassesSaved() {
+    return passesSaved;
+  }
+
+  /**
+   * Returns the report as one line for the user.
+   *
+   * @return the report
+   */
+  public String format() {
+    return String.format("Optimized script: %d commands, %d removed as never saved or used, "
+                    + "%d duplicates replaced by aliases; about %d pixel passes saved.",
+            originalCommands, removedCommands, sharedCommands, passesSaved);
+  }
+
+  /**
+   * Returns the report as one line for the user.
+   *
+   * @return the report
+   */
+  @Override
+  public String toString() {
+    return format();
+  }
+}
@@ -2,6 +2,8 @@ package controller;
 
 import java.awt.image.BufferedImage;
 
+import javax.imageio.ImageWriteParam;
+
 /**
  * Provides a concrete implementation of the AbstractImageParser
  * for the PNG image format.
@@ -28,4 +30,31 @@ public class PNGParser extends AbstractImageParser {
   protected int getImageType() {
     return BufferedImage.TYPE_INT_RGB;
   }
+
+  /**
+   * Returns whether the header starts with the eight byte PNG signature.
+   *
+   * @param header the first bytes of the file
+   * @param length the number of valid bytes in the header
+   * @return true if the file is a PNG image, otherwise false
+   */
+  @Override
+  public boolean matchesHeader(byte[] header, int length) {
+    return startsWith(header, length, 0x89, 'P', 'N', 'G', 0x0d, 0x0a, 0x1a, 0x0a);
+  }
+
+  /**
+   * Applies the deflate level. The PNG writer takes it as a compression quality, where 1 is
+   * level 0 and 0 is level 9.
+   *
+   * @param param   the parameters of the PNG writer
+   * @param options the encoder settings
+   */
+  @Override
+  protected void configureWriteParam(ImageWriteParam param, EncoderOptions options) {
+    options.getCompressionLevel().ifPresent(level -> {
+      param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+      param.setCompressionQuality((9 - level) / 9f);
+    });
+  }
 }
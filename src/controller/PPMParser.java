@@ -1,14 +1,19 @@
 package controller;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
 import java.util.Scanner;
 
 import model.image.Image;
 import model.image.Pixel;
+import model.image.StripSource;
 
 /**
  * Implements the IImageFileParser interface for parsing PPM image files.
@@ -25,6 +30,24 @@ public class PPMParser implements IImageFileParser {
    */
   @Override
   public Image loadImage(String path) throws IOException {
+    ImageFileEvent event = ImageFileEvent.begin("load", path, "ppm");
+    Image image = null;
+    try {
+      image = readImage(path);
+      return image;
+    } finally {
+      event.end(image, image != null);
+    }
+  }
+
+  /**
+   * Reads and decodes the image file at the given path.
+   *
+   * @param path the path to the image file
+   * @return the loaded Image object
+   * @throws IOException if an error occurs while reading the file
+   */
+  private Image readImage(String path) throws IOException {
     Scanner sc;
 
     try {
@@ -64,7 +87,7 @@ public class PPMParser implements IImageFileParser {
         int red = sc.nextInt();
         int green = sc.nextInt();
         int blue = sc.nextInt();
-        image.setPixel(x, y, new Pixel(red, green, blue));
+        image.setPixel(x, y, Pixel.cached(red, green, blue));
       }
     }
 
@@ -80,12 +103,48 @@ public class PPMParser implements IImageFileParser {
    */
   @Override
   public void saveImage(String path, Image image) throws IOException {
-    if (image.getPixels() == null) {
-      throw new IOException("No image data to save.");
+    ImageFileEvent event = ImageFileEvent.begin("save", path, "ppm");
+    boolean saved = false;
+    try {
+      if (image.isEmpty()) {
+        throw new IOException("No image data to save.");
+      }
+      writeRaster(path, PackedRaster.of(image));
+      saved = true;
+    } finally {
+      event.end(image, saved);
+    }
+  }
+
+  /**
+   * Saves the given packed image to the specified path in PPM format.
+   *
+   * @param path   the path where the PPM image file will be saved
+   * @param raster the packed pixels of the image
+   * @throws IOException if there's an error writing to the file
+   */
+  @Override
+  public void saveRaster(String path, PackedRaster raster) throws IOException {
+    ImageFileEvent event = ImageFileEvent.begin("save", path, "ppm");
+    boolean saved = false;
+    try {
+      writeRaster(path, raster);
+      saved = true;
+    } finally {
+      event.end(raster.getWidth(), raster.getHeight(), saved);
     }
+  }
 
-    int height = image.getHeight();
-    int width = image.getWidth();
+  /**
+   * Encodes the given packed image and writes it to the specified path.
+   *
+   * @param path   the path where the image should be saved
+   * @param raster the packed pixels of the image
+   * @throws IOException if an error occurs while writing to the file
+   */
+  private void writeRaster(String path, PackedRaster raster) throws IOException {
+    int height = raster.getHeight();
+    int width = raster.getWidth();
 
     try (FileWriter writer = new FileWriter(new File(path))) {
       writer.write("P3\n");
@@ -94,12 +153,92 @@ public class PPMParser implements IImageFileParser {
 
       for (int y = 0; y < height; y++) {
         for (int x = 0; x < width; x++) {
-          Pixel pixel = image.getPixel(x, y);
-          writer.write(pixel.getRed() + " " + pixel.getGreen()
-                  + " " + pixel.getBlue() + " ");
+          int rgb = raster.getRGB(x, y);
+          writer.write(((rgb >> 16) & 0xff) + " " + ((rgb >> 8) & 0xff)
+                  + " " + (rgb & 0xff) + " ");
         }
         writer.write("\n");
       }
     }
   }
+
+  /**
+   * Saves the rows of a strip source in PPM format, writing every strip as soon as it is
+   * read.
+   *
+   * @param path    the path where the PPM image file will be saved
+   * @param source  the rows of the image
+   * @param options the encoder settings, which the PPM format does not have
+   * @throws IOException if the rows cannot be read or the file cannot be written
+   */
+  @Override
+  public void saveStrips(String path, StripSource source, EncoderOptions options)
+          throws IOException {
+    ImageFileEvent event = ImageFileEvent.begin("save", path, "ppm");
+    boolean saved = false;
+    try {
+      writeStrips(path, source);
+      saved = true;
+    } finally {
+      event.end(source.getWidth(), source.getHeight(), saved);
+    }
+  }
+
+  /**
+   * Writes the header and then the rows of every strip of the source.
+   *
+   * @param path   the path where the image should be saved
+   * @param source the rows of the image
+   * @throws IOException if the rows cannot be read or the file cannot be written
+   */
+  private void writeStrips(String path, StripSource source) throws IOException {
+    int height = source.getHeight();
+    int width = source.getWidth();
+
+    try (Writer writer = new BufferedWriter(new FileWriter(new File(path)))) {
+      writer.write("P3\n");
+      writer.write(width + " " + height + "\n");
+      writer.write("255\n");
+
+      int y = 0;
+      while (y < height) {
+        Image strip = source.readStrip(height - y);
+        if (strip == null) {
+          throw new IOException("The image ended after " + y + " of " + height + " rows.");
+        }
+        for (Pixel[] row : strip.getPixels()) {
+          for (int x = 0; x < width; x++) {
+            writer.write(row[x].getRed() + " " + row[x].getGreen() + " " + row[x].getBlue()
+                    + " ");
+          }
+          writer.write("\n");
+        }
+        y += strip.getHeight();
+      }
+    }
+  }
+
+  /**
+   * Returns the extension of the PPM format.
+   *
+   * @return a list holding "ppm"
+   */
+  @Override
+  public List<String> getExtensions() {
+    return Collections.singletonList("ppm");
+  }
+
+  /**
+   * Returns whether the header starts with the plain PPM magic number P3 followed by
+   * whitespace.
+   *
+   * @param header the first bytes of the file
+   * @param length the number of valid bytes in the header
+   * @return true if the file is a plain PPM image, otherwise false
+   */
+  @Override
+  public boolean matchesHeader(byte[] header, int length) {
+    return length >= 3 && header[0] == 'P' && header[1] == '3'
+            && Character.isWhitespace(header[2]);
+  }
 }
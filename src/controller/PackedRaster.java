@@ -0,0 +1,171 @@
+package controller;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+
+import model.image.Image;
+import model.image.Pixel;
+import model.image.StripSource;
+
+/**
+ * An immutable copy of the pixels of an image packed as 0xRRGGBB integers, one row after
+ * another. It is the form in which parsers encode images: an image is converted once and the
+ * same raster can then be encoded into any number of formats, by several threads at the same
+ * time.
+ */
+public final class PackedRaster {
+  private static final int[] RGB_MASKS = {0xff0000, 0xff00, 0xff};
+
+  private final int width;
+  private final int height;
+  private final int[] rgb;
+
+  /**
+   * Constructs a raster over the given packed samples.
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @param rgb    the packed samples, which are not copied
+   */
+  private PackedRaster(int width, int height, int[] rgb) {
+    this.width = width;
+    this.height = height;
+    this.rgb = rgb;
+  }
+
+  /**
+   * Packs the pixels of the given image.
+   *
+   * @param image the image to pack
+   * @return the packed raster of the image
+   * @throws IllegalArgumentException if the image is empty or has more pixels than an array
+   *                                  can hold
+   */
+  public static PackedRaster of(Image image) {
+    if (image.isEmpty()) {
+      throw new IllegalArgumentException("No image data to save.");
+    }
+    int width = image.getWidth();
+    int height = image.getHeight();
+    if ((long) width * height > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Image is too large to pack.");
+    }
+    int[] rgb = new int[width * height];
+    Pixel[][] pixels = image.getPixels();
+    int index = 0;
+    for (int y = 0; y < height; y++) {
+      Pixel[] row = pixels[y];
+      for (int x = 0; x < width; x++) {
+        Pixel pixel = row[x];
+        rgb[index++] = (pixel.getRed() << 16) | (pixel.getGreen() << 8) | pixel.getBlue();
+      }
+    }
+    return new PackedRaster(width, height, rgb);
+  }
+
+  /**
+   * Packs the rows of a strip source, reading it to its end.
+   *
+   * @param source the rows of the image
+   * @return the packed raster of the image
+   * @throws IOException              If the rows cannot be read or the source ends early.
+   * @throws IllegalArgumentException if the image has more pixels than an array can hold
+   */
+  public static PackedRaster of(StripSource source) throws IOException {
+    int width = source.getWidth();
+    int height = source.getHeight();
+    if ((long) width * height > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Image is too large to pack.");
+    }
+    int[] rgb = new int[width * height];
+    int index = 0;
+    int y = 0;
+    while (y < height) {
+      Image strip = source.readStrip(height - y);
+      if (strip == null) {
+        throw new IOException("The image ended after " + y + " of " + height + " rows.");
+      }
+      for (Pixel[] row : strip.getPixels()) {
+        for (int x = 0; x < width; x++) {
+          Pixel pixel = row[x];
+          rgb[index++] = (pixel.getRed() << 16) | (pixel.getGreen() << 8) | pixel.getBlue();
+        }
+      }
+      y += strip.getHeight();
+    }
+    return new PackedRaster(width, height, rgb);
+  }
+
+  /**
+   * Returns the width of the raster.
+   *
+   * @return the width in pixels
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the height of the raster.
+   *
+   * @return the height in pixels
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns the packed color of a pixel.
+   *
+   * @param x the column of the pixel
+   * @param y the row of the pixel
+   * @return the color as 0xRRGGBB
+   */
+  public int getRGB(int x, int y) {
+    return rgb[y * width + x];
+  }
+
+  /**
+   * Returns the number of bytes the samples of the raster occupy.
+   *
+   * @return the size of the raster in bytes
+   */
+  public long getByteCount() {
+    return 4L * rgb.length;
+  }
+
+  /**
+   * Returns a TYPE_INT_RGB BufferedImage that shares the samples of this raster instead of
+   * copying them. The BufferedImage must only be read, which ImageIO writers do.
+   *
+   * @return a BufferedImage view of the raster
+   */
+  public BufferedImage toBufferedImage() {
+    DirectColorModel colorModel = new DirectColorModel(24, RGB_MASKS[0], RGB_MASKS[1],
+            RGB_MASKS[2]);
+    WritableRaster raster = Raster.createPackedRaster(new DataBufferInt(rgb, rgb.length), width,
+            height, width, RGB_MASKS, null);
+    return new BufferedImage(colorModel, raster, false, null);
+  }
+
+  /**
+   * Unpacks the raster into a new image.
+   *
+   * @return the image holding the pixels of the raster
+   */
+  public Image toImage() {
+    Pixel[][] pixels = new Pixel[height][width];
+    int index = 0;
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int color = rgb[index++];
+        pixels[y][x] = Pixel.cached((color >> 16) & 0xff, (color >> 8) & 0xff, color & 0xff);
+      }
+    }
+    return new Image(pixels);
+  }
+}
@@ -0,0 +1,530 @@
+package controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+
+import model.image.Image;
+import model.image.Pixel;
+import model.image.StripSource;
+
+/**
+ * Implements the IImageFileParser interface for the native uncompressed image format, with the
+ * extension .rawimg. It is meant for handing images between processing steps without encoding
+ * and decoding them. A file is a 16 byte big-endian header followed by the 8-bit samples of
+ * the image:
+ * <pre>
+ *   bytes 0-3   the magic "RIMG"
+ *   byte  4     the format version, 1
+ *   byte  5     the layout: 0 for interleaved RGB rows, 1 for planar red, green and blue planes
+ *   bytes 6-7   reserved, 0
+ *   bytes 8-11  the width
+ *   bytes 12-15 the height
+ * </pre>
+ * Loading maps the file into memory and reads the samples straight from the mapping; saving
+ * writes the header and the samples with one gathering channel write.
+ */
+public class RawImageParser implements IImageFileParser {
+  /**
+   * The size of the header in bytes.
+   */
+  public static final int HEADER_SIZE = 16;
+
+  private static final byte[] MAGIC = {'R', 'I', 'M', 'G'};
+  private static final byte VERSION = 1;
+  private static final byte INTERLEAVED = 0;
+  private static final byte PLANAR = 1;
+  private static final int MAX_MAPPING = 1 << 30;
+
+  private final boolean planar;
+
+  /**
+   * Constructs a RawImageParser that saves interleaved samples.
+   */
+  public RawImageParser() {
+    this(false);
+  }
+
+  /**
+   * Constructs a RawImageParser that saves samples in the given layout. Both layouts are
+   * always loaded.
+   *
+   * @param planar true to save planar red, green and blue planes, false to save interleaved
+   *               rows
+   */
+  public RawImageParser(boolean planar) {
+    this.planar = planar;
+  }
+
+  /**
+   * Loads the image from a specified path in the native raw format.
+   *
+   * @param path the path of the raw image file to be loaded
+   * @return an Image object representing the loaded image
+   * @throws IOException if there's an error reading the file or
+   *                     the file is not a valid raw image
+   */
+  @Override
+  public Image loadImage(String path) throws IOException {
+    ImageFileEvent event = ImageFileEvent.begin("load", path, "rawimg");
+    Image image = null;
+    try {
+      image = readImage(path);
+      return image;
+    } finally {
+      event.end(image, image != null);
+    }
+  }
+
+  /**
+   * Maps the file at the given path and reads the image from the mapping.
+   *
+   * @param path the path to the image file
+   * @return the loaded Image object
+   * @throws IOException if an error occurs while reading the file
+   */
+  private Image readImage(String path) throws IOException {
+    try (RawFile raw = RawFile.open(path)) {
+      Pixel[][] pixels = new Pixel[raw.height][raw.width];
+      raw.readRows(pixels, 0, raw.height);
+      return new Image(pixels);
+    }
+  }
+
+  /**
+   * An open raw image file whose header has been read and checked.
+   */
+  private static final class RawFile implements Closeable {
+    private final FileChannel file;
+    private final int width;
+    private final int height;
+    private final boolean planar;
+
+    /**
+     * Constructs an open raw image file.
+     *
+     * @param file   the open file
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @param planar whether the samples are stored in planes
+     */
+    private RawFile(FileChannel file, int width, int height, boolean planar) {
+      this.file = file;
+      this.width = width;
+      this.height = height;
+      this.planar = planar;
+    }
+
+    /**
+     * Opens the file at the given path and reads its header.
+     *
+     * @param path the path to the image file
+     * @return the open file
+     * @throws IOException if the file cannot be opened or is not a valid raw image
+     */
+    private static RawFile open(String path) throws IOException {
+      FileChannel file;
+      try {
+        file = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+      } catch (NoSuchFileException e) {
+        throw new IOException("File " + path + " not found!", e);
+      }
+      try {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && file.read(header) >= 0) {
+          // Keep reading until the header is complete or the file ends.
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.get() != MAGIC[0]
+                || header.get() != MAGIC[1] || header.get() != MAGIC[2]
+                || header.get() != MAGIC[3]) {
+          throw new IOException("Invalid raw image file: missing RIMG header.");
+        }
+        if (header.get() != VERSION) {
+          throw new IOException("Unsupported raw image version.");
+        }
+        byte layout = header.get();
+        if (layout != INTERLEAVED && layout != PLANAR) {
+          throw new IOException("Unsupported raw image layout.");
+        }
+        header.getShort();
+        int width = header.getInt();
+        int height = header.getInt();
+        if (width <= 0 || height <= 0
+                || file.size() != HEADER_SIZE + 3L * width * height) {
+          throw new IOException("Invalid raw image file: size does not match the header.");
+        }
+        return new RawFile(file, width, height, layout == PLANAR);
+      } catch (IOException | RuntimeException e) {
+        file.close();
+        throw e;
+      }
+    }
+
+    /**
+     * Reads consecutive rows of the image.
+     *
+     * @param target   the rows that receive the pixels, starting with the first row read
+     * @param firstRow the first row to read
+     * @param rows     the number of rows to read
+     * @throws IOException if the file cannot be mapped
+     */
+    private void readRows(Pixel[][] target, int firstRow, int rows) throws IOException {
+      if (planar) {
+        readPlanar(file, target, width, firstRow, rows, (long) width * height);
+      } else {
+        readInterleaved(file, target, width, firstRow, rows);
+      }
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+      file.close();
+    }
+  }
+
+  /**
+   * Reads interleaved rows from the file, mapping as many whole rows at a time as fit into
+   * one mapping.
+   *
+   * @param file     the open file
+   * @param target   the rows that receive the pixels, starting with the first row read
+   * @param width    the width of the image
+   * @param firstRow the first row to read
+   * @param rows     the number of rows to read
+   * @throws IOException if the file cannot be mapped
+   */
+  private static void readInterleaved(FileChannel file, Pixel[][] target, int width,
+                                      int firstRow, int rows) throws IOException {
+    int rowBytes = 3 * width;
+    int rowsPerMapping = Math.max(1, MAX_MAPPING / rowBytes);
+    for (int done = 0; done < rows; done += rowsPerMapping) {
+      int count = Math.min(rowsPerMapping, rows - done);
+      MappedByteBuffer samples = file.map(FileChannel.MapMode.READ_ONLY,
+              HEADER_SIZE + (long) (firstRow + done) * rowBytes, (long) count * rowBytes);
+      int index = 0;
+      for (int y = done; y < done + count; y++) {
+        Pixel[] row = target[y];
+        for (int x = 0; x < width; x++) {
+          row[x] = Pixel.cached(samples.get(index) & 0xff, samples.get(index + 1) & 0xff,
+                  samples.get(index + 2) & 0xff);
+          index += 3;
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads planar samples from the file, mapping the same rows of the three planes at a time.
+   *
+   * @param file      the open file
+   * @param target    the rows that receive the pixels, starting with the first row read
+   * @param width     the width of the image
+   * @param firstRow  the first row to read
+   * @param rows      the number of rows to read
+   * @param planeSize the number of samples in one plane
+   * @throws IOException if the file cannot be mapped
+   */
+  private static void readPlanar(FileChannel file, Pixel[][] target, int width, int firstRow,
+                                 int rows, long planeSize) throws IOException {
+    int rowsPerMapping = Math.max(1, MAX_MAPPING / width);
+    for (int done = 0; done < rows; done += rowsPerMapping) {
+      int count = Math.min(rowsPerMapping, rows - done);
+      long offset = HEADER_SIZE + (long) (firstRow + done) * width;
+      long size = (long) count * width;
+      MappedByteBuffer red = file.map(FileChannel.MapMode.READ_ONLY, offset, size);
+      MappedByteBuffer green = file.map(FileChannel.MapMode.READ_ONLY, offset + planeSize, size);
+      MappedByteBuffer blue = file.map(FileChannel.MapMode.READ_ONLY, offset + 2 * planeSize,
+              size);
+      int index = 0;
+      for (int y = done; y < done + count; y++) {
+        Pixel[] row = target[y];
+        for (int x = 0; x < width; x++) {
+          row[x] = Pixel.cached(red.get(index) & 0xff, green.get(index) & 0xff,
+                  blue.get(index) & 0xff);
+          index++;
+        }
+      }
+    }
+  }
+
+  /**
+   * Opens the raw image at the given path for reading in strips. Every strip maps and reads
+   * only its own rows, so an image of any size is read with the memory of one strip.
+   *
+   * @param path the path of the raw image file
+   * @return a source of the rows of the image
+   * @throws IOException if the file cannot be opened or is not a valid raw image
+   */
+  @Override
+  public StripSource openStrips(String path) throws IOException {
+    ImageFileEvent event = ImageFileEvent.begin("load", path, "rawimg");
+    RawFile opened = null;
+    try {
+      opened = RawFile.open(path);
+    } finally {
+      event.end(opened == null ? -1 : opened.width, opened == null ? -1 : opened.height,
+              opened != null);
+    }
+    RawFile raw = opened;
+    return new StripSource() {
+      private int next;
+
+      @Override
+      public int getWidth() {
+        return raw.width;
+      }
+
+      @Override
+      public int getHeight() {
+        return raw.height;
+      }
+
+      @Override
+      public Image readStrip(int maxRows) throws IOException {
+        if (maxRows <= 0) {
+          throw new IllegalArgumentException("Strip height must be positive.");
+        }
+        if (next >= raw.height) {
+          return null;
+        }
+        int rows = Math.min(maxRows, raw.height - next);
+        Pixel[][] pixels = new Pixel[rows][raw.width];
+        raw.readRows(pixels, next, rows);
+        next += rows;
+        return new Image(pixels);
+      }
+
+      @Override
+      public void close() throws IOException {
+        raw.close();
+      }
+    };
+  }
+
+  /**
+   * Saves the image to the specified path in the native raw format.
+   *
+   * @param path  the path where the image should be saved
+   * @param image the Image object to be saved
+   * @throws IOException if there's an error writing to the file
+   */
+  @Override
+  public void saveImage(String path, Image image) throws IOException {
+    ImageFileEvent event = ImageFileEvent.begin("save", path, "rawimg");
+    boolean saved = false;
+    try {
+      if (image.isEmpty()) {
+        throw new IOException("No image data to save.");
+      }
+      writeRaster(path, PackedRaster.of(image));
+      saved = true;
+    } finally {
+      event.end(image, saved);
+    }
+  }
+
+  /**
+   * Saves the given packed image to the specified path in the native raw format.
+   *
+   * @param path   the path where the image should be saved
+   * @param raster the packed pixels of the image
+   * @throws IOException if there's an error writing to the file
+   */
+  @Override
+  public void saveRaster(String path, PackedRaster raster) throws IOException {
+    ImageFileEvent event = ImageFileEvent.begin("save", path, "rawimg");
+    boolean saved = false;
+    try {
+      writeRaster(path, raster);
+      saved = true;
+    } finally {
+      event.end(raster.getWidth(), raster.getHeight(), saved);
+    }
+  }
+
+  /**
+   * Unpacks the samples of the raster and writes them after the header with one gathering
+   * write.
+   *
+   * @param path   the path where the image should be saved
+   * @param raster the packed pixels of the image
+   * @throws IOException if an error occurs while writing to the file
+   */
+  private void writeRaster(String path, PackedRaster raster) throws IOException {
+    int width = raster.getWidth();
+    int height = raster.getHeight();
+    long planeSize = (long) width * height;
+    if (3 * planeSize > Integer.MAX_VALUE) {
+      throw new IOException("Image is too large for a single raw image buffer.");
+    }
+
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    header.put(MAGIC).put(VERSION).put(planar ? PLANAR : INTERLEAVED).putShort((short) 0)
+            .putInt(width).putInt(height).flip();
+
+    byte[] samples = new byte[(int) (3 * planeSize)];
+    int index = 0;
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int rgb = raster.getRGB(x, y);
+        if (planar) {
+          samples[index] = (byte) (rgb >> 16);
+          samples[(int) (index + planeSize)] = (byte) (rgb >> 8);
+          samples[(int) (index + 2 * planeSize)] = (byte) rgb;
+          index++;
+        } else {
+          samples[index++] = (byte) (rgb >> 16);
+          samples[index++] = (byte) (rgb >> 8);
+          samples[index++] = (byte) rgb;
+        }
+      }
+    }
+
+    ByteBuffer[] buffers = {header, ByteBuffer.wrap(samples)};
+    try (FileChannel file = FileChannel.open(Paths.get(path), StandardOpenOption.WRITE,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (buffers[1].hasRemaining()) {
+        file.write(buffers);
+      }
+    }
+  }
+
+  /**
+   * Saves the rows of a strip source in the native raw format, writing every strip as soon as
+   * it is read. Interleaved rows are appended to the file; the rows of a planar file are
+   * written at their places in the three planes.
+   *
+   * @param path    the path where the image should be saved
+   * @param source  the rows of the image
+   * @param options the encoder settings, which the raw format does not have
+   * @throws IOException if the rows cannot be read or the file cannot be written
+   */
+  @Override
+  public void saveStrips(String path, StripSource source, EncoderOptions options)
+          throws IOException {
+    ImageFileEvent event = ImageFileEvent.begin("save", path, "rawimg");
+    boolean saved = false;
+    try {
+      writeStrips(path, source);
+      saved = true;
+    } finally {
+      event.end(source.getWidth(), source.getHeight(), saved);
+    }
+  }
+
+  /**
+   * Writes the header and then the samples of every strip of the source.
+   *
+   * @param path   the path where the image should be saved
+   * @param source the rows of the image
+   * @throws IOException if the rows cannot be read or the file cannot be written
+   */
+  private void writeStrips(String path, StripSource source) throws IOException {
+    int width = source.getWidth();
+    int height = source.getHeight();
+    long planeSize = (long) width * height;
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    header.put(MAGIC).put(VERSION).put(planar ? PLANAR : INTERLEAVED).putShort((short) 0)
+            .putInt(width).putInt(height).flip();
+
+    try (FileChannel file = FileChannel.open(Paths.get(path), StandardOpenOption.WRITE,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      write(file, header, 0);
+      int y = 0;
+      while (y < height) {
+        Image strip = source.readStrip(height - y);
+        if (strip == null) {
+          throw new IOException("The image ended after " + y + " of " + height + " rows.");
+        }
+        int rows = strip.getHeight();
+        Pixel[][] pixels = strip.getPixels();
+        if (planar) {
+          byte[][] planes = new byte[3][rows * width];
+          int index = 0;
+          for (Pixel[] row : pixels) {
+            for (int x = 0; x < width; x++) {
+              planes[0][index] = (byte) row[x].getRed();
+              planes[1][index] = (byte) row[x].getGreen();
+              planes[2][index] = (byte) row[x].getBlue();
+              index++;
+            }
+          }
+          for (int plane = 0; plane < 3; plane++) {
+            write(file, ByteBuffer.wrap(planes[plane]),
+                    HEADER_SIZE + plane * planeSize + (long) y * width);
+          }
+        } else {
+          byte[] samples = new byte[3 * rows * width];
+          int index = 0;
+          for (Pixel[] row : pixels) {
+            for (int x = 0; x < width; x++) {
+              samples[index++] = (byte) row[x].getRed();
+              samples[index++] = (byte) row[x].getGreen();
+              samples[index++] = (byte) row[x].getBlue();
+            }
+          }
+          write(file, ByteBuffer.wrap(samples), HEADER_SIZE + 3L * y * width);
+        }
+        y += rows;
+      }
+    }
+  }
+
+  /**
+   * Writes a whole buffer at the given position of a file.
+   *
+   * @param file     the open file
+   * @param buffer   the bytes to write
+   * @param position the position of the first byte in the file
+   * @throws IOException if the file cannot be written
+   */
+  private static void write(FileChannel file, ByteBuffer buffer, long position)
+          throws IOException {
+    while (buffer.hasRemaining()) {
+      position += file.write(buffer, position);
+    }
+  }
+
+  /**
+   * Returns the extension of the native raw format.
+   *
+   * @return a list holding "rawimg"
+   */
+  @Override
+  public List<String> getExtensions() {
+    return Collections.singletonList("rawimg");
+  }
+
+  /**
+   * Returns whether the header starts with the magic RIMG.
+   *
+   * @param header the first bytes of the file
+   * @param length the number of valid bytes in the header
+   * @return true if the file is a raw image, otherwise false
+   */
+  @Override
+  public boolean matchesHeader(byte[] header, int length) {
+    if (length < MAGIC.length) {
+      return false;
+    }
+    for (int i = 0; i < MAGIC.length; i++) {
+      if (header[i] != MAGIC[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
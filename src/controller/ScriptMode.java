@@ -0,0 +1,21 @@
+package controller;
+
+/**
+ * How the controller runs a script.
+ */
+public enum ScriptMode {
+  /**
+   * Every command runs as written.
+   */
+  DIRECT,
+  /**
+   * The script is optimized by the {@link ScriptOptimizer} before it runs.
+   */
+  OPTIMIZED,
+  /**
+   * The script is optimized, and then every chain of a load, filters and a save whose images
+   * are not used afterwards is streamed through the filters in strips of rows by the
+   * {@link ScriptStreamer}.
+   */
+  STREAMED
+}
@@ -0,0 +1,275 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Optimizes a compiled script before it runs, using what every {@link CompiledCommand} tells
+ * about the images it reads and writes. Two passes are made:
+ * <ul>
+ *   <li>Common subexpressions: every image is given a value number, which identifies the
+ *   operation and the input values it was computed from. A pure command whose outputs all have
+ *   values that other images still hold is replaced by aliases of those images, so
+ *   {@code rgb-split film r g b} after {@code red-component film r2} and the other two
+ *   components reuses their images.</li>
+ *   <li>Dead stores: going backwards from the end of the script, a command that is not opaque
+ *   and whose outputs are neither saved nor used before they are overwritten or the script
+ *   ends is removed.</li>
+ * </ul>
+ * Commands are never reordered, and an opaque command, such as a run command, is assumed to
+ * read and write every image. Images that the script neither saves nor passes on to an opaque
+ * command may be missing from the model after an optimized script has run, unless the script
+ * is optimized with every image live at its end, as a script run by another script is, since
+ * the commands after the run may read any image.
+ */
+public final class ScriptOptimizer {
+
+  /**
+   * The value numbers of the images at one point of a script.
+   */
+  private static final class Values {
+    private final Map<String, Integer> numbers = new HashMap<>();
+    private final Map<String, Integer> valueOfImage = new HashMap<>();
+    private final Map<Integer, String> holderOfValue = new HashMap<>();
+    private int generation;
+
+    /**
+     * Returns the value number of an operation on value numbers, numbering it if it is new.
+     *
+     * @param key the operation and the value numbers of its inputs
+     * @return the value number
+     */
+    private int number(String key) {
+      Integer number = numbers.get(key);
+      if (number == null) {
+        number = numbers.size();
+        numbers.put(key, number);
+      }
+      return number;
+    }
+
+    /**
+     * Returns the value number of an image, giving an image that the script has not written
+     * since the last opaque command a number of its own.
+     *
+     * @param image the name of the image
+     * @return the value number
+     */
+    private int valueOf(String image) {
+      Integer value = valueOfImage.get(image);
+      if (value == null) {
+        value = number("input " + generation + " " + image);
+        store(image, value);
+      }
+      return value;
+    }
+
+    /**
+     * Returns an image that still holds the given value.
+     *
+     * @param value the value number
+     * @return the name of the image, or null if no image is known to hold the value
+     */
+    private String holderOf(int value) {
+      String holder = holderOfValue.get(value);
+      return holder != null && valueOfImage.get(holder).equals(value) ? holder : null;
+    }
+
+    /**
+     * Records that an image was given a value.
+     *
+     * @param image the name of the image
+     * @param value the value number
+     */
+    private void store(String image, int value) {
+      valueOfImage.put(image, value);
+      if (holderOf(value) == null) {
+        holderOfValue.put(value, image);
+      }
+    }
+
+    /**
+     * Forgets every value, after a command that may have changed any image.
+     */
+    private void clear() {
+      valueOfImage.clear();
+      holderOfValue.clear();
+      generation++;
+    }
+  }
+
+  /**
+   * Prevents instantiation of this utility class.
+   */
+  private ScriptOptimizer() {
+  }
+
+  /**
+   * Optimizes a script whose images are not used after it ends.
+   *
+   * @param plan the compiled script
+   * @return the optimized script and the numbers of commands removed and shared
+   */
+  public static OptimizationReport optimize(ScriptPlan plan) {
+    return optimize(plan, false);
+  }
+
+  /**
+   * Optimizes a script. If every image is live at the end, only the stores that the script
+   * itself overwrites before reading them are removed.
+   *
+   * @param plan      the compiled script
+   * @param liveAtEnd whether every image may be read after the script ends
+   * @return the optimized script and the numbers of commands removed and shared
+   */
+  public static OptimizationReport optimize(ScriptPlan plan, boolean liveAtEnd) {
+    List<CompiledCommand> original = plan.getCommands();
+    List<CompiledCommand> shared = new ArrayList<>(original.size());
+    int sharedCommands = 0;
+    int passesSaved = 0;
+    Values values = new Values();
+    for (CompiledCommand command : original) {
+      List<String> holders = duplicateOf(command, values);
+      if (holders == null) {
+        shared.add(command);
+        continue;
+      }
+      sharedCommands++;
+      passesSaved += passes(command);
+      for (int i = 0; i < holders.size(); i++) {
+        String output = command.getOutputs().get(i);
+        if (!holders.get(i).equals(output)) {
+          shared.add(CompiledCommand.alias(holders.get(i), output));
+        }
+      }
+    }
+
+    List<CompiledCommand> removed = new ArrayList<>();
+    List<CompiledCommand> live = eliminateDeadStores(shared, liveAtEnd, removed);
+    for (CompiledCommand command : removed) {
+      passesSaved += passes(command);
+    }
+    return new OptimizationReport(new ScriptPlan(live), original.size(), removed.size(),
+            sharedCommands, passesSaved);
+  }
+
+  /**
+   * Returns the estimated number of passes over the pixels of an image that a command makes.
+   * Pure commands make one per output and loads make one to decode their image; aliases and
+   * other commands are not counted.
+   *
+   * @param command the command
+   * @return the estimated number of pixel passes
+   */
+  static int passes(CompiledCommand command) {
+    switch (command.getKind()) {
+      case PURE:
+      case SOURCE:
+        return command.getOutputs().size();
+      default:
+        return 0;
+    }
+  }
+
+  /**
+   * Finds the images that already hold the outputs of a pure command, and records the values
+   * of the images that the command writes.
+   *
+   * @param command the command
+   * @param values  the value numbers before the command, updated to those after it
+   * @return the image holding each output, or null if the command has to be executed
+   */
+  private static List<String> duplicateOf(CompiledCommand command, Values values) {
+    List<String> outputs = command.getOutputs();
+    switch (command.getKind()) {
+      case PURE: {
+        StringBuilder arguments = new StringBuilder("(");
+        for (String input : command.getInputs()) {
+          arguments.append(values.valueOf(input)).append(',');
+        }
+        arguments.append(')');
+        int[] results = new int[outputs.size()];
+        List<String> holders = new ArrayList<>(outputs.size());
+        for (int i = 0; i < outputs.size(); i++) {
+          results[i] = values.number(command.getOperations().get(i) + arguments);
+          String holder = values.holderOf(results[i]);
+          if (holder != null && (holder.equals(outputs.get(i)) || !outputs.contains(holder))) {
+            holders.add(holder);
+          }
+        }
+        for (int i = 0; i < outputs.size(); i++) {
+          values.store(outputs.get(i), results[i]);
+        }
+        boolean distinct = new HashSet<>(outputs).size() == outputs.size();
+        return holders.size() == outputs.size() && distinct ? holders : null;
+      }
+      case ALIAS:
+        values.store(outputs.get(0), values.valueOf(command.getInputs().get(0)));
+        return null;
+      case SOURCE:
+        values.store(outputs.get(0), values.number("source " + values.numbers.size()));
+        return null;
+      case SINK:
+        return null;
+      default:
+        values.clear();
+        return null;
+    }
+  }
+
+  /**
+   * Removes the commands whose outputs are never observed. Going backwards, the images that may
+   * still be read are either the live images or, once every image is live, all images except
+   * the dead ones, which are overwritten before they are read.
+   *
+   * @param commands  the commands of the script
+   * @param liveAtEnd whether every image may be read after the script ends
+   * @param removed   receives the commands that are removed
+   * @return the commands that are kept, in order
+   */
+  private static List<CompiledCommand> eliminateDeadStores(List<CompiledCommand> commands,
+                                                           boolean liveAtEnd,
+                                                           List<CompiledCommand> removed) {
+    Set<String> live = new HashSet<>();
+    Set<String> dead = new HashSet<>();
+    boolean allLive = liveAtEnd;
+    List<CompiledCommand> kept = new ArrayList<>(commands.size());
+    for (int i = commands.size() - 1; i >= 0; i--) {
+      CompiledCommand command = commands.get(i);
+      switch (command.getKind()) {
+        case SINK:
+          kept.add(command);
+          live.addAll(command.getInputs());
+          dead.removeAll(command.getInputs());
+          break;
+        case OPAQUE:
+          kept.add(command);
+          allLive = true;
+          dead.clear();
+          break;
+        default:
+          boolean used = false;
+          for (String output : command.getOutputs()) {
+            used |= allLive ? !dead.contains(output) : live.contains(output);
+          }
+          if (used) {
+            kept.add(command);
+            live.removeAll(command.getOutputs());
+            dead.addAll(command.getOutputs());
+            live.addAll(command.getInputs());
+            dead.removeAll(command.getInputs());
+          } else {
+            removed.add(command);
+          }
+          break;
+      }
+    }
+    Collections.reverse(kept);
+    return kept;
+  }
+}
@@ -31,7 +31,7 @@ public class ScriptParser implements IScriptParser {
       for (String line : lines) {
         line = line.trim();
 
-        if (!line.startsWith("#") && !line.isEmpty()) {
+        if (isCommand(line)) {
           commands.add(line);
         }
       }
@@ -42,4 +42,15 @@ public class ScriptParser implements IScriptParser {
 
     return commands;
   }
+
+  /**
+   * Returns whether a line of a script holds a command, which is the case unless it is empty
+   * or a comment starting with "#".
+   *
+   * @param line the line, without surrounding whitespace
+   * @return true if the line holds a command, otherwise false
+   */
+  static boolean isCommand(String line) {
+    return !line.isEmpty() && !line.startsWith("#");
+  }
 }
@@ -0,0 +1,40 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The compiled commands of a script, in order. A plan is immutable, so a plan compiled once can
+ * be executed any number of times, by any controller and from any thread.
+ */
+public final class ScriptPlan {
+  private final List<CompiledCommand> commands;
+
+  /**
+   * Constructs a plan of the given commands.
+   *
+   * @param commands the compiled commands, in the order they are executed
+   */
+  ScriptPlan(List<CompiledCommand> commands) {
+    this.commands = Collections.unmodifiableList(new ArrayList<>(commands));
+  }
+
+  /**
+   * Returns the compiled commands of the script.
+   *
+   * @return an unmodifiable list of the commands, in the order they are executed
+   */
+  public List<CompiledCommand> getCommands() {
+    return commands;
+  }
+
+  /**
+   * Returns the number of commands in the script.
+   *
+   * @return the number of commands
+   */
+  public int size() {
+    return commands.size();
+  }
+}
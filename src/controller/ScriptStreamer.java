@@ -0,0 +1,208 @@
+package controller;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import controller.commands.StreamCommand;
+import model.image.StripPipeline;
+import model.strategy.FilterStrategy;
+
+/**
+ * Rewrites a compiled script so that chains of local filters run in strips of rows instead of
+ * one whole image after another. A chain is a load of a whole image, followed directly by
+ * filters that each read the image the previous command wrote, followed directly by a save of
+ * the last image to one file, for example
+ * <pre>
+ *   load big.png img
+ *   brighten 20 img bright
+ *   sepia bright toned
+ *   blur toned soft
+ *   save big-soft.ppm soft
+ * </pre>
+ * Such a chain is replaced by one {@link StreamCommand}, which reads, filters and writes the
+ * image a strip at a time with every filter on a thread of its own. Since the images of a
+ * streamed chain are never stored in the model, a chain is only streamed if no later command
+ * of the script reads one of them before it is written again and no opaque command, such as
+ * a run command, follows it; a chain that saves to the file it loads is not streamed either.
+ * The images of a streamed chain are missing from the model after the script has run. A
+ * script run by another script is streamed with every image live at its end, so only chains
+ * whose images the script itself overwrites are streamed.
+ */
+public final class ScriptStreamer {
+
+  /**
+   * Prevents instantiation of this utility class.
+   */
+  private ScriptStreamer() {
+  }
+
+  /**
+   * Replaces every chain of the script that can be streamed by a streaming command, using
+   * strips of the default height.
+   *
+   * @param plan the compiled script
+   * @return the script with its chains streamed
+   */
+  public static ScriptPlan stream(ScriptPlan plan) {
+    return stream(plan, StripPipeline.DEFAULT_STRIP_HEIGHT, false);
+  }
+
+  /**
+   * Replaces every chain of the script that can be streamed by a streaming command, using
+   * strips of the default height.
+   *
+   * @param plan      the compiled script
+   * @param liveAtEnd whether every image may be read after the script ends
+   * @return the script with its chains streamed
+   */
+  public static ScriptPlan stream(ScriptPlan plan, boolean liveAtEnd) {
+    return stream(plan, StripPipeline.DEFAULT_STRIP_HEIGHT, liveAtEnd);
+  }
+
+  /**
+   * Replaces every chain of the script that can be streamed by a streaming command.
+   *
+   * @param plan        the compiled script
+   * @param stripHeight the number of rows read at a time
+   * @return the script with its chains streamed
+   * @throws IllegalArgumentException if the strip height is not positive
+   */
+  public static ScriptPlan stream(ScriptPlan plan, int stripHeight) {
+    return stream(plan, stripHeight, false);
+  }
+
+  /**
+   * Replaces every chain of the script that can be streamed by a streaming command.
+   *
+   * @param plan        the compiled script
+   * @param stripHeight the number of rows read at a time
+   * @param liveAtEnd   whether every image may be read after the script ends
+   * @return the script with its chains streamed
+   * @throws IllegalArgumentException if the strip height is not positive
+   */
+  public static ScriptPlan stream(ScriptPlan plan, int stripHeight, boolean liveAtEnd) {
+    if (stripHeight <= 0) {
+      throw new IllegalArgumentException("Strip height must be positive.");
+    }
+    List<CompiledCommand> commands = plan.getCommands();
+    List<CompiledCommand> streamed = new ArrayList<>(commands.size());
+    int i = 0;
+    while (i < commands.size()) {
+      int end = chainEnd(commands, i, liveAtEnd);
+      if (end < 0) {
+        streamed.add(commands.get(i));
+        i++;
+      } else {
+        streamed.add(streamCommand(commands.subList(i, end + 1), stripHeight));
+        i = end + 1;
+      }
+    }
+    return new ScriptPlan(streamed);
+  }
+
+  /**
+   * Finds the save that ends a chain starting at the given command.
+   *
+   * @param commands  the commands of the script
+   * @param start     the index of the command that may start a chain
+   * @param liveAtEnd whether every image may be read after the script ends
+   * @return the index of the save that ends the chain, or -1 if no chain that can be streamed
+   *         starts at the command
+   */
+  private static int chainEnd(List<CompiledCommand> commands, int start, boolean liveAtEnd) {
+    CompiledCommand load = commands.get(start);
+    if (load.getKind() != CompiledCommand.Kind.SOURCE || load.getFiles().size() != 1) {
+      return -1;
+    }
+    String image = load.getOutputs().get(0);
+    Set<String> images = new HashSet<>();
+    images.add(image);
+    int i = start + 1;
+    while (i < commands.size() && commands.get(i).getKind() == CompiledCommand.Kind.PURE
+            && commands.get(i).getFilter().isPresent()
+            && commands.get(i).getInputs().equals(Collections.singletonList(image))) {
+      image = commands.get(i).getOutputs().get(0);
+      images.add(image);
+      i++;
+    }
+    if (i == commands.size()) {
+      return -1;
+    }
+    CompiledCommand save = commands.get(i);
+    if (save.getKind() != CompiledCommand.Kind.SINK || save.getFiles().size() != 1
+            || !save.getInputs().get(0).equals(image)
+            || sameFile(load.getFiles().get(0), save.getFiles().get(0))
+            || readLater(commands, i + 1, images, liveAtEnd)) {
+      return -1;
+    }
+    return i;
+  }
+
+  /**
+   * Returns whether a command from the given index on, or whoever uses the images after the
+   * script, may read one of the given images before it is written.
+   *
+   * @param commands  the commands of the script
+   * @param from      the index of the first command to check
+   * @param images    the images of the chain
+   * @param liveAtEnd whether every image may be read after the script ends
+   * @return true if an image may be read, otherwise false
+   */
+  private static boolean readLater(List<CompiledCommand> commands, int from,
+                                   Set<String> images, boolean liveAtEnd) {
+    Set<String> unwritten = new HashSet<>(images);
+    for (int i = from; i < commands.size() && !unwritten.isEmpty(); i++) {
+      CompiledCommand command = commands.get(i);
+      if (command.getKind() == CompiledCommand.Kind.OPAQUE) {
+        return true;
+      }
+      for (String input : command.getInputs()) {
+        if (unwritten.contains(input)) {
+          return true;
+        }
+      }
+      unwritten.removeAll(command.getOutputs());
+    }
+    return liveAtEnd && !unwritten.isEmpty();
+  }
+
+  /**
+   * Returns whether two paths name the same file.
+   *
+   * @param first  the first path
+   * @param second the second path
+   * @return true if the normalized absolute paths are equal, otherwise false
+   */
+  private static boolean sameFile(String first, String second) {
+    return Paths.get(first).toAbsolutePath().normalize()
+            .equals(Paths.get(second).toAbsolutePath().normalize());
+  }
+
+  /**
+   * Compiles the command that streams a chain.
+   *
+   * @param chain       the load, the filters and the save of the chain
+   * @param stripHeight the number of rows read at a time
+   * @return the streaming command
+   */
+  private static CompiledCommand streamCommand(List<CompiledCommand> chain, int stripHeight) {
+    CompiledCommand load = chain.get(0);
+    CompiledCommand save = chain.get(chain.size() - 1);
+    List<FilterStrategy> filters = new ArrayList<>();
+    StringBuilder text = new StringBuilder("stream");
+    for (CompiledCommand command : chain) {
+      command.getFilter().ifPresent(filters::add);
+      text.append(command == load ? " " : " | ").append(command.getText());
+    }
+    String sourcePath = load.getFiles().get(0);
+    String targetPath = save.getFiles().get(0);
+    EncoderOptions options = save.getEncoderOptions();
+    StripPipeline pipeline = new StripPipeline(filters, stripHeight);
+    return CompiledCommand.of(text.toString(), "stream", null,
+        model -> new StreamCommand(sourcePath, pipeline, targetPath, options));
+  }
+}
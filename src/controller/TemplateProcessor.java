@@ -0,0 +1,321 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import model.IImageModel;
+import model.ImageModel;
+
+/**
+ * Runs a script template on one image file at a time. The template is a script whose lines
+ * may use three placeholders: {@code {input}} is the path of the file, {@code {name}} its name
+ * without the extension and {@code {output}} the folder to save into, for example
+ * <pre>
+ *   load {input} img
+ *   blur img soft
+ *   save {output}/{name}-soft.png soft
+ * </pre>
+ * Every file is processed with a model of its own, and its results are saved into a hidden
+ * staging folder inside the output folder and only moved into the output folder, each with
+ * an atomic rename, once the whole template has succeeded, so readers of the output folder
+ * never see partial files. Files may be processed by several threads at once.
+ */
+public final class TemplateProcessor {
+  /**
+   * The placeholder for the path of the file.
+   */
+  public static final String INPUT = "{input}";
+
+  /**
+   * The placeholder for the name of the file without its extension.
+   */
+  public static final String NAME = "{name}";
+
+  /**
+   * The placeholder for the folder that results are saved into.
+   */
+  public static final String OUTPUT = "{output}";
+
+  private static final String STAGING_PREFIX = ".staging-";
+  private static final Pattern WHITESPACE = Pattern.compile("\\s");
+
+  private final Path outputFolder;
+  private final List<String> template;
+  private final ScriptMode mode;
+  private final CommandRegistry registry;
+
+  /**
+   * Constructs a processor.
+   *
+   * @param outputFolder the folder that results are moved into
+   * @param template     the lines of the script template
+   * @param mode         how the template is run for every file
+   * @param registry     the registry that compiles the template
+   * @throws IllegalArgumentException if the output folder does not exist or has a space in its
+   *                                  path, or the template does not compile, saves nothing,
+   *                                  saves outside the output folder or runs other scripts
+   */
+  public TemplateProcessor(Path outputFolder, List<String> template, ScriptMode mode,
+                           CommandRegistry registry) {
+    this.outputFolder = folder(outputFolder);
+    this.template = new ArrayList<>(template);
+    this.mode = mode;
+    this.registry = registry;
+    validateTemplate();
+  }
+
+  /**
+   * Checks that a path names an existing folder without spaces, which the script syntax
+   * cannot express.
+   *
+   * @param path the path
+   * @return the absolute, normalized path
+   * @throws IllegalArgumentException if the path is not a folder or has a space in it
+   */
+  static Path folder(Path path) {
+    if (!Files.isDirectory(path)) {
+      throw new IllegalArgumentException("Not a folder: " + path);
+    }
+    Path folder = path.toAbsolutePath().normalize();
+    if (WHITESPACE.matcher(folder.toString()).find()) {
+      throw new IllegalArgumentException("Folder paths with spaces are not supported.");
+    }
+    return folder;
+  }
+
+  /**
+   * Returns whether a file is one the template should be run on: a regular file that is not
+   * hidden and has the extension of a supported format.
+   *
+   * @param file the file
+   * @return true if the file is an image file, otherwise false
+   */
+  public static boolean isImageFile(Path file) {
+    String fileName = file.getFileName().toString();
+    int dot = fileName.lastIndexOf('.');
+    return !fileName.startsWith(".") && dot > 0 && Files.isRegularFile(file)
+            && ImageParserRegistry.getDefault().getExtensions()
+            .contains(fileName.substring(dot + 1).toLowerCase(Locale.ROOT));
+  }
+
+  /**
+   * Checks that the template compiles, saves at least one image, saves only into the output
+   * folder and runs no other scripts.
+   *
+   * @throws IllegalArgumentException if the template is invalid
+   */
+  private void validateTemplate() {
+    Path staging = Paths.get("output");
+    ScriptPlan plan = registry.compile(instantiate(Paths.get("input.png"), staging));
+    boolean saves = false;
+    for (CompiledCommand command : plan.getCommands()) {
+      if (command.getScriptPath().isPresent()) {
+        throw new IllegalArgumentException("Templates cannot run other scripts.");
+      }
+      if (command.getKind() == CompiledCommand.Kind.SINK) {
+        for (String file : command.getFiles()) {
+          if (!staging.equals(Paths.get(file).getParent())) {
+            throw new IllegalArgumentException("Templates must save into " + OUTPUT + ": "
+                    + command.getText());
+          }
+          saves = true;
+        }
+      }
+    }
+    if (!saves) {
+      throw new IllegalArgumentException("Templates must save at least one image.");
+    }
+  }
+
+  /**
+   * Returns the lines of the template for a file.
+   *
+   * @param file    the file to process
+   * @param staging the folder to save into
+   * @return the lines with the placeholders replaced
+   */
+  private List<String> instantiate(Path file, Path staging) {
+    String fileName = file.getFileName().toString();
+    int dot = fileName.lastIndexOf('.');
+    String name = dot > 0 ? fileName.substring(0, dot) : fileName;
+    List<String> lines = new ArrayList<>(template.size());
+    for (String line : template) {
+      lines.add(line.replace(INPUT, file.toString()).replace(NAME, name)
+              .replace(OUTPUT, staging.toString()));
+    }
+    return lines;
+  }
+
+  /**
+   * Returns the folder that results are moved into.
+   *
+   * @return the absolute output folder
+   */
+  public Path getOutputFolder() {
+    return outputFolder;
+  }
+
+  /**
+   * Runs the template on a file in a staging folder of its own, then moves the results into
+   * the output folder, replacing files of the same name. The staging folder is deleted in any
+   * case, or by {@link #deleteStaging()} if the process stops before.
+   *
+   * @param file the file to process
+   * @return the paths of the results in the output folder
+   * @throws Exception if a command of the template fails or a result cannot be moved
+   */
+  public List<Path> process(Path file) throws Exception {
+    return process(file, null);
+  }
+
+  /**
+   * Runs the template on a file like {@link #process(Path)}, from an I/O task of a pipeline:
+   * loads, saves and other commands that read or write files run on the calling thread, and
+   * every run of consecutive image operations is handed to the CPU threads of the pipeline.
+   * A streamed template is only optimized when run with a pipeline, since a streamed chain
+   * would filter on threads of its own outside the bounded CPU threads; the pipeline already
+   * overlaps the reading, filtering and writing of different files.
+   *
+   * @param file     the file to process
+   * @param pipeline the pipeline whose CPU threads run the image operations, or null to run
+   *                 every command on the calling thread
+   * @return the paths of the results in the output folder
+   * @throws Exception if a command of the template fails or a result cannot be moved
+   */
+  public List<Path> process(Path file, BatchPipeline pipeline) throws Exception {
+    if (WHITESPACE.matcher(file.getFileName().toString()).find()) {
+      throw new IllegalArgumentException("File names with spaces are not supported.");
+    }
+    Path staging = Files.createTempDirectory(outputFolder, STAGING_PREFIX);
+    try {
+      ScriptPlan plan = registry.compile(instantiate(file, staging));
+      if (mode != ScriptMode.DIRECT) {
+        plan = ScriptOptimizer.optimize(plan).getPlan();
+      }
+      if (mode == ScriptMode.STREAMED && pipeline == null) {
+        plan = ScriptStreamer.stream(plan);
+      }
+      IImageModel model = new ImageModel();
+      List<CompiledCommand> commands = plan.getCommands();
+      int i = 0;
+      while (i < commands.size()) {
+        if (pipeline == null || !isComputation(commands.get(i))) {
+          execute(commands.get(i), model);
+          i++;
+        } else {
+          int end = i;
+          while (end < commands.size() && isComputation(commands.get(end))) {
+            end++;
+          }
+          List<CompiledCommand> computations = commands.subList(i, end);
+          pipeline.compute(() -> {
+            for (CompiledCommand command : computations) {
+              execute(command, model);
+            }
+            return null;
+          });
+          i = end;
+        }
+      }
+      return publish(staging);
+    } finally {
+      delete(staging);
+    }
+  }
+
+  /**
+   * Returns whether a command only computes images from other images, without touching
+   * files.
+   *
+   * @param command the command
+   * @return true for image operations and aliases, otherwise false
+   */
+  private static boolean isComputation(CompiledCommand command) {
+    return command.getKind() == CompiledCommand.Kind.PURE
+            || command.getKind() == CompiledCommand.Kind.ALIAS;
+  }
+
+  /**
+   * Executes a command against a model.
+   *
+   * @param command the command
+   * @param model   the model
+   * @throws Exception if the command fails
+   */
+  private static void execute(CompiledCommand command, IImageModel model) throws Exception {
+    if (!command.bind(model).execute()) {
+      throw new IOException(command.getName() + " operation failed.");
+    }
+  }
+
+  /**
+   * Moves every file of a staging folder into the output folder with an atomic rename.
+   *
+   * @param staging the staging folder
+   * @return the paths of the moved files
+   * @throws IOException If a file cannot be moved.
+   */
+  private List<Path> publish(Path staging) throws IOException {
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(staging)) {
+      stream.forEach(files::add);
+    }
+    files.sort(null);
+    List<Path> published = new ArrayList<>(files.size());
+    for (Path file : files) {
+      published.add(Files.move(file, outputFolder.resolve(file.getFileName()),
+              StandardCopyOption.ATOMIC_MOVE));
+    }
+    return published;
+  }
+
+  /**
+   * Deletes a staging folder and the files left in it. A folder that cannot be deleted is
+   * left for {@link #deleteStaging()}.
+   *
+   * @param staging the staging folder
+   */
+  private static void delete(Path staging) {
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(staging)) {
+      for (Path file : stream) {
+        Files.deleteIfExists(file);
+      }
+    } catch (IOException e) {
+      // The folder is gone or cannot be read; what is left is deleted with the next batch.
+    }
+    try {
+      Files.deleteIfExists(staging);
+    } catch (IOException e) {
+      // Left for the next batch.
+    }
+  }
+
+  /**
+   * Deletes the staging folders, with the partial results in them, that processes stopped
+   * in the middle of a file have left in the output folder. No file may be processing.
+   *
+   * @return the number of staging folders deleted
+   * @throws IOException If the output folder cannot be listed.
+   */
+  public int deleteStaging() throws IOException {
+    int count = 0;
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(outputFolder,
+            STAGING_PREFIX + "*")) {
+      for (Path staging : stream) {
+        if (Files.isDirectory(staging)) {
+          delete(staging);
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+}
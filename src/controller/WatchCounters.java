@@ -0,0 +1,148 @@
+package controller;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the files of a {@link FolderWatcher}: how many are waiting in its queue, how many
+ * were queued, processed and failed, and how long they took from being detected to their
+ * results being in place. All counters can be read from any thread while the watcher runs.
+ */
+public final class WatchCounters {
+  private final Collection<?> queue;
+  private final AtomicInteger maxQueueDepth = new AtomicInteger();
+  private final AtomicLong queued = new AtomicLong();
+  private final AtomicLong taken = new AtomicLong();
+  private final AtomicLong completed = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong totalWaitNanos = new AtomicLong();
+  private final AtomicLong totalLatencyNanos = new AtomicLong();
+  private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+  /**
+   * Constructs counters for the given queue.
+   *
+   * @param queue the queue of the watcher, whose size is the queue depth
+   */
+  WatchCounters(Collection<?> queue) {
+    this.queue = queue;
+  }
+
+  /**
+   * Records a file put into the queue.
+   */
+  void recordQueued() {
+    queued.incrementAndGet();
+    maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+  }
+
+  /**
+   * Records a file taken from the queue by a worker.
+   *
+   * @param waitNanos the time the file waited in the queue, in nanoseconds
+   */
+  void recordTaken(long waitNanos) {
+    taken.incrementAndGet();
+    totalWaitNanos.addAndGet(waitNanos);
+  }
+
+  /**
+   * Records a file whose processing has finished.
+   *
+   * @param successful   whether its results were written
+   * @param latencyNanos the time from detecting the file to finishing it, in nanoseconds
+   */
+  void recordFinished(boolean successful, long latencyNanos) {
+    (successful ? completed : failed).incrementAndGet();
+    totalLatencyNanos.addAndGet(latencyNanos);
+    maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+  }
+
+  /**
+   * Returns the number of files waiting in the queue.
+   *
+   * @return the current queue depth
+   */
+  public int getQueueDepth() {
+    return queue.size();
+  }
+
+  /**
+   * Returns the largest number of files that waited in the queue at the same time.
+   *
+   * @return the peak queue depth
+   */
+  public int getMaxQueueDepth() {
+    return maxQueueDepth.get();
+  }
+
+  /**
+   * Returns the number of files put into the queue.
+   *
+   * @return the number of queued files
+   */
+  public long getQueued() {
+    return queued.get();
+  }
+
+  /**
+   * Returns the number of files whose results were written.
+   *
+   * @return the number of completed files
+   */
+  public long getCompleted() {
+    return completed.get();
+  }
+
+  /**
+   * Returns the number of files that could not be processed.
+   *
+   * @return the number of failed files
+   */
+  public long getFailed() {
+    return failed.get();
+  }
+
+  /**
+   * Returns the average time a file waited in the queue.
+   *
+   * @return the average wait in nanoseconds, or 0 if no file was taken yet
+   */
+  public long getAverageWaitNanos() {
+    long count = taken.get();
+    return count == 0 ? 0 : totalWaitNanos.get() / count;
+  }
+
+  /**
+   * Returns the average time from detecting a file to finishing it.
+   *
+   * @return the average latency in nanoseconds, or 0 if no file has finished
+   */
+  public long getAverageLatencyNanos() {
+    long finished = completed.get() + failed.get();
+    return finished == 0 ? 0 : totalLatencyNanos.get() / finished;
+  }
+
+  /**
+   * Returns the longest time from detecting a file to finishing it.
+   *
+   * @return the largest latency in nanoseconds
+   */
+  public long getMaxLatencyNanos() {
+    return maxLatencyNanos.get();
+  }
+
+  /**
+   * Formats the counters as one line.
+   *
+   * @return the counters, with times in milliseconds
+   */
+  public String format() {
+    return String.format("Watch: %d queued, %d completed, %d failed, %d waiting (peak %d); "
+                    + "average wait %.1f ms, average latency %.1f ms, max latency %.1f ms.",
+            getQueued(), getCompleted(), getFailed(), getQueueDepth(), getMaxQueueDepth(),
+            getAverageWaitNanos() / 1e6, getAverageLatencyNanos() / 1e6,
+            getMaxLatencyNanos() / 1e6);
+  }
+}
@@ -1,10 +1,7 @@
 package controller.commands;
 
 import controller.IImageFileParser;
-import controller.JPEGParser;
-import controller.JPGParser;
-import controller.PNGParser;
-import controller.PPMParser;
+import controller.ImageParserRegistry;
 import model.IImageModel;
 
 /**
@@ -12,7 +9,8 @@ import model.IImageModel;
  * loading or saving images from/to various file formats.
  * This class encapsulates the logic for determining file extensions and
  * associating them with the appropriate image file parsers, such as PNG, JPG,
- * JPEG, and PPM.
+ * JPEG, PPM and the native uncompressed rawimg format, which are looked up in the
+ * shared {@link ImageParserRegistry}.
  */
 abstract class AbstractLoaderSaverCommand extends AbstractCommand {
   protected final String imagePath;
@@ -31,42 +29,28 @@ abstract class AbstractLoaderSaverCommand extends AbstractCommand {
   }
 
   /**
-   * Extracts the file extension from the provided path.
+   * Returns the shared image file parser for the file extension, ignoring its case.
    *
-   * @param path The file path from which the extension should be extracted.
-   * @return The extracted file extension.
-   * @throws IllegalArgumentException if the path does not contain a file extension.
+   * @param path The path of the image file.
+   * @return Appropriate IImageFileParser instance based on the file extension.
+   * @throws UnsupportedOperationException if the file extension is not supported.
    */
-  protected String getFileExtension(String path) throws IllegalArgumentException {
-    int lastIndex = path.lastIndexOf(".");
-    if (lastIndex == -1) {
-      throw new IllegalArgumentException("File path does not contain an extension.");
-    }
-    return path.substring(lastIndex + 1);
+  protected IImageFileParser getImageObject(String path)
+          throws UnsupportedOperationException {
+    return ImageParserRegistry.getDefault().forSaving(path);
   }
 
   /**
-   * Returns the appropriate image file parser based on the file extension.
+   * Returns the shared image file parser for loading a file. The format is detected from
+   * the first bytes of the file, falling back to the file extension.
    *
    * @param path The path of the image file.
-   * @return Appropriate IImageFileParser instance based on the file extension.
-   * @throws UnsupportedOperationException if the file extension is not supported.
+   * @return The IImageFileParser instance for the format of the file.
+   * @throws UnsupportedOperationException if the format is not detected and the file extension
+   *                                       is not supported.
    */
-  protected IImageFileParser getImageObject(String path)
+  protected IImageFileParser getLoaderObject(String path)
           throws UnsupportedOperationException {
-    String extension = getFileExtension(path);
-
-    switch (extension) {
-      case "png":
-        return new PNGParser();
-      case "jpg":
-        return new JPGParser();
-      case "jpeg":
-        return new JPEGParser();
-      case "ppm":
-        return new PPMParser();
-      default:
-        throw new UnsupportedOperationException();
-    }
+    return ImageParserRegistry.getDefault().forLoading(path);
   }
 }
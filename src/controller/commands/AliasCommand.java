@@ -0,0 +1,32 @@
+package controller.commands;
+
+import model.IImageModel;
+
+/**
+ * Command that stores an image of the model under a second name without copying it. Images in
+ * the model are never changed in place, since every operation stores a new image, so both names
+ * keep the same pixels until one of them is given another image.
+ */
+public class AliasCommand extends AbstractTransformCommand {
+
+  /**
+   * Constructs a new AliasCommand.
+   *
+   * @param imageName     the name of the existing image
+   * @param destImageName the second name to store the image under
+   * @param model         the image model that holds the image
+   */
+  public AliasCommand(String imageName, String destImageName, IImageModel model) {
+    super(imageName, destImageName, model);
+  }
+
+  /**
+   * Stores the image under the destination name.
+   *
+   * @throws Exception if the image is not in the model
+   */
+  @Override
+  protected void processImage() throws Exception {
+    model.addImage(model.getImage(imageName), destImageName);
+  }
+}
@@ -1,8 +1,11 @@
 package controller.commands;
 
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import model.IImageModel;
+import model.history.ImageHistory;
+import model.image.Image;
 import view.IGUIView;
 
 /**
@@ -13,6 +16,9 @@ import view.IGUIView;
 public class CommandBuilder implements ICommandBuilder {
   private final IImageModel model;
   private final IGUIView view;
+  private final ImageHistory history;
+  private final int loadPreviewSize;
+  private final Consumer<Image> onLoadPreview;
   private AppState currentState = AppState.NO_IMAGE_LOADED;
 
   /**
@@ -22,8 +28,54 @@ public class CommandBuilder implements ICommandBuilder {
    * @param view  the GUI view for user interaction
    */
   public CommandBuilder(IImageModel model, IGUIView view) {
+    this(model, view, new ImageHistory(Runtime.getRuntime().maxMemory() / 4));
+  }
+
+  /**
+   * Constructs a CommandBuilder with the specified model, view and undo/redo history.
+   *
+   * @param model   the image model for image processing
+   * @param view    the GUI view for user interaction
+   * @param history the history in which every applied change to the image is recorded
+   */
+  public CommandBuilder(IImageModel model, IGUIView view, ImageHistory history) {
+    this(model, view, history, 0, null);
+  }
+
+  /**
+   * Constructs a CommandBuilder whose load commands prefetch a reduced version of the image.
+   *
+   * @param model           the image model for image processing
+   * @param view            the GUI view for user interaction
+   * @param loadPreviewSize the largest width or height of the reduced image
+   * @param onLoadPreview   the listener that receives the reduced image of every load, on the
+   *                        thread that executes the load before the full image is decoded
+   */
+  public CommandBuilder(IImageModel model, IGUIView view, int loadPreviewSize,
+                        Consumer<Image> onLoadPreview) {
+    this(model, view, new ImageHistory(Runtime.getRuntime().maxMemory() / 4), loadPreviewSize,
+            onLoadPreview);
+  }
+
+  /**
+   * Constructs a CommandBuilder with the specified model, view, history and load preview
+   * listener.
+   *
+   * @param model           the image model for image processing
+   * @param view            the GUI view for user interaction
+   * @param history         the history in which every applied change to the image is recorded
+   * @param loadPreviewSize the largest width or height of the reduced image prefetched by load
+   *                        commands
+   * @param onLoadPreview   the listener that receives the reduced image of every load, or null
+   *                        if load commands should not prefetch one
+   */
+  public CommandBuilder(IImageModel model, IGUIView view, ImageHistory history,
+                        int loadPreviewSize, Consumer<Image> onLoadPreview) {
     this.model = model;
     this.view = view;
+    this.history = history;
+    this.loadPreviewSize = loadPreviewSize;
+    this.onLoadPreview = onLoadPreview;
   }
 
   /**
@@ -71,6 +123,10 @@ public class CommandBuilder implements ICommandBuilder {
           return handleAdjustLevels();
         case "save":
           return handleSave();
+        case "undo":
+          return handleHistory(new UndoCommand(history, "image", model));
+        case "redo":
+          return handleHistory(new RedoCommand(history, "image", model));
         default:
           throw new IllegalArgumentException("Unknown command " + actionCommand);
       }
@@ -94,8 +150,11 @@ public class CommandBuilder implements ICommandBuilder {
     String loadPath = view.loadImage();
     if (loadPath != null) {
       currentState = AppState.IMAGE_LOADED_UNMODIFIED;
-      ICommand loadCommand = new LoadCommand(loadPath, "image", model);
-      return new CommandPair(null, loadCommand);
+      ICommand loadCommand = onLoadPreview == null
+              ? new LoadCommand(loadPath, "image", model)
+              : new LoadCommand(loadPath, "image", model, loadPreviewSize, onLoadPreview);
+      return new CommandPair(null, new HistoryRecordingCommand(loadCommand, history, model,
+              "image", true));
     }
     return null;
   }
@@ -111,7 +170,7 @@ public class CommandBuilder implements ICommandBuilder {
   private CommandPair handleColorCommand(ICommand previewCommand, ICommand applyCommand) {
     if (checkImageLoaded()) {
       currentState = AppState.IMAGE_LOADED_MODIFIED;
-      return new CommandPair(previewCommand, applyCommand);
+      return new CommandPair(previewCommand, recordInHistory(applyCommand));
     }
     return null;
   }
@@ -127,7 +186,7 @@ public class CommandBuilder implements ICommandBuilder {
   private CommandPair handleFlipCommand(ICommand previewCommand, ICommand applyCommand) {
     if (checkImageLoaded()) {
       currentState = AppState.IMAGE_LOADED_MODIFIED;
-      return new CommandPair(previewCommand, applyCommand);
+      return new CommandPair(previewCommand, recordInHistory(applyCommand));
     }
     return null;
   }
@@ -184,7 +243,7 @@ public class CommandBuilder implements ICommandBuilder {
             view.showError("Invalid filter command type.");
             return null;
         }
-        return new CommandPair(previewCommand, applyCommand);
+        return new CommandPair(previewCommand, recordInHistory(applyCommand));
       }
     }
     return null;
@@ -206,7 +265,7 @@ public class CommandBuilder implements ICommandBuilder {
                 "previewImage", model);
         ICommand compressCommand = new CompressCommand(compressionRatio, "image",
                 "image", model);
-        return new CommandPair(compressPreviewCommand, compressCommand);
+        return new CommandPair(compressPreviewCommand, recordInHistory(compressCommand));
       }
     }
     return null;
@@ -230,7 +289,8 @@ public class CommandBuilder implements ICommandBuilder {
                   levels[2], "image", "previewImage", model, percentage);
           ICommand adjustLevelsCommand = new AdjustLevelsCommand(levels[0], levels[1], levels[2],
                   "image", "image", model, Optional.of(100.0));
-          return new CommandPair(adjustLevelsPreviewCommand, adjustLevelsCommand);
+          return new CommandPair(adjustLevelsPreviewCommand,
+                  recordInHistory(adjustLevelsCommand));
         }
       }
     }
@@ -254,6 +314,32 @@ public class CommandBuilder implements ICommandBuilder {
     return null;
   }
 
+  /**
+   * Handles the undo and redo commands. Restoring a state from the history counts as a
+   * modification of the image.
+   *
+   * @param historyCommand the command that restores a state from the history
+   * @return a CommandPair containing null as the preview command and the given command, or null
+   */
+  private CommandPair handleHistory(ICommand historyCommand) {
+    if (checkImageLoaded()) {
+      currentState = AppState.IMAGE_LOADED_MODIFIED;
+      return new CommandPair(null, historyCommand);
+    }
+    return null;
+  }
+
+  /**
+   * Wraps a command that changes the working image so that its result is recorded in the
+   * undo/redo history.
+   *
+   * @param applyCommand the command that changes the working image
+   * @return the wrapped command
+   */
+  private ICommand recordInHistory(ICommand applyCommand) {
+    return new HistoryRecordingCommand(applyCommand, history, model, "image", false);
+  }
+
   /**
    * Checks if an image is currently loaded. If not, it displays an error message.
    *
@@ -77,6 +77,33 @@ public interface Features {
    */
   void adjustLevels();
 
+  /**
+   * Shows a live preview of the filter currently being configured, applied up to the given
+   * split percentage.
+   *
+   * @param splitPercentage the percentage of the image width the filter is applied to
+   */
+  void previewSplit(double splitPercentage);
+
+  /**
+   * Shows a live preview of the levels adjustment currently being configured.
+   *
+   * @param b the black point value
+   * @param m the mid point value
+   * @param w the white point value
+   */
+  void previewLevels(int b, int m, int w);
+
+  /**
+   * Reverts the image to its state before the last applied operation.
+   */
+  void undo();
+
+  /**
+   * Reapplies the operation that was last undone.
+   */
+  void redo();
+
   /**
    * Confirms the current operation or selection.
    */
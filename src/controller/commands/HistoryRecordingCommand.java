@@ -0,0 +1,64 @@
+package controller.commands;
+
+import model.IImageModel;
+import model.history.ImageHistory;
+
+/**
+ * A decorator for commands that change the working image. After the wrapped command executes
+ * successfully, the resulting image is recorded as a new state in the undo/redo history.
+ * The decorator is transparent: it reports the wrapped command as its string representation.
+ */
+class HistoryRecordingCommand implements ICommand {
+  private final ICommand command;
+  private final ImageHistory history;
+  private final IImageModel model;
+  private final String imageName;
+  private final boolean startsNewHistory;
+
+  /**
+   * Constructs a HistoryRecordingCommand around the given command.
+   *
+   * @param command          the command that changes the image
+   * @param history          the history to record the resulting image in
+   * @param model            a reference to the image model
+   * @param imageName        the name of the image the command writes
+   * @param startsNewHistory whether the history should be cleared first, as when a new image
+   *                         is loaded
+   */
+  HistoryRecordingCommand(ICommand command, ImageHistory history, IImageModel model,
+                          String imageName, boolean startsNewHistory) {
+    this.command = command;
+    this.history = history;
+    this.model = model;
+    this.imageName = imageName;
+    this.startsNewHistory = startsNewHistory;
+  }
+
+  /**
+   * Executes the wrapped command and records its result in the history.
+   *
+   * @return true if the wrapped command was successful, otherwise false
+   * @throws Exception if the wrapped command fails
+   */
+  @Override
+  public boolean execute() throws Exception {
+    boolean success = command.execute();
+    if (success) {
+      if (startsNewHistory) {
+        history.clear();
+      }
+      history.record(model.getImage(imageName));
+    }
+    return success;
+  }
+
+  /**
+   * Returns the string representation of the wrapped command.
+   *
+   * @return a string representing the wrapped command
+   */
+  @Override
+  public String toString() {
+    return command.toString();
+  }
+}
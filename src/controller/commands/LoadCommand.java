@@ -1,14 +1,26 @@
 package controller.commands;
 
+import java.util.function.Consumer;
+
+import controller.AbstractImageParser;
+import controller.DecodeOptions;
 import controller.IImageFileParser;
 import model.IImageModel;
+import model.image.Image;
 
 /**
  * Represents a command to load an image into the model.
  * This command retrieves an image from the specified path
  * and loads it into the model with a given name.
+ * A load command can optionally prefetch a reduced version of the image, which is decoded first
+ * and handed to a listener before the full image is decoded, or decode the image at a reduced
+ * resolution when the full resolution is never needed.
  */
 public class LoadCommand extends AbstractLoaderSaverCommand {
+  private final IImageFileParser imageParser;
+  private final int previewSize;
+  private final Consumer<Image> onPreview;
+  private final DecodeOptions decodeOptions;
 
   /**
    * Constructs a new LoadCommand.
@@ -18,17 +30,66 @@ public class LoadCommand extends AbstractLoaderSaverCommand {
    * @param model     A reference to the image model.
    */
   public LoadCommand(String imagePath, String imageName, IImageModel model) {
+    this(imagePath, imageName, model, DecodeOptions.DEFAULTS);
+  }
+
+  /**
+   * Constructs a new LoadCommand that decodes the image at a reduced resolution.
+   *
+   * @param imagePath     The path from where the image will be loaded.
+   * @param imageName     The name to assign to the loaded image in the model.
+   * @param model         A reference to the image model.
+   * @param decodeOptions The subsampling and maximum dimension of the loaded image.
+   */
+  public LoadCommand(String imagePath, String imageName, IImageModel model,
+                     DecodeOptions decodeOptions) {
+    super(imagePath, imageName, model);
+    this.imageParser = null;
+    this.previewSize = 0;
+    this.onPreview = null;
+    this.decodeOptions = decodeOptions;
+  }
+
+  /**
+   * Constructs a new LoadCommand that prefetches a reduced version of the image. The parser is
+   * resolved immediately, so an unsupported path is reported before any decoding starts.
+   *
+   * @param imagePath   The path from where the image will be loaded.
+   * @param imageName   The name to assign to the loaded image in the model.
+   * @param model       A reference to the image model.
+   * @param previewSize The largest width or height of the reduced image.
+   * @param onPreview   The listener that receives the reduced image; it is called on the
+   *                    thread that executes the command, before the full image is decoded.
+   * @throws UnsupportedOperationException if the format is not detected and the file
+   *                                       extension is not supported.
+   */
+  public LoadCommand(String imagePath, String imageName, IImageModel model, int previewSize,
+                     Consumer<Image> onPreview) {
     super(imagePath, imageName, model);
+    if (previewSize <= 0) {
+      throw new IllegalArgumentException("Preview size must be positive.");
+    }
+    this.imageParser = getLoaderObject(imagePath);
+    this.previewSize = previewSize;
+    this.onPreview = onPreview;
+    this.decodeOptions = DecodeOptions.DEFAULTS;
   }
 
   /**
    * Loads the image using appropriate image parser.
+   * If a preview listener is set and the format is decoded through ImageIO, the reduced image
+   * is decoded and handed to the listener first, on the same thread. Subsampled decoding reads
+   * only a fraction of the pixels, so the preview still arrives well before the full image, and
+   * no decode of the file outlives the command.
    *
    * @throws Exception if an error occurs during image processing.
    */
   @Override
   protected void processImage() throws Exception {
-    IImageFileParser imageParser = getImageObject(imagePath);
-    this.model.addImage(imageParser.loadImage(imagePath), imageName);
+    IImageFileParser parser = imageParser != null ? imageParser : getLoaderObject(imagePath);
+    if (onPreview != null && parser instanceof AbstractImageParser) {
+      ((AbstractImageParser) parser).loadSubsampled(imagePath, previewSize).ifPresent(onPreview);
+    }
+    this.model.addImage(parser.loadImage(imagePath, decodeOptions), imageName);
   }
 }
@@ -0,0 +1,33 @@
+package controller.commands;
+
+import model.IImageModel;
+import model.history.ImageHistory;
+
+/**
+ * Represents a command that restores the state of an image that was last undone.
+ */
+public class RedoCommand extends AbstractCommand {
+  private final ImageHistory history;
+
+  /**
+   * Constructs a RedoCommand for the given image and history.
+   *
+   * @param history   the history holding the undone states of the image
+   * @param imageName the name of the image to restore
+   * @param model     a reference to the image model
+   */
+  public RedoCommand(ImageHistory history, String imageName, IImageModel model) {
+    super(imageName, model);
+    this.history = history;
+  }
+
+  /**
+   * Replaces the image in the model with the state that was last undone.
+   *
+   * @throws Exception if there is nothing to redo.
+   */
+  @Override
+  protected void processImage() throws Exception {
+    this.model.addImage(history.redo(), this.imageName);
+  }
+}
@@ -0,0 +1,48 @@
+package controller.commands;
+
+import java.util.Optional;
+
+import model.IImageModel;
+import model.image.ResizeFilter;
+
+/**
+ * Represents a command that resizes an image to a given width and height.
+ * This command uses the underlying image model to resize the source image
+ * and saves the resultant image with a new name.
+ */
+public class ResizeCommand extends AbstractTransformCommand {
+  private final int width;
+  private final int height;
+  private final Optional<ResizeFilter> filterOpt;
+
+  /**
+   * Constructs a ResizeCommand with the provided size, source image,
+   * destination image, model and optional filter.
+   *
+   * @param width         The width of the resized image.
+   * @param height        The height of the resized image.
+   * @param imageName     The name of the source image to be resized.
+   * @param destImageName The name of the destination image after resizing.
+   * @param model         A reference to the image model.
+   * @param filterOpt     An optional reconstruction filter; without one the
+   *                      model chooses the filter.
+   */
+  public ResizeCommand(int width, int height, String imageName, String destImageName,
+                       IImageModel model, Optional<ResizeFilter> filterOpt) {
+    super(imageName, destImageName, model);
+    this.width = width;
+    this.height = height;
+    this.filterOpt = filterOpt;
+  }
+
+  /**
+   * Processes the image by directing the model to resize the image.
+   *
+   * @throws Exception if an error occurs during image processing.
+   */
+  @Override
+  protected void processImage() throws Exception {
+    this.model.resize(this.imageName, this.destImageName, this.width, this.height,
+            this.filterOpt);
+  }
+}
@@ -1,14 +1,29 @@
 package controller.commands;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import controller.ConcurrentImageSaver;
+import controller.EncoderOptions;
 import controller.IImageFileParser;
+import controller.PackedRaster;
 import model.IImageModel;
+import model.image.Image;
 
 /**
  * Represents a command to save an image to the specified file path.
  * The saving process uses the provided image name and path and relies on
  * an image parser to handle the file format and writing.
+ * An image can also be saved to several paths at once; it is then converted
+ * once and all formats are encoded concurrently by the shared
+ * {@link ConcurrentImageSaver}. Encoder settings, such as the JPEG quality or
+ * the PNG compression level, are applied to every format that has them.
  */
 public class SaveCommand extends AbstractLoaderSaverCommand {
+  private final List<String> imagePaths;
+  private final EncoderOptions options;
 
   /**
    * Constructs a SaveCommand with the specified file path, image name, and
@@ -19,17 +34,74 @@ public class SaveCommand extends AbstractLoaderSaverCommand {
    * @param model     A reference to the image model.
    */
   public SaveCommand(String imagePath, String imageName, IImageModel model) {
-    super(imagePath, imageName, model);
+    this(Collections.singletonList(imagePath), imageName, model);
+  }
+
+  /**
+   * Constructs a SaveCommand that saves the image to every one of the specified
+   * file paths, in the format of each path's extension.
+   *
+   * @param imagePaths The paths where the image will be saved.
+   * @param imageName  The name of the image to save.
+   * @param model      A reference to the image model.
+   * @throws IllegalArgumentException if no path is given.
+   */
+  public SaveCommand(List<String> imagePaths, String imageName, IImageModel model) {
+    this(imagePaths, imageName, model, EncoderOptions.DEFAULTS);
+  }
+
+  /**
+   * Constructs a SaveCommand that saves the image to every one of the specified
+   * file paths with the given encoder settings, such as the JPEG quality or the
+   * PNG compression level.
+   *
+   * @param imagePaths The paths where the image will be saved.
+   * @param imageName  The name of the image to save.
+   * @param model      A reference to the image model.
+   * @param options    The encoder settings.
+   * @throws IllegalArgumentException if no path is given.
+   */
+  public SaveCommand(List<String> imagePaths, String imageName, IImageModel model,
+                     EncoderOptions options) {
+    super(firstPath(imagePaths), imageName, model);
+    this.imagePaths = Collections.unmodifiableList(new ArrayList<>(imagePaths));
+    this.options = options;
+  }
+
+  /**
+   * Returns the first of the given paths.
+   *
+   * @param imagePaths The paths where the image will be saved.
+   * @return The first path.
+   * @throws IllegalArgumentException if no path is given.
+   */
+  private static String firstPath(List<String> imagePaths) {
+    if (imagePaths.isEmpty()) {
+      throw new IllegalArgumentException("No file to save to.");
+    }
+    return imagePaths.get(0);
   }
 
   /**
-   * Saves the image using the correct image parser.
+   * Saves the image using the correct image parser and the encoder settings, or
+   * the correct parsers concurrently if there are several paths.
    *
    * @throws Exception if an error occurs during image processing.
    */
   @Override
   protected void processImage() throws Exception {
-    IImageFileParser imageParser = getImageObject(imagePath);
-    imageParser.saveImage(imagePath, this.model.getImage(imageName));
+    if (imagePaths.size() > 1) {
+      ConcurrentImageSaver.getDefault().save(this.model.getImage(imageName), imagePaths,
+              options);
+    } else if (options.isDefault()) {
+      IImageFileParser imageParser = getImageObject(imagePath);
+      imageParser.saveImage(imagePath, this.model.getImage(imageName));
+    } else {
+      Image image = this.model.getImage(imageName);
+      if (image.isEmpty()) {
+        throw new IOException("No image data to save.");
+      }
+      getImageObject(imagePath).saveRaster(imagePath, PackedRaster.of(image), options);
+    }
   }
 }
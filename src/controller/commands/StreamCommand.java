@@ -0,0 +1,72 @@
+package controller.commands;
+
+import java.util.List;
+
+import controller.EncoderOptions;
+import controller.IImageFileParser;
+import controller.ImageParserRegistry;
+import model.image.StripPipeline;
+import model.image.StripSource;
+import model.strategy.FilterStrategy;
+
+/**
+ * Command that loads an image file, applies a chain of filters and saves the result, streaming
+ * the image through the filters in strips of rows with a {@link StripPipeline}. The image is
+ * never stored in the model, and no stage of the chain holds more than a few strips, so the
+ * command needs far less memory than loading, filtering and saving the whole image step by
+ * step. Formats that can be read or written a strip at a time are; others are decoded or
+ * encoded as a whole by their parser.
+ */
+public class StreamCommand implements ICommand {
+  private final String sourcePath;
+  private final StripPipeline pipeline;
+  private final String targetPath;
+  private final EncoderOptions options;
+
+  /**
+   * Constructs a new StreamCommand.
+   *
+   * @param sourcePath the path of the image file to read
+   * @param filters    the filters, in the order they are applied
+   * @param targetPath the path of the image file to write, whose extension chooses the format
+   * @param options    the encoder settings
+   * @throws IllegalArgumentException if a filter cannot be applied in strips of rows
+   */
+  public StreamCommand(String sourcePath, List<FilterStrategy> filters, String targetPath,
+                       EncoderOptions options) {
+    this(sourcePath, new StripPipeline(filters), targetPath, options);
+  }
+
+  /**
+   * Constructs a new StreamCommand with the given pipeline.
+   *
+   * @param sourcePath the path of the image file to read
+   * @param pipeline   the filters and the strip height
+   * @param targetPath the path of the image file to write, whose extension chooses the format
+   * @param options    the encoder settings
+   */
+  public StreamCommand(String sourcePath, StripPipeline pipeline, String targetPath,
+                       EncoderOptions options) {
+    this.sourcePath = sourcePath;
+    this.pipeline = pipeline;
+    this.targetPath = targetPath;
+    this.options = options;
+  }
+
+  /**
+   * Streams the source file through the filters into the target file.
+   *
+   * @return true once the target file is written
+   * @throws Exception if a file cannot be read or written or a filter fails
+   */
+  @Override
+  public boolean execute() throws Exception {
+    ImageParserRegistry registry = ImageParserRegistry.getDefault();
+    IImageFileParser writer = registry.forSaving(targetPath);
+    StripSource source = registry.forLoading(sourcePath).openStrips(sourcePath);
+    try (StripSource filtered = pipeline.stream(source)) {
+      writer.saveStrips(targetPath, filtered, options);
+    }
+    return true;
+  }
+}
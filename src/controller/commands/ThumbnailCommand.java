@@ -0,0 +1,37 @@
+package controller.commands;
+
+import model.IImageModel;
+
+/**
+ * Represents a command that reduces an image to fit a given dimension.
+ * This command uses the underlying image model to create a thumbnail of the
+ * source image, keeping its proportions, and saves it with a new name.
+ */
+public class ThumbnailCommand extends AbstractTransformCommand {
+  private final int maxDimension;
+
+  /**
+   * Constructs a ThumbnailCommand with the provided dimension, source image,
+   * destination image and model.
+   *
+   * @param maxDimension  The largest width or height of the thumbnail.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the thumbnail.
+   * @param model         A reference to the image model.
+   */
+  public ThumbnailCommand(int maxDimension, String imageName, String destImageName,
+                          IImageModel model) {
+    super(imageName, destImageName, model);
+    this.maxDimension = maxDimension;
+  }
+
+  /**
+   * Processes the image by directing the model to create the thumbnail.
+   *
+   * @throws Exception if an error occurs during image processing.
+   */
+  @Override
+  protected void processImage() throws Exception {
+    this.model.thumbnail(this.imageName, this.destImageName, this.maxDimension);
+  }
+}
@@ -0,0 +1,78 @@
+package controller.commands;
+
+import java.io.IOException;
+
+import controller.EncoderOptions;
+import controller.IImageFileParser;
+import controller.ImageParserRegistry;
+import model.image.StripSource;
+import model.image.TiledImage;
+
+/**
+ * Command that loads an image file into a {@link TiledImage}, applies one operation tile by
+ * tile and saves the result. The image is never stored in the model and never held on the heap
+ * as a whole: it is read into tiles a row of tiles at a time, the tiles live in a
+ * memory-mapped temporary file, and the result is written from the tiles in strips. This lets
+ * images larger than the heap be filtered. Formats that can be read or written a strip at a
+ * time are; others are decoded or encoded as a whole by their parser.
+ */
+public class TileCommand implements ICommand {
+  private final String sourcePath;
+  private final TileOperation operation;
+  private final String targetPath;
+  private final EncoderOptions options;
+
+  /**
+   * An operation on a tiled image.
+   */
+  @FunctionalInterface
+  public interface TileOperation {
+
+    /**
+     * Applies the operation.
+     *
+     * @param image the image to operate on, which stays open
+     * @return a new tiled image holding the result, which the caller must close
+     * @throws IOException If the tile file of the result cannot be created.
+     */
+    TiledImage apply(TiledImage image) throws IOException;
+  }
+
+  /**
+   * Constructs a new TileCommand.
+   *
+   * @param sourcePath the path of the image file to read
+   * @param operation  the operation to apply
+   * @param targetPath the path of the image file to write, whose extension chooses the format
+   * @param options    the encoder settings
+   */
+  public TileCommand(String sourcePath, TileOperation operation, String targetPath,
+                     EncoderOptions options) {
+    this.sourcePath = sourcePath;
+    this.operation = operation;
+    this.targetPath = targetPath;
+    this.options = options;
+  }
+
+  /**
+   * Loads the source file into tiles, applies the operation and saves the result.
+   *
+   * @return true once the target file is written
+   * @throws Exception if a file cannot be read or written or the operation fails
+   */
+  @Override
+  public boolean execute() throws Exception {
+    ImageParserRegistry registry = ImageParserRegistry.getDefault();
+    IImageFileParser writer = registry.forSaving(targetPath);
+    TiledImage result;
+    try (StripSource source = registry.forLoading(sourcePath).openStrips(sourcePath);
+         TiledImage image = TiledImage.load(source)) {
+      result = operation.apply(image);
+    }
+    try (TiledImage tiled = result;
+         StripSource strips = tiled.strips()) {
+      writer.saveStrips(targetPath, strips, options);
+    }
+    return true;
+  }
+}
@@ -0,0 +1,33 @@
+package controller.commands;
+
+import model.IImageModel;
+import model.history.ImageHistory;
+
+/**
+ * Represents a command that restores the previous state of an image from its history.
+ */
+public class UndoCommand extends AbstractCommand {
+  private final ImageHistory history;
+
+  /**
+   * Constructs an UndoCommand for the given image and history.
+   *
+   * @param history   the history holding the previous states of the image
+   * @param imageName the name of the image to restore
+   * @param model     a reference to the image model
+   */
+  public UndoCommand(ImageHistory history, String imageName, IImageModel model) {
+    super(imageName, model);
+    this.history = history;
+  }
+
+  /**
+   * Replaces the image in the model with its previous state.
+   *
+   * @throws Exception if there is nothing to undo.
+   */
+  @Override
+  protected void processImage() throws Exception {
+    this.model.addImage(history.undo(), this.imageName);
+  }
+}
@@ -0,0 +1,584 @@
+package model;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import model.image.Image;
+import model.image.MipChain;
+import model.image.ResizeFilter;
+import model.strategy.AdjustLevelsFilterStrategy;
+import model.strategy.BlurFilterStrategy;
+import model.strategy.ColorCorrectFilterStrategy;
+import model.strategy.FilterStrategy;
+import model.strategy.IntensityFilterStrategy;
+import model.strategy.LumaFilterStrategy;
+import model.strategy.SepiaFilterStrategy;
+import model.strategy.SharpenFilterStrategy;
+import model.strategy.SplitFilterDecorator;
+import model.strategy.ValueFilterStrategy;
+
+/**
+ * An image model that any number of threads may use at once, for example several scripts run
+ * in parallel, client sessions or a background worker of the GUI. The images are stored in a
+ * concurrent map, so reading an image takes no lock, and every operation reads its sources
+ * once, computes its result without holding a lock and then stores the result with one atomic
+ * write, replacing any image of the same name; a reader sees either the old or the new image,
+ * never a mix.
+ * An operation whose result replaces its own source, such as {@code brighten 10 img img}, is
+ * applied as a compare-and-set: if another thread replaced the source in the meantime, the
+ * operation is computed again from the new image, so no update is lost when several threads
+ * change the same image.
+ * Every model belongs to a named session, a namespace of images of its own; the model created
+ * with the constructor is the default session, and {@link #session(String)} returns the model
+ * of another session that shares the same set of sessions. Images stored in the model must not
+ * be written to.
+ */
+public final class ConcurrentImageModel implements IImageModel {
+  /**
+   * The name of the session of a model created with the constructor.
+   */
+  public static final String DEFAULT_SESSION = "";
+
+  private final ConcurrentMap<String, ConcurrentImageModel> sessions;
+  private final String sessionName;
+  private final ConcurrentMap<String, Image> imageMap = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, MipChain> mipChains = new ConcurrentHashMap<>();
+
+  /**
+   * Computes the result of an operation from its source image.
+   */
+  private interface Operation {
+
+    /**
+     * Computes the result.
+     *
+     * @param image the source image
+     * @return the result
+     * @throws IOException If the operation fails.
+     */
+    Image apply(Image image) throws IOException;
+  }
+
+  /**
+   * Constructs a new model, the default session of a new set of sessions.
+   */
+  public ConcurrentImageModel() {
+    this(new ConcurrentHashMap<>(), DEFAULT_SESSION);
+    sessions.put(DEFAULT_SESSION, this);
+  }
+
+  /**
+   * Constructs a session of a set of sessions, which the caller registers it in.
+   *
+   * @param sessions    the sessions the new session belongs to
+   * @param sessionName the name of the new session
+   */
+  private ConcurrentImageModel(ConcurrentMap<String, ConcurrentImageModel> sessions,
+                               String sessionName) {
+    this.sessions = sessions;
+    this.sessionName = sessionName;
+  }
+
+  /**
+   * Returns the model of a session, creating the session if it does not exist. Every thread
+   * asking for the same name gets the same model.
+   *
+   * @param name the name of the session
+   * @return the model of the session
+   */
+  public ConcurrentImageModel session(String name) {
+    return sessions.computeIfAbsent(name, key -> new ConcurrentImageModel(sessions, key));
+  }
+
+  /**
+   * Closes a session and removes its images. A model of the closed session that is still in
+   * use keeps working on its own, but asking for the name again creates a new, empty session.
+   *
+   * @param name the name of the session
+   * @return true if the session existed, otherwise false
+   * @throws IllegalArgumentException if the name is that of the default session
+   */
+  public boolean closeSession(String name) {
+    if (DEFAULT_SESSION.equals(name)) {
+      throw new IllegalArgumentException("The default session cannot be closed.");
+    }
+    ConcurrentImageModel session = sessions.remove(name);
+    if (session == null) {
+      return false;
+    }
+    session.imageMap.clear();
+    session.mipChains.clear();
+    return true;
+  }
+
+  /**
+   * Returns the name of the session of this model.
+   *
+   * @return the session name
+   */
+  public String getSessionName() {
+    return sessionName;
+  }
+
+  /**
+   * Returns the names of the open sessions.
+   *
+   * @return a sorted copy of the session names
+   */
+  public Set<String> getSessionNames() {
+    return Collections.unmodifiableSet(new TreeSet<>(sessions.keySet()));
+  }
+
+  /**
+   * Returns the names of the images of this session.
+   *
+   * @return a sorted copy of the image names
+   */
+  public Set<String> getImageNames() {
+    return Collections.unmodifiableSet(new TreeSet<>(imageMap.keySet()));
+  }
+
+  /**
+   * Replaces an image only if the name still refers to the expected image.
+   *
+   * @param imageName   The name of the image.
+   * @param expected    The image the name must refer to.
+   * @param replacement The new image.
+   * @return true if the image was replaced, otherwise false
+   * @throws IOException If the replacement is null.
+   */
+  public boolean replaceImage(String imageName, Image expected, Image replacement)
+          throws IOException {
+    if (replacement == null) {
+      throw new IOException("Image not loaded.");
+    }
+    if (!imageMap.replace(imageName, expected, replacement)) {
+      return false;
+    }
+    mipChains.remove(imageName);
+    return true;
+  }
+
+  /**
+   * Stores an image under a name and drops the mip chain kept for the name, so the chain of an
+   * overwritten image does not keep that image and its levels alive.
+   *
+   * @param imageName The name to store the image under.
+   * @param image     The image to store.
+   */
+  private void store(String imageName, Image image) {
+    imageMap.put(imageName, image);
+    mipChains.remove(imageName);
+  }
+
+  /**
+   * Returns the image stored under a name.
+   *
+   * @param imageName The name of the image.
+   * @return The image.
+   * @throws IOException If the image does not exist in the model.
+   */
+  private Image source(String imageName) throws IOException {
+    Image image = imageMap.get(imageName);
+    if (image == null) {
+      throw new IOException("Image not found.");
+    }
+    return image;
+  }
+
+  /**
+   * Applies an operation to an image and stores the result. A result that replaces its own
+   * source is stored only if the source has not been replaced in the meantime, and computed
+   * again otherwise.
+   *
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the result.
+   * @param operation     The operation.
+   * @throws IOException If the source image does not exist or the operation fails.
+   */
+  private void apply(String imageName, String destImageName, Operation operation)
+          throws IOException {
+    while (true) {
+      Image image = source(imageName);
+      Image result = operation.apply(image);
+      if (!imageName.equals(destImageName)) {
+        store(destImageName, result);
+        return;
+      }
+      if (imageMap.replace(imageName, image, result)) {
+        mipChains.remove(imageName);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Applies a filter strategy, limited to a split of the image if a percentage is given.
+   *
+   * @param imageName          The name of the source image.
+   * @param destImageName      The name of the result.
+   * @param strategy           The filter strategy.
+   * @param splitPercentageOpt An optional split percentage.
+   * @throws IOException If the source image does not exist.
+   */
+  private void applyFilter(String imageName, String destImageName, FilterStrategy strategy,
+                           Optional<Double> splitPercentageOpt) throws IOException {
+    FilterStrategy filter = splitPercentageOpt.isPresent()
+            ? new SplitFilterDecorator(strategy, splitPercentageOpt.get()) : strategy;
+    apply(imageName, destImageName, image -> image.applyFilter(filter));
+  }
+
+  /**
+   * Adds a new image into the model, replacing an image of the same name.
+   *
+   * @param image     The image to be added into the model.
+   * @param imageName The name by which the image should be stored.
+   * @throws IOException If the image to be added to the model is null.
+   */
+  @Override
+  public void addImage(Image image, String imageName) throws IOException {
+    if (image == null) {
+      throw new IOException("Image not loaded.");
+    }
+    store(imageName, image);
+  }
+
+  /**
+   * Retrieves an image with provided name from the model without taking a lock.
+   *
+   * @param imageName The name of the image to be retrieved.
+   * @throws IOException If the image to be retrieved does not exist in the model.
+   */
+  @Override
+  public Image getImage(String imageName) throws IOException {
+    return source(imageName);
+  }
+
+  /**
+   * Extracts the red component of the image.
+   *
+   * @param imageName     The name of the image.
+   * @param destImageName The name of the red component image.
+   * @throws IOException If the image does not exist in the model.
+   */
+  @Override
+  public void redComponent(String imageName, String destImageName) throws IOException {
+    apply(imageName, destImageName, Image::extractRedComponent);
+  }
+
+  /**
+   * Extracts the green component of the image.
+   *
+   * @param imageName     The name of the image.
+   * @param destImageName The name of the green component image.
+   * @throws IOException If the image does not exist in the model.
+   */
+  @Override
+  public void greenComponent(String imageName, String destImageName) throws IOException {
+    apply(imageName, destImageName, Image::extractGreenComponent);
+  }
+
+  /**
+   * Extracts the blue component of the image.
+   *
+   * @param imageName     The name of the image.
+   * @param destImageName The name of the blue component image.
+   * @throws IOException If the image does not exist in the model.
+   */
+  @Override
+  public void blueComponent(String imageName, String destImageName) throws IOException {
+    apply(imageName, destImageName, Image::extractBlueComponent);
+  }
+
+  /**
+   * Extracts the value component of the image.
+   *
+   * @param imageName          The name of the image.
+   * @param destImageName      The name of the value component image.
+   * @param splitPercentageOpt An optional split percentage.
+   * @throws IOException If the image does not exist in the model.
+   */
+  @Override
+  public void valueComponent(String imageName, String destImageName,
+                             Optional<Double> splitPercentageOpt) throws IOException {
+    applyFilter(imageName, destImageName, new ValueFilterStrategy(), splitPercentageOpt);
+  }
+
+  /**
+   * Extracts the luma component of the image.
+   *
+   * @param imageName          The name of the image.
+   * @param destImageName      The name of the luma component image.
+   * @param splitPercentageOpt An optional split percentage.
+   * @throws IOException If the image does not exist in the model.
+   */
+  @Override
+  public void lumaComponent(String imageName, String destImageName,
+                            Optional<Double> splitPercentageOpt) throws IOException {
+    applyFilter(imageName, destImageName, new LumaFilterStrategy(), splitPercentageOpt);
+  }
+
+  /**
+   * Extracts the intensity component of the image.
+   *
+   * @param imageName          The name of the image.
+   * @param destImageName      The name of the intensity component image.
+   * @param splitPercentageOpt An optional split percentage.
+   * @throws IOException If the image does not exist in the model.
+   */
+  @Override
+  public void intensityComponent(String imageName, String destImageName,
+                                 Optional<Double> splitPercentageOpt) throws IOException {
+    applyFilter(imageName, destImageName, new IntensityFilterStrategy(), splitPercentageOpt);
+  }
+
+  /**
+   * Applies the sepia effect on the image.
+   *
+   * @param imageName          The name of the image.
+   * @param destImageName      The name of the sepia image.
+   * @param splitPercentageOpt An optional split percentage.
+   * @throws IOException If the image does not exist in the model.
+   */
+  @Override
+  public void sepia(String imageName, String destImageName, Optional<Double> splitPercentageOpt)
+          throws IOException {
+    applyFilter(imageName, destImageName, new SepiaFilterStrategy(), splitPercentageOpt);
+  }
+
+  /**
+   * Applies horizontal flip effect on the image.
+   *
+   * @param imageName     The name of the image.
+   * @param destImageName The name of the flipped image.
+   * @throws IOException If the image does not exist in the model.
+   */
+  @Override
+  public void horizontalFlip(String imageName, String destImageName) throws IOException {
+    apply(imageName, destImageName, Image::horizontalFlip);
+  }
+
+  /**
+   * Applies vertical flip effect on the image.
+   *
+   * @param imageName     The name of the image.
+   * @param destImageName The name of the flipped image.
+   * @throws IOException If the image does not exist in the model.
+   */
+  @Override
+  public void verticalFlip(String imageName, String destImageName) throws IOException {
+    apply(imageName, destImageName, Image::verticalFlip);
+  }
+
+  /**
+   * Applies brightening (increment/decrement) effect on the image.
+   *
+   * @param increment     The amount of brightness adjustment.
+   * @param imageName     The name of the image.
+   * @param destImageName The name of the brightened image.
+   * @throws IOException If the image does not exist in the model.
+   */
+  @Override
+  public void brightenCommand(int increment, String imageName, String destImageName)
+          throws IOException {
+    apply(imageName, destImageName, image -> image.brighten(increment));
+  }
+
+  /**
+   * Applies blur effect on the image.
+   *
+   * @param imageName          The name of the image.
+   * @param destImageName      The name of the blurred image.
+   * @param splitPercentageOpt An optional split percentage.
+   * @throws IOException If the image does not exist in the model.
+   */
+  @Override
+  public void blur(String imageName, String destImageName, Optional<Double> splitPercentageOpt)
+          throws IOException {
+    applyFilter(imageName, destImageName, new BlurFilterStrategy(), splitPercentageOpt);
+  }
+
+  /**
+   * Applies sharpening effect on the image.
+   *
+   * @param imageName          The name of the image.
+   * @param destImageName      The name of the sharpened image.
+   * @param splitPercentageOpt An optional split percentage.
+   * @throws IOException If the image does not exist in the model.
+   */
+  @Override
+  public void sharpen(String imageName, String destImageName,
+                      Optional<Double> splitPercentageOpt) throws IOException {
+    applyFilter(imageName, destImageName, new SharpenFilterStrategy(), splitPercentageOpt);
+  }
+
+  /**
+   * Splits the RGB components of an image into three separate images. The components are
+   * computed from one version of the source and each is stored with an atomic write.
+   *
+   * @param imageName          The name of the source image to be split.
+   * @param destImageNameRed   The name of the destination image for the Red channel.
+   * @param destImageNameGreen The name of the destination image for the Green channel.
+   * @param destImageNameBlue  The name of the destination image for the Blue channel.
+   * @throws IOException If the image does not exist in the model.
+   */
+  @Override
+  public void rgbSplit(String imageName, String destImageNameRed, String destImageNameGreen,
+                       String destImageNameBlue) throws IOException {
+    Image image = source(imageName);
+    Image red = image.extractRedComponent();
+    Image green = image.extractGreenComponent();
+    Image blue = image.extractBlueComponent();
+    store(destImageNameRed, red);
+    store(destImageNameGreen, green);
+    store(destImageNameBlue, blue);
+  }
+
+  /**
+   * Combines three images representing the Red, Green, and Blue channels into a single RGB
+   * image.
+   *
+   * @param destImageName  The name of the combined destination RGB image.
+   * @param redImageName   The name of the source image for the Red channel.
+   * @param greenImageName The name of the source image for the Green channel.
+   * @param blueImageName  The name of the source image for the Blue channel.
+   * @throws IOException If one of the source images does not exist in the model.
+   */
+  @Override
+  public void rgbCombine(String destImageName, String redImageName,
+                         String greenImageName, String blueImageName) throws IOException {
+    Image redImage = imageMap.get(redImageName);
+    Image greenImage = imageMap.get(greenImageName);
+    Image blueImage = imageMap.get(blueImageName);
+    if (redImage == null || greenImage == null || blueImage == null) {
+      throw new IOException("One or more source images not found.");
+    }
+    store(destImageName, Image.combineColorChannels(redImage, greenImage, blueImage));
+  }
+
+  /**
+   * Generates the histograms of the red, green and blue channels of the image.
+   *
+   * @param imageName The name of the source image.
+   * @return A two-dimensional array representing the histograms of the red, green, and blue
+   *         color channels.
+   * @throws IOException If the image does not exist in the model.
+   */
+  @Override
+  public int[][] histogram(String imageName) throws IOException {
+    return source(imageName).calculateHistograms();
+  }
+
+  /**
+   * Applies color correction to the image.
+   *
+   * @param imageName          The name of the source image.
+   * @param destImageName      The name of the color-corrected image.
+   * @param splitPercentageOpt An optional split percentage.
+   * @throws IOException If the image does not exist in the model.
+   */
+  @Override
+  public void colorCorrect(String imageName, String destImageName,
+                           Optional<Double> splitPercentageOpt) throws IOException {
+    applyFilter(imageName, destImageName, new ColorCorrectFilterStrategy(), splitPercentageOpt);
+  }
+
+  /**
+   * Adjusts the levels of the image.
+   *
+   * @param imageName          The name of the source image.
+   * @param destImageName      The name of the adjusted image.
+   * @param b                  The black point value for level adjustment.
+   * @param m                  The mid point value for level adjustment.
+   * @param w                  The white point value for level adjustment.
+   * @param splitPercentageOpt An optional split percentage.
+   * @throws IOException If the image does not exist in the model.
+   */
+  @Override
+  public void adjustLevels(String imageName, String destImageName, int b, int m, int w,
+                           Optional<Double> splitPercentageOpt) throws IOException {
+    applyFilter(imageName, destImageName, new AdjustLevelsFilterStrategy(b, m, w),
+            splitPercentageOpt);
+  }
+
+  /**
+   * Compresses the image by a percentage using the Haar Wavelet Transform.
+   *
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the compressed image.
+   * @param percentage    The percentage by which the image is to be compressed.
+   * @throws IOException If the image does not exist in the model.
+   */
+  @Override
+  public void compressImage(String imageName, String destImageName, double percentage)
+          throws IOException {
+    if (percentage < 0 || percentage > 100) {
+      throw new IllegalArgumentException("Compression percentage must be between 0 and 100.");
+    }
+    apply(imageName, destImageName, image -> image.compress(percentage));
+  }
+
+  /**
+   * Resizes an image to the given width and height. The default and the box filter start from
+   * the mip level of the source closest to the requested size; any other filter resamples the
+   * source directly and does not build a mip chain.
+   *
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the resized image.
+   * @param width         The width of the resized image.
+   * @param height        The height of the resized image.
+   * @param filterOpt     An optional reconstruction filter.
+   * @throws IOException If the image does not exist in the model.
+   */
+  @Override
+  public void resize(String imageName, String destImageName, int width, int height,
+                     Optional<ResizeFilter> filterOpt) throws IOException {
+    apply(imageName, destImageName, image -> {
+      if (filterOpt.isPresent() && filterOpt.get() != ResizeFilter.BOX) {
+        return image.resize(width, height, filterOpt.get());
+      }
+      MipChain chain = mipChain(imageName, image);
+      return filterOpt.isPresent()
+              ? chain.resize(width, height, filterOpt.get()) : chain.resize(width, height);
+    });
+  }
+
+  /**
+   * Reduces an image so that it fits the given dimension, starting from the mip level of the
+   * source closest to the thumbnail size.
+   *
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the thumbnail.
+   * @param maxDimension  The largest width or height of the thumbnail.
+   * @throws IOException If the image does not exist in the model.
+   */
+  @Override
+  public void thumbnail(String imageName, String destImageName, int maxDimension)
+          throws IOException {
+    apply(imageName, destImageName, image -> mipChain(imageName, image).thumbnail(maxDimension));
+  }
+
+  /**
+   * Returns the mip chain of an image, reusing the chain of earlier resizes until the name is
+   * written again. The chain is shared by all threads resizing it. It is only kept while the
+   * name still refers to the image, checked inside the update of the chain, so a resize that
+   * races with a write cannot keep a chain of the overwritten image.
+   *
+   * @param imageName The name of the image.
+   * @param image     The image the name referred to.
+   * @return The mip chain of the image.
+   */
+  private MipChain mipChain(String imageName, Image image) {
+    MipChain kept = mipChains.compute(imageName, (name, chain) -> {
+      Image current = imageMap.get(name);
+      return chain != null && chain.getSource() == current ? chain
+              : current == image ? new MipChain(image) : null;
+    });
+    return kept != null && kept.getSource() == image ? kept : new MipChain(image);
+  }
+}
@@ -154,6 +154,7 @@ public class HaarWaveletTransform {
    */
   public double[][] haar(double[][] mat) {
     mat = padArr(mat);
+    WaveletPhaseEvent event = WaveletPhaseEvent.begin("forward", mat.length, mat.length);
     int currentLen = mat.length;
     while (currentLen > 1) {
       for (int i = 0; i < currentLen; i++) {
@@ -178,6 +179,7 @@ public class HaarWaveletTransform {
       }
       currentLen = currentLen / 2;
     }
+    event.commit();
     return mat;
   }
 
@@ -190,6 +192,7 @@ public class HaarWaveletTransform {
    * @return The original 2D matrix before any transformations.
    */
   public double[][] invHaar(double[][] mat, int originalWidth, int originalHeight) {
+    WaveletPhaseEvent event = WaveletPhaseEvent.begin("inverse", mat.length, mat.length);
     int c = 2;
     int s = mat.length;
     while (c <= s) {
@@ -215,6 +218,7 @@ public class HaarWaveletTransform {
       }
       c = c * 2;
     }
+    event.commit();
     return unpadArr(mat, originalWidth, originalHeight);
   }
 
@@ -233,6 +237,8 @@ public class HaarWaveletTransform {
     if (percentage == 100.0) {
       return Double.MAX_VALUE;
     }
+    WaveletPhaseEvent event = WaveletPhaseEvent.begin("threshold", 3 * redChannel.length,
+            redChannel.length == 0 ? 0 : redChannel[0].length);
     Set<Double> distinctValues = new HashSet<>();
     for (double[][] channel : new double[][][]{redChannel, greenChannel, blueChannel}) {
       for (double[] array : channel) {
@@ -247,6 +253,7 @@ public class HaarWaveletTransform {
     int thresholdIndex = (int) (orderedValues.size() * (percentage / 100.0));
     thresholdIndex = Math.min(thresholdIndex, orderedValues.size() - 1);
 
+    event.commit();
     return orderedValues.get(thresholdIndex);
   }
 }
\ No newline at end of file
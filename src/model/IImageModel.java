@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.util.Optional;
 
 import model.image.Image;
+import model.image.ResizeFilter;
 
 /**
  * Represents an interface for image processing operations.
@@ -218,4 +219,30 @@ public interface IImageModel {
    * @throws IOException If an error occurs during the process.
    */
   void compressImage(String imageName, String destImageName, double percentage) throws IOException;
+
+  /**
+   * Resizes an image to the given width and height. Without a filter, reductions by whole
+   * factors average blocks of pixels and other sizes are filtered with Lanczos. Several sizes
+   * resized from the same source reuse its reduced mip levels.
+   *
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the resized image.
+   * @param width         The width of the resized image.
+   * @param height        The height of the resized image.
+   * @param filterOpt     An optional reconstruction filter.
+   * @throws IOException If an error occurs during the process.
+   */
+  void resize(String imageName, String destImageName, int width, int height,
+              Optional<ResizeFilter> filterOpt) throws IOException;
+
+  /**
+   * Reduces an image so that neither its width nor its height exceeds the given dimension,
+   * keeping its proportions.
+   *
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the thumbnail.
+   * @param maxDimension  The largest width or height of the thumbnail.
+   * @throws IOException If an error occurs during the process.
+   */
+  void thumbnail(String imageName, String destImageName, int maxDimension) throws IOException;
 }
@@ -6,6 +6,8 @@ import java.util.Map;
 import java.util.Optional;
 
 import model.image.Image;
+import model.image.MipChain;
+import model.image.ResizeFilter;
 import model.strategy.AdjustLevelsFilterStrategy;
 import model.strategy.BlurFilterStrategy;
 import model.strategy.ColorCorrectFilterStrategy;
@@ -27,6 +29,7 @@ import model.strategy.ValueFilterStrategy;
 public class ImageModel implements IImageModel {
 
   private final Map<String, Image> imageMap;
+  private final Map<String, MipChain> mipChains;
 
   /**
    * Constructs a new instance of the ImageModel.
@@ -34,6 +37,7 @@ public class ImageModel implements IImageModel {
    */
   public ImageModel() {
     this.imageMap = new HashMap<>();
+    this.mipChains = new HashMap<>();
   }
 
   /**
@@ -47,7 +51,7 @@ public class ImageModel implements IImageModel {
   @Override
   public void addImage(Image image, String imageName) throws IOException {
     if (image != null) {
-      imageMap.put(imageName, image);
+      store(imageName, image);
     } else {
       throw new IOException("Image not loaded.");
     }
@@ -81,7 +85,7 @@ public class ImageModel implements IImageModel {
     Image image = imageMap.get(imageName);
     if (image != null) {
       Image redComponentImage = image.extractRedComponent();
-      imageMap.put(destImageName, redComponentImage);
+      store(destImageName, redComponentImage);
     } else {
       throw new IOException("Image not found.");
     }
@@ -99,7 +103,7 @@ public class ImageModel implements IImageModel {
     Image image = imageMap.get(imageName);
     if (image != null) {
       Image greenComponentImage = image.extractGreenComponent();
-      imageMap.put(destImageName, greenComponentImage);
+      store(destImageName, greenComponentImage);
     } else {
       throw new IOException("Image not found.");
     }
@@ -117,7 +121,7 @@ public class ImageModel implements IImageModel {
     Image image = imageMap.get(imageName);
     if (image != null) {
       Image blueComponentImage = image.extractBlueComponent();
-      imageMap.put(destImageName, blueComponentImage);
+      store(destImageName, blueComponentImage);
     } else {
       throw new IOException("Image not found.");
     }
@@ -143,7 +147,7 @@ public class ImageModel implements IImageModel {
       }
 
       Image resultImage = image.applyFilter(valueStrategy);
-      imageMap.put(destImageName, resultImage);
+      store(destImageName, resultImage);
     } else {
       throw new IOException("Image not found.");
     }
@@ -169,7 +173,7 @@ public class ImageModel implements IImageModel {
       }
 
       Image resultImage = image.applyFilter(lumaStrategy);
-      imageMap.put(destImageName, resultImage);
+      store(destImageName, resultImage);
     } else {
       throw new IOException("Image not found.");
     }
@@ -195,7 +199,7 @@ public class ImageModel implements IImageModel {
       }
 
       Image resultImage = image.applyFilter(intensityStrategy);
-      imageMap.put(destImageName, resultImage);
+      store(destImageName, resultImage);
     } else {
       throw new IOException("Image not found.");
     }
@@ -221,7 +225,7 @@ public class ImageModel implements IImageModel {
       }
 
       Image resultImage = image.applyFilter(sepiaStrategy);
-      imageMap.put(destImageName, resultImage);
+      store(destImageName, resultImage);
     } else {
       throw new IOException("Image not found.");
     }
@@ -238,7 +242,7 @@ public class ImageModel implements IImageModel {
   public void horizontalFlip(String imageName, String destImageName) throws IOException {
     Image image = imageMap.get(imageName);
     if (image != null) {
-      imageMap.put(destImageName, image.horizontalFlip());
+      store(destImageName, image.horizontalFlip());
     } else {
       throw new IOException("Image not found.");
     }
@@ -255,7 +259,7 @@ public class ImageModel implements IImageModel {
   public void verticalFlip(String imageName, String destImageName) throws IOException {
     Image image = imageMap.get(imageName);
     if (image != null) {
-      imageMap.put(destImageName, image.verticalFlip());
+      store(destImageName, image.verticalFlip());
     } else {
       throw new IOException("Image not found.");
     }
@@ -274,7 +278,7 @@ public class ImageModel implements IImageModel {
           throws IOException {
     Image image = imageMap.get(imageName);
     if (image != null) {
-      imageMap.put(destImageName, image.brighten(increment));
+      store(destImageName, image.brighten(increment));
     } else {
       throw new IOException("Image not found.");
     }
@@ -301,7 +305,7 @@ public class ImageModel implements IImageModel {
       }
 
       Image resultImage = image.applyFilter(blurStrategy);
-      imageMap.put(destImageName, resultImage);
+      store(destImageName, resultImage);
     } else {
       throw new IOException("Image not found.");
     }
@@ -328,7 +332,7 @@ public class ImageModel implements IImageModel {
       }
 
       Image resultImage = image.applyFilter(sharpenStrategy);
-      imageMap.put(destImageName, resultImage);
+      store(destImageName, resultImage);
     } else {
       throw new IOException("Image not found.");
     }
@@ -349,9 +353,9 @@ public class ImageModel implements IImageModel {
                        String destImageNameBlue) throws IOException {
     Image image = imageMap.get(imageName);
     if (image != null) {
-      imageMap.put(destImageNameRed, image.extractRedComponent());
-      imageMap.put(destImageNameGreen, image.extractGreenComponent());
-      imageMap.put(destImageNameBlue, image.extractBlueComponent());
+      store(destImageNameRed, image.extractRedComponent());
+      store(destImageNameGreen, image.extractGreenComponent());
+      store(destImageNameBlue, image.extractBlueComponent());
     } else {
       throw new IOException("Image not found.");
     }
@@ -375,7 +379,7 @@ public class ImageModel implements IImageModel {
     Image blueImage = imageMap.get(blueImageName);
     if (redImage != null && greenImage != null && blueImage != null) {
       Image combinedImage = Image.combineColorChannels(redImage, greenImage, blueImage);
-      imageMap.put(destImageName, combinedImage);
+      store(destImageName, combinedImage);
     } else {
       throw new IOException("One or more source images not found.");
     }
@@ -421,7 +425,7 @@ public class ImageModel implements IImageModel {
       }
 
       Image resultImage = image.applyFilter(colorCorrectStrategy);
-      imageMap.put(destImageName, resultImage);
+      store(destImageName, resultImage);
     } else {
       throw new IOException("Image not found.");
     }
@@ -452,7 +456,7 @@ public class ImageModel implements IImageModel {
       }
 
       Image resultImage = image.applyFilter(adjustLevelsStrategy);
-      imageMap.put(destImageName, resultImage);
+      store(destImageName, resultImage);
     } else {
       throw new IOException("Image not found.");
     }
@@ -478,6 +482,80 @@ public class ImageModel implements IImageModel {
       throw new IOException("Image not found.");
     }
     Image compressedImage = image.compress(percentage);
-    imageMap.put(destImageName, compressedImage);
+    store(destImageName, compressedImage);
+  }
+
+  /**
+   * Resizes an image to the given width and height. The default and the box filter start from
+   * the mip level of the source closest to the requested size; any other filter resamples the
+   * source directly and does not build a mip chain.
+   *
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the resized image.
+   * @param width         The width of the resized image.
+   * @param height        The height of the resized image.
+   * @param filterOpt     An optional reconstruction filter.
+   * @throws IOException If the specified image is not found in the image map.
+   */
+  @Override
+  public void resize(String imageName, String destImageName, int width, int height,
+                     Optional<ResizeFilter> filterOpt) throws IOException {
+    Image resized;
+    if (filterOpt.isPresent() && filterOpt.get() != ResizeFilter.BOX) {
+      resized = getImage(imageName).resize(width, height, filterOpt.get());
+    } else {
+      MipChain chain = mipChain(imageName);
+      resized = filterOpt.isPresent()
+              ? chain.resize(width, height, filterOpt.get()) : chain.resize(width, height);
+    }
+    store(destImageName, resized);
+  }
+
+  /**
+   * Reduces an image so that it fits the given dimension, starting from the mip level of the
+   * source closest to the thumbnail size.
+   *
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the thumbnail.
+   * @param maxDimension  The largest width or height of the thumbnail.
+   * @throws IOException If the specified image is not found in the image map.
+   */
+  @Override
+  public void thumbnail(String imageName, String destImageName, int maxDimension)
+          throws IOException {
+    store(destImageName, mipChain(imageName).thumbnail(maxDimension));
+  }
+
+  /**
+   * Stores an image under a name and drops the mip chain kept for the name, so the chain of an
+   * overwritten image does not keep that image and its levels alive.
+   *
+   * @param imageName The name to store the image under.
+   * @param image     The image to store.
+   */
+  private void store(String imageName, Image image) {
+    imageMap.put(imageName, image);
+    mipChains.remove(imageName);
+  }
+
+  /**
+   * Returns the mip chain of the named image, reusing the chain of earlier resizes until the
+   * name is written again.
+   *
+   * @param imageName The name of the source image.
+   * @return The mip chain of the image.
+   * @throws IOException If the specified image is not found in the image map.
+   */
+  private MipChain mipChain(String imageName) throws IOException {
+    Image image = imageMap.get(imageName);
+    if (image == null) {
+      throw new IOException("Image not found.");
+    }
+    MipChain chain = mipChains.get(imageName);
+    if (chain == null || chain.getSource() != image) {
+      chain = new MipChain(image);
+      mipChains.put(imageName, chain);
+    }
+    return chain;
   }
 }
@@ -0,0 +1,45 @@
+package model;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event emitted around every image model operation. It records which
+ * operation ran on which images and the size of the image it produced, so a recording can be
+ * sliced per operation and per image.
+ */
+@Name("imageprocessor.ImageOperation")
+@Label("Image Operation")
+@Category({"Image Processor", "Model"})
+@Description("An operation of the image model")
+public class ImageOperationEvent extends Event {
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Source")
+  @Description("The name of the image the operation reads")
+  String source;
+
+  @Label("Destination")
+  @Description("The name of the image the operation writes")
+  String destination;
+
+  @Label("Width")
+  int width;
+
+  @Label("Height")
+  int height;
+
+  @Label("Pixel Bytes")
+  @Description("The size of the RGB data of the produced image")
+  @DataAmount
+  long pixelBytes;
+
+  @Label("Successful")
+  boolean successful;
+}
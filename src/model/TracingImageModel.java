@@ -0,0 +1,396 @@
+package model;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import model.image.Image;
+import model.image.ResizeFilter;
+
+/**
+ * A decorator for an image model that emits an {@link ImageOperationEvent} around every
+ * operation. The events carry the operation name, the source and destination image names and
+ * the dimensions of the produced image, so a Java Flight Recorder recording can be sliced per
+ * operation and per image. When no recording is running the events cost next to nothing.
+ */
+public class TracingImageModel implements IImageModel {
+  private final IImageModel delegate;
+
+  /**
+   * Represents one operation of the wrapped model.
+   */
+  private interface Operation {
+
+    /**
+     * Runs the operation.
+     *
+     * @throws IOException If the operation fails.
+     */
+    void run() throws IOException;
+  }
+
+  /**
+   * Constructs a TracingImageModel around the given model.
+   *
+   * @param delegate the model that performs the operations
+   */
+  public TracingImageModel(IImageModel delegate) {
+    this.delegate = delegate;
+  }
+
+  /**
+   * Runs an operation of the wrapped model inside an ImageOperationEvent. The event is
+   * committed whether the operation succeeds or fails.
+   *
+   * @param name        the name of the operation
+   * @param source      the name of the image the operation reads
+   * @param destination the name of the image the operation writes, or null if it writes none
+   * @param operation   the operation to run
+   * @throws IOException If the operation fails.
+   */
+  private void trace(String name, String source, String destination, Operation operation)
+          throws IOException {
+    ImageOperationEvent event = new ImageOperationEvent();
+    event.begin();
+    boolean successful = false;
+    try {
+      operation.run();
+      successful = true;
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event.operation = name;
+        event.source = source;
+        event.destination = destination;
+        event.successful = successful;
+        if (successful && destination != null) {
+          Image image = delegate.getImage(destination);
+          event.width = image.getWidth();
+          event.height = image.getHeight();
+          event.pixelBytes = 3L * image.getWidth() * image.getHeight();
+        }
+        event.commit();
+      }
+    }
+  }
+
+  /**
+   * Adds a new image into the model.
+   *
+   * @param image     The image to be added into the model.
+   * @param imageName The name by which the image should be stored.
+   * @throws IOException If the image to be added to the model is null.
+   */
+  @Override
+  public void addImage(Image image, String imageName) throws IOException {
+    trace("add", null, imageName, () -> delegate.addImage(image, imageName));
+  }
+
+  /**
+   * Retrieves an image with provided name from the model. Lookups are not traced.
+   *
+   * @param imageName The name of the image to be retrieved.
+   * @throws IOException If the image to be retrieved does not exist in the model.
+   */
+  @Override
+  public Image getImage(String imageName) throws IOException {
+    return delegate.getImage(imageName);
+  }
+
+  /**
+   * Extracts the red component of the image.
+   *
+   * @param imageName     The name of the image.
+   * @param destImageName The name of the red component image.
+   * @throws IOException If an error occurs during the process.
+   */
+  @Override
+  public void redComponent(String imageName, String destImageName) throws IOException {
+    trace("red-component", imageName, destImageName,
+            () -> delegate.redComponent(imageName, destImageName));
+  }
+
+  /**
+   * Extracts the green component of the image.
+   *
+   * @param imageName     The name of the image.
+   * @param destImageName The name of the green component image.
+   * @throws IOException If an error occurs during the process.
+   */
+  @Override
+  public void greenComponent(String imageName, String destImageName) throws IOException {
+    trace("green-component", imageName, destImageName,
+            () -> delegate.greenComponent(imageName, destImageName));
+  }
+
+  /**
+   * Extracts the blue component of the image.
+   *
+   * @param imageName     The name of the image.
+   * @param destImageName The name of the blue component image.
+   * @throws IOException If an error occurs during the process.
+   */
+  @Override
+  public void blueComponent(String imageName, String destImageName) throws IOException {
+    trace("blue-component", imageName, destImageName,
+            () -> delegate.blueComponent(imageName, destImageName));
+  }
+
+  /**
+   * Extracts the value component of the image.
+   *
+   * @param imageName          The name of the image.
+   * @param destImageName      The name of the value component image.
+   * @param splitPercentageOpt an optional split percentage
+   * @throws IOException If an error occurs during the process.
+   */
+  @Override
+  public void valueComponent(String imageName, String destImageName,
+                             Optional<Double> splitPercentageOpt) throws IOException {
+    trace("value-component", imageName, destImageName,
+            () -> delegate.valueComponent(imageName, destImageName, splitPercentageOpt));
+  }
+
+  /**
+   * Extracts the luma component of the image.
+   *
+   * @param imageName          The name of the image.
+   * @param destImageName      The name of the luma component image.
+   * @param splitPercentageOpt an optional split percentage
+   * @throws IOException If an error occurs during the process.
+   */
+  @Override
+  public void lumaComponent(String imageName, String destImageName,
+                            Optional<Double> splitPercentageOpt) throws IOException {
+    trace("luma-component", imageName, destImageName,
+            () -> delegate.lumaComponent(imageName, destImageName, splitPercentageOpt));
+  }
+
+  /**
+   * Extracts the intensity component of the image.
+   *
+   * @param imageName          The name of the image.
+   * @param destImageName      The name of the intensity component image.
+   * @param splitPercentageOpt an optional split percentage
+   * @throws IOException If an error occurs during the process.
+   */
+  @Override
+  public void intensityComponent(String imageName, String destImageName,
+                                 Optional<Double> splitPercentageOpt) throws IOException {
+    trace("intensity-component", imageName, destImageName,
+            () -> delegate.intensityComponent(imageName, destImageName, splitPercentageOpt));
+  }
+
+  /**
+   * Applies a sepia tone to the image.
+   *
+   * @param imageName          The name of the image.
+   * @param destImageName      The name of the sepia image.
+   * @param splitPercentageOpt an optional split percentage
+   * @throws IOException If an error occurs during the process.
+   */
+  @Override
+  public void sepia(String imageName, String destImageName, Optional<Double> splitPercentageOpt)
+          throws IOException {
+    trace("sepia", imageName, destImageName,
+            () -> delegate.sepia(imageName, destImageName, splitPercentageOpt));
+  }
+
+  /**
+   * Flips the image horizontally.
+   *
+   * @param imageName     The name of the image.
+   * @param destImageName The name of the flipped image.
+   * @throws IOException If an error occurs during the process.
+   */
+  @Override
+  public void horizontalFlip(String imageName, String destImageName) throws IOException {
+    trace("horizontal-flip", imageName, destImageName,
+            () -> delegate.horizontalFlip(imageName, destImageName));
+  }
+
+  /**
+   * Flips the image vertically.
+   *
+   * @param imageName     The name of the image.
+   * @param destImageName The name of the flipped image.
+   * @throws IOException If an error occurs during the process.
+   */
+  @Override
+  public void verticalFlip(String imageName, String destImageName) throws IOException {
+    trace("vertical-flip", imageName, destImageName,
+            () -> delegate.verticalFlip(imageName, destImageName));
+  }
+
+  /**
+   * Brightens or darkens the image.
+   *
+   * @param increment     The value added to every channel.
+   * @param imageName     The name of the image.
+   * @param destImageName The name of the brightened image.
+   * @throws IOException If an error occurs during the process.
+   */
+  @Override
+  public void brightenCommand(int increment, String imageName, String destImageName)
+          throws IOException {
+    trace("brighten", imageName, destImageName,
+            () -> delegate.brightenCommand(increment, imageName, destImageName));
+  }
+
+  /**
+   * Blurs the image.
+   *
+   * @param imageName          The name of the image.
+   * @param destImageName      The name of the blurred image.
+   * @param splitPercentageOpt an optional split percentage
+   * @throws IOException If an error occurs during the process.
+   */
+  @Override
+  public void blur(String imageName, String destImageName, Optional<Double> splitPercentageOpt)
+          throws IOException {
+    trace("blur", imageName, destImageName,
+            () -> delegate.blur(imageName, destImageName, splitPercentageOpt));
+  }
+
+  /**
+   * Sharpens the image.
+   *
+   * @param imageName          The name of the image.
+   * @param destImageName      The name of the sharpened image.
+   * @param splitPercentageOpt an optional split percentage
+   * @throws IOException If an error occurs during the process.
+   */
+  @Override
+  public void sharpen(String imageName, String destImageName, Optional<Double> splitPercentageOpt)
+          throws IOException {
+    trace("sharpen", imageName, destImageName,
+            () -> delegate.sharpen(imageName, destImageName, splitPercentageOpt));
+  }
+
+  /**
+   * Splits the image into its red, green and blue components. The event reports the
+   * dimensions of the red component.
+   *
+   * @param imageName          The name of the source image to be split.
+   * @param destImageNameRed   The name of the destination image for the Red channel.
+   * @param destImageNameGreen The name of the destination image for the Green channel.
+   * @param destImageNameBlue  The name of the destination image for the Blue channel.
+   * @throws IOException If an error occurs during the process.
+   */
+  @Override
+  public void rgbSplit(String imageName, String destImageNameRed, String destImageNameGreen,
+                       String destImageNameBlue) throws IOException {
+    trace("rgb-split", imageName, destImageNameRed, () -> delegate.rgbSplit(imageName,
+            destImageNameRed, destImageNameGreen, destImageNameBlue));
+  }
+
+  /**
+   * Combines three images representing the Red, Green, and Blue channels into a single RGB
+   * image. The event reports the red image as its source.
+   *
+   * @param destImageName  The name of the combined destination RGB image.
+   * @param redImageName   The name of the source image for the Red channel.
+   * @param greenImageName The name of the source image for the Green channel.
+   * @param blueImageName  The name of the source image for the Blue channel.
+   * @throws IOException If an error occurs during the process.
+   */
+  @Override
+  public void rgbCombine(String destImageName, String redImageName,
+                         String greenImageName, String blueImageName) throws IOException {
+    trace("rgb-combine", redImageName, destImageName, () -> delegate.rgbCombine(destImageName,
+            redImageName, greenImageName, blueImageName));
+  }
+
+  /**
+   * Calculates the histograms of the image.
+   *
+   * @param imageName The name of the source image.
+   * @return the histograms of the red, green, and blue color channels
+   * @throws IOException If the specified image is not found.
+   */
+  @Override
+  public int[][] histogram(String imageName) throws IOException {
+    int[][][] histograms = new int[1][][];
+    trace("histogram", imageName, null, () -> histograms[0] = delegate.histogram(imageName));
+    return histograms[0];
+  }
+
+  /**
+   * Applies color correction to the image.
+   *
+   * @param imageName          The name of the image.
+   * @param destImageName      The name of the color-corrected image.
+   * @param splitPercentageOpt an optional split percentage
+   * @throws IOException If an error occurs during the process.
+   */
+  @Override
+  public void colorCorrect(String imageName, String destImageName,
+                           Optional<Double> splitPercentageOpt) throws IOException {
+    trace("color-correct", imageName, destImageName,
+            () -> delegate.colorCorrect(imageName, destImageName, splitPercentageOpt));
+  }
+
+  /**
+   * Adjusts the levels of the image.
+   *
+   * @param imageName          The name of the image.
+   * @param destImageName      The name of the adjusted image.
+   * @param b                  The black point value.
+   * @param m                  The mid point value.
+   * @param w                  The white point value.
+   * @param splitPercentageOpt an optional split percentage
+   * @throws IOException If an error occurs during the process.
+   */
+  @Override
+  public void adjustLevels(String imageName, String destImageName, int b, int m, int w,
+                           Optional<Double> splitPercentageOpt) throws IOException {
+    trace("levels-adjust", imageName, destImageName,
+            () -> delegate.adjustLevels(imageName, destImageName, b, m, w, splitPercentageOpt));
+  }
+
+  /**
+   * Compresses the image.
+   *
+   * @param imageName     The name of the image.
+   * @param destImageName The name of the compressed image.
+   * @param percentage    The percentage by which the image is to be compressed.
+   * @throws IOException If an error occurs during the process.
+   */
+  @Override
+  public void compressImage(String imageName, String destImageName, double percentage)
+          throws IOException {
+    trace("compress", imageName, destImageName,
+            () -> delegate.compressImage(imageName, destImageName, percentage));
+  }
+
+  /**
+   * Resizes the image to the given width and height.
+   *
+   * @param imageName     The name of the image.
+   * @param destImageName The name of the resized image.
+   * @param width         The width of the resized image.
+   * @param height        The height of the resized image.
+   * @param filterOpt     An optional reconstruction filter.
+   * @throws IOException If an error occurs during the process.
+   */
+  @Override
+  public void resize(String imageName, String destImageName, int width, int height,
+                     Optional<ResizeFilter> filterOpt) throws IOException {
+    trace("resize", imageName, destImageName,
+            () -> delegate.resize(imageName, destImageName, width, height, filterOpt));
+  }
+
+  /**
+   * Reduces the image to fit the given dimension.
+   *
+   * @param imageName     The name of the image.
+   * @param destImageName The name of the thumbnail.
+   * @param maxDimension  The largest width or height of the thumbnail.
+   * @throws IOException If an error occurs during the process.
+   */
+  @Override
+  public void thumbnail(String imageName, String destImageName, int maxDimension)
+          throws IOException {
+    trace("thumbnail", imageName, destImageName,
+            () -> delegate.thumbnail(imageName, destImageName, maxDimension));
+  }
+}
@@ -0,0 +1,51 @@
+package model;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event emitted around each phase of the Haar wavelet compression: the
+ * forward transform, the threshold calculation and the inverse transform.
+ */
+@Name("imageprocessor.WaveletPhase")
+@Label("Wavelet Phase")
+@Category({"Image Processor", "Model"})
+@Description("A phase of the Haar wavelet transform")
+public class WaveletPhaseEvent extends Event {
+
+  @Label("Phase")
+  String phase;
+
+  @Label("Rows")
+  int rows;
+
+  @Label("Columns")
+  int columns;
+
+  @Label("Coefficient Bytes")
+  @Description("The size of the coefficients processed by the phase")
+  @DataAmount
+  long coefficientBytes;
+
+  /**
+   * Starts timing a phase that processes the given number of coefficients.
+   *
+   * @param phase   the name of the phase
+   * @param rows    the number of rows of coefficients
+   * @param columns the number of columns of coefficients
+   * @return the started event
+   */
+  static WaveletPhaseEvent begin(String phase, int rows, int columns) {
+    WaveletPhaseEvent event = new WaveletPhaseEvent();
+    event.begin();
+    event.phase = phase;
+    event.rows = rows;
+    event.columns = columns;
+    event.coefficientBytes = (long) rows * columns * Double.BYTES;
+    return event;
+  }
+}
@@ -0,0 +1,150 @@
+package model.history;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import model.image.Image;
+
+/**
+ * Keeps an undo/redo history of the states of an image.
+ * Each state is stored as a tiled snapshot that shares every unchanged tile with the state
+ * recorded before it, so a history of region-limited edits costs little more than one copy of
+ * the image. The history is capped by a memory budget rather than by a number of steps: when
+ * the retained tiles exceed the budget, the oldest states are dropped until it fits again. The
+ * current state is always retained.
+ */
+public class ImageHistory {
+  private final long memoryBudget;
+  private final List<TiledSnapshot> states;
+  private int current;
+  private long retainedBytes;
+
+  /**
+   * Constructs an empty history that retains at most the given number of bytes of snapshots.
+   *
+   * @param memoryBudget the maximum number of bytes the history may retain
+   * @throws IllegalArgumentException if the memory budget is not positive
+   */
+  public ImageHistory(long memoryBudget) {
+    if (memoryBudget <= 0) {
+      throw new IllegalArgumentException("Memory budget must be positive.");
+    }
+    this.memoryBudget = memoryBudget;
+    this.states = new ArrayList<>();
+    this.current = -1;
+  }
+
+  /**
+   * Records the given image as the new current state. Any states that could have been redone
+   * are discarded, and the oldest states are dropped if the history exceeds its memory budget.
+   *
+   * @param image the new state of the image
+   */
+  public void record(Image image) {
+    while (states.size() > current + 1) {
+      releaseState(states.size() - 1);
+    }
+    TiledSnapshot previous = current >= 0 ? states.get(current) : null;
+    TiledSnapshot snapshot = TiledSnapshot.of(image, previous);
+    for (Tile tile : snapshot.getTiles()) {
+      if (tile.retain()) {
+        retainedBytes += tile.sizeInBytes();
+      }
+    }
+    states.add(snapshot);
+    current = states.size() - 1;
+
+    while (retainedBytes > memoryBudget && current > 0) {
+      releaseState(0);
+      current--;
+    }
+  }
+
+  /**
+   * Removes all states from the history.
+   */
+  public void clear() {
+    while (!states.isEmpty()) {
+      releaseState(states.size() - 1);
+    }
+    current = -1;
+  }
+
+  /**
+   * Checks if there is a state before the current one.
+   *
+   * @return true if undo is possible, false otherwise
+   */
+  public boolean canUndo() {
+    return current > 0;
+  }
+
+  /**
+   * Checks if there is a state after the current one.
+   *
+   * @return true if redo is possible, false otherwise
+   */
+  public boolean canRedo() {
+    return current < states.size() - 1;
+  }
+
+  /**
+   * Moves back to the previous state and returns it.
+   *
+   * @return a new image holding the pixels of the previous state
+   * @throws IllegalStateException if there is no previous state
+   */
+  public Image undo() {
+    if (!canUndo()) {
+      throw new IllegalStateException("Nothing to undo.");
+    }
+    current--;
+    return states.get(current).toImage();
+  }
+
+  /**
+   * Moves forward to the next state and returns it.
+   *
+   * @return a new image holding the pixels of the next state
+   * @throws IllegalStateException if there is no next state
+   */
+  public Image redo() {
+    if (!canRedo()) {
+      throw new IllegalStateException("Nothing to redo.");
+    }
+    current++;
+    return states.get(current).toImage();
+  }
+
+  /**
+   * Returns the number of states currently held by the history.
+   *
+   * @return the number of states
+   */
+  public int size() {
+    return states.size();
+  }
+
+  /**
+   * Returns the number of bytes retained by the snapshots of the history. Tiles shared between
+   * several states are counted once.
+   *
+   * @return the retained size in bytes
+   */
+  public long getRetainedBytes() {
+    return retainedBytes;
+  }
+
+  /**
+   * Removes the state at the given index and releases the tiles only it referenced.
+   *
+   * @param index the index of the state to remove
+   */
+  private void releaseState(int index) {
+    for (Tile tile : states.remove(index).getTiles()) {
+      if (tile.release()) {
+        retainedBytes -= tile.sizeInBytes();
+      }
+    }
+  }
+}
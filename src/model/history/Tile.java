@@ -0,0 +1,68 @@
+package model.history;
+
+import java.util.Arrays;
+
+/**
+ * An immutable rectangular block of packed RGB pixels that can be shared between several
+ * snapshots of an image history. Every snapshot that references the tile holds one reference
+ * count, so the history knows when the memory of the tile is no longer retained.
+ */
+final class Tile {
+  private final int[] rgb;
+  private int references;
+
+  /**
+   * Constructs a tile holding the given packed RGB values.
+   *
+   * @param rgb the pixels of the tile in row-major order, packed as 0xRRGGBB
+   */
+  Tile(int[] rgb) {
+    this.rgb = rgb;
+  }
+
+  /**
+   * Returns the packed RGB values of this tile. The returned array must not be modified.
+   *
+   * @return the pixels of the tile in row-major order
+   */
+  int[] getRgb() {
+    return rgb;
+  }
+
+  /**
+   * Checks whether this tile holds exactly the given packed RGB values.
+   *
+   * @param other the packed values to compare against
+   * @return true if both hold the same pixels, false otherwise
+   */
+  boolean hasSamePixels(int[] other) {
+    return Arrays.equals(rgb, other);
+  }
+
+  /**
+   * Returns the approximate number of bytes this tile occupies on the heap.
+   *
+   * @return the size of the tile in bytes
+   */
+  long sizeInBytes() {
+    return 16L + 4L * rgb.length;
+  }
+
+  /**
+   * Registers one more snapshot referencing this tile.
+   *
+   * @return true if this is the first reference, meaning the tile is newly retained
+   */
+  boolean retain() {
+    return references++ == 0;
+  }
+
+  /**
+   * Removes one snapshot reference from this tile.
+   *
+   * @return true if no snapshot references the tile anymore
+   */
+  boolean release() {
+    return --references == 0;
+  }
+}
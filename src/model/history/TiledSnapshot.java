@@ -0,0 +1,118 @@
+package model.history;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import model.image.Image;
+import model.image.Pixel;
+
+/**
+ * An immutable snapshot of an image, stored as a grid of tiles of packed RGB pixels.
+ * When a snapshot is taken relative to a previous snapshot of the same dimensions, every tile
+ * whose pixels did not change is shared with the previous snapshot instead of being copied,
+ * so an edit limited to a region of the image only stores the tiles it touched.
+ */
+final class TiledSnapshot {
+  static final int TILE_SIZE = 64;
+
+  private final int width;
+  private final int height;
+  private final List<Tile> tiles;
+
+  private TiledSnapshot(int width, int height, List<Tile> tiles) {
+    this.width = width;
+    this.height = height;
+    this.tiles = Collections.unmodifiableList(tiles);
+  }
+
+  /**
+   * Takes a snapshot of the given image, sharing every unchanged tile with the given previous
+   * snapshot.
+   *
+   * @param image    the image to take a snapshot of
+   * @param previous the snapshot to share unchanged tiles with, or null if there is none
+   * @return the new snapshot
+   */
+  static TiledSnapshot of(Image image, TiledSnapshot previous) {
+    Pixel[][] pixels = image.getPixels();
+    int width = image.getWidth();
+    int height = image.getHeight();
+    boolean canShare = previous != null && previous.width == width && previous.height == height;
+
+    List<Tile> tiles = new ArrayList<>();
+    int index = 0;
+    for (int tileY = 0; tileY < height; tileY += TILE_SIZE) {
+      for (int tileX = 0; tileX < width; tileX += TILE_SIZE) {
+        int[] rgb = pack(pixels, tileX, tileY,
+                Math.min(TILE_SIZE, width - tileX), Math.min(TILE_SIZE, height - tileY));
+        Tile previousTile = canShare ? previous.tiles.get(index) : null;
+        if (previousTile != null && previousTile.hasSamePixels(rgb)) {
+          tiles.add(previousTile);
+        } else {
+          tiles.add(new Tile(rgb));
+        }
+        index++;
+      }
+    }
+    return new TiledSnapshot(width, height, tiles);
+  }
+
+  /**
+   * Packs one tile-sized region of the raster into row-major 0xRRGGBB values.
+   *
+   * @param pixels     the raster to read from
+   * @param tileX      the x-coordinate of the top left corner of the region
+   * @param tileY      the y-coordinate of the top left corner of the region
+   * @param tileWidth  the width of the region
+   * @param tileHeight the height of the region
+   * @return the packed pixels of the region
+   */
+  private static int[] pack(Pixel[][] pixels, int tileX, int tileY, int tileWidth,
+                            int tileHeight) {
+    int[] rgb = new int[tileWidth * tileHeight];
+    int i = 0;
+    for (int y = tileY; y < tileY + tileHeight; y++) {
+      Pixel[] row = pixels[y];
+      for (int x = tileX; x < tileX + tileWidth; x++) {
+        Pixel pixel = row[x];
+        rgb[i++] = (pixel.getRed() << 16) | (pixel.getGreen() << 8) | pixel.getBlue();
+      }
+    }
+    return rgb;
+  }
+
+  /**
+   * Rebuilds a full image from the tiles of this snapshot.
+   *
+   * @return a new image holding the pixels of this snapshot
+   */
+  Image toImage() {
+    Pixel[][] pixels = new Pixel[height][width];
+    int index = 0;
+    for (int tileY = 0; tileY < height; tileY += TILE_SIZE) {
+      for (int tileX = 0; tileX < width; tileX += TILE_SIZE) {
+        int[] rgb = tiles.get(index++).getRgb();
+        int tileWidth = Math.min(TILE_SIZE, width - tileX);
+        int tileHeight = Math.min(TILE_SIZE, height - tileY);
+        int i = 0;
+        for (int y = tileY; y < tileY + tileHeight; y++) {
+          for (int x = tileX; x < tileX + tileWidth; x++) {
+            int value = rgb[i++];
+            pixels[y][x] = Pixel.of((value >> 16) & 0xff, (value >> 8) & 0xff, value & 0xff);
+          }
+        }
+      }
+    }
+    return new Image(pixels);
+  }
+
+  /**
+   * Returns the tiles of this snapshot in row-major tile order.
+   *
+   * @return an unmodifiable list of the tiles
+   */
+  List<Tile> getTiles() {
+    return tiles;
+  }
+}
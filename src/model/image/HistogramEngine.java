@@ -0,0 +1,102 @@
+package model.image;
+
+import java.util.stream.IntStream;
+
+/**
+ * Computes the channel histograms of a pixel raster in parallel.
+ * The rows of the raster are divided into stripes and every stripe is counted by a worker into
+ * its own private set of bins, so no counter is shared between threads. The per-stripe bins are
+ * merged once all stripes have been counted.
+ */
+public final class HistogramEngine {
+
+  /**
+   * Index of the red channel histogram in the computed result.
+   */
+  public static final int RED = 0;
+
+  /**
+   * Index of the green channel histogram in the computed result.
+   */
+  public static final int GREEN = 1;
+
+  /**
+   * Index of the blue channel histogram in the computed result.
+   */
+  public static final int BLUE = 2;
+
+  private static final int BINS = 256;
+
+  /**
+   * Below this many pixels per stripe the cost of scheduling a worker outweighs the counting.
+   */
+  private static final int MIN_PIXELS_PER_STRIPE = 1 << 16;
+
+  private HistogramEngine() {
+  }
+
+  /**
+   * Computes the red, green and blue histograms of the given raster.
+   *
+   * @param pixels the raster to count, indexed as pixels[y][x]
+   * @return an array of three histograms (red, green, blue) of 256 bins each
+   */
+  public static int[][] compute(Pixel[][] pixels) {
+    int height = pixels.length;
+    int width = height == 0 ? 0 : pixels[0].length;
+    long totalPixels = (long) width * height;
+
+    int stripes = (int) Math.min(height,
+            Math.min(totalPixels / MIN_PIXELS_PER_STRIPE,
+                    Runtime.getRuntime().availableProcessors() * 4L));
+    if (stripes <= 1) {
+      return countRows(pixels, 0, height);
+    }
+
+    int rowsPerStripe = (height + stripes - 1) / stripes;
+    return IntStream.range(0, stripes)
+            .parallel()
+            .mapToObj(stripe -> countRows(pixels, stripe * rowsPerStripe,
+                    Math.min(height, (stripe + 1) * rowsPerStripe)))
+            .reduce(HistogramEngine::merge)
+            .orElseGet(() -> new int[3][BINS]);
+  }
+
+  /**
+   * Counts the rows in [startRow, endRow) of the raster into a freshly allocated set of bins.
+   *
+   * @param pixels   the raster to count
+   * @param startRow the first row of the stripe (inclusive)
+   * @param endRow   the last row of the stripe (exclusive)
+   * @return the histograms of the stripe
+   */
+  private static int[][] countRows(Pixel[][] pixels, int startRow, int endRow) {
+    int[] red = new int[BINS];
+    int[] green = new int[BINS];
+    int[] blue = new int[BINS];
+    for (int y = startRow; y < endRow; y++) {
+      for (Pixel pixel : pixels[y]) {
+        red[pixel.getRed()]++;
+        green[pixel.getGreen()]++;
+        blue[pixel.getBlue()]++;
+      }
+    }
+    return new int[][]{red, green, blue};
+  }
+
+  /**
+   * Adds the bins of the second set of histograms into the first.
+   *
+   * @param into the histograms that receive the counts
+   * @param from the histograms whose counts are added
+   * @return the merged histograms, which is the first argument
+   */
+  private static int[][] merge(int[][] into, int[][] from) {
+    for (int channel = 0; channel < into.length; channel++) {
+      for (int bin = 0; bin < BINS; bin++) {
+        into[channel][bin] += from[channel][bin];
+      }
+    }
+    return into;
+  }
+}
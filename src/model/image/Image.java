@@ -7,9 +7,16 @@ import model.strategy.FilterStrategy;
  * Represents a 2D image composed of pixels.
  * Provides methods to get pixel data, retrieve the width and
  * height of the image, and set pixel values.
+ * Flipping an image does not copy its pixels: the flipped image is a view that reads the
+ * pixels of the original raster through an index transform. A view is turned into a contiguous
+ * raster of its own only when a pixel is set or when {@link #getPixels()} is called. An image
+ * whose raster is shared with a view copies the raster before its first write, so neither
+ * image ever sees the other's changes.
  */
 public class Image {
   private Pixel[][] pixels;
+  private volatile RasterView view;
+  private boolean shared;
 
   /**
    * Constructs a new Image with the specified 2D array of pixels.
@@ -21,14 +28,67 @@ public class Image {
   }
 
   /**
-   * Returns the 2D array of pixels that make up this image.
+   * Constructs a new Image that shows a view of another raster.
+   *
+   * @param view the view of the raster
+   */
+  private Image(RasterView view) {
+    this.view = view;
+  }
+
+  /**
+   * Returns the 2D array of pixels that make up this image. If the image is a view, its
+   * pixels are first copied into a contiguous raster of its own. The returned raster may be
+   * shared with views of this image and must not be modified; use
+   * {@link #setPixel(int, int, Pixel)} instead.
    *
    * @return the 2D array of Pixel objects
    */
   public Pixel[][] getPixels() {
+    if (view != null) {
+      materialize();
+    }
     return pixels;
   }
 
+  /**
+   * Returns whether this image holds no pixel data.
+   *
+   * @return true if the image has no pixels, otherwise false
+   */
+  public boolean isEmpty() {
+    return view == null && (pixels == null || pixels.length == 0);
+  }
+
+  /**
+   * Copies the pixels of a view into a contiguous raster owned by this image. The raster is
+   * published before the view is dropped, so a concurrent reader sees either the view or the
+   * complete raster.
+   */
+  private synchronized void materialize() {
+    RasterView current = view;
+    if (current != null) {
+      pixels = current.materialize();
+      shared = false;
+      view = null;
+    }
+  }
+
+  /**
+   * Returns the view of this image, creating an identity view over its raster if it has none.
+   * The raster is marked as shared, so the next write to this image copies it first.
+   *
+   * @return the view of this image
+   */
+  private RasterView asView() {
+    RasterView current = view;
+    if (current != null) {
+      return current;
+    }
+    shared = true;
+    return RasterView.of(pixels);
+  }
+
   /**
    * Retrieves the pixel at the specified (x, y) position.
    * Throws an IllegalArgumentException if the x and y coordinates are outside
@@ -43,7 +103,8 @@ public class Image {
     if (x < 0 || x >= getWidth() || y < 0 || y >= getHeight()) {
       throw new IllegalArgumentException("Coordinates out of bounds!");
     }
-    return pixels[y][x];
+    RasterView current = view;
+    return current != null ? current.get(x, y) : pixels[y][x];
   }
 
   /**
@@ -52,7 +113,8 @@ public class Image {
    * @return the width of the image in pixels
    */
   public int getWidth() {
-    return pixels[0].length;
+    RasterView current = view;
+    return current != null ? current.getWidth() : pixels[0].length;
   }
 
   /**
@@ -61,13 +123,15 @@ public class Image {
    * @return the height of the image in pixels
    */
   public int getHeight() {
-    return pixels.length;
+    RasterView current = view;
+    return current != null ? current.getHeight() : pixels.length;
   }
 
   /**
    * Sets the pixel value at the specified (x, y) position.
    * Throws an IllegalArgumentException if the x and y
    * coordinates are outside the bounds of the image dimensions.
+   * A view is materialised and a shared raster is copied before the pixel is written.
    *
    * @param x     the x-coordinate of the pixel to be set
    * @param y     the y-coordinate of the pixel to be set
@@ -78,107 +142,115 @@ public class Image {
     if (x < 0 || x >= getWidth() || y < 0 || y >= getHeight()) {
       throw new IllegalArgumentException("Coordinates out of bounds!");
     }
+    if (view != null) {
+      materialize();
+    } else if (shared) {
+      Pixel[][] copy = new Pixel[pixels.length][];
+      for (int row = 0; row < pixels.length; row++) {
+        copy[row] = pixels[row].clone();
+      }
+      pixels = copy;
+      shared = false;
+    }
     pixels[y][x] = pixel;
   }
 
   /**
-   * Applies a specific processing command to the image, such as extracting
-   * a color component or converting the image to sepia tone.
+   * Applies a point operation to every pixel of the image. The kernel is called once per row
+   * and loops over the row itself, so no per-pixel dispatch takes place. The rows of a view
+   * are read through the view without materialising it.
    *
-   * @param command the processing command to apply
-   * @return a new Image object with the specified processing applied
+   * @param kernel the point operation to apply
+   * @return a new Image object with the operation applied
    */
-  private Image processImage(String command) {
+  public Image mapPixels(PixelKernel kernel) {
     int height = this.getHeight();
     int width = this.getWidth();
     Pixel[][] processedPixels = new Pixel[height][width];
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        Pixel originalPixel = this.getPixel(x, y);
-        switch (command) {
-          case "red":
-            processedPixels[y][x] = new Pixel(originalPixel.getRed(), 0, 0);
-            break;
-          case "green":
-            processedPixels[y][x] = new Pixel(0, originalPixel.getGreen(), 0);
-            break;
-          case "blue":
-            processedPixels[y][x] = new Pixel(0, 0, originalPixel.getBlue());
-            break;
-          case "value":
-            int maxPixelVal = Math.max(originalPixel.getRed(),
-                    Math.max(originalPixel.getGreen(), originalPixel.getBlue()));
-            processedPixels[y][x] = new Pixel(maxPixelVal, maxPixelVal, maxPixelVal);
-            break;
-          case "luma":
-            double lumaPixelVal = (0.2126 * originalPixel.getRed()
-                    + 0.7152 * originalPixel.getGreen() + 0.0722 * originalPixel.getBlue());
-            int roundedLumaValue = (int) Math.round(lumaPixelVal);
-            processedPixels[y][x] = new Pixel(roundedLumaValue, roundedLumaValue,
-                    roundedLumaValue);
-            break;
-          case "intensity":
-            int intensityPixelVal = ((originalPixel.getRed() + originalPixel.getGreen()
-                    + originalPixel.getBlue()) / 3);
-            processedPixels[y][x] = new Pixel(intensityPixelVal,
-                    intensityPixelVal, intensityPixelVal);
-            break;
-          case "sepia":
-            int originalRed = originalPixel.getRed();
-            int originalGreen = originalPixel.getGreen();
-            int originalBlue = originalPixel.getBlue();
-
-            int newRed = Math.min(255, (int) (0.393 * originalRed
-                    + 0.769 * originalGreen + 0.189 * originalBlue));
-            int newGreen = Math.min(255, (int) (0.349 * originalRed
-                    + 0.686 * originalGreen + 0.168 * originalBlue));
-            int newBlue = Math.min(255, (int) (0.272 * originalRed
-                    + 0.534 * originalGreen + 0.131 * originalBlue));
-
-            processedPixels[y][x] = new Pixel(newRed, newGreen, newBlue);
-            break;
-          default:
-            // No action, incorrect command.
-        }
+    RasterView current = view;
+    if (current == null) {
+      Pixel[][] raster = pixels;
+      for (int y = 0; y < height; y++) {
+        kernel.apply(raster[y], processedPixels[y]);
+      }
+    } else {
+      Pixel[] row = new Pixel[width];
+      for (int y = 0; y < height; y++) {
+        current.copyRow(y, row);
+        kernel.apply(row, processedPixels[y]);
       }
     }
     return new Image(processedPixels);
   }
 
   /**
-   * Creates a horizontally flipped copy of this image.
+   * Creates a horizontally flipped copy of this image. The copy is a view of the same raster,
+   * so no pixels are copied.
    *
    * @return a new Image object that is a horizontally flipped version of this image
    */
   public Image horizontalFlip() {
-    int height = this.getHeight();
-    int width = this.getWidth();
-    Pixel[][] hFlipPixels = new Pixel[height][width];
-
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        hFlipPixels[y][x] = this.getPixel(width - 1 - x, y);
-      }
-    }
-    return new Image(hFlipPixels);
+    return new Image(asView().horizontalFlip());
   }
 
   /**
-   * Creates a vertically flipped copy of this image.
+   * Creates a vertically flipped copy of this image. The copy is a view of the same raster,
+   * so no pixels are copied.
    *
    * @return a new Image object that is a vertically flipped version of this image
    */
   public Image verticalFlip() {
-    int height = this.getHeight();
-    int width = this.getWidth();
-    Pixel[][] vFlipPixels = new Pixel[height][width];
+    return new Image(asView().verticalFlip());
+  }
 
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        vFlipPixels[y][x] = this.getPixel(x, height - 1 - y);
-      }
-    }
-    return new Image(vFlipPixels);
+  /**
+   * Creates a copy of this image that is a view of the same raster, so no pixels are copied.
+   * Writing to either image copies the raster first.
+   *
+   * @return a new Image object showing the same pixels
+   */
+  Image share() {
+    return new Image(asView());
+  }
+
+  /**
+   * Creates a resized copy of this image. Reductions by whole factors average blocks of
+   * pixels; other sizes are filtered with Lanczos.
+   *
+   * @param width  the width of the copy
+   * @param height the height of the copy
+   * @return a new Image object of the given size
+   * @throws IllegalArgumentException if the width or height is not positive
+   */
+  public Image resize(int width, int height) {
+    return Resampler.resize(this, width, height);
+  }
+
+  /**
+   * Creates a resized copy of this image with the given filter.
+   *
+   * @param width  the width of the copy
+   * @param height the height of the copy
+   * @param filter the reconstruction filter
+   * @return a new Image object of the given size
+   * @throws IllegalArgumentException if the width or height is not positive
+   */
+  public Image resize(int width, int height, ResizeFilter filter) {
+    return Resampler.resize(this, width, height, filter);
+  }
+
+  /**
+   * Creates a reduced copy of this image whose width and height do not exceed the given
+   * dimension, keeping its proportions. The image is halved by block averaging as often as
+   * possible and the rest of the reduction is filtered, which is much faster than filtering
+   * a large reduction at once.
+   *
+   * @param maxDimension the largest width or height of the copy
+   * @return a new Image object that fits the dimension
+   * @throws IllegalArgumentException if the dimension is not positive
+   */
+  public Image thumbnail(int maxDimension) {
+    return new MipChain(this).thumbnail(maxDimension);
   }
 
   /**
@@ -188,20 +260,7 @@ public class Image {
    * @return a new Image object with the brightness adjusted
    */
   public Image brighten(int increment) {
-    int height = this.getHeight();
-    int width = this.getWidth();
-    Pixel[][] brightenPixels = new Pixel[height][width];
-
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        Pixel originalPixel = this.getPixel(x, y);
-        int red = Math.min(Math.max(originalPixel.getRed() + increment, 0), 255);
-        int green = Math.min(Math.max(originalPixel.getGreen() + increment, 0), 255);
-        int blue = Math.min(Math.max(originalPixel.getBlue() + increment, 0), 255);
-        brightenPixels[y][x] = new Pixel(red, green, blue);
-      }
-    }
-    return new Image(brightenPixels);
+    return mapPixels(PointKernels.brighten(increment));
   }
 
   /**
@@ -240,7 +299,7 @@ public class Image {
         int newGreen = Math.min(255, Math.max(0, (int) Math.round(greenSum)));
         int newBlue = Math.min(255, Math.max(0, (int) Math.round(blueSum)));
 
-        newPixels[y][x] = new Pixel(newRed, newGreen, newBlue);
+        newPixels[y][x] = Pixel.of(newRed, newGreen, newBlue);
       }
     }
     return new Image(newPixels);
@@ -283,7 +342,7 @@ public class Image {
    * @return a new Image object with only the red color component
    */
   public Image extractRedComponent() {
-    return processImage("red");
+    return mapPixels(PointKernels::red);
   }
 
   /**
@@ -293,7 +352,7 @@ public class Image {
    * @return a new Image object with only the green color component
    */
   public Image extractGreenComponent() {
-    return processImage("green");
+    return mapPixels(PointKernels::green);
   }
 
   /**
@@ -303,7 +362,7 @@ public class Image {
    * @return a new Image object with only the blue color component
    */
   public Image extractBlueComponent() {
-    return processImage("blue");
+    return mapPixels(PointKernels::blue);
   }
 
   /**
@@ -313,7 +372,7 @@ public class Image {
    * @return a new Image object converted to grayscale using the value component
    */
   public Image toValueComponent() {
-    return processImage("value");
+    return mapPixels(PointKernels::value);
   }
 
   /**
@@ -323,7 +382,7 @@ public class Image {
    * @return a new Image object converted to grayscale using the luma component
    */
   public Image toLumaComponent() {
-    return processImage("luma");
+    return mapPixels(PointKernels::luma);
   }
 
   /**
@@ -333,7 +392,7 @@ public class Image {
    * @return a new Image object converted to grayscale using the intensity component
    */
   public Image toIntensityComponent() {
-    return processImage("intensity");
+    return mapPixels(PointKernels::intensity);
   }
 
   /**
@@ -342,7 +401,7 @@ public class Image {
    * @return a new Image object with a sepia tone applied
    */
   public Image toSepia() {
-    return processImage("sepia");
+    return mapPixels(PointKernels::sepia);
   }
 
   /**
@@ -363,39 +422,33 @@ public class Image {
       throw new IllegalArgumentException("All images must have the same dimensions.");
     }
 
+    Pixel[][] redPixels = redImage.getPixels();
+    Pixel[][] greenPixels = greenImage.getPixels();
+    Pixel[][] bluePixels = blueImage.getPixels();
     Pixel[][] combinedPixels = new Pixel[height][width];
 
     for (int y = 0; y < height; y++) {
+      Pixel[] redRow = redPixels[y];
+      Pixel[] greenRow = greenPixels[y];
+      Pixel[] blueRow = bluePixels[y];
+      Pixel[] combinedRow = combinedPixels[y];
       for (int x = 0; x < width; x++) {
-        int red = redImage.getPixel(x, y).getRed();
-        int green = greenImage.getPixel(x, y).getGreen();
-        int blue = blueImage.getPixel(x, y).getBlue();
-
-        combinedPixels[y][x] = new Pixel(red, green, blue);
+        combinedRow[x] = Pixel.of(redRow[x].getRed(), greenRow[x].getGreen(),
+                blueRow[x].getBlue());
       }
     }
     return new Image(combinedPixels);
   }
 
   /**
-   * Calculates histograms for each color channel (red, green, and blue) of this image.
+   * Calculates histograms for each color channel (red, green, and blue) of this image in a
+   * single parallel pass over the pixels.
    *
-   * @return a 2D array containing three histograms (one for each color channel).
+   * @return a 2D array containing three histograms, indexed by the channel constants of
+   *         {@link HistogramEngine}
    */
   public int[][] calculateHistograms() {
-    int[] redHistogram = new int[256];
-    int[] greenHistogram = new int[256];
-    int[] blueHistogram = new int[256];
-
-    for (int y = 0; y < getHeight(); y++) {
-      for (int x = 0; x < getWidth(); x++) {
-        Pixel pixel = getPixel(x, y);
-        redHistogram[pixel.getRed()]++;
-        greenHistogram[pixel.getGreen()]++;
-        blueHistogram[pixel.getBlue()]++;
-      }
-    }
-    return new int[][]{redHistogram, greenHistogram, blueHistogram};
+    return HistogramEngine.compute(getPixels());
   }
 
   /**
@@ -461,7 +514,7 @@ public class Image {
         int correctedRed = clamp((int) pixel.getRed() + (int) redOffset);
         int correctedGreen = clamp(pixel.getGreen() + (int) greenOffset);
         int correctedBlue = clamp(pixel.getBlue() + (int) blueOffset);
-        correctedPixels[y][x] = new Pixel(correctedRed, correctedGreen, correctedBlue);
+        correctedPixels[y][x] = Pixel.of(correctedRed, correctedGreen, correctedBlue);
       }
     }
 
@@ -513,7 +566,7 @@ public class Image {
         int newBlue = clamp((int) (coefficients[0] * pixel.getBlue() * pixel.getBlue()
                 + coefficients[1] * pixel.getBlue() + coefficients[2]));
 
-        pixels[y][x] = new Pixel(newRed, newGreen, newBlue);
+        pixels[y][x] = Pixel.of(newRed, newGreen, newBlue);
       }
     }
 
@@ -594,7 +647,7 @@ public class Image {
         int red = (int) Math.round(Math.max(0, Math.min(255, redChannel[y][x])));
         int green = (int) Math.round(Math.max(0, Math.min(255, greenChannel[y][x])));
         int blue = (int) Math.round(Math.max(0, Math.min(255, blueChannel[y][x])));
-        compressedPixels[y][x] = new Pixel(red, green, blue);
+        compressedPixels[y][x] = Pixel.of(red, green, blue);
       }
     }
     return new Image(compressedPixels);
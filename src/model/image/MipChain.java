@@ -0,0 +1,160 @@
+package model.image;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The mip levels of an image: the image itself, then versions of half the width and height of
+ * the previous level, each averaged from the level before it. The levels are built on first
+ * use and kept, so asking one source for several sizes reduces it only once per level. A
+ * default or box resize starts from the smallest level that is still at least as large as the
+ * requested size, which also keeps the filters short for large reductions. The levels are box
+ * filtered, so a resize with another filter is computed from the source.
+ * The chain is safe for use by several threads, and the levels it returns are copy-on-write
+ * views, so a caller that writes to one does not change the chain.
+ */
+public final class MipChain {
+  private final Image source;
+  private final List<Image> levels = new ArrayList<>();
+
+  /**
+   * Constructs the mip chain of an image. No level is built yet.
+   *
+   * @param source the full size image
+   * @throws IllegalArgumentException if the image is empty
+   */
+  public MipChain(Image source) {
+    if (source.isEmpty()) {
+      throw new IllegalArgumentException("Cannot resize an empty image.");
+    }
+    this.source = source;
+    levels.add(source);
+  }
+
+  /**
+   * Returns the full size image of this chain.
+   *
+   * @return the source image
+   */
+  public Image getSource() {
+    return source;
+  }
+
+  /**
+   * Returns the number of levels built so far, counting the source.
+   *
+   * @return the number of levels built
+   */
+  public synchronized int getLevelCount() {
+    return levels.size();
+  }
+
+  /**
+   * Returns a level of the chain, building it and the levels before it if necessary. Level 0
+   * is the source; the size halves with every level until it reaches one pixel.
+   *
+   * @param index the index of the level
+   * @return the level
+   * @throws IllegalArgumentException if the index is negative or beyond the one pixel level
+   */
+  public Image level(int index) {
+    return buildLevel(index).share();
+  }
+
+  /**
+   * Returns a level of the chain without sharing it, building it if necessary.
+   *
+   * @param index the index of the level
+   * @return the level held by the chain
+   * @throws IllegalArgumentException if the index is negative or beyond the one pixel level
+   */
+  private synchronized Image buildLevel(int index) {
+    if (index < 0) {
+      throw new IllegalArgumentException("Level must not be negative.");
+    }
+    while (levels.size() <= index) {
+      Image previous = levels.get(levels.size() - 1);
+      if (previous.getWidth() == 1 && previous.getHeight() == 1) {
+        throw new IllegalArgumentException("Level " + index + " is smaller than one pixel.");
+      }
+      levels.add(Resampler.resize(previous, Math.max(1, previous.getWidth() / 2),
+              Math.max(1, previous.getHeight() / 2), ResizeFilter.BOX));
+    }
+    return levels.get(index);
+  }
+
+  /**
+   * Resizes the source to the given size, starting from the smallest level that is at least
+   * as large. The filter is chosen like {@link Resampler#resize(Image, int, int)}.
+   *
+   * @param width  the width of the result
+   * @param height the height of the result
+   * @return the resized image
+   * @throws IllegalArgumentException if a size is not positive
+   */
+  public Image resize(int width, int height) {
+    Image start = startLevel(width, height);
+    if (start.getWidth() == width && start.getHeight() == height) {
+      return start.share();
+    }
+    return Resampler.resize(start, width, height);
+  }
+
+  /**
+   * Resizes the source to the given size with the given filter. A box resize starts from the
+   * smallest level that is at least as large. Any other filter resamples the source itself and
+   * builds no level, since starting from a box filtered level would give box quality.
+   *
+   * @param width  the width of the result
+   * @param height the height of the result
+   * @param filter the reconstruction filter
+   * @return the resized image
+   * @throws IllegalArgumentException if a size is not positive
+   */
+  public Image resize(int width, int height, ResizeFilter filter) {
+    if (filter != ResizeFilter.BOX) {
+      return Resampler.resize(source, width, height, filter);
+    }
+    Image start = startLevel(width, height);
+    if (start.getWidth() == width && start.getHeight() == height) {
+      return start.share();
+    }
+    return Resampler.resize(start, width, height, filter);
+  }
+
+  /**
+   * Reduces the source so that neither its width nor its height exceeds the given dimension,
+   * keeping its proportions. A source that already fits is returned at its size.
+   *
+   * @param maxDimension the largest width or height of the result
+   * @return the reduced image
+   * @throws IllegalArgumentException if the dimension is not positive
+   */
+  public Image thumbnail(int maxDimension) {
+    int[] size = Resampler.fit(source.getWidth(), source.getHeight(), maxDimension);
+    return resize(size[0], size[1]);
+  }
+
+  /**
+   * Returns the smallest level whose width and height are both at least the given size.
+   *
+   * @param width  the requested width
+   * @param height the requested height
+   * @return the level to start resizing from
+   * @throws IllegalArgumentException if a size is not positive
+   */
+  private Image startLevel(int width, int height) {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Width and height must be positive.");
+    }
+    int index = 0;
+    int levelWidth = source.getWidth();
+    int levelHeight = source.getHeight();
+    while (levelWidth / 2 >= width && levelHeight / 2 >= height) {
+      levelWidth /= 2;
+      levelHeight /= 2;
+      index++;
+    }
+    return buildLevel(index);
+  }
+}
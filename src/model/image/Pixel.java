@@ -4,11 +4,33 @@ package model.image;
  * Represents a pixel in an image, consisting of red, green,
  * and blue color components.
  * Each color component can have a value ranging from 0 to 255.
+ * Pixels are immutable, so equal pixels can be shared. The {@link #of(int, int, int)} and
+ * {@link #cached(int, int, int)} factories return shared instances from precomputed tables
+ * of the grayscale and single-channel pixels, and optionally from a bounded cache of colors.
  */
 public class Pixel {
-  private int red;
-  private int green;
-  private int blue;
+  private static final Pixel[] GRAYS = new Pixel[256];
+  private static final Pixel[] REDS = new Pixel[256];
+  private static final Pixel[] GREENS = new Pixel[256];
+  private static final Pixel[] BLUES = new Pixel[256];
+  private static final int COLOR_CACHE_BITS = 12;
+  private static final Pixel[] COLOR_CACHE = new Pixel[1 << COLOR_CACHE_BITS];
+
+  private final int red;
+  private final int green;
+  private final int blue;
+
+  static {
+    for (int value = 0; value < 256; value++) {
+      GRAYS[value] = new Pixel(value, value, value);
+      REDS[value] = new Pixel(value, 0, 0);
+      GREENS[value] = new Pixel(0, value, 0);
+      BLUES[value] = new Pixel(0, 0, value);
+    }
+    REDS[0] = GRAYS[0];
+    GREENS[0] = GRAYS[0];
+    BLUES[0] = GRAYS[0];
+  }
 
   /**
    * Constructs a new Pixel with the specified red, green,
@@ -26,13 +48,83 @@ public class Pixel {
     this.blue = clamp(blue);
   }
 
+  /**
+   * Returns a pixel with the given color values, clamped to [0, 255]. Grayscale pixels and
+   * pixels with a single non-zero channel come from precomputed tables; any other color is a
+   * new pixel.
+   *
+   * @param red   the red color component (0-255)
+   * @param green the green color component (0-255)
+   * @param blue  the blue color component (0-255)
+   * @return a pixel with the given color values, possibly shared
+   */
+  public static Pixel of(int red, int green, int blue) {
+    Pixel shared = fromTables(red, green, blue);
+    return shared != null ? shared : new Pixel(red, green, blue);
+  }
+
+  /**
+   * Returns a pixel with the given color values like {@link #of(int, int, int)}, but looks
+   * other colors up in a bounded, direct-mapped cache first, so images with few distinct
+   * colors share their pixels. A cache slot holds the last color stored in it; concurrent
+   * callers may replace each other's entries, which only costs a new pixel.
+   *
+   * @param red   the red color component (0-255)
+   * @param green the green color component (0-255)
+   * @param blue  the blue color component (0-255)
+   * @return a pixel with the given color values, possibly shared
+   */
+  public static Pixel cached(int red, int green, int blue) {
+    Pixel shared = fromTables(red, green, blue);
+    if (shared != null) {
+      return shared;
+    }
+    int rgb = (clamp(red) << 16) | (clamp(green) << 8) | clamp(blue);
+    int slot = (rgb * 0x9E3779B1) >>> (32 - COLOR_CACHE_BITS);
+    Pixel entry = COLOR_CACHE[slot];
+    if (entry != null && entry.red == rgb >>> 16 && entry.green == ((rgb >> 8) & 0xff)
+            && entry.blue == (rgb & 0xff)) {
+      return entry;
+    }
+    entry = new Pixel(red, green, blue);
+    COLOR_CACHE[slot] = entry;
+    return entry;
+  }
+
+  /**
+   * Returns the shared grayscale or single-channel pixel with the given color values.
+   *
+   * @param red   the red color component
+   * @param green the green color component
+   * @param blue  the blue color component
+   * @return the shared pixel, or null if the color is not in a table
+   */
+  private static Pixel fromTables(int red, int green, int blue) {
+    int r = clamp(red);
+    int g = clamp(green);
+    int b = clamp(blue);
+    if (r == g && g == b) {
+      return GRAYS[r];
+    }
+    if (g == 0 && b == 0) {
+      return REDS[r];
+    }
+    if (r == 0 && b == 0) {
+      return GREENS[g];
+    }
+    if (r == 0 && g == 0) {
+      return BLUES[b];
+    }
+    return null;
+  }
+
   /**
    * Clamps the given value between 0 and 255.
    *
    * @param value the value to be clamped
    * @return the clamped value, ensuring it's within the range [0, 255]
    */
-  private int clamp(int value) {
+  private static int clamp(int value) {
     return Math.max(0, Math.min(value, 255));
   }
 
@@ -0,0 +1,18 @@
+package model.image;
+
+/**
+ * Represents a point operation that maps every pixel of a row to a new pixel, independently of
+ * its neighbours. An implementation contains its own loop over the row, so the loop is compiled
+ * for that one operation and the operation is chosen once per row instead of once per pixel.
+ */
+@FunctionalInterface
+public interface PixelKernel {
+
+  /**
+   * Maps one row of pixels. The target row has the same length as the source row.
+   *
+   * @param source the pixels of the row to read
+   * @param target the row that receives the mapped pixels
+   */
+  void apply(Pixel[] source, Pixel[] target);
+}
@@ -0,0 +1,134 @@
+package model.image;
+
+/**
+ * The point operations of an image as {@link PixelKernel} implementations. Every kernel is a
+ * single loop that reads a pixel, computes its channels and takes the mapped pixel from
+ * {@link Pixel#of(int, int, int)}, which shares grayscale and single-channel pixels, without
+ * calls back into the image or branches on the kind of operation, so the JIT compiler can
+ * specialise each loop for its formula. Every kernel produces exactly the values of the
+ * per-pixel formula it replaces. The SIMD {@link RasterKernels} are not used here: they work on
+ * packed int rows, and packing the pixel objects of a row and unpacking the results costs more
+ * than the vector arithmetic saves.
+ */
+final class PointKernels {
+
+  private PointKernels() {
+  }
+
+  /**
+   * Keeps only the red channel of every pixel.
+   *
+   * @param source the pixels of the row to read
+   * @param target the row that receives the mapped pixels
+   */
+  static void red(Pixel[] source, Pixel[] target) {
+    for (int i = 0; i < source.length; i++) {
+      target[i] = Pixel.of(source[i].getRed(), 0, 0);
+    }
+  }
+
+  /**
+   * Keeps only the green channel of every pixel.
+   *
+   * @param source the pixels of the row to read
+   * @param target the row that receives the mapped pixels
+   */
+  static void green(Pixel[] source, Pixel[] target) {
+    for (int i = 0; i < source.length; i++) {
+      target[i] = Pixel.of(0, source[i].getGreen(), 0);
+    }
+  }
+
+  /**
+   * Keeps only the blue channel of every pixel.
+   *
+   * @param source the pixels of the row to read
+   * @param target the row that receives the mapped pixels
+   */
+  static void blue(Pixel[] source, Pixel[] target) {
+    for (int i = 0; i < source.length; i++) {
+      target[i] = Pixel.of(0, 0, source[i].getBlue());
+    }
+  }
+
+  /**
+   * Replaces every channel with the value component, the maximum of the three channels.
+   *
+   * @param source the pixels of the row to read
+   * @param target the row that receives the mapped pixels
+   */
+  static void value(Pixel[] source, Pixel[] target) {
+    for (int i = 0; i < source.length; i++) {
+      Pixel pixel = source[i];
+      int value = Math.max(pixel.getRed(), Math.max(pixel.getGreen(), pixel.getBlue()));
+      target[i] = Pixel.of(value, value, value);
+    }
+  }
+
+  /**
+   * Replaces every channel with the rounded luma component, 0.2126r + 0.7152g + 0.0722b.
+   *
+   * @param source the pixels of the row to read
+   * @param target the row that receives the mapped pixels
+   */
+  static void luma(Pixel[] source, Pixel[] target) {
+    for (int i = 0; i < source.length; i++) {
+      Pixel pixel = source[i];
+      int luma = (int) Math.round(0.2126 * pixel.getRed() + 0.7152 * pixel.getGreen()
+              + 0.0722 * pixel.getBlue());
+      target[i] = Pixel.of(luma, luma, luma);
+    }
+  }
+
+  /**
+   * Replaces every channel with the intensity component, the truncated average of the three
+   * channels. The division by three is done as a multiplication and shift, which is exact for
+   * all sums of three 8-bit values.
+   *
+   * @param source the pixels of the row to read
+   * @param target the row that receives the mapped pixels
+   */
+  static void intensity(Pixel[] source, Pixel[] target) {
+    for (int i = 0; i < source.length; i++) {
+      Pixel pixel = source[i];
+      int intensity = ((pixel.getRed() + pixel.getGreen() + pixel.getBlue()) * 43691) >>> 17;
+      target[i] = Pixel.of(intensity, intensity, intensity);
+    }
+  }
+
+  /**
+   * Applies the sepia tone matrix to every pixel.
+   *
+   * @param source the pixels of the row to read
+   * @param target the row that receives the mapped pixels
+   */
+  static void sepia(Pixel[] source, Pixel[] target) {
+    for (int i = 0; i < source.length; i++) {
+      Pixel pixel = source[i];
+      int r = pixel.getRed();
+      int g = pixel.getGreen();
+      int b = pixel.getBlue();
+      target[i] = Pixel.of(Math.min(255, (int) (0.393 * r + 0.769 * g + 0.189 * b)),
+              Math.min(255, (int) (0.349 * r + 0.686 * g + 0.168 * b)),
+              Math.min(255, (int) (0.272 * r + 0.534 * g + 0.131 * b)));
+    }
+  }
+
+  /**
+   * Returns a kernel that adds the increment to every channel, clamping the results to
+   * [0, 255].
+   *
+   * @param increment the amount added to every channel, negative to darken
+   * @return the brighten kernel
+   */
+  static PixelKernel brighten(int increment) {
+    return (source, target) -> {
+      for (int i = 0; i < source.length; i++) {
+        Pixel pixel = source[i];
+        target[i] = Pixel.of(Math.min(Math.max(pixel.getRed() + increment, 0), 255),
+                Math.min(Math.max(pixel.getGreen() + increment, 0), 255),
+                Math.min(Math.max(pixel.getBlue() + increment, 0), 255));
+      }
+    };
+  }
+}
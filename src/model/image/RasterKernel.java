@@ -0,0 +1,20 @@
+package model.image;
+
+/**
+ * Represents a point operation on a row of packed pixels, the primitive counterpart of
+ * {@link PixelKernel}. Every pixel is an int holding 0xRRGGBB, so an implementation loops over
+ * plain int arrays, which the SIMD kernels of {@link RasterKernels} process several pixels at
+ * a time.
+ */
+@FunctionalInterface
+public interface RasterKernel {
+
+  /**
+   * Maps the first pixels of a row of packed pixels.
+   *
+   * @param source the packed pixels to read
+   * @param target the array that receives the mapped pixels
+   * @param length the number of pixels to map
+   */
+  void apply(int[] source, int[] target, int length);
+}
@@ -0,0 +1,43 @@
+package model.image;
+
+import java.util.Locale;
+
+/**
+ * Chooses the {@link RasterKernels} once per runtime. The vector kernels live in a class that
+ * is compiled for Java 17 against the incubating Vector API, so it is only referred to by name
+ * and loaded by reflection; if the class is missing, was compiled for a newer runtime or needs
+ * a module that was not added, loading fails and the scalar kernels are used.
+ */
+final class RasterKernelSelection {
+  private static final String VECTOR_CLASS = "model.image.VectorRasterKernels";
+
+  /**
+   * The vector kernels, or null if they cannot run on this runtime.
+   */
+  static final RasterKernels VECTOR = loadVector();
+
+  /**
+   * The kernels used by default.
+   */
+  static final RasterKernels SELECTED = VECTOR != null && !"scalar".equals(
+          System.getProperty(RasterKernels.KERNELS_PROPERTY, "").toLowerCase(Locale.ROOT))
+          ? VECTOR : ScalarRasterKernels.INSTANCE;
+
+  private RasterKernelSelection() {
+  }
+
+  /**
+   * Loads the vector kernels.
+   *
+   * @return the vector kernels, or null if they cannot be loaded
+   */
+  private static RasterKernels loadVector() {
+    try {
+      return (RasterKernels) Class.forName(VECTOR_CLASS).getDeclaredConstructor()
+              .newInstance();
+    } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+      // Missing classes, a runtime older than Java 17 or no jdk.incubator.vector module.
+      return null;
+    }
+  }
+}
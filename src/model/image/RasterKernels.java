@@ -0,0 +1,142 @@
+package model.image;
+
+import java.util.Optional;
+
+/**
+ * The point operations of an image on rows of packed 0xRRGGBB pixels, as used by the tiles of
+ * a {@link TiledImage}. There are two implementations: scalar loops that run on any runtime,
+ * and kernels using the incubating Vector API ({@code jdk.incubator.vector}), which process a
+ * whole SIMD register of pixels per step. The vector kernels are compiled separately for Java
+ * 17 and are loaded by reflection when their classes are on the class path and the runtime was
+ * started with {@code --add-modules jdk.incubator.vector}; otherwise the scalar kernels are
+ * used. Setting the system property {@value #KERNELS_PROPERTY} to {@code scalar} forces the
+ * scalar kernels. Both implementations produce exactly the values of the per-pixel formulas of
+ * {@link Image}.
+ */
+public interface RasterKernels {
+  /**
+   * The system property that selects the scalar kernels when set to {@code scalar}.
+   */
+  String KERNELS_PROPERTY = "imageprocessor.kernels";
+
+  /**
+   * Returns the kernels used by default: the vector kernels if they are available and not
+   * disabled, otherwise the scalar kernels.
+   *
+   * @return the selected kernels
+   */
+  static RasterKernels get() {
+    return RasterKernelSelection.SELECTED;
+  }
+
+  /**
+   * Returns the scalar kernels, which are always available.
+   *
+   * @return the scalar kernels
+   */
+  static RasterKernels scalar() {
+    return ScalarRasterKernels.INSTANCE;
+  }
+
+  /**
+   * Returns the vector kernels if this runtime can run them.
+   *
+   * @return the vector kernels, or empty if their classes or the Vector API are missing
+   */
+  static Optional<RasterKernels> vector() {
+    return Optional.ofNullable(RasterKernelSelection.VECTOR);
+  }
+
+  /**
+   * Returns a short description of the implementation, for reports.
+   *
+   * @return the name of the implementation
+   */
+  String getName();
+
+  /**
+   * Keeps only the red channel of every pixel.
+   *
+   * @param source the packed pixels to read
+   * @param target the array that receives the mapped pixels
+   * @param length the number of pixels to map
+   */
+  void red(int[] source, int[] target, int length);
+
+  /**
+   * Keeps only the green channel of every pixel.
+   *
+   * @param source the packed pixels to read
+   * @param target the array that receives the mapped pixels
+   * @param length the number of pixels to map
+   */
+  void green(int[] source, int[] target, int length);
+
+  /**
+   * Keeps only the blue channel of every pixel.
+   *
+   * @param source the packed pixels to read
+   * @param target the array that receives the mapped pixels
+   * @param length the number of pixels to map
+   */
+  void blue(int[] source, int[] target, int length);
+
+  /**
+   * Replaces every channel with the value component, the maximum of the three channels.
+   *
+   * @param source the packed pixels to read
+   * @param target the array that receives the mapped pixels
+   * @param length the number of pixels to map
+   */
+  void value(int[] source, int[] target, int length);
+
+  /**
+   * Replaces every channel with the rounded luma component, 0.2126r + 0.7152g + 0.0722b.
+   *
+   * @param source the packed pixels to read
+   * @param target the array that receives the mapped pixels
+   * @param length the number of pixels to map
+   */
+  void luma(int[] source, int[] target, int length);
+
+  /**
+   * Replaces every channel with the intensity component, the truncated average of the three
+   * channels.
+   *
+   * @param source the packed pixels to read
+   * @param target the array that receives the mapped pixels
+   * @param length the number of pixels to map
+   */
+  void intensity(int[] source, int[] target, int length);
+
+  /**
+   * Applies the sepia tone matrix to every pixel.
+   *
+   * @param source the packed pixels to read
+   * @param target the array that receives the mapped pixels
+   * @param length the number of pixels to map
+   */
+  void sepia(int[] source, int[] target, int length);
+
+  /**
+   * Adds an increment to every channel, clamping the results to [0, 255].
+   *
+   * @param increment the amount added to every channel, negative to darken
+   * @param source    the packed pixels to read
+   * @param target    the array that receives the mapped pixels
+   * @param length    the number of pixels to map
+   */
+  void brighten(int increment, int[] source, int[] target, int length);
+
+  /**
+   * Combines the red channel of one row, the green channel of another and the blue channel of
+   * a third.
+   *
+   * @param red    the packed pixels providing the red channel
+   * @param green  the packed pixels providing the green channel
+   * @param blue   the packed pixels providing the blue channel
+   * @param target the array that receives the combined pixels
+   * @param length the number of pixels to combine
+   */
+  void combine(int[] red, int[] green, int[] blue, int[] target, int length);
+}
@@ -0,0 +1,133 @@
+package model.image;
+
+/**
+ * An immutable view of a pixel raster through an index transform. The pixel at (x, y) of the
+ * view is the pixel at (originX + x * xStepX + y * yStepX, originY + x * xStepY + y * yStepY)
+ * of the backing raster, so flips, quarter turns and crops can all be expressed by choosing
+ * the origin, the steps and the size of the view, and views of views compose into one
+ * transform over the original raster. The backing raster is never written through a view.
+ */
+final class RasterView {
+  private final Pixel[][] backing;
+  private final int originX;
+  private final int originY;
+  private final int xStepX;
+  private final int xStepY;
+  private final int yStepX;
+  private final int yStepY;
+  private final int width;
+  private final int height;
+
+  private RasterView(Pixel[][] backing, int originX, int originY, int xStepX, int xStepY,
+                     int yStepX, int yStepY, int width, int height) {
+    this.backing = backing;
+    this.originX = originX;
+    this.originY = originY;
+    this.xStepX = xStepX;
+    this.xStepY = xStepY;
+    this.yStepX = yStepX;
+    this.yStepY = yStepY;
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Returns a view that shows the whole raster unchanged.
+   *
+   * @param raster the raster to view, indexed as raster[y][x]
+   * @return the identity view of the raster
+   */
+  static RasterView of(Pixel[][] raster) {
+    return new RasterView(raster, 0, 0, 1, 0, 0, 1, raster[0].length, raster.length);
+  }
+
+  /**
+   * Returns a view of this view mirrored left to right.
+   *
+   * @return the horizontally flipped view
+   */
+  RasterView horizontalFlip() {
+    return new RasterView(backing, originX + (width - 1) * xStepX,
+            originY + (width - 1) * xStepY, -xStepX, -xStepY, yStepX, yStepY, width, height);
+  }
+
+  /**
+   * Returns a view of this view mirrored top to bottom.
+   *
+   * @return the vertically flipped view
+   */
+  RasterView verticalFlip() {
+    return new RasterView(backing, originX + (height - 1) * yStepX,
+            originY + (height - 1) * yStepY, xStepX, xStepY, -yStepX, -yStepY, width, height);
+  }
+
+  /**
+   * Returns the width of the view.
+   *
+   * @return the width in pixels
+   */
+  int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the height of the view.
+   *
+   * @return the height in pixels
+   */
+  int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns the pixel at the given position of the view. The position is not checked.
+   *
+   * @param x the x-coordinate in the view
+   * @param y the y-coordinate in the view
+   * @return the pixel of the backing raster shown at that position
+   */
+  Pixel get(int x, int y) {
+    return backing[originY + x * xStepY + y * yStepY][originX + x * xStepX + y * yStepX];
+  }
+
+  /**
+   * Copies one row of the view into the given array.
+   *
+   * @param y      the row of the view to copy
+   * @param target the array that receives the row, at least as long as the view is wide
+   */
+  void copyRow(int y, Pixel[] target) {
+    int sourceX = originX + y * yStepX;
+    int sourceY = originY + y * yStepY;
+    if (xStepY == 0) {
+      Pixel[] row = backing[sourceY];
+      if (xStepX == 1) {
+        System.arraycopy(row, sourceX, target, 0, width);
+        return;
+      }
+      for (int x = 0; x < width; x++) {
+        target[x] = row[sourceX];
+        sourceX += xStepX;
+      }
+      return;
+    }
+    for (int x = 0; x < width; x++) {
+      target[x] = backing[sourceY][sourceX];
+      sourceX += xStepX;
+      sourceY += xStepY;
+    }
+  }
+
+  /**
+   * Copies the view into a new contiguous raster.
+   *
+   * @return a new raster holding the pixels of the view, indexed as raster[y][x]
+   */
+  Pixel[][] materialize() {
+    Pixel[][] raster = new Pixel[height][width];
+    for (int y = 0; y < height; y++) {
+      copyRow(y, raster[y]);
+    }
+    return raster;
+  }
+}
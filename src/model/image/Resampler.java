@@ -0,0 +1,308 @@
+package model.image;
+
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Resizes images. Reductions by whole factors in both directions are computed as block
+ * averages of the source pixels; every other size is computed with a separable filter, first
+ * along the rows into a floating point intermediate and then along the columns. The weights of
+ * each output column and row are computed once per resize. Large images are resized by several
+ * workers in parallel, each producing its own rows.
+ */
+public final class Resampler {
+
+  /**
+   * The smallest number of output pixels worth handing to a worker of its own.
+   */
+  private static final int MIN_PIXELS_PER_TASK = 1 << 14;
+
+  /**
+   * The weights a filter gives to the source pixels of every output pixel along one axis.
+   */
+  private static final class Weights {
+    private final int[] first;
+    private final int[] count;
+    private final float[] values;
+    private final int stride;
+
+    /**
+     * Constructs empty weights for the given number of output pixels.
+     *
+     * @param size   the number of output pixels
+     * @param stride the largest number of source pixels one output pixel may use
+     */
+    private Weights(int size, int stride) {
+      this.first = new int[size];
+      this.count = new int[size];
+      this.values = new float[size * stride];
+      this.stride = stride;
+    }
+  }
+
+  /**
+   * Prevents instantiation of this utility class.
+   */
+  private Resampler() {
+  }
+
+  /**
+   * Resizes an image, choosing the filter: block averaging for reductions by whole factors
+   * and Lanczos for every other size.
+   *
+   * @param source the image to resize
+   * @param width  the width of the result
+   * @param height the height of the result
+   * @return the resized image
+   * @throws IllegalArgumentException if the image is empty or a size is not positive
+   */
+  public static Image resize(Image source, int width, int height) {
+    return resize(source, width, height, isWholeReduction(source, width, height)
+            ? ResizeFilter.BOX : ResizeFilter.LANCZOS);
+  }
+
+  /**
+   * Resizes an image with the given filter.
+   *
+   * @param source the image to resize
+   * @param width  the width of the result
+   * @param height the height of the result
+   * @param filter the reconstruction filter
+   * @return the resized image
+   * @throws IllegalArgumentException if the image is empty or a size is not positive
+   */
+  public static Image resize(Image source, int width, int height, ResizeFilter filter) {
+    if (source.isEmpty()) {
+      throw new IllegalArgumentException("Cannot resize an empty image.");
+    }
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Width and height must be positive.");
+    }
+    if (filter == ResizeFilter.BOX && isWholeReduction(source, width, height)) {
+      return averageBlocks(source.getPixels(), width, height);
+    }
+    return filterSeparable(source.getPixels(), width, height, filter);
+  }
+
+  /**
+   * Returns the size of the largest image with the proportions of the given image whose
+   * width and height do not exceed the given dimension. Images that already fit keep their
+   * size.
+   *
+   * @param width        the width of the image
+   * @param height       the height of the image
+   * @param maxDimension the largest width or height
+   * @return the width and height that fit
+   * @throws IllegalArgumentException if the dimension is not positive
+   */
+  public static int[] fit(int width, int height, int maxDimension) {
+    if (maxDimension <= 0) {
+      throw new IllegalArgumentException("Maximum dimension must be positive.");
+    }
+    if (width <= maxDimension && height <= maxDimension) {
+      return new int[]{width, height};
+    }
+    if (width >= height) {
+      return new int[]{maxDimension,
+          Math.max(1, (int) Math.round((double) height * maxDimension / width))};
+    }
+    return new int[]{Math.max(1, (int) Math.round((double) width * maxDimension / height)),
+        maxDimension};
+  }
+
+  /**
+   * Returns whether the image is reduced by a whole factor in both directions.
+   *
+   * @param source the image to resize
+   * @param width  the width of the result
+   * @param height the height of the result
+   * @return true if both source dimensions are multiples of the result dimensions
+   */
+  static boolean isWholeReduction(Image source, int width, int height) {
+    return width > 0 && height > 0 && source.getWidth() % width == 0
+            && source.getHeight() % height == 0;
+  }
+
+  /**
+   * Reduces a raster by whole factors, averaging the block of source pixels under every
+   * output pixel.
+   *
+   * @param source the source raster
+   * @param width  the width of the result, which divides the source width
+   * @param height the height of the result, which divides the source height
+   * @return the reduced image
+   */
+  private static Image averageBlocks(Pixel[][] source, int width, int height) {
+    int factorX = source[0].length / width;
+    int factorY = source.length / height;
+    int area = factorX * factorY;
+    Pixel[][] result = new Pixel[height][width];
+    forEachRow(height, width, y -> {
+      int[] red = new int[width];
+      int[] green = new int[width];
+      int[] blue = new int[width];
+      for (int dy = 0; dy < factorY; dy++) {
+        Pixel[] row = source[y * factorY + dy];
+        int sx = 0;
+        for (int x = 0; x < width; x++) {
+          for (int dx = 0; dx < factorX; dx++) {
+            Pixel pixel = row[sx++];
+            red[x] += pixel.getRed();
+            green[x] += pixel.getGreen();
+            blue[x] += pixel.getBlue();
+          }
+        }
+      }
+      Pixel[] out = result[y];
+      int half = area / 2;
+      for (int x = 0; x < width; x++) {
+        out[x] = Pixel.of((red[x] + half) / area, (green[x] + half) / area,
+                (blue[x] + half) / area);
+      }
+    });
+    return new Image(result);
+  }
+
+  /**
+   * Resizes a raster with a separable filter: every source row is filtered to the new width
+   * into a planar floating point intermediate, whose columns are then filtered to the new
+   * height.
+   *
+   * @param source the source raster
+   * @param width  the width of the result
+   * @param height the height of the result
+   * @param filter the reconstruction filter
+   * @return the resized image
+   */
+  private static Image filterSeparable(Pixel[][] source, int width, int height,
+                                       ResizeFilter filter) {
+    int sourceHeight = source.length;
+    Weights columns = weights(source[0].length, width, filter);
+    Weights rows = weights(sourceHeight, height, filter);
+
+    float[] red = new float[sourceHeight * width];
+    float[] green = new float[sourceHeight * width];
+    float[] blue = new float[sourceHeight * width];
+    forEachRow(sourceHeight, width, y -> {
+      Pixel[] row = source[y];
+      int offset = y * width;
+      for (int x = 0; x < width; x++) {
+        int first = columns.first[x];
+        int base = x * columns.stride;
+        float r = 0;
+        float g = 0;
+        float b = 0;
+        for (int k = 0; k < columns.count[x]; k++) {
+          Pixel pixel = row[first + k];
+          float weight = columns.values[base + k];
+          r += weight * pixel.getRed();
+          g += weight * pixel.getGreen();
+          b += weight * pixel.getBlue();
+        }
+        red[offset + x] = r;
+        green[offset + x] = g;
+        blue[offset + x] = b;
+      }
+    });
+
+    Pixel[][] result = new Pixel[height][width];
+    forEachRow(height, width, y -> {
+      float[] r = new float[width];
+      float[] g = new float[width];
+      float[] b = new float[width];
+      int first = rows.first[y];
+      int base = y * rows.stride;
+      for (int k = 0; k < rows.count[y]; k++) {
+        float weight = rows.values[base + k];
+        int offset = (first + k) * width;
+        for (int x = 0; x < width; x++) {
+          r[x] += weight * red[offset + x];
+          g[x] += weight * green[offset + x];
+          b[x] += weight * blue[offset + x];
+        }
+      }
+      Pixel[] out = result[y];
+      for (int x = 0; x < width; x++) {
+        out[x] = Pixel.of(toSample(r[x]), toSample(g[x]), toSample(b[x]));
+      }
+    });
+    return new Image(result);
+  }
+
+  /**
+   * Computes the normalized weights of the source pixels for every output pixel along one
+   * axis. The filter is stretched by the reduction factor when the axis is reduced.
+   *
+   * @param sourceSize the number of source pixels along the axis
+   * @param size       the number of output pixels along the axis
+   * @param filter     the reconstruction filter
+   * @return the weights of every output pixel
+   */
+  private static Weights weights(int sourceSize, int size, ResizeFilter filter) {
+    double scale = (double) sourceSize / size;
+    double stretch = Math.max(1, scale);
+    double support = filter.support() * stretch;
+    Weights weights = new Weights(size, (int) Math.ceil(2 * support) + 3);
+    double[] values = new double[weights.stride];
+    for (int i = 0; i < size; i++) {
+      double center = (i + 0.5) * scale;
+      int first = Math.max(0, (int) Math.floor(center - support));
+      int last = Math.min(sourceSize - 1, (int) Math.ceil(center + support));
+      double sum = 0;
+      int count = 0;
+      for (int j = first; j <= last && count < weights.stride; j++) {
+        values[count] = filter.weight((j + 0.5 - center) / stretch);
+        sum += values[count++];
+      }
+      if (sum == 0) {
+        first = Math.min(sourceSize - 1, (int) center);
+        values[0] = 1;
+        count = 1;
+        sum = 1;
+      }
+      weights.first[i] = first;
+      weights.count[i] = count;
+      for (int k = 0; k < count; k++) {
+        weights.values[i * weights.stride + k] = (float) (values[k] / sum);
+      }
+    }
+    return weights;
+  }
+
+  /**
+   * Rounds a filtered value to a color sample, clamping the overshoot of negative lobes.
+   *
+   * @param value the filtered value
+   * @return the sample between 0 and 255
+   */
+  private static int toSample(float value) {
+    int sample = Math.round(value);
+    return sample < 0 ? 0 : Math.min(sample, 255);
+  }
+
+  /**
+   * Runs the body once for every row. Rows are divided into stripes that are processed in
+   * parallel when the image is large enough to be worth it.
+   *
+   * @param rows  the number of rows
+   * @param width the number of pixels each row produces
+   * @param body  the work for one row, given its index
+   */
+  private static void forEachRow(int rows, int width, IntConsumer body) {
+    int stripes = (int) Math.min(rows, Math.min((long) rows * width / MIN_PIXELS_PER_TASK,
+            Runtime.getRuntime().availableProcessors() * 4L));
+    if (stripes <= 1) {
+      for (int y = 0; y < rows; y++) {
+        body.accept(y);
+      }
+      return;
+    }
+    int rowsPerStripe = (rows + stripes - 1) / stripes;
+    IntStream.range(0, stripes).parallel().forEach(stripe -> {
+      int end = Math.min(rows, (stripe + 1) * rowsPerStripe);
+      for (int y = stripe * rowsPerStripe; y < end; y++) {
+        body.accept(y);
+      }
+    });
+  }
+}
@@ -0,0 +1,77 @@
+package model.image;
+
+/**
+ * The reconstruction filters an image can be resized with. Each filter is a function of the
+ * distance from the center of an output pixel, measured in source pixels, that is zero outside
+ * its support. When an image is reduced the filter is stretched by the reduction factor, so
+ * every source pixel contributes to the output.
+ */
+public enum ResizeFilter {
+  /**
+   * Averages the source pixels each output pixel covers. For whole reduction factors it is
+   * computed as a plain block average.
+   */
+  BOX(0.5) {
+    @Override
+    double weight(double x) {
+      return x >= -0.5 && x < 0.5 ? 1 : 0;
+    }
+  },
+
+  /**
+   * Interpolates linearly between the two nearest source pixels in each direction.
+   */
+  BILINEAR(1) {
+    @Override
+    double weight(double x) {
+      x = Math.abs(x);
+      return x < 1 ? 1 - x : 0;
+    }
+  },
+
+  /**
+   * Windowed sinc over three lobes, which keeps edges sharp when resizing by any factor.
+   */
+  LANCZOS(3) {
+    @Override
+    double weight(double x) {
+      x = Math.abs(x);
+      if (x < 1e-8) {
+        return 1;
+      }
+      if (x >= 3) {
+        return 0;
+      }
+      double px = Math.PI * x;
+      return 3 * Math.sin(px) * Math.sin(px / 3) / (px * px);
+    }
+  };
+
+  private final double support;
+
+  /**
+   * Constructs a filter with the given support.
+   *
+   * @param support the distance beyond which the filter is zero
+   */
+  ResizeFilter(double support) {
+    this.support = support;
+  }
+
+  /**
+   * Returns the distance from the center beyond which the filter is zero.
+   *
+   * @return the support in source pixels
+   */
+  double support() {
+    return support;
+  }
+
+  /**
+   * Returns the weight of a source pixel at the given distance from the center.
+   *
+   * @param x the distance in source pixels
+   * @return the unnormalized weight
+   */
+  abstract double weight(double x);
+}
@@ -0,0 +1,154 @@
+package model.image;
+
+/**
+ * The scalar {@link RasterKernels}: one counted loop per operation over the packed pixels,
+ * using the same formulas as {@link PointKernels}. The per-pixel formulas are also used by the
+ * vector kernels for the pixels they cannot compute exactly in integer lanes.
+ */
+final class ScalarRasterKernels implements RasterKernels {
+  /**
+   * The only instance.
+   */
+  static final ScalarRasterKernels INSTANCE = new ScalarRasterKernels();
+
+  private ScalarRasterKernels() {
+  }
+
+  /**
+   * Returns a pixel with the same value in all three channels.
+   *
+   * @param value the value of the channels
+   * @return the packed gray pixel
+   */
+  private static int gray(int value) {
+    return value * 0x010101;
+  }
+
+  /**
+   * Computes the value component of a packed pixel.
+   *
+   * @param rgb the packed pixel
+   * @return the packed gray pixel of its largest channel
+   */
+  static int value(int rgb) {
+    return gray(Math.max(rgb >>> 16 & 0xff, Math.max(rgb >>> 8 & 0xff, rgb & 0xff)));
+  }
+
+  /**
+   * Computes the intensity component of a packed pixel; the multiply and shift divide the sum
+   * of the channels, at most 765, by 3 exactly.
+   *
+   * @param rgb the packed pixel
+   * @return the packed gray pixel of the truncated average of its channels
+   */
+  static int intensity(int rgb) {
+    return gray(((rgb >>> 16 & 0xff) + (rgb >>> 8 & 0xff) + (rgb & 0xff)) * 43691 >>> 17);
+  }
+
+  /**
+   * Computes the luma of a packed pixel.
+   *
+   * @param rgb the packed pixel
+   * @return the packed gray pixel of its rounded luma
+   */
+  static int luma(int rgb) {
+    return gray((int) Math.round(0.2126 * (rgb >>> 16 & 0xff) + 0.7152 * (rgb >>> 8 & 0xff)
+            + 0.0722 * (rgb & 0xff)));
+  }
+
+  /**
+   * Applies the sepia tone matrix to a packed pixel.
+   *
+   * @param rgb the packed pixel
+   * @return the packed sepia pixel
+   */
+  static int sepia(int rgb) {
+    int r = rgb >>> 16 & 0xff;
+    int g = rgb >>> 8 & 0xff;
+    int b = rgb & 0xff;
+    return Math.min(255, (int) (0.393 * r + 0.769 * g + 0.189 * b)) << 16
+            | Math.min(255, (int) (0.349 * r + 0.686 * g + 0.168 * b)) << 8
+            | Math.min(255, (int) (0.272 * r + 0.534 * g + 0.131 * b));
+  }
+
+  /**
+   * Adds an increment to every channel of a packed pixel, clamping the results to [0, 255].
+   *
+   * @param increment the amount added to every channel
+   * @param rgb       the packed pixel
+   * @return the packed brightened pixel
+   */
+  static int brighten(int increment, int rgb) {
+    return Math.min(Math.max((rgb >>> 16 & 0xff) + increment, 0), 255) << 16
+            | Math.min(Math.max((rgb >>> 8 & 0xff) + increment, 0), 255) << 8
+            | Math.min(Math.max((rgb & 0xff) + increment, 0), 255);
+  }
+
+  @Override
+  public String getName() {
+    return "scalar";
+  }
+
+  @Override
+  public void red(int[] source, int[] target, int length) {
+    for (int i = 0; i < length; i++) {
+      target[i] = source[i] & 0xff0000;
+    }
+  }
+
+  @Override
+  public void green(int[] source, int[] target, int length) {
+    for (int i = 0; i < length; i++) {
+      target[i] = source[i] & 0xff00;
+    }
+  }
+
+  @Override
+  public void blue(int[] source, int[] target, int length) {
+    for (int i = 0; i < length; i++) {
+      target[i] = source[i] & 0xff;
+    }
+  }
+
+  @Override
+  public void value(int[] source, int[] target, int length) {
+    for (int i = 0; i < length; i++) {
+      target[i] = value(source[i]);
+    }
+  }
+
+  @Override
+  public void luma(int[] source, int[] target, int length) {
+    for (int i = 0; i < length; i++) {
+      target[i] = luma(source[i]);
+    }
+  }
+
+  @Override
+  public void intensity(int[] source, int[] target, int length) {
+    for (int i = 0; i < length; i++) {
+      target[i] = intensity(source[i]);
+    }
+  }
+
+  @Override
+  public void sepia(int[] source, int[] target, int length) {
+    for (int i = 0; i < length; i++) {
+      target[i] = sepia(source[i]);
+    }
+  }
+
+  @Override
+  public void brighten(int increment, int[] source, int[] target, int length) {
+    for (int i = 0; i < length; i++) {
+      target[i] = brighten(increment, source[i]);
+    }
+  }
+
+  @Override
+  public void combine(int[] red, int[] green, int[] blue, int[] target, int length) {
+    for (int i = 0; i < length; i++) {
+      target[i] = red[i] & 0xff0000 | green[i] & 0xff00 | blue[i] & 0xff;
+    }
+  }
+}
@@ -0,0 +1,372 @@
+package model.image;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import model.strategy.FilterStrategy;
+
+/**
+ * Applies a chain of filters to an image in strips of rows, without ever holding a whole
+ * intermediate image. The rows of the input are read by one thread and every filter runs on a
+ * thread of its own, connected to the next by a queue of a few strips, so the stages of the
+ * chain work on different strips at the same time.
+ * A filter with a halo radius keeps that many rows above and below the rows it emits: a strip
+ * is filtered together with its halo, clipped at the image border, and only its own rows are
+ * passed on, so the result equals applying the filters to the whole image one after another.
+ * At any time a stage holds at most one strip and its halo rows, and every queue at most
+ * {@value #QUEUE_CAPACITY} strips.
+ */
+public final class StripPipeline {
+  /**
+   * The number of rows read from the input at a time unless another number is given.
+   */
+  public static final int DEFAULT_STRIP_HEIGHT = 64;
+
+  /**
+   * The number of strips a queue between two stages holds.
+   */
+  public static final int QUEUE_CAPACITY = 2;
+
+  private final List<FilterStrategy> filters;
+  private final int stripHeight;
+
+  /**
+   * The message passed from one stage to the next: rows of the image, the end of the image or
+   * the failure of an earlier stage.
+   */
+  private static final class Strip {
+    private static final Strip END = new Strip(null, null);
+
+    private final Pixel[][] rows;
+    private final Throwable failure;
+
+    /**
+     * Constructs a message.
+     *
+     * @param rows    the rows of the strip, or null
+     * @param failure the failure of an earlier stage, or null
+     */
+    private Strip(Pixel[][] rows, Throwable failure) {
+      this.rows = rows;
+      this.failure = failure;
+    }
+  }
+
+  /**
+   * Constructs a pipeline of the given filters that reads the default number of rows at a
+   * time.
+   *
+   * @param filters the filters, in the order they are applied
+   * @throws IllegalArgumentException if a filter needs the whole image at once
+   */
+  public StripPipeline(List<FilterStrategy> filters) {
+    this(filters, DEFAULT_STRIP_HEIGHT);
+  }
+
+  /**
+   * Constructs a pipeline of the given filters.
+   *
+   * @param filters     the filters, in the order they are applied
+   * @param stripHeight the number of rows read from the input at a time
+   * @throws IllegalArgumentException if a filter needs the whole image at once or the strip
+   *                                  height is not positive
+   */
+  public StripPipeline(List<FilterStrategy> filters, int stripHeight) {
+    if (stripHeight <= 0) {
+      throw new IllegalArgumentException("Strip height must be positive.");
+    }
+    for (FilterStrategy filter : filters) {
+      if (!filter.isLocal()) {
+        throw new IllegalArgumentException("This filter cannot be applied in row strips.");
+      }
+    }
+    this.filters = Collections.unmodifiableList(new ArrayList<>(filters));
+    this.stripHeight = stripHeight;
+  }
+
+  /**
+   * Returns the filters of the pipeline.
+   *
+   * @return an unmodifiable list of the filters, in the order they are applied
+   */
+  public List<FilterStrategy> getFilters() {
+    return filters;
+  }
+
+  /**
+   * Returns the number of rows read from the input at a time.
+   *
+   * @return the strip height
+   */
+  public int getStripHeight() {
+    return stripHeight;
+  }
+
+  /**
+   * Starts filtering the rows of the input and returns the filtered rows as a source. The
+   * threads of the pipeline start at once and stop when the last row has been read from the
+   * result or the result is closed; the result must be closed in any case, which also closes
+   * the input. A failure of the input or of a filter is thrown by the next read of the result.
+   *
+   * @param input the rows to filter, which the pipeline takes over
+   * @return the filtered rows, in strips of at most the strip height
+   */
+  public StripSource stream(StripSource input) {
+    int width = input.getWidth();
+    int height = input.getHeight();
+    List<Thread> threads = new ArrayList<>();
+    BlockingQueue<Strip> first = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    threads.add(newThread("strip-source", () -> readInput(input, first)));
+    BlockingQueue<Strip> queue = first;
+    for (int i = 0; i < filters.size(); i++) {
+      BlockingQueue<Strip> in = queue;
+      BlockingQueue<Strip> out = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+      FilterStrategy filter = filters.get(i);
+      threads.add(newThread("strip-stage-" + (i + 1),
+          () -> filterStrips(filter, width, height, in, out)));
+      queue = out;
+    }
+    Output output = new Output(width, height, queue, threads);
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    return output;
+  }
+
+  /**
+   * Applies the filters to an image in memory, strip by strip.
+   *
+   * @param image the image to filter
+   * @return a new image with every filter applied
+   * @throws IOException If a filter fails or the calling thread is interrupted.
+   */
+  public Image apply(Image image) throws IOException {
+    Pixel[][] pixels = new Pixel[image.getHeight()][];
+    try (StripSource output = stream(StripSource.of(image))) {
+      int y = 0;
+      Image strip;
+      while ((strip = output.readStrip(stripHeight)) != null) {
+        Pixel[][] rows = strip.getPixels();
+        System.arraycopy(rows, 0, pixels, y, rows.length);
+        y += rows.length;
+      }
+    }
+    return new Image(pixels);
+  }
+
+  /**
+   * Creates a daemon thread of the pipeline.
+   *
+   * @param name the name of the thread
+   * @param task the work of the thread
+   * @return the thread, not yet started
+   */
+  private static Thread newThread(String name, Runnable task) {
+    Thread thread = new Thread(task, name);
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  /**
+   * Reads the input in strips and passes them to the first stage, followed by the end of the
+   * image. The input is closed when it has been read or reading has failed.
+   *
+   * @param input the rows to filter
+   * @param out   the queue to the first stage
+   */
+  private void readInput(StripSource input, BlockingQueue<Strip> out) {
+    try (StripSource source = input) {
+      int height = source.getHeight();
+      int y = 0;
+      while (y < height) {
+        Image strip = source.readStrip(stripHeight);
+        if (strip == null) {
+          throw new IOException("The image ended after " + y + " of " + height + " rows.");
+        }
+        Pixel[][] rows = strip.getPixels();
+        out.put(new Strip(rows, null));
+        y += rows.length;
+      }
+      out.put(Strip.END);
+    } catch (InterruptedException e) {
+      // The pipeline was closed; nobody reads the queue any more.
+    } catch (Throwable e) {
+      fail(out, e);
+    }
+  }
+
+  /**
+   * Applies one filter to the strips of a queue and passes the filtered rows to the next
+   * queue. The rows received are kept until no later output row needs them as its halo.
+   *
+   * @param filter the filter of the stage
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @param in     the queue from the previous stage
+   * @param out    the queue to the next stage
+   */
+  private static void filterStrips(FilterStrategy filter, int width, int height,
+                                   BlockingQueue<Strip> in, BlockingQueue<Strip> out) {
+    int halo = filter.getHaloRadius();
+    List<Pixel[]> window = new ArrayList<>();
+    int windowStart = 0;
+    int received = 0;
+    int next = 0;
+    try {
+      while (true) {
+        Strip strip = in.take();
+        if (strip.failure != null) {
+          out.put(strip);
+          return;
+        }
+        if (strip.rows != null) {
+          Collections.addAll(window, strip.rows);
+          received += strip.rows.length;
+        }
+        int end = strip.rows == null || received >= height ? height : received - halo;
+        if (end > next) {
+          int regionY = Math.max(0, next - halo);
+          int regionEnd = Math.min(height, end + halo);
+          Pixel[][] region = window.subList(regionY - windowStart, regionEnd - windowStart)
+                  .toArray(new Pixel[0][]);
+          Pixel[][] filtered = filter.applyToRegion(new Image(region), 0, regionY, width,
+                  height).getPixels();
+          out.put(new Strip(Arrays.copyOfRange(filtered, next - regionY, end - regionY),
+                  null));
+          next = end;
+          int keepFrom = Math.max(0, next - halo);
+          window.subList(0, keepFrom - windowStart).clear();
+          windowStart = keepFrom;
+        }
+        if (strip.rows == null) {
+          out.put(Strip.END);
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      // The pipeline was closed; nobody reads the queue any more.
+    } catch (Throwable e) {
+      fail(out, e);
+    }
+  }
+
+  /**
+   * Passes a failure on to the next stage, unless the pipeline is being closed.
+   *
+   * @param out     the queue to the next stage
+   * @param failure the failure
+   */
+  private static void fail(BlockingQueue<Strip> out, Throwable failure) {
+    try {
+      out.put(new Strip(null, failure));
+    } catch (InterruptedException e) {
+      // The pipeline was closed; nobody reads the queue any more.
+    }
+  }
+
+  /**
+   * The filtered rows of a running pipeline.
+   */
+  private static final class Output implements StripSource {
+    private final int width;
+    private final int height;
+    private final BlockingQueue<Strip> queue;
+    private final List<Thread> threads;
+    private Pixel[][] pending;
+    private int pendingStart;
+    private boolean ended;
+
+    /**
+     * Constructs the output of a pipeline.
+     *
+     * @param width   the width of the image
+     * @param height  the height of the image
+     * @param queue   the queue from the last stage
+     * @param threads the threads of the pipeline
+     */
+    private Output(int width, int height, BlockingQueue<Strip> queue, List<Thread> threads) {
+      this.width = width;
+      this.height = height;
+      this.queue = queue;
+      this.threads = threads;
+    }
+
+    @Override
+    public int getWidth() {
+      return width;
+    }
+
+    @Override
+    public int getHeight() {
+      return height;
+    }
+
+    @Override
+    public Image readStrip(int maxRows) throws IOException {
+      if (maxRows <= 0) {
+        throw new IllegalArgumentException("Strip height must be positive.");
+      }
+      if (pending == null) {
+        if (ended) {
+          return null;
+        }
+        Strip strip;
+        try {
+          strip = queue.take();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while filtering strips.");
+        }
+        if (strip.failure != null) {
+          ended = true;
+          Throwable failure = strip.failure;
+          throw new IOException(failure.getMessage() != null ? failure.getMessage()
+                  : failure.toString(), failure);
+        }
+        if (strip.rows == null) {
+          ended = true;
+          return null;
+        }
+        pending = strip.rows;
+        pendingStart = 0;
+      }
+      int end = Math.min(pending.length, pendingStart + maxRows);
+      Pixel[][] rows = pendingStart == 0 && end == pending.length ? pending
+              : Arrays.copyOfRange(pending, pendingStart, end);
+      pendingStart = end;
+      if (pendingStart == pending.length) {
+        pending = null;
+      }
+      return new Image(rows);
+    }
+
+    /**
+     * Stops the threads of the pipeline and waits until they have ended, by which time the
+     * input is closed.
+     *
+     * @throws IOException If the calling thread is interrupted while waiting.
+     */
+    @Override
+    public void close() throws IOException {
+      ended = true;
+      pending = null;
+      for (Thread thread : threads) {
+        thread.interrupt();
+      }
+      try {
+        for (Thread thread : threads) {
+          thread.join();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while stopping the pipeline.");
+      }
+    }
+  }
+}
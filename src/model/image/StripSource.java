@@ -0,0 +1,88 @@
+package model.image;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A source of the rows of an image, read in strips from top to bottom. A strip source lets an
+ * image be decoded, filtered and encoded a few rows at a time, so the whole image never has to
+ * be held at once. Strips are handed out as images of their rows and must not be modified.
+ * A source may hold a file and must be closed when it is no longer needed.
+ */
+public interface StripSource extends Closeable {
+
+  /**
+   * Returns the width of the image.
+   *
+   * @return the width in pixels
+   */
+  int getWidth();
+
+  /**
+   * Returns the height of the image.
+   *
+   * @return the height in pixels
+   */
+  int getHeight();
+
+  /**
+   * Reads the next rows of the image, continuing below the rows read before.
+   *
+   * @param maxRows the largest number of rows to read
+   * @return an image of at least one and at most the given number of rows, or null once every
+   *         row has been read
+   * @throws IOException              If the rows cannot be read.
+   * @throws IllegalArgumentException if the number of rows is not positive
+   */
+  Image readStrip(int maxRows) throws IOException;
+
+  /**
+   * Releases what the source holds. The default implementation holds nothing.
+   *
+   * @throws IOException If the source cannot be closed.
+   */
+  @Override
+  default void close() throws IOException {
+  }
+
+  /**
+   * Returns a source that reads the rows of an image in memory. The strips share the rows of
+   * the image instead of copying them.
+   *
+   * @param image the image to read
+   * @return a new source over the image
+   */
+  static StripSource of(Image image) {
+    Pixel[][] pixels = image.getPixels();
+    int width = image.getWidth();
+    int height = image.getHeight();
+    return new StripSource() {
+      private int next;
+
+      @Override
+      public int getWidth() {
+        return width;
+      }
+
+      @Override
+      public int getHeight() {
+        return height;
+      }
+
+      @Override
+      public Image readStrip(int maxRows) {
+        if (maxRows <= 0) {
+          throw new IllegalArgumentException("Strip height must be positive.");
+        }
+        if (next >= height) {
+          return null;
+        }
+        int end = Math.min(height, next + maxRows);
+        Image strip = new Image(Arrays.copyOfRange(pixels, next, end));
+        next = end;
+        return strip;
+      }
+    };
+  }
+}
@@ -0,0 +1,100 @@
+package model.image;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stores fixed-size tiles of packed RGB values in a temporary file and keeps a bounded number
+ * of them mapped into memory. A tile is mapped when it is first accessed and its mapping is
+ * dropped when the cache holds more than the allowed number of tiles, least recently used
+ * first. Writes go to the mapped file, so an evicted tile is read back from the file, or from
+ * the operating system's page cache, the next time it is needed. The file is sparse, so tiles
+ * that are never written take no disk space.
+ */
+final class TileCache {
+  private final Path file;
+  private final FileChannel channel;
+  private final int tileInts;
+  private final Map<Integer, IntBuffer> resident;
+
+  /**
+   * Creates a tile cache backed by a new temporary file.
+   *
+   * @param tileCount     the number of tiles to store
+   * @param tileInts      the number of packed pixels in every tile
+   * @param residentTiles the largest number of tiles kept mapped at once
+   * @throws IOException If the temporary file cannot be created.
+   */
+  TileCache(int tileCount, int tileInts, int residentTiles) throws IOException {
+    if (residentTiles <= 0) {
+      throw new IllegalArgumentException("At least one tile must be resident.");
+    }
+    this.file = Files.createTempFile("tiles", ".raw");
+    this.file.toFile().deleteOnExit();
+    this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+            StandardOpenOption.SPARSE);
+    this.tileInts = tileInts;
+    this.resident = new LinkedHashMap<Integer, IntBuffer>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, IntBuffer> eldest) {
+        return size() > residentTiles;
+      }
+    };
+    if (tileCount > 0) {
+      channel.write(ByteBuffer.allocate(1), (long) tileCount * tileInts * 4 - 1);
+    }
+  }
+
+  /**
+   * Returns the packed pixels of a tile, mapping the tile if it is not resident.
+   *
+   * @param index the index of the tile
+   * @return a buffer over the packed pixels of the tile, written through to the file
+   * @throws UncheckedIOException if the tile cannot be mapped
+   */
+  synchronized IntBuffer tile(int index) {
+    IntBuffer buffer = resident.get(index);
+    if (buffer == null) {
+      try {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, (long) index * tileInts * 4,
+                (long) tileInts * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+      } catch (IOException e) {
+        throw new UncheckedIOException("Cannot map tile " + index + ".", e);
+      }
+      resident.put(index, buffer);
+    }
+    return buffer;
+  }
+
+  /**
+   * Returns the number of tiles currently mapped.
+   *
+   * @return the number of resident tiles
+   */
+  synchronized int residentCount() {
+    return resident.size();
+  }
+
+  /**
+   * Drops all mappings, closes the file and deletes it.
+   *
+   * @throws IOException If the file cannot be closed or deleted.
+   */
+  synchronized void close() throws IOException {
+    resident.clear();
+    try {
+      channel.close();
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
@@ -0,0 +1,484 @@
+package model.image;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.IntBuffer;
+
+import model.strategy.FilterStrategy;
+
+/**
+ * Represents an image stored as a grid of square tiles of packed RGB pixels, for images too
+ * large to hold as one pixel array. The tiles live in a memory-mapped temporary file and only
+ * a bounded number of them is mapped at a time, so an image of more than a gigapixel can be
+ * processed with a small heap. Regions of the image are exchanged with the rest of the model
+ * as ordinary {@link Image} objects, and filters are applied one tile at a time, each tile
+ * together with the halo of neighbouring pixels its filter reads. Point operations run on the
+ * packed pixels of whole tiles through the {@link RasterKernels}, without creating pixels.
+ * A tiled image holds a temporary file and must be closed when it is no longer needed.
+ */
+public class TiledImage implements Closeable {
+  /**
+   * The width and height of a tile, in pixels.
+   */
+  public static final int TILE_SIZE = 256;
+
+  /**
+   * The number of tiles kept mapped at a time unless another number is given.
+   */
+  public static final int DEFAULT_RESIDENT_TILES = 64;
+
+  private final int width;
+  private final int height;
+  private final int tilesX;
+  private final int tileCount;
+  private final int residentTiles;
+  private final TileCache cache;
+
+  /**
+   * Constructs a black tiled image that keeps the default number of tiles mapped.
+   *
+   * @param width  the width of the image in pixels
+   * @param height the height of the image in pixels
+   * @throws IOException If the tile file cannot be created.
+   */
+  public TiledImage(int width, int height) throws IOException {
+    this(width, height, DEFAULT_RESIDENT_TILES);
+  }
+
+  /**
+   * Constructs a black tiled image.
+   *
+   * @param width         the width of the image in pixels
+   * @param height        the height of the image in pixels
+   * @param residentTiles the largest number of tiles kept mapped at a time
+   * @throws IOException If the tile file cannot be created.
+   * @throws IllegalArgumentException if a dimension or the number of resident tiles is not
+   *                                  positive
+   */
+  public TiledImage(int width, int height, int residentTiles) throws IOException {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Image dimensions must be positive.");
+    }
+    this.width = width;
+    this.height = height;
+    this.tilesX = (width - 1) / TILE_SIZE + 1;
+    int tilesY = (height - 1) / TILE_SIZE + 1;
+    this.tileCount = Math.multiplyExact(tilesX, tilesY);
+    this.residentTiles = residentTiles;
+    this.cache = new TileCache(tileCount, TILE_SIZE * TILE_SIZE, residentTiles);
+  }
+
+  /**
+   * Creates a tiled image holding the pixels of the given image.
+   *
+   * @param image the image to copy
+   * @return a new tiled image with the same pixels
+   * @throws IOException If the tile file cannot be created.
+   */
+  public static TiledImage of(Image image) throws IOException {
+    TiledImage tiled = new TiledImage(image.getWidth(), image.getHeight());
+    tiled.writeRegion(image, 0, 0, 0, 0, image.getWidth(), image.getHeight());
+    return tiled;
+  }
+
+  /**
+   * Creates a tiled image holding the rows of a strip source, reading one row of tiles at a
+   * time, so the source is never held as a whole. The source is read to its end but not
+   * closed.
+   *
+   * @param source the rows of the image
+   * @return a new tiled image with the pixels of the source
+   * @throws IOException If the rows cannot be read or the tile file cannot be created.
+   * @throws IllegalArgumentException if the source has fewer rows than its height
+   */
+  public static TiledImage load(StripSource source) throws IOException {
+    int width = source.getWidth();
+    int height = source.getHeight();
+    TiledImage tiled = new TiledImage(width, height);
+    try {
+      int y = 0;
+      while (y < height) {
+        Image strip = source.readStrip(Math.min(TILE_SIZE, height - y));
+        if (strip == null) {
+          throw new IllegalArgumentException("The image ended after " + y + " of " + height
+                  + " rows.");
+        }
+        tiled.writeRegion(strip, 0, 0, 0, y, width, strip.getHeight());
+        y += strip.getHeight();
+      }
+    } catch (IOException | RuntimeException e) {
+      tiled.close();
+      throw e;
+    }
+    return tiled;
+  }
+
+  /**
+   * Returns the width of this image.
+   *
+   * @return the width of the image in pixels
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the height of this image.
+   *
+   * @return the height of the image in pixels
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns the number of tiles currently mapped into memory.
+   *
+   * @return the number of resident tiles
+   */
+  public int getResidentTileCount() {
+    return cache.residentCount();
+  }
+
+  /**
+   * Returns the packed RGB value of the pixel at the given position.
+   *
+   * @param x the x-coordinate of the pixel
+   * @param y the y-coordinate of the pixel
+   * @return the pixel as 0xRRGGBB
+   * @throws IllegalArgumentException if x or y coordinates are out of bounds
+   */
+  public int getRGB(int x, int y) {
+    checkBounds(x, y, 1, 1);
+    return tileOf(x, y).get(offsetInTile(x, y));
+  }
+
+  /**
+   * Sets the pixel at the given position to a packed RGB value.
+   *
+   * @param x   the x-coordinate of the pixel
+   * @param y   the y-coordinate of the pixel
+   * @param rgb the pixel as 0xRRGGBB
+   * @throws IllegalArgumentException if x or y coordinates are out of bounds
+   */
+  public void setRGB(int x, int y, int rgb) {
+    checkBounds(x, y, 1, 1);
+    tileOf(x, y).put(offsetInTile(x, y), rgb & 0xffffff);
+  }
+
+  /**
+   * Copies a rectangular region of this image into a new image.
+   *
+   * @param x      the x-coordinate of the region's top-left pixel
+   * @param y      the y-coordinate of the region's top-left pixel
+   * @param width  the width of the region
+   * @param height the height of the region
+   * @return a new image holding the pixels of the region
+   * @throws IllegalArgumentException if the region is empty or not inside the image
+   */
+  public Image readRegion(int x, int y, int width, int height) {
+    checkBounds(x, y, width, height);
+    Pixel[][] pixels = new Pixel[height][width];
+    for (int row = 0; row < height; row++) {
+      int sourceY = y + row;
+      Pixel[] target = pixels[row];
+      int column = 0;
+      while (column < width) {
+        int sourceX = x + column;
+        int run = Math.min(width - column, TILE_SIZE - sourceX % TILE_SIZE);
+        IntBuffer tile = tileOf(sourceX, sourceY);
+        int offset = offsetInTile(sourceX, sourceY);
+        for (int i = 0; i < run; i++) {
+          int rgb = tile.get(offset + i);
+          target[column + i] = Pixel.cached(rgb >>> 16, (rgb >> 8) & 0xff, rgb & 0xff);
+        }
+        column += run;
+      }
+    }
+    return new Image(pixels);
+  }
+
+  /**
+   * Copies a rectangular part of the given image into this image.
+   *
+   * @param region  the image to copy from
+   * @param regionX the x-coordinate in the given image of the first pixel to copy
+   * @param regionY the y-coordinate in the given image of the first pixel to copy
+   * @param x       the x-coordinate in this image that receives the first pixel
+   * @param y       the y-coordinate in this image that receives the first pixel
+   * @param width   the width of the copied part
+   * @param height  the height of the copied part
+   * @throws IllegalArgumentException if the part is empty or does not fit either image
+   */
+  public void writeRegion(Image region, int regionX, int regionY, int x, int y, int width,
+                          int height) {
+    checkBounds(x, y, width, height);
+    if (regionX < 0 || regionY < 0 || regionX + width > region.getWidth()
+            || regionY + height > region.getHeight()) {
+      throw new IllegalArgumentException("Region out of bounds!");
+    }
+    for (int row = 0; row < height; row++) {
+      int targetY = y + row;
+      int column = 0;
+      while (column < width) {
+        int targetX = x + column;
+        int run = Math.min(width - column, TILE_SIZE - targetX % TILE_SIZE);
+        IntBuffer tile = tileOf(targetX, targetY);
+        int offset = offsetInTile(targetX, targetY);
+        for (int i = 0; i < run; i++) {
+          Pixel pixel = region.getPixel(regionX + column + i, regionY + row);
+          tile.put(offset + i, (pixel.getRed() << 16) | (pixel.getGreen() << 8)
+                  | pixel.getBlue());
+        }
+        column += run;
+      }
+    }
+  }
+
+  /**
+   * Applies a filter strategy tile by tile and returns the result as a new tiled image. Every
+   * tile is read together with a halo of the strategy's radius, clipped at the image border,
+   * filtered as a region and only its own pixels are written to the result, so the result
+   * equals filtering the whole image at once.
+   *
+   * @param filterStrategy the strategy to apply
+   * @return a new tiled image with the filter applied, which the caller must close
+   * @throws IOException If the tile file of the result cannot be created.
+   * @throws UnsupportedOperationException if the strategy needs the whole image at once
+   */
+  public TiledImage applyFilter(FilterStrategy filterStrategy) throws IOException {
+    if (!filterStrategy.isLocal()) {
+      throw new UnsupportedOperationException("This filter cannot be applied tile by tile.");
+    }
+    int halo = filterStrategy.getHaloRadius();
+    TiledImage result = new TiledImage(width, height, residentTiles);
+    try {
+      for (int tileY = 0; tileY < height; tileY += TILE_SIZE) {
+        for (int tileX = 0; tileX < width; tileX += TILE_SIZE) {
+          int tileWidth = Math.min(TILE_SIZE, width - tileX);
+          int tileHeight = Math.min(TILE_SIZE, height - tileY);
+          int regionX = Math.max(0, tileX - halo);
+          int regionY = Math.max(0, tileY - halo);
+          int regionWidth = Math.min(width, tileX + tileWidth + halo) - regionX;
+          int regionHeight = Math.min(height, tileY + tileHeight + halo) - regionY;
+
+          Image region = readRegion(regionX, regionY, regionWidth, regionHeight);
+          Image filtered = filterStrategy.applyToRegion(region, regionX, regionY, width,
+                  height);
+          result.writeRegion(filtered, tileX - regionX, tileY - regionY, tileX, tileY,
+                  tileWidth, tileHeight);
+        }
+      }
+    } catch (RuntimeException e) {
+      result.close();
+      throw e;
+    }
+    return result;
+  }
+
+  /**
+   * Returns a new tiled image mirrored left to right, copied one row of tiles at a time.
+   *
+   * @return a new flipped tiled image, which the caller must close
+   * @throws IOException If the tile file of the result cannot be created.
+   */
+  public TiledImage horizontalFlip() throws IOException {
+    return flip(true);
+  }
+
+  /**
+   * Returns a new tiled image mirrored top to bottom, copied one row of tiles at a time.
+   *
+   * @return a new flipped tiled image, which the caller must close
+   * @throws IOException If the tile file of the result cannot be created.
+   */
+  public TiledImage verticalFlip() throws IOException {
+    return flip(false);
+  }
+
+  /**
+   * Mirrors this image into a new tiled image. Every strip of rows is read as a region,
+   * flipped as a view and written to its mirrored place.
+   *
+   * @param horizontal true to mirror left to right, false to mirror top to bottom
+   * @return a new flipped tiled image
+   * @throws IOException If the tile file of the result cannot be created.
+   */
+  private TiledImage flip(boolean horizontal) throws IOException {
+    TiledImage result = new TiledImage(width, height, residentTiles);
+    try {
+      for (int y = 0; y < height; y += TILE_SIZE) {
+        int rows = Math.min(TILE_SIZE, height - y);
+        Image strip = readRegion(0, y, width, rows);
+        if (horizontal) {
+          result.writeRegion(strip.horizontalFlip(), 0, 0, 0, y, width, rows);
+        } else {
+          result.writeRegion(strip.verticalFlip(), 0, 0, 0, height - y - rows, width, rows);
+        }
+      }
+    } catch (RuntimeException e) {
+      result.close();
+      throw e;
+    }
+    return result;
+  }
+
+  /**
+   * Applies a point operation to every tile and returns the result as a new tiled image. The
+   * packed pixels of a tile are copied into an array, mapped as one row and copied into the
+   * same tile of the result; the unused pixels of border tiles are mapped too but never read.
+   *
+   * @param kernel the point operation, usually one of the {@link RasterKernels}
+   * @return a new tiled image with the operation applied, which the caller must close
+   * @throws IOException If the tile file of the result cannot be created.
+   */
+  public TiledImage mapPixels(RasterKernel kernel) throws IOException {
+    TiledImage result = new TiledImage(width, height, residentTiles);
+    int[] source = new int[TILE_SIZE * TILE_SIZE];
+    int[] target = new int[source.length];
+    try {
+      for (int index = 0; index < tileCount; index++) {
+        cache.tile(index).duplicate().get(source);
+        kernel.apply(source, target, target.length);
+        result.cache.tile(index).duplicate().put(target);
+      }
+    } catch (RuntimeException e) {
+      result.close();
+      throw e;
+    }
+    return result;
+  }
+
+  /**
+   * Combines the red channel of one tiled image, the green channel of another and the blue
+   * channel of a third into a new tiled image, tile by tile.
+   *
+   * @param red   the image providing the red channel
+   * @param green the image providing the green channel
+   * @param blue  the image providing the blue channel
+   * @return a new tiled image with the combined channels, which the caller must close
+   * @throws IOException If the tile file of the result cannot be created.
+   * @throws IllegalArgumentException if the images do not have the same dimensions
+   */
+  public static TiledImage combineColorChannels(TiledImage red, TiledImage green,
+                                                TiledImage blue) throws IOException {
+    if (green.width != red.width || green.height != red.height || blue.width != red.width
+            || blue.height != red.height) {
+      throw new IllegalArgumentException("All images must have the same dimensions.");
+    }
+    RasterKernels kernels = RasterKernels.get();
+    TiledImage result = new TiledImage(red.width, red.height, red.residentTiles);
+    int length = TILE_SIZE * TILE_SIZE;
+    int[] redPixels = new int[length];
+    int[] greenPixels = new int[length];
+    int[] bluePixels = new int[length];
+    int[] target = new int[length];
+    try {
+      for (int index = 0; index < red.tileCount; index++) {
+        red.cache.tile(index).duplicate().get(redPixels);
+        green.cache.tile(index).duplicate().get(greenPixels);
+        blue.cache.tile(index).duplicate().get(bluePixels);
+        kernels.combine(redPixels, greenPixels, bluePixels, target, length);
+        result.cache.tile(index).duplicate().put(target);
+      }
+    } catch (RuntimeException e) {
+      result.close();
+      throw e;
+    }
+    return result;
+  }
+
+  /**
+   * Copies the whole image into an ordinary image. This needs the whole raster on the heap.
+   *
+   * @return a new image holding all pixels of this image
+   */
+  public Image toImage() {
+    return readRegion(0, 0, width, height);
+  }
+
+  /**
+   * Returns a source that reads the rows of this image in strips, for saving it with a parser
+   * without copying the whole image onto the heap. Closing the source does not close this
+   * image.
+   *
+   * @return a new source over the rows of this image
+   */
+  public StripSource strips() {
+    return new StripSource() {
+      private int next;
+
+      @Override
+      public int getWidth() {
+        return width;
+      }
+
+      @Override
+      public int getHeight() {
+        return height;
+      }
+
+      @Override
+      public Image readStrip(int maxRows) {
+        if (maxRows <= 0) {
+          throw new IllegalArgumentException("Strip height must be positive.");
+        }
+        if (next >= height) {
+          return null;
+        }
+        int rows = Math.min(maxRows, height - next);
+        Image strip = readRegion(0, next, width, rows);
+        next += rows;
+        return strip;
+      }
+    };
+  }
+
+  /**
+   * Releases the mapped tiles and deletes the tile file.
+   *
+   * @throws IOException If the tile file cannot be closed or deleted.
+   */
+  @Override
+  public void close() throws IOException {
+    cache.close();
+  }
+
+  /**
+   * Returns the tile that holds the pixel at the given position.
+   *
+   * @param x the x-coordinate of the pixel
+   * @param y the y-coordinate of the pixel
+   * @return the packed pixels of the tile
+   */
+  private IntBuffer tileOf(int x, int y) {
+    return cache.tile((y / TILE_SIZE) * tilesX + x / TILE_SIZE);
+  }
+
+  /**
+   * Returns the index of the pixel at the given position within its tile.
+   *
+   * @param x the x-coordinate of the pixel
+   * @param y the y-coordinate of the pixel
+   * @return the index in the packed pixels of the tile
+   */
+  private static int offsetInTile(int x, int y) {
+    return (y % TILE_SIZE) * TILE_SIZE + x % TILE_SIZE;
+  }
+
+  /**
+   * Checks that a rectangle is non-empty and lies inside the image.
+   *
+   * @param x      the x-coordinate of the rectangle's top-left pixel
+   * @param y      the y-coordinate of the rectangle's top-left pixel
+   * @param width  the width of the rectangle
+   * @param height the height of the rectangle
+   * @throws IllegalArgumentException if the rectangle is empty or not inside the image
+   */
+  private void checkBounds(int x, int y, int width, int height) {
+    if (width <= 0 || height <= 0 || x < 0 || y < 0 || x > this.width - width
+            || y > this.height - height) {
+      throw new IllegalArgumentException("Coordinates out of bounds!");
+    }
+  }
+}
@@ -20,4 +20,14 @@ public class BlurFilterStrategy implements FilterStrategy {
   public Image apply(Image image) {
     return image.blur();
   }
+
+  /**
+   * Returns the halo radius of the 3x3 blur kernel.
+   *
+   * @return 1
+   */
+  @Override
+  public int getHaloRadius() {
+    return 1;
+  }
 }
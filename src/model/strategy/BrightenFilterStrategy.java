@@ -0,0 +1,31 @@
+package model.strategy;
+
+import model.image.Image;
+
+/**
+ * Implements the FilterStrategy interface to brighten or darken an image by a fixed increment.
+ */
+public class BrightenFilterStrategy implements FilterStrategy {
+  private final int increment;
+
+  /**
+   * Constructs a BrightenFilterStrategy with the given increment.
+   *
+   * @param increment The amount added to every channel, negative to darken.
+   */
+  public BrightenFilterStrategy(int increment) {
+    this.increment = increment;
+  }
+
+  /**
+   * Adds the increment to every channel of the given image, clamping the results to [0, 255].
+   * This method uses the brighten method of the Image class.
+   *
+   * @param image The image to be brightened or darkened.
+   * @return A new Image instance with the brightness adjusted.
+   */
+  @Override
+  public Image apply(Image image) {
+    return image.brighten(increment);
+  }
+}
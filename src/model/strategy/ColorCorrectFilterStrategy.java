@@ -19,4 +19,15 @@ public class ColorCorrectFilterStrategy implements FilterStrategy {
   public Image apply(Image image) {
     return image.colorCorrect();
   }
+
+  /**
+   * Color correction depends on the histograms of the whole image, so it cannot be applied
+   * tile by tile.
+   *
+   * @return false
+   */
+  @Override
+  public boolean isLocal() {
+    return false;
+  }
 }
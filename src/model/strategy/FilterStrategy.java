@@ -5,6 +5,9 @@ import model.image.Image;
 /**
  * The FilterStrategy interface defines a contract for image
  * processing strategies that can be applied to Image objects.
+ * A strategy whose output pixels depend only on a bounded neighbourhood of input pixels can
+ * also be applied to a {@link model.image.TiledImage} one tile at a time; it declares how many
+ * pixels of that neighbourhood it needs around each tile through {@link #getHaloRadius()}.
  */
 public interface FilterStrategy {
 
@@ -16,4 +19,42 @@ public interface FilterStrategy {
    * @return A new Image instance that results from applying the filter to the input image.
    */
   Image apply(Image image);
+
+  /**
+   * Returns how many pixels around an output pixel the filter reads, in every direction.
+   * A tile is filtered together with a halo of this width, so its border pixels see the same
+   * neighbours as in the whole image.
+   *
+   * @return the halo radius, 0 for point operations
+   */
+  default int getHaloRadius() {
+    return 0;
+  }
+
+  /**
+   * Returns whether every output pixel depends only on the input pixels within the halo
+   * radius. Filters that need statistics of the whole image cannot be applied tile by tile.
+   *
+   * @return true if the filter can be applied tile by tile, otherwise false
+   */
+  default boolean isLocal() {
+    return true;
+  }
+
+  /**
+   * Applies the filter to a region of a larger image. The region includes the halo, and its
+   * position in the larger image is given, so filters that depend on the position of a pixel
+   * can place it. By default the region is filtered as an image of its own.
+   *
+   * @param region      The region of the image, including its halo.
+   * @param regionX     The x-coordinate of the region's top-left pixel in the whole image.
+   * @param regionY     The y-coordinate of the region's top-left pixel in the whole image.
+   * @param imageWidth  The width of the whole image.
+   * @param imageHeight The height of the whole image.
+   * @return A new Image instance with the filter applied to the region.
+   */
+  default Image applyToRegion(Image region, int regionX, int regionY, int imageWidth,
+                              int imageHeight) {
+    return apply(region);
+  }
 }
@@ -18,4 +18,14 @@ public class SharpenFilterStrategy implements FilterStrategy {
   public Image apply(Image image) {
     return image.sharpen();
   }
+
+  /**
+   * Returns the halo radius of the 5x5 sharpening kernel.
+   *
+   * @return 2
+   */
+  @Override
+  public int getHaloRadius() {
+    return 2;
+  }
 }
@@ -38,18 +38,100 @@ public class SplitFilterDecorator implements FilterStrategy {
   @Override
   public Image apply(Image originalImage) {
     Image filteredImage = originalStrategy.apply(originalImage);
-    int splitPoint = (int) (originalImage.getWidth() * (splitPercentage / 100.0));
-
-    Pixel[][] mixedPixels = new Pixel[originalImage.getHeight()][originalImage.getWidth()];
-
-    for (int y = 0; y < originalImage.getHeight(); y++) {
-      for (int x = 0; x < originalImage.getWidth(); x++) {
-        if (x < splitPoint) {
-          mixedPixels[y][x] = filteredImage.getPixel(x, y);
-        } else {
-          mixedPixels[y][x] = originalImage.getPixel(x, y);
-        }
-      }
+    return composite(originalImage, filteredImage, splitPercentage);
+  }
+
+  /**
+   * Combines an image with an already filtered version of it, taking the pixels to the left of
+   * the split point from the filtered image and the rest from the original. This lets a caller
+   * that keeps the filtered image move the split point without filtering again.
+   *
+   * @param originalImage   The unfiltered image.
+   * @param filteredImage   The filtered version of the image, with the same dimensions.
+   * @param splitPercentage The percentage of the image width at which the filter effect is split.
+   * @return A new Image instance with the filtered pixels up to the split point.
+   */
+  public static Image composite(Image originalImage, Image filteredImage,
+                                double splitPercentage) {
+    int width = originalImage.getWidth();
+    return compositeAt(originalImage, filteredImage, splitColumn(width, splitPercentage));
+  }
+
+  /**
+   * Returns whether the decorated filter can be applied tile by tile.
+   *
+   * @return whether the decorated filter is local
+   */
+  @Override
+  public boolean isLocal() {
+    return originalStrategy.isLocal();
+  }
+
+  /**
+   * Returns the halo radius of the decorated filter.
+   *
+   * @return the halo radius of the decorated filter
+   */
+  @Override
+  public int getHaloRadius() {
+    return originalStrategy.getHaloRadius();
+  }
+
+  /**
+   * Applies the decorated filter to a region of a larger image, splitting at the column of
+   * the whole image rather than of the region.
+   *
+   * @param region      The region of the image, including its halo.
+   * @param regionX     The x-coordinate of the region's top-left pixel in the whole image.
+   * @param regionY     The y-coordinate of the region's top-left pixel in the whole image.
+   * @param imageWidth  The width of the whole image.
+   * @param imageHeight The height of the whole image.
+   * @return A new Image instance with the filtered pixels up to the split column.
+   */
+  @Override
+  public Image applyToRegion(Image region, int regionX, int regionY, int imageWidth,
+                             int imageHeight) {
+    int splitPoint = splitColumn(imageWidth, splitPercentage) - regionX;
+    if (splitPoint <= 0) {
+      return region;
+    }
+    Image filteredRegion = originalStrategy.applyToRegion(region, regionX, regionY, imageWidth,
+            imageHeight);
+    return compositeAt(region, filteredRegion, Math.min(region.getWidth(), splitPoint));
+  }
+
+  /**
+   * Returns the column at which a split percentage divides an image.
+   *
+   * @param width           The width of the image.
+   * @param splitPercentage The percentage of the image width at which the filter effect is split.
+   * @return The first column that keeps its original pixels.
+   */
+  private static int splitColumn(int width, double splitPercentage) {
+    return Math.min(width, (int) (width * (splitPercentage / 100.0)));
+  }
+
+  /**
+   * Combines an image with its filtered version, taking the columns left of the split point
+   * from the filtered image and the rest from the original.
+   *
+   * @param originalImage The unfiltered image.
+   * @param filteredImage The filtered version of the image, with the same dimensions.
+   * @param splitPoint    The first column that keeps its original pixels.
+   * @return A new Image instance with the filtered pixels up to the split point.
+   */
+  private static Image compositeAt(Image originalImage, Image filteredImage, int splitPoint) {
+    int width = originalImage.getWidth();
+    int height = originalImage.getHeight();
+
+    Pixel[][] originalPixels = originalImage.getPixels();
+    Pixel[][] filteredPixels = filteredImage.getPixels();
+    Pixel[][] mixedPixels = new Pixel[height][width];
+
+    for (int y = 0; y < height; y++) {
+      System.arraycopy(filteredPixels[y], 0, mixedPixels[y], 0, splitPoint);
+      System.arraycopy(originalPixels[y], splitPoint, mixedPixels[y], splitPoint,
+              width - splitPoint);
     }
 
     return new Image(mixedPixels);
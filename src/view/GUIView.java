@@ -18,7 +18,9 @@ import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.JSlider;
 import javax.swing.JTextField;
+import javax.swing.event.ChangeListener;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
 import controller.commands.Features;
@@ -46,8 +48,11 @@ public class GUIView extends JFrame implements IGUIView {
   private JButton colorCorrectButton;
   private JButton adjustLevelsButton;
   private JButton saveButton;
+  private JButton undoButton;
+  private JButton redoButton;
   private JButton confirmButton;
   private JButton cancelButton;
+  private Features features;
 
   public GUIView() {
     initializeUI();
@@ -133,6 +138,8 @@ public class GUIView extends JFrame implements IGUIView {
     adjustLevelsButton = createButton("Adjust Levels", "adjustLevels",
             buttonPanel);
     saveButton = createButton("Save", "save", buttonPanel);
+    undoButton = createButton("Undo", "undo", buttonPanel);
+    redoButton = createButton("Redo", "redo", buttonPanel);
 
     confirmButton = createButton("Confirm", "confirm", confirmCancelPanel);
     confirmButton.setVisible(false);
@@ -169,8 +176,11 @@ public class GUIView extends JFrame implements IGUIView {
    */
   @Override
   public void addFeatures(Features features) {
+    this.features = features;
     loadButton.addActionListener(evt -> features.loadImage());
     saveButton.addActionListener(evt -> features.saveImage());
+    undoButton.addActionListener(evt -> features.undo());
+    redoButton.addActionListener(evt -> features.redo());
     redButton.addActionListener(evt -> features.redComponent());
     greenButton.addActionListener(evt -> features.greenComponent());
     blueButton.addActionListener(evt -> features.blueComponent());
@@ -210,39 +220,81 @@ public class GUIView extends JFrame implements IGUIView {
     colorCorrectButton.setEnabled(!show);
     adjustLevelsButton.setEnabled(!show);
     saveButton.setEnabled(!show);
+    undoButton.setEnabled(!show);
+    redoButton.setEnabled(!show);
   }
 
   /**
-   * Prompts the user to enter a split percentage for previewing an image effect.
+   * Prompts the user to choose a split percentage for previewing an image effect with a slider.
+   * While the slider is dragged the features are asked for a live preview of the effect at the
+   * current split position. Choosing 100 applies the effect to the entire image.
    *
-   * @return An `Optional` containing the split percentage if entered, or empty if not entered.
-   * @throws Exception if the input is invalid or the user cancels the prompt.
+   * @return An `Optional` containing the split percentage, or empty if the effect should be
+   *         applied to the entire image, or null if the prompt was cancelled.
+   * @throws Exception if the prompt cannot be shown.
    */
-
   @Override
   public Optional<Double> promptForSplitPercentage() throws Exception {
-    JTextField textField = new JTextField();
-    Object[] message = { "Enter split percentage for preview " + "\n"
-                    + "(Keep blank for effect to be applied to entire image):", textField };
+    JSlider slider = createSlider(0, 100, 50, 25);
+    slider.addChangeListener(evt -> requestSplitPreview(slider.getValue()));
+    Object[] message = { "Drag to choose the split percentage for preview " + "\n"
+                    + "(100 applies the effect to the entire image):", slider };
+    requestSplitPreview(slider.getValue());
 
     int option = JOptionPane.showConfirmDialog(this, message, "Input",
             JOptionPane.OK_CANCEL_OPTION);
 
     if (option == JOptionPane.OK_OPTION) {
-      String result = textField.getText();
-      if (result.trim().isEmpty()) {
+      if (slider.getValue() == 100) {
         return Optional.empty();
       }
-      try {
-        return Optional.of(Double.parseDouble(result.trim()));
-      } catch (NumberFormatException e) {
-        throw new Exception("Invalid input. Please enter a numeric value.");
-      }
+      return Optional.of((double) slider.getValue());
     } else {
       return null;
     }
   }
 
+  /**
+   * Creates a horizontal slider with labelled major ticks.
+   *
+   * @param min         The minimum value of the slider.
+   * @param max         The maximum value of the slider.
+   * @param value       The initial value of the slider.
+   * @param tickSpacing The spacing between labelled ticks.
+   * @return The created JSlider.
+   */
+  private JSlider createSlider(int min, int max, int value, int tickSpacing) {
+    JSlider slider = new JSlider(JSlider.HORIZONTAL, min, max, value);
+    slider.setMajorTickSpacing(tickSpacing);
+    slider.setPaintTicks(true);
+    slider.setPaintLabels(true);
+    return slider;
+  }
+
+  /**
+   * Asks the features for a live preview at the given split percentage, if features are attached.
+   *
+   * @param splitPercentage The split percentage to preview.
+   */
+  private void requestSplitPreview(int splitPercentage) {
+    if (features != null) {
+      features.previewSplit(splitPercentage);
+    }
+  }
+
+  /**
+   * Asks the features for a live preview of the given levels, if features are attached.
+   *
+   * @param b The black point value.
+   * @param m The mid point value.
+   * @param w The white point value.
+   */
+  private void requestLevelsPreview(int b, int m, int w) {
+    if (features != null) {
+      features.previewLevels(b, m, w);
+    }
+  }
+
   /**
    * Configures the file chooser dialog with the specified title and file filters.
    *
@@ -260,11 +312,14 @@ public class GUIView extends JFrame implements IGUIView {
             "png");
     FileNameExtensionFilter ppmFilter = new FileNameExtensionFilter("PPM files (*.ppm)",
             "ppm");
+    FileNameExtensionFilter rawFilter = new FileNameExtensionFilter(
+            "Raw image files (*.rawimg)", "rawimg");
 
     fileChooser.addChoosableFileFilter(jpgFilter);
     fileChooser.addChoosableFileFilter(jpegFilter);
     fileChooser.addChoosableFileFilter(pngFilter);
     fileChooser.addChoosableFileFilter(ppmFilter);
+    fileChooser.addChoosableFileFilter(rawFilter);
 
     fileChooser.setFileFilter(pngFilter);
     fileChooser.setAcceptAllFileFilterUsed(false);
@@ -306,7 +361,8 @@ public class GUIView extends JFrame implements IGUIView {
       String selectedExtension = selectedFilter.getExtensions()[0];
 
       if (!(filePath.toLowerCase().endsWith(".jpg") || filePath.toLowerCase().endsWith(".jpeg") ||
-              filePath.toLowerCase().endsWith(".png") || filePath.toLowerCase().endsWith(".ppm"))) {
+              filePath.toLowerCase().endsWith(".png") || filePath.toLowerCase().endsWith(".ppm")
+              || filePath.toLowerCase().endsWith(".rawimg"))) {
         filePath += "." + selectedExtension;
       }
       return filePath;
@@ -315,38 +371,40 @@ public class GUIView extends JFrame implements IGUIView {
   }
 
   /**
-   * Prompts the user to enter bright, mid, and white values for image processing.
+   * Prompts the user to choose bright, mid, and white values for image processing with sliders.
+   * While a slider is dragged the features are asked for a live preview of the adjustment.
    *
-   * @return An array of three integers containing bright, mid, and white values.
-   * @throws Exception if the input is invalid or the user cancels the prompt.
+   * @return An array of three integers containing bright, mid, and white values, or null if the
+   *         prompt was cancelled.
+   * @throws Exception if the prompt cannot be shown.
    */
   @Override
   public int[] promptForLevels() throws Exception {
-    JTextField brightField = new JTextField(5);
-    JTextField midField = new JTextField(5);
-    JTextField whiteField = new JTextField(5);
+    JSlider brightSlider = createSlider(0, 255, 0, 85);
+    JSlider midSlider = createSlider(0, 255, 128, 85);
+    JSlider whiteSlider = createSlider(0, 255, 255, 85);
+
+    ChangeListener previewListener = evt -> requestLevelsPreview(
+            brightSlider.getValue(), midSlider.getValue(), whiteSlider.getValue());
+    brightSlider.addChangeListener(previewListener);
+    midSlider.addChangeListener(previewListener);
+    whiteSlider.addChangeListener(previewListener);
 
     JPanel myPanel = new JPanel();
     myPanel.add(new JLabel("Bright:"));
-    myPanel.add(brightField);
+    myPanel.add(brightSlider);
     myPanel.add(Box.createHorizontalStrut(15));
     myPanel.add(new JLabel("Mid:"));
-    myPanel.add(midField);
+    myPanel.add(midSlider);
     myPanel.add(Box.createHorizontalStrut(15));
     myPanel.add(new JLabel("White:"));
-    myPanel.add(whiteField);
+    myPanel.add(whiteSlider);
+    requestLevelsPreview(brightSlider.getValue(), midSlider.getValue(), whiteSlider.getValue());
 
     int result = JOptionPane.showConfirmDialog(this, myPanel,
-            "Enter Bright, Mid, and White Values:", JOptionPane.OK_CANCEL_OPTION);
+            "Choose Bright, Mid, and White Values:", JOptionPane.OK_CANCEL_OPTION);
     if (result == JOptionPane.OK_OPTION) {
-      try {
-        int bright = Integer.parseInt(brightField.getText());
-        int mid = Integer.parseInt(midField.getText());
-        int white = Integer.parseInt(whiteField.getText());
-        return new int[]{bright, mid, white};
-      } catch (NumberFormatException e) {
-        throw new Exception("Invalid input for b, m, w. Please enter numeric values.");
-      }
+      return new int[]{brightSlider.getValue(), midSlider.getValue(), whiteSlider.getValue()};
     }
     return null;
   }
@@ -0,0 +1,129 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import controller.BatchPipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for the BatchPipeline.
+ */
+public class BatchPipelineTest {
+
+  /**
+   * Tests that the I/O tasks run on virtual threads exactly when the runtime has them, and
+   * that CPU work runs on the CPU threads.
+   */
+  @Test
+  public void testThreads() throws Exception {
+    try (BatchPipeline pipeline = new BatchPipeline(2)) {
+      assertEquals(Runtime.version().feature() >= 21, pipeline.usesVirtualThreads());
+      String[] names = new String[2];
+      CountDownLatch done = new CountDownLatch(1);
+      pipeline.execute(() -> {
+        try {
+          names[0] = Thread.currentThread().getName();
+          names[1] = pipeline.compute(() -> Thread.currentThread().getName());
+        } catch (Exception e) {
+          names[1] = e.toString();
+        } finally {
+          done.countDown();
+        }
+      });
+      assertTrue(done.await(10, TimeUnit.SECONDS));
+      assertEquals(pipeline.usesVirtualThreads(), !names[0].startsWith("batch-io-"));
+      assertTrue(names[1], names[1].startsWith("batch-cpu-"));
+    }
+  }
+
+  /**
+   * Tests that submitting waits while the largest number of I/O tasks is in flight, and that
+   * CPU work waits in a bounded queue while the CPU threads are busy.
+   */
+  @Test
+  public void testBounded() throws Exception {
+    try (BatchPipeline pipeline = new BatchPipeline(1, 1, 3)) {
+      CountDownLatch release = new CountDownLatch(1);
+      AtomicInteger computed = new AtomicInteger();
+      for (int i = 0; i < 3; i++) {
+        pipeline.execute(() -> {
+          try {
+            pipeline.compute(() -> {
+              release.await();
+              return computed.incrementAndGet();
+            });
+          } catch (Exception e) {
+            throw new IllegalStateException(e);
+          }
+        });
+      }
+      assertEquals(3, pipeline.getInFlight());
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (pipeline.getCpuQueueDepth() < 1 && System.nanoTime() < deadline) {
+        Thread.sleep(5);
+      }
+      assertEquals(1, pipeline.getCpuQueueDepth());
+
+      Thread submitter = new Thread(() -> {
+        try {
+          pipeline.execute(computed::incrementAndGet);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      submitter.start();
+      submitter.join(200);
+      assertTrue(submitter.isAlive());
+      assertEquals(0, computed.get());
+
+      release.countDown();
+      submitter.join(10000);
+      assertFalse(submitter.isAlive());
+      pipeline.awaitIdle();
+      assertEquals(0, pipeline.getInFlight());
+      assertEquals(4, computed.get());
+    }
+  }
+
+  /**
+   * Tests that an exception thrown by CPU work is thrown by compute.
+   */
+  @Test
+  public void testComputeThrows() throws Exception {
+    try (BatchPipeline pipeline = new BatchPipeline(1)) {
+      assertEquals(Integer.valueOf(42), pipeline.compute(() -> 42));
+      try {
+        pipeline.compute(() -> {
+          throw new IOException("Disk full.");
+        });
+        fail("Expected the exception of the work.");
+      } catch (IOException e) {
+        assertEquals("Disk full.", e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Tests that counts that are not positive are rejected.
+   */
+  @Test
+  public void testInvalidCounts() {
+    int[][] counts = {{0, 1, 1}, {1, 0, 1}, {1, 1, -1}};
+    for (int[] count : counts) {
+      try {
+        new BatchPipeline(count[0], count[1], count[2]).close();
+        fail("Expected the counts to be rejected.");
+      } catch (IllegalArgumentException e) {
+        assertEquals("Threads, queue capacity and tasks in flight must be positive.",
+                e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,272 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import controller.BatchJournal;
+import controller.BatchRunner;
+import controller.CommandFactory;
+import controller.CommandRegistry;
+import controller.CompiledCommand;
+import controller.PNGParser;
+import controller.ScriptMode;
+import model.image.Image;
+import model.image.Pixel;
+import model.strategy.FilterStrategy;
+import model.strategy.SepiaFilterStrategy;
+import view.ConsoleView;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for the BatchRunner and the BatchJournal.
+ */
+public class BatchRunnerTest {
+  private static final List<String> TEMPLATE = Arrays.asList(
+          "load {input} img",
+          "sepia img toned",
+          "save {output}/{name}.ppm toned",
+          "save {output}/{name}-original.png img");
+
+  private Path input;
+  private Path output;
+  private Path journalFile;
+
+  /**
+   * Creates the input and output folders and three images.
+   */
+  @Before
+  public void setUp() throws IOException {
+    input = Files.createTempDirectory("batch-input");
+    output = Files.createTempDirectory("batch-output");
+    journalFile = output.resolve(BatchRunner.JOURNAL_NAME);
+    for (int i = 0; i < 3; i++) {
+      write("image" + i + ".png", i);
+    }
+  }
+
+  /**
+   * Deletes the folders and their files.
+   */
+  @After
+  public void tearDown() {
+    for (Path folder : new Path[]{input, output}) {
+      delete(folder.toFile());
+    }
+  }
+
+  /**
+   * Deletes a file or a folder with its files.
+   *
+   * @param file the file or folder
+   */
+  private static void delete(File file) {
+    File[] files = file.listFiles();
+    if (files != null) {
+      for (File child : files) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+  /**
+   * Writes a small image into the input folder.
+   *
+   * @param name the name of the file
+   * @param seed the value that the colors depend on
+   * @throws IOException if the file cannot be written
+   */
+  private void write(String name, int seed) throws IOException {
+    new PNGParser().saveImage(input.resolve(name).toString(), new Image(new Pixel[][]{
+        {new Pixel(seed * 40, 20, 30), new Pixel(200, seed * 10, 0)},
+        {new Pixel(0, 255, seed), new Pixel(90, 90, 90)}}));
+  }
+
+  /**
+   * Runs the template on the input folder with a newly opened journal.
+   *
+   * @param verify whether to compare the checksums of recorded outputs
+   * @return the runner after the run
+   * @throws Exception if the run fails
+   */
+  private BatchRunner run(boolean verify) throws Exception {
+    BatchRunner runner = new BatchRunner(input, output, TEMPLATE, 2, ScriptMode.DIRECT,
+            CommandRegistry.getDefault(), new ConsoleView());
+    try (BatchJournal journal = new BatchJournal(journalFile)) {
+      runner.run(journal, verify);
+    }
+    return runner;
+  }
+
+  /**
+   * Asserts the counts of a run.
+   *
+   * @param runner    the runner
+   * @param skipped   the expected number of skipped files
+   * @param completed the expected number of processed files
+   * @param failed    the expected number of failed files
+   */
+  private static void assertCounts(BatchRunner runner, long skipped, long completed,
+                                   long failed) {
+    assertEquals(skipped, runner.getSkipped());
+    assertEquals(completed, runner.getCompleted());
+    assertEquals(failed, runner.getFailed());
+  }
+
+  /**
+   * Tests that a second run skips every file the first run finished and leaves its outputs
+   * alone.
+   */
+  @Test
+  public void testFinishedFilesAreSkipped() throws Exception {
+    assertCounts(run(false), 0, 3, 0);
+    byte[] first = Files.readAllBytes(output.resolve("image1.ppm"));
+    FileTime written = Files.getLastModifiedTime(output.resolve("image1.ppm"));
+    assertCounts(run(false), 3, 0, 0);
+    assertCounts(run(true), 3, 0, 0);
+    assertArrayEquals(first, Files.readAllBytes(output.resolve("image1.ppm")));
+    assertEquals(written, Files.getLastModifiedTime(output.resolve("image1.ppm")));
+    try (BatchJournal journal = new BatchJournal(journalFile)) {
+      assertEquals(3, journal.getEntryCount());
+      assertEquals(0, journal.getDiscardedLines());
+      assertEquals(Arrays.asList("image0-original.png", "image0.ppm"),
+              journal.getOutputs("image0.png"));
+    }
+    assertEquals(4, Files.readAllLines(journalFile).size());
+  }
+
+  /**
+   * Tests that changed inputs and outputs with a different size are processed again, and that
+   * outputs with the same size but different content are only found when verifying.
+   */
+  @Test
+  public void testChangesAreProcessedAgain() throws Exception {
+    assertCounts(run(false), 0, 3, 0);
+    write("image0.png", 5);
+    Files.setLastModifiedTime(input.resolve("image0.png"), FileTime.fromMillis(1000));
+    Files.write(output.resolve("image1.ppm"), new byte[]{'P', '3'});
+    byte[] corrupted = Files.readAllBytes(output.resolve("image2.ppm"));
+    corrupted[corrupted.length - 2] = (byte) (corrupted[corrupted.length - 2] == '1' ? '2' : '1');
+    Files.write(output.resolve("image2.ppm"), corrupted);
+
+    assertCounts(run(false), 1, 2, 0);
+    assertTrue(Files.size(output.resolve("image1.ppm")) > 2);
+    assertCounts(run(true), 2, 1, 0);
+    assertCounts(run(true), 3, 0, 0);
+  }
+
+  /**
+   * Tests that a job stopped in the middle of a file resumes: the line that was not completely
+   * written is ignored, the partial results are deleted and only the unfinished files are
+   * processed.
+   */
+  @Test
+  public void testStoppedJobResumes() throws Exception {
+    assertCounts(run(false), 0, 3, 0);
+    write("image3.png", 3);
+    write("image4.png", 4);
+    Files.write(journalFile, "image3.png\t123\t4".getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.APPEND);
+    Path staging = Files.createDirectory(output.resolve(".staging-12345"));
+    Files.write(staging.resolve("image3.ppm"), new byte[]{'P'});
+
+    try (BatchJournal journal = new BatchJournal(journalFile)) {
+      assertEquals(3, journal.getEntryCount());
+      assertEquals(1, journal.getDiscardedLines());
+    }
+    assertCounts(run(false), 3, 2, 0);
+    assertFalse(Files.exists(staging));
+    try (BatchJournal journal = new BatchJournal(journalFile)) {
+      assertEquals(5, journal.getEntryCount());
+      assertEquals(1, journal.getDiscardedLines());
+    }
+    assertEquals(10, output.toFile().list().length - 1);
+  }
+
+  /**
+   * Tests that a streamed batch applies its filters on the CPU threads of the pipeline rather
+   * than on threads of a strip pipeline, and writes the same files as a direct batch.
+   */
+  @Test
+  public void testStreamedBatchFiltersOnCpuThreads() throws Exception {
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    FilterStrategy probe = new FilterStrategy() {
+      @Override
+      public Image apply(Image image) {
+        threads.add(Thread.currentThread().getName());
+        return new SepiaFilterStrategy().apply(image);
+      }
+    };
+    Map<String, CommandFactory> factories = CommandRegistry.builtIns();
+    factories.put("probe", (text, words) -> CompiledCommand.pure(text, words[0],
+        Collections.singletonList(words[1]), Collections.singletonList(words[2]),
+        Collections.singletonList("probe"), model -> () -> {
+          model.addImage(model.getImage(words[1]).applyFilter(probe), words[2]);
+          return true;
+        }).withFilter(probe));
+    List<String> template = Arrays.asList("load {input} img", "probe img toned",
+            "save {output}/{name}.ppm toned");
+    BatchRunner runner = new BatchRunner(input, output, template, 2, ScriptMode.STREAMED,
+            new CommandRegistry(factories), new ConsoleView());
+    try (BatchJournal journal = new BatchJournal(journalFile)) {
+      runner.run(journal, false);
+    }
+    assertCounts(runner, 0, 3, 0);
+    assertFalse(threads.isEmpty());
+    for (String thread : threads) {
+      assertTrue(thread, thread.startsWith("batch-cpu-"));
+    }
+    byte[] streamed = Files.readAllBytes(output.resolve("image1.ppm"));
+    delete(output.toFile());
+    Files.createDirectories(output);
+    run(false);
+    assertArrayEquals(Files.readAllBytes(output.resolve("image1.ppm")), streamed);
+  }
+
+  /**
+   * Tests that a file the template fails on is not recorded and is tried again.
+   */
+  @Test
+  public void testFailedFileIsTriedAgain() throws Exception {
+    Files.write(input.resolve("broken.png"), new byte[]{1, 2, 3});
+    assertCounts(run(false), 0, 3, 1);
+    assertCounts(run(false), 3, 0, 1);
+    try (BatchJournal journal = new BatchJournal(journalFile)) {
+      assertEquals(Collections.emptyList(), journal.getOutputs("broken.png"));
+    }
+    assertFalse(Files.exists(output.resolve("broken.ppm")));
+  }
+
+  /**
+   * Tests that a file that is not a journal is rejected and left unchanged.
+   */
+  @Test
+  public void testNotAJournal() throws IOException {
+    Files.write(journalFile, Collections.singletonList("some notes"));
+    try {
+      new BatchJournal(journalFile).close();
+      fail("Expected the file to be rejected.");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().startsWith("Not a batch journal: "));
+    }
+    assertEquals(Collections.singletonList("some notes"), Files.readAllLines(journalFile));
+  }
+}
@@ -323,4 +323,27 @@ public class CommandBuilderTest {
     assertNotNull(commandPair.getApplyCommand());
     assertEquals("AdjustLevelsCommand", commandPair.getApplyCommand().toString());
   }
+
+  /**
+   * Tests the CommandBuilder for creating UndoCommand and RedoCommand.
+   * Verifies that they are rejected without a loaded image and are apply-only commands after.
+   */
+  @Test
+  public void testUndoRedoCommandBuilder() {
+    assertNull(commandBuilder.createCommand("undo"));
+    assertNull(commandBuilder.createCommand("redo"));
+
+    commandBuilder.createCommand("load");
+    CommandPair commandPair = commandBuilder.createCommand("undo");
+
+    assertNotNull(commandPair);
+    assertNull(commandPair.getPreviewCommand());
+    assertEquals("UndoCommand", commandPair.getApplyCommand().toString());
+
+    commandPair = commandBuilder.createCommand("redo");
+
+    assertNotNull(commandPair);
+    assertNull(commandPair.getPreviewCommand());
+    assertEquals("RedoCommand", commandPair.getApplyCommand().toString());
+  }
 }
@@ -0,0 +1,312 @@
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import controller.CommandFactory;
+import controller.CommandRegistry;
+import controller.CompiledCommand;
+import controller.ImageController;
+import controller.ImageParserRegistry;
+import controller.PNGParser;
+import controller.RawImageParser;
+import controller.ScriptPlan;
+import controller.commands.HorizontalFlipCommand;
+import model.ImageModel;
+import model.MockModel;
+import model.image.Image;
+import model.image.Pixel;
+import model.image.TiledImage;
+import model.strategy.BlurFilterStrategy;
+import model.strategy.LumaFilterStrategy;
+import model.strategy.SplitFilterDecorator;
+import view.ConsoleView;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for the CommandRegistry and the compiled script plans run by the ImageController.
+ */
+public class CommandRegistryTest {
+  private static final String DIR = "res/controllerTest/";
+  private final File scriptFile = new File(DIR + "plan_script.txt");
+  private final List<File> files = new ArrayList<>();
+
+  /**
+   * Deletes the script and the images written by the tests.
+   */
+  @After
+  public void tearDown() {
+    scriptFile.delete();
+    for (File file : files) {
+      file.delete();
+    }
+  }
+
+  /**
+   * Returns the path of a file in the test folder, which is deleted after the test.
+   *
+   * @param name the name of the file
+   * @return the path of the file
+   */
+  private String file(String name) {
+    files.add(new File(DIR + name));
+    return DIR + name;
+  }
+
+  /**
+   * Asserts that an image file holds the pixels of an image.
+   *
+   * @param expected the expected image
+   * @param path     the path of the file
+   * @throws IOException If the file cannot be read.
+   */
+  private void assertFileHolds(Image expected, String path) throws IOException {
+    Image actual = ImageParserRegistry.getDefault().forLoading(path).loadImage(path);
+    assertEquals(path, expected.getWidth(), actual.getWidth());
+    assertEquals(path, expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        Pixel e = expected.getPixel(x, y);
+        Pixel a = actual.getPixel(x, y);
+        assertEquals(path + " at " + x + "," + y,
+                Arrays.asList(e.getRed(), e.getGreen(), e.getBlue()),
+                Arrays.asList(a.getRed(), a.getGreen(), a.getBlue()));
+      }
+    }
+  }
+
+  /**
+   * Asserts that compiling a command fails with the given message.
+   *
+   * @param command the command
+   * @param message the expected message
+   */
+  private void assertRejected(String command, String message) {
+    try {
+      CommandRegistry.getDefault().compile(command);
+      fail("Expected " + command + " to be rejected.");
+    } catch (IllegalArgumentException e) {
+      assertEquals(message, e.getMessage());
+    }
+  }
+
+  /**
+   * Tests that every command of the example script compiles.
+   */
+  @Test
+  public void testCompileExampleScript() throws IOException {
+    ScriptPlan plan = CommandRegistry.getDefault().compile(
+            Files.readAllLines(Paths.get("res/commands.txt")));
+    assertTrue(plan.size() > 20);
+    assertEquals("load", plan.getCommands().get(0).getName());
+    assertEquals("film", plan.getCommands().get(0).getOutputImageName().get());
+  }
+
+  /**
+   * Tests the names and arguments that the compiled commands keep.
+   */
+  @Test
+  public void testCompiledCommands() {
+    CommandRegistry registry = CommandRegistry.getDefault();
+    CompiledCommand save = registry.compile("  save a.png  b.jpg film quality 80 ");
+    assertEquals("save", save.getName());
+    assertEquals("save a.png  b.jpg film quality 80", save.getText());
+    assertEquals("film", save.getOutputImageName().get());
+    assertEquals("out", registry.compile("levels-adjust 1 2 3 in out split 50")
+            .getOutputImageName().get());
+    assertEquals("sub.txt", registry.compile("run sub.txt").getScriptPath().get());
+    assertFalse(registry.compile("blur a b").getScriptPath().isPresent());
+  }
+
+  /**
+   * Tests that invalid commands are rejected with the reason.
+   */
+  @Test
+  public void testInvalidCommandsRejected() {
+    assertRejected("hello a b", "Unknown command hello");
+    assertRejected("brighten x a b", "Not a whole number: x");
+    assertRejected("blur a", "Usage: blur <source image name> <destination image name> "
+            + "[split <percentage>]");
+    assertRejected("blur a b split", "Expected split <percentage> after b");
+    assertRejected("sepia a b split 150", "Split percentage must be between 0 and 100.");
+    assertRejected("resize 0 10 a b", "Not a positive number: 0");
+    assertRejected("resize 10 10 a b nearest", "Unknown filter nearest");
+    assertRejected("save film", "Usage: save <file path>... <image name> [settings]");
+    assertRejected("tile a.png b.png", "Usage: tile <source file path> <target file path> "
+            + "<operation> [arguments]");
+    assertRejected("tile a.png b.png hello", "Unknown tile operation hello");
+    assertRejected("tile a.png b.png brighten", "Usage: brighten <increment>");
+    assertRejected("tile a.png b.png red-component split 50", "Usage: red-component ");
+    assertRejected("tile a.png b.png blur split 150",
+            "Split percentage must be between 0 and 100.");
+  }
+
+  /**
+   * Tests that a script with a mistake on its last line is rejected with the line number
+   * before any of its commands runs.
+   */
+  @Test
+  public void testScriptFailsFast() throws IOException {
+    List<String> lines = new ArrayList<>(Collections.nCopies(100000, "blur in out"));
+    lines.add(0, "# a large script");
+    lines.add("brighten ten in out");
+    Files.write(scriptFile.toPath(), lines);
+
+    try {
+      CommandRegistry.getDefault().compileScript(scriptFile.getPath());
+      fail("Expected the script to be rejected.");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Line 100002: Not a whole number: ten", e.getMessage());
+    }
+
+    PrintStream originalErr = System.err;
+    ByteArrayOutputStream errContent = new ByteArrayOutputStream();
+    System.setErr(new PrintStream(errContent));
+    MockModel model = new MockModel();
+    try {
+      new ImageController(model, new ConsoleView()).runScript(scriptFile.getPath());
+    } finally {
+      System.setErr(originalErr);
+    }
+    assertEquals("", model.getLog());
+    assertTrue(errContent.toString().contains("Line 100002: Not a whole number: ten"));
+    assertTrue(errContent.toString().contains("Error running the script file."));
+  }
+
+  /**
+   * Tests that the plan of a script is reused until the script changes.
+   */
+  @Test
+  public void testPlanReused() throws IOException {
+    CommandRegistry registry = new CommandRegistry(CommandRegistry.builtIns());
+    Files.write(scriptFile.toPath(), Arrays.asList("blur a b", "sepia b c"));
+    ScriptPlan first = registry.compileScript(scriptFile.getPath());
+    assertSame(first, registry.compileScript(scriptFile.getPath()));
+    assertEquals(1, registry.getCachedPlanCount());
+
+    Files.write(scriptFile.toPath(), Arrays.asList("blur a b", "sepia b c", "sharpen c d"));
+    ScriptPlan changed = registry.compileScript(scriptFile.getPath());
+    assertNotSame(first, changed);
+    assertEquals(3, changed.size());
+  }
+
+  /**
+   * Tests that a script edited without changing its size is compiled again, even if its
+   * modification time is restored.
+   */
+  @Test
+  public void testPlanRecompiledWhenContentChanges() throws IOException {
+    CommandRegistry registry = new CommandRegistry(CommandRegistry.builtIns());
+    Path path = scriptFile.toPath();
+    Files.write(path, Arrays.asList("blur a b", "sepia b c"));
+    FileTime modified = Files.getLastModifiedTime(path);
+    ScriptPlan first = registry.compileScript(scriptFile.getPath());
+
+    Files.write(path, Arrays.asList("blur a b", "sepia b d"));
+    Files.setLastModifiedTime(path, modified);
+    ScriptPlan changed = registry.compileScript(scriptFile.getPath());
+    assertNotSame(first, changed);
+    assertEquals("sepia b d", changed.getCommands().get(1).getText());
+    assertSame(changed, registry.compileScript(scriptFile.getPath()));
+  }
+
+  /**
+   * Tests that a compiled plan can be executed against several models.
+   */
+  @Test
+  public void testPlanRunsOnSeveralModels() throws Exception {
+    ScriptPlan plan = CommandRegistry.getDefault().compile(
+            Arrays.asList("horizontal-flip img flipped", "brighten 10 flipped bright"));
+    for (int run = 0; run < 2; run++) {
+      ImageModel model = new ImageModel();
+      model.addImage(new Image(new Pixel[][]{{new Pixel(1, 2, 3), new Pixel(4, 5, 6)}}), "img");
+      for (CompiledCommand command : plan.getCommands()) {
+        assertTrue(command.bind(model).execute());
+      }
+      assertEquals(14, model.getImage("bright").getPixel(0, 0).getRed());
+    }
+  }
+
+  /**
+   * Tests that a registry can be extended with a command of its own.
+   */
+  @Test
+  public void testCustomCommand() throws Exception {
+    Map<String, CommandFactory> factories = CommandRegistry.builtIns();
+    factories.put("mirror", (text, words) -> CompiledCommand.of(text, words[0], words[1],
+        model -> new HorizontalFlipCommand(words[1], words[1], model)));
+    CommandRegistry registry = new CommandRegistry(factories);
+    assertTrue(registry.getCommandNames().contains("mirror"));
+
+    ImageModel model = new ImageModel();
+    model.addImage(new Image(new Pixel[][]{{new Pixel(1, 2, 3), new Pixel(4, 5, 6)}}), "img");
+    assertTrue(registry.compile("mirror img").bind(model).execute());
+    assertEquals(4, model.getImage("img").getPixel(0, 0).getRed());
+  }
+
+  /**
+   * Tests that tile commands in a script filter image files larger than one tile, reading and
+   * writing them in strips, and give the pixels of the image operations.
+   */
+  @Test
+  public void testTileCommands() throws IOException {
+    Random random = new Random(5);
+    int width = TiledImage.TILE_SIZE + 45;
+    int height = TiledImage.TILE_SIZE + 13;
+    Pixel[][] pixels = new Pixel[height][width];
+    for (Pixel[] row : pixels) {
+      for (int x = 0; x < width; x++) {
+        row[x] = new Pixel(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+      }
+    }
+    Image image = new Image(pixels);
+    String raw = file("tile_source.rawimg");
+    String png = file("tile_source.png");
+    new RawImageParser(true).saveImage(raw, image);
+    new PNGParser().saveImage(png, image);
+    String sepia = file("tile_sepia.rawimg");
+    String blur = file("tile_blur.png");
+    String flip = file("tile_flip.rawimg");
+    String dark = file("tile_dark.ppm");
+    String levels = file("tile_levels.rawimg");
+    String luma = file("tile_luma.rawimg");
+    Files.write(scriptFile.toPath(), Arrays.asList(
+            "tile " + raw + " " + sepia + " sepia",
+            "tile " + png + " " + blur + " blur split 50",
+            "tile " + raw + " " + flip + " vertical-flip",
+            "tile " + raw + " " + dark + " brighten -40",
+            "tile " + raw + " " + levels + " levels-adjust 20 100 220",
+            "tile " + raw + " " + luma + " luma-component split 30"));
+
+    MockModel model = new MockModel();
+    new ImageController(model, new ConsoleView()).runScript(scriptFile.getPath());
+    assertEquals("", model.getLog());
+    assertFileHolds(image.toSepia(), sepia);
+    assertFileHolds(image.applyFilter(new SplitFilterDecorator(new BlurFilterStrategy(), 50)),
+            blur);
+    assertFileHolds(image.verticalFlip(), flip);
+    assertFileHolds(image.brighten(-40), dark);
+    assertFileHolds(image.adjustLevels(20, 100, 220), levels);
+    assertFileHolds(image.applyFilter(new SplitFilterDecorator(new LumaFilterStrategy(), 30)),
+            luma);
+  }
+}
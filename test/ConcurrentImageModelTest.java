@@ -0,0 +1,348 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import model.ConcurrentImageModel;
+import model.IImageModel;
+import model.ImageModel;
+import model.image.Image;
+import model.image.Pixel;
+import model.image.ResizeFilter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for the ConcurrentImageModel, including stress tests with many threads working
+ * on the same model.
+ */
+public class ConcurrentImageModelTest {
+  private static final int THREADS = 8;
+
+  /**
+   * Creates an image of one color.
+   *
+   * @param width  the width
+   * @param height the height
+   * @param value  the value of every channel
+   * @return the image
+   */
+  private static Image uniform(int width, int height, int value) {
+    Pixel[][] pixels = new Pixel[height][width];
+    for (Pixel[] row : pixels) {
+      Arrays.fill(row, new Pixel(value, value, value));
+    }
+    return new Image(pixels);
+  }
+
+  /**
+   * Runs a task on several threads that all start at the same moment, and rethrows the first
+   * exception a task threw.
+   *
+   * @param threads the number of threads
+   * @param task    the task, given the index of its thread
+   * @throws Exception the exception of a task
+   */
+  private static void runAll(int threads, IndexedTask task) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        int index = i;
+        futures.add(executor.submit((Callable<Void>) () -> {
+          start.await();
+          task.run(index);
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<Void> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * A task that knows the index of its thread.
+   */
+  private interface IndexedTask {
+
+    /**
+     * Runs the task.
+     *
+     * @param index the index of the thread
+     * @throws Exception if the task fails
+     */
+    void run(int index) throws Exception;
+  }
+
+  /**
+   * Tests that threads brightening the same image in place lose none of their updates.
+   */
+  @Test
+  public void testNoLostUpdates() throws Exception {
+    ConcurrentImageModel model = new ConcurrentImageModel();
+    model.addImage(uniform(3, 2, 0), "img");
+    int perThread = 25;
+    runAll(THREADS, index -> {
+      for (int i = 0; i < perThread; i++) {
+        model.brightenCommand(1, "img", "img");
+      }
+    });
+    Image image = model.getImage("img");
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        assertEquals(THREADS * perThread, image.getPixel(x, y).getBlue());
+      }
+    }
+  }
+
+  /**
+   * Tests that readers only ever see whole images while writers replace them: every image read
+   * has one color and the size that belongs to it.
+   */
+  @Test
+  public void testNoTornReads() throws Exception {
+    ConcurrentImageModel model = new ConcurrentImageModel();
+    model.addImage(uniform(1, 1, 1), "img");
+    AtomicBoolean writing = new AtomicBoolean(true);
+    runAll(THREADS, index -> {
+      if (index < THREADS / 2) {
+        for (int i = 0; i < 200; i++) {
+          int value = 1 + (index * 200 + i) % 16;
+          model.addImage(uniform(value, value, value), "img");
+          model.verticalFlip("img", "flipped" + index);
+        }
+        writing.set(false);
+      } else {
+        int reads = 0;
+        while (writing.get() || reads < 200) {
+          Image image = model.getImage("img");
+          int value = image.getWidth();
+          assertEquals(value, image.getHeight());
+          for (int y = 0; y < value; y++) {
+            for (int x = 0; x < value; x++) {
+              assertEquals(value, image.getPixel(x, y).getGreen());
+            }
+          }
+          reads++;
+        }
+      }
+    });
+    assertEquals(THREADS / 2 + 1, model.getImageNames().size());
+  }
+
+  /**
+   * Tests that threads adding images under names of their own lose none of them, and that
+   * operations on images of other threads run while they are being added.
+   */
+  @Test
+  public void testConcurrentInserts() throws Exception {
+    ConcurrentImageModel model = new ConcurrentImageModel();
+    model.addImage(uniform(4, 4, 100), "shared");
+    int perThread = 100;
+    runAll(THREADS, index -> {
+      for (int i = 0; i < perThread; i++) {
+        String name = "image-" + index + "-" + i;
+        model.addImage(uniform(2, 2, i), name);
+        model.sepia("shared", name + "-sepia", Optional.empty());
+        model.thumbnail("shared", name + "-thumb", 2);
+        assertEquals(i, model.getImage(name).getPixel(1, 1).getRed());
+      }
+    });
+    assertEquals(1 + 3 * THREADS * perThread, model.getImageNames().size());
+  }
+
+  /**
+   * Tests that sessions keep images of the same name apart, that every thread asking for a
+   * session gets the same model, and that closing a session removes its images.
+   */
+  @Test
+  public void testSessions() throws Exception {
+    ConcurrentImageModel model = new ConcurrentImageModel();
+    assertEquals(ConcurrentImageModel.DEFAULT_SESSION, model.getSessionName());
+    ConcurrentImageModel[] sessions = new ConcurrentImageModel[THREADS];
+    runAll(THREADS, index -> {
+      sessions[index] = model.session("client");
+      model.session("client-" + index).addImage(uniform(1, 1, index), "img");
+    });
+    for (ConcurrentImageModel session : sessions) {
+      assertSame(sessions[0], session);
+    }
+    assertSame(model, sessions[0].session(ConcurrentImageModel.DEFAULT_SESSION));
+    assertEquals(THREADS + 2, model.getSessionNames().size());
+    for (int i = 0; i < THREADS; i++) {
+      assertEquals(i, model.session("client-" + i).getImage("img").getPixel(0, 0).getRed());
+    }
+    try {
+      model.getImage("img");
+      fail("Expected the default session to have no image.");
+    } catch (IOException e) {
+      assertEquals("Image not found.", e.getMessage());
+    }
+
+    ConcurrentImageModel closed = model.session("client-0");
+    assertTrue(model.closeSession("client-0"));
+    assertFalse(model.closeSession("client-0"));
+    assertTrue(closed.getImageNames().isEmpty());
+    assertNotSame(closed, model.session("client-0"));
+    assertTrue(model.session("client-0").getImageNames().isEmpty());
+    try {
+      model.closeSession(ConcurrentImageModel.DEFAULT_SESSION);
+      fail("Expected the default session to stay open.");
+    } catch (IllegalArgumentException e) {
+      assertEquals("The default session cannot be closed.", e.getMessage());
+    }
+  }
+
+  /**
+   * Tests that an image is replaced only if the name still refers to the expected image.
+   */
+  @Test
+  public void testReplaceImage() throws IOException {
+    ConcurrentImageModel model = new ConcurrentImageModel();
+    Image first = uniform(1, 1, 1);
+    Image second = uniform(1, 1, 2);
+    model.addImage(first, "img");
+    assertTrue(model.replaceImage("img", first, second));
+    assertFalse(model.replaceImage("img", first, uniform(1, 1, 3)));
+    assertSame(second, model.getImage("img"));
+    assertFalse(model.replaceImage("missing", first, second));
+  }
+
+  /**
+   * Tests that the mip chain of an image is dropped when its name is written, by adding an
+   * image, by an operation or by a replacement, so the overwritten image can be collected.
+   */
+  @Test
+  public void testOverwrittenImageReleasesMipChain() throws IOException {
+    ConcurrentImageModel model = new ConcurrentImageModel();
+    Image image = uniform(64, 64, 8);
+    WeakReference<Image> added = new WeakReference<>(image);
+    model.addImage(image, "img");
+    image = null;
+    model.thumbnail("img", "thumb", 8);
+    model.addImage(uniform(32, 32, 9), "img");
+    ResamplerTest.assertCollected(added);
+
+    WeakReference<Image> brightened = new WeakReference<>(model.getImage("img"));
+    model.resize("img", "small", 4, 4, Optional.empty());
+    model.brightenCommand(10, "img", "img");
+    ResamplerTest.assertCollected(brightened);
+
+    Image current = model.getImage("img");
+    WeakReference<Image> replaced = new WeakReference<>(current);
+    model.thumbnail("img", "thumb", 4);
+    assertTrue(model.replaceImage("img", current, uniform(2, 2, 1)));
+    current = null;
+    ResamplerTest.assertCollected(replaced);
+    assertEquals(4, model.getImage("thumb").getWidth());
+  }
+
+  /**
+   * Tests that every operation gives the same pixels as the ImageModel.
+   */
+  @Test
+  public void testSameResultsAsImageModel() throws IOException {
+    Pixel[][] pixels = new Pixel[4][6];
+    for (int y = 0; y < 4; y++) {
+      for (int x = 0; x < 6; x++) {
+        pixels[y][x] = new Pixel(x * 40, y * 60, (x + y) * 20);
+      }
+    }
+    IImageModel[] models = {new ImageModel(), new ConcurrentImageModel()};
+    for (IImageModel model : models) {
+      model.addImage(new Image(pixels), "img");
+      model.redComponent("img", "red");
+      model.greenComponent("img", "green");
+      model.blueComponent("img", "blue");
+      model.valueComponent("img", "value", Optional.of(50.0));
+      model.lumaComponent("img", "luma", Optional.empty());
+      model.intensityComponent("img", "intensity", Optional.empty());
+      model.sepia("img", "sepia", Optional.empty());
+      model.horizontalFlip("img", "horizontal");
+      model.verticalFlip("img", "vertical");
+      model.brightenCommand(30, "img", "bright");
+      model.blur("img", "blur", Optional.empty());
+      model.sharpen("img", "sharp", Optional.of(25.0));
+      model.rgbSplit("img", "r", "g", "b");
+      model.rgbCombine("combined", "r", "g", "b");
+      model.colorCorrect("img", "corrected", Optional.empty());
+      model.adjustLevels("img", "levels", 20, 100, 220, Optional.empty());
+      model.compressImage("img", "compressed", 50);
+      model.resize("img", "resized", 3, 2, Optional.empty());
+      model.resize("img", "bilinear", 9, 5, Optional.of(ResizeFilter.BILINEAR));
+      model.thumbnail("img", "thumb", 3);
+    }
+    Set<String> names = ((ConcurrentImageModel) models[1]).getImageNames();
+    assertEquals(23, names.size());
+    for (String name : names) {
+      Image expected = models[0].getImage(name);
+      Image actual = models[1].getImage(name);
+      assertEquals(name, expected.getWidth(), actual.getWidth());
+      assertEquals(name, expected.getHeight(), actual.getHeight());
+      for (int y = 0; y < expected.getHeight(); y++) {
+        for (int x = 0; x < expected.getWidth(); x++) {
+          Pixel e = expected.getPixel(x, y);
+          Pixel a = actual.getPixel(x, y);
+          assertArrayEquals(name, new int[]{e.getRed(), e.getGreen(), e.getBlue()},
+                  new int[]{a.getRed(), a.getGreen(), a.getBlue()});
+        }
+      }
+    }
+    assertArrayEquals(models[0].histogram("img"), models[1].histogram("img"));
+  }
+
+  /**
+   * Tests that missing images and invalid arguments are rejected like by the ImageModel.
+   */
+  @Test
+  public void testErrors() {
+    ConcurrentImageModel model = new ConcurrentImageModel();
+    try {
+      model.addImage(null, "img");
+      fail("Expected a null image to be rejected.");
+    } catch (IOException e) {
+      assertEquals("Image not loaded.", e.getMessage());
+    }
+    try {
+      model.blur("missing", "out", Optional.empty());
+      fail("Expected a missing image to be rejected.");
+    } catch (IOException e) {
+      assertEquals("Image not found.", e.getMessage());
+    }
+    try {
+      model.rgbCombine("out", "r", "g", "b");
+      fail("Expected missing channels to be rejected.");
+    } catch (IOException e) {
+      assertEquals("One or more source images not found.", e.getMessage());
+    }
+    try {
+      model.compressImage("missing", "out", 120);
+      fail("Expected an invalid percentage to be rejected.");
+    } catch (IllegalArgumentException | IOException e) {
+      assertEquals("Compression percentage must be between 0 and 100.", e.getMessage());
+    }
+  }
+}
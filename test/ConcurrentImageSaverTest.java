@@ -0,0 +1,203 @@
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import controller.ConcurrentImageSaver;
+import controller.IImageFileParser;
+import controller.ImageParserRegistry;
+import controller.PNGParser;
+import controller.PPMParser;
+import controller.PackedRaster;
+import controller.RawImageParser;
+import controller.commands.SaveCommand;
+import model.ImageModel;
+import model.image.Image;
+import model.image.Pixel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for the ConcurrentImageSaver and saving to several files with the save command.
+ */
+public class ConcurrentImageSaverTest {
+
+  private final String testPath = "res/images/film_original.png";
+
+  /**
+   * A parser that waits for a latch before it finishes writing, to keep saves in flight.
+   */
+  private static class SlowParser implements IImageFileParser {
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Override
+    public Image loadImage(String path) throws IOException {
+      throw new IOException("Not supported.");
+    }
+
+    @Override
+    public void saveImage(String path, Image image) throws IOException {
+      saveRaster(path, PackedRaster.of(image));
+    }
+
+    @Override
+    public void saveRaster(String path, PackedRaster raster) throws IOException {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      }
+    }
+
+    @Override
+    public List<String> getExtensions() {
+      return Collections.singletonList("slow");
+    }
+  }
+
+  /**
+   * Asserts that two images have the same dimensions and color values.
+   *
+   * @param expected the expected image
+   * @param actual   the actual image
+   */
+  private void assertSameImage(Image expected, Image actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        Pixel e = expected.getPixel(x, y);
+        Pixel a = actual.getPixel(x, y);
+        assertEquals(e.getRed(), a.getRed());
+        assertEquals(e.getGreen(), a.getGreen());
+        assertEquals(e.getBlue(), a.getBlue());
+      }
+    }
+  }
+
+  /**
+   * Tests that one save writes every format from the same image and releases its bytes.
+   */
+  @Test
+  public void testSavesEveryFormat() throws IOException {
+    Image image = new PNGParser().loadImage(testPath).verticalFlip();
+    ConcurrentImageSaver saver = ConcurrentImageSaver.getDefault();
+    saver.save(image, Arrays.asList("res/images/multi_save.png", "res/images/multi_save.jpg",
+            "res/images/multi_save.ppm", "res/images/multi_save.rawimg"));
+
+    assertSameImage(image, new PNGParser().loadImage("res/images/multi_save.png"));
+    assertSameImage(image, new PPMParser().loadImage("res/images/multi_save.ppm"));
+    assertSameImage(image, new RawImageParser().loadImage("res/images/multi_save.rawimg"));
+    assertTrue(new File("res/images/multi_save.jpg").length() > 0);
+    assertEquals(0, saver.getInFlightBytes());
+  }
+
+  /**
+   * Tests that a target that cannot be written fails the save without stopping the others.
+   */
+  @Test
+  public void testFailedTargetDoesNotStopOthers() throws IOException {
+    Image image = new PNGParser().loadImage(testPath);
+    File written = new File("res/images/multi_save_partial.ppm");
+    written.delete();
+    try {
+      ConcurrentImageSaver.getDefault().save(image, Arrays.asList(
+              "res/no_such_folder/multi_save.png", written.getPath()));
+      fail("The save to a missing folder should fail.");
+    } catch (IOException e) {
+      assertTrue(written.exists());
+    }
+  }
+
+  /**
+   * Tests that the room reserved for a save is given back when packing the image fails with
+   * an error rather than an exception.
+   */
+  @Test
+  public void testErrorReleasesBudget() throws IOException {
+    Image image = new Image(new Pixel[][]{{new Pixel(1, 2, 3)}}) {
+      @Override
+      public Pixel[][] getPixels() {
+        throw new OutOfMemoryError("Simulated");
+      }
+    };
+    try (ConcurrentImageSaver saver = new ConcurrentImageSaver(2, 1024)) {
+      try {
+        saver.saveAsync(image, Collections.singletonList("res/images/multi_save_error.png"));
+        fail("The error should reach the caller.");
+      } catch (OutOfMemoryError e) {
+        assertEquals("Simulated", e.getMessage());
+      }
+      assertEquals(0, saver.getInFlightBytes());
+    }
+  }
+
+  /**
+   * Tests that an unsupported extension is rejected before any file is written.
+   */
+  @Test
+  public void testUnknownExtensionWritesNothing() throws IOException {
+    Image image = new PNGParser().loadImage(testPath);
+    File png = new File("res/images/multi_save_rejected.png");
+    png.delete();
+    try {
+      ConcurrentImageSaver.getDefault().save(image,
+              Arrays.asList(png.getPath(), "res/images/multi_save_rejected.gif"));
+      fail("The gif target should be rejected.");
+    } catch (UnsupportedOperationException e) {
+      assertFalse(png.exists());
+    }
+  }
+
+  /**
+   * Tests that a save waits while the rasters of unfinished saves fill the budget.
+   */
+  @Test
+  public void testInFlightBytesAreBounded() throws Exception {
+    Image image = new Image(new Pixel[][]{{new Pixel(1, 2, 3), new Pixel(4, 5, 6)}});
+    SlowParser slow = new SlowParser();
+    try (ConcurrentImageSaver saver = new ConcurrentImageSaver(2, 8,
+            new ImageParserRegistry(Collections.singletonList(slow)))) {
+      CompletableFuture<Void> first = saver.saveAsync(image, Collections.singletonList("a.slow"));
+      assertEquals(8, saver.getInFlightBytes());
+
+      CompletableFuture<CompletableFuture<Void>> second = CompletableFuture.supplyAsync(() -> {
+        try {
+          return saver.saveAsync(image, Collections.singletonList("b.slow"));
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      Thread.sleep(200);
+      assertFalse(second.isDone());
+
+      slow.release.countDown();
+      first.get(5, TimeUnit.SECONDS);
+      second.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS);
+      assertEquals(0, saver.getInFlightBytes());
+    }
+  }
+
+  /**
+   * Tests that the save command writes an image to several paths of different formats.
+   */
+  @Test
+  public void testSaveCommandWithSeveralPaths() throws Exception {
+    ImageModel model = new ImageModel();
+    Image image = new PNGParser().loadImage(testPath);
+    model.addImage(image, "film");
+    assertTrue(new SaveCommand(Arrays.asList("res/images/multi_command.ppm",
+            "res/images/multi_command.rawimg"), "film", model).execute());
+    assertSameImage(image, new PPMParser().loadImage("res/images/multi_command.ppm"));
+    assertSameImage(image, new RawImageParser().loadImage("res/images/multi_command.rawimg"));
+  }
+}
@@ -0,0 +1,171 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import controller.DecodeOptions;
+import controller.JPGParser;
+import controller.PNGParser;
+import controller.PPMParser;
+import controller.commands.LoadCommand;
+import model.ImageModel;
+import model.image.Image;
+import model.image.Pixel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for the DecodeOptions and loading images at a reduced resolution.
+ */
+public class DecodeOptionsTest {
+
+  private final String testPath = "res/images/film_original.png";
+
+  /**
+   * Asserts that two pixels have the same color.
+   *
+   * @param expected the expected pixel
+   * @param actual   the actual pixel
+   */
+  private void assertSameColor(Pixel expected, Pixel actual) {
+    assertEquals(expected.getRed(), actual.getRed());
+    assertEquals(expected.getGreen(), actual.getGreen());
+    assertEquals(expected.getBlue(), actual.getBlue());
+  }
+
+  /**
+   * Tests parsing the settings of a load command.
+   */
+  @Test
+  public void testParse() {
+    DecodeOptions options = DecodeOptions.parse(Arrays.asList("size", "256", "subsample", "2"));
+    assertEquals(256, (int) options.getMaxDimension().get());
+    assertEquals(2, (int) options.getSubsampling().get());
+    assertEquals("subsample 2 size 256", options.toString());
+    assertTrue(DecodeOptions.parse(Collections.emptyList()).isDefault());
+    assertEquals(4, DecodeOptions.DEFAULTS.withSubsampling(4).sourceStep(100, 10));
+    assertEquals(3, DecodeOptions.DEFAULTS.withMaxDimension(30).sourceStep(100, 10));
+  }
+
+  /**
+   * Tests that a subsampling factor below 1 is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseInvalidSubsampling() {
+    DecodeOptions.parse(Arrays.asList("subsample", "0"));
+  }
+
+  /**
+   * Tests that a size setting without a value is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseMissingSize() {
+    DecodeOptions.parse(Collections.singletonList("size"));
+  }
+
+  /**
+   * Tests that a subsampled PNG decode keeps every n-th pixel of the full decode, and that
+   * applying the settings to the full image gives the same pixels.
+   */
+  @Test
+  public void testPngSubsampling() throws IOException {
+    PNGParser parser = new PNGParser();
+    Image full = parser.loadImage(testPath);
+    DecodeOptions options = DecodeOptions.DEFAULTS.withSubsampling(3);
+    Image decoded = parser.loadImage(testPath, options);
+    Image applied = options.apply(full);
+    assertEquals((full.getWidth() + 2) / 3, decoded.getWidth());
+    assertEquals((full.getHeight() + 2) / 3, decoded.getHeight());
+    assertEquals(decoded.getWidth(), applied.getWidth());
+    assertEquals(decoded.getHeight(), applied.getHeight());
+    for (int y = 0; y < decoded.getHeight(); y++) {
+      for (int x = 0; x < decoded.getWidth(); x++) {
+        assertSameColor(full.getPixel(3 * x, 3 * y), decoded.getPixel(x, y));
+        assertSameColor(full.getPixel(3 * x, 3 * y), applied.getPixel(x, y));
+      }
+    }
+  }
+
+  /**
+   * Tests that a JPEG is decoded to the requested size, keeping its proportions.
+   */
+  @Test
+  public void testJpegMaxDimension() throws IOException {
+    JPGParser parser = new JPGParser();
+    Image full = parser.loadImage("res/images/film_original.jpg");
+    Image decoded = parser.loadImage("res/images/film_original.jpg",
+            DecodeOptions.DEFAULTS.withMaxDimension(64));
+    assertEquals(64, Math.max(decoded.getWidth(), decoded.getHeight()));
+    assertEquals((double) full.getWidth() / full.getHeight(),
+            (double) decoded.getWidth() / decoded.getHeight(), 0.05);
+  }
+
+  /**
+   * Tests that formats without a subsampling decoder fall back to reducing the full image.
+   */
+  @Test
+  public void testPpmMaxDimension() throws IOException {
+    Image decoded = new PPMParser().loadImage("res/images/film_original.ppm",
+            DecodeOptions.DEFAULTS.withMaxDimension(40));
+    assertEquals(40, Math.max(decoded.getWidth(), decoded.getHeight()));
+  }
+
+  /**
+   * Tests that an image that already fits the size is loaded at its size.
+   */
+  @Test
+  public void testSmallImageKeepsSize() throws IOException {
+    PNGParser parser = new PNGParser();
+    Image full = parser.loadImage(testPath);
+    Image decoded = parser.loadImage(testPath,
+            DecodeOptions.DEFAULTS.withMaxDimension(Integer.MAX_VALUE));
+    assertEquals(full.getWidth(), decoded.getWidth());
+    assertEquals(full.getHeight(), decoded.getHeight());
+    assertSameColor(full.getPixel(1, 1), decoded.getPixel(1, 1));
+  }
+
+  /**
+   * Tests that the load command stores the reduced image in the model.
+   */
+  @Test
+  public void testLoadCommandWithSize() throws Exception {
+    ImageModel model = new ImageModel();
+    assertTrue(new LoadCommand(testPath, "small", model,
+            DecodeOptions.parse(Arrays.asList("size", "32"))).execute());
+    Image small = model.getImage("small");
+    assertEquals(32, Math.max(small.getWidth(), small.getHeight()));
+  }
+
+  /**
+   * Tests that the reduced image of a prefetching load command is handed to the listener on the
+   * executing thread before the full image is in the model, so no decode outlives the command.
+   */
+  @Test
+  public void testLoadCommandPreviewBeforeFullImage() throws Exception {
+    ImageModel model = new ImageModel();
+    List<Image> previews = new CopyOnWriteArrayList<>();
+    List<Thread> threads = new CopyOnWriteArrayList<>();
+    List<Boolean> fullLoaded = new CopyOnWriteArrayList<>();
+    LoadCommand load = new LoadCommand(testPath, "image", model, 16, preview -> {
+      previews.add(preview);
+      threads.add(Thread.currentThread());
+      try {
+        model.getImage("image");
+        fullLoaded.add(true);
+      } catch (IOException e) {
+        fullLoaded.add(false);
+      }
+    });
+    assertTrue(load.execute());
+    assertEquals(1, previews.size());
+    assertEquals(16, Math.max(previews.get(0).getWidth(), previews.get(0).getHeight()));
+    assertEquals(Thread.currentThread(), threads.get(0));
+    assertFalse(fullLoaded.get(0));
+    assertTrue(model.getImage("image").getWidth() > 16);
+  }
+}
@@ -0,0 +1,148 @@
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+
+import controller.EncoderOptions;
+import controller.JPGParser;
+import controller.PNGParser;
+import controller.PackedRaster;
+import controller.commands.SaveCommand;
+import model.ImageModel;
+import model.image.Image;
+import model.image.Pixel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for the EncoderOptions and saving images with encoder settings.
+ */
+public class EncoderOptionsTest {
+
+  private final String testPath = "res/images/film_original.png";
+
+  /**
+   * Returns whether a JPEG file has a progressive start-of-frame marker.
+   *
+   * @param path the path of the JPEG file
+   * @return true if the file is progressive, otherwise false
+   * @throws IOException If the file cannot be read.
+   */
+  private boolean isProgressive(String path) throws IOException {
+    byte[] bytes = Files.readAllBytes(Paths.get(path));
+    for (int i = 0; i < bytes.length - 1; i++) {
+      if ((bytes[i] & 0xff) == 0xff && (bytes[i + 1] & 0xff) == 0xc2) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Tests parsing the settings of a save command.
+   */
+  @Test
+  public void testParse() {
+    EncoderOptions options = EncoderOptions.parse(
+            Arrays.asList("quality", "85", "progressive", "compression", "3"));
+    assertEquals(0.85f, options.getQuality().get(), 1e-6);
+    assertTrue(options.getProgressive().get());
+    assertEquals(3, (int) options.getCompressionLevel().get());
+    assertEquals("quality 85 progressive compression 3", options.toString());
+    assertTrue(EncoderOptions.parse(Collections.emptyList()).isDefault());
+    assertFalse(EncoderOptions.parse(Collections.singletonList("baseline")).getProgressive()
+            .get());
+  }
+
+  /**
+   * Tests that a quality above 100 percent is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseInvalidQuality() {
+    EncoderOptions.parse(Arrays.asList("quality", "101"));
+  }
+
+  /**
+   * Tests that a compression setting without a level is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseMissingLevel() {
+    EncoderOptions.parse(Collections.singletonList("compression"));
+  }
+
+  /**
+   * Tests that a compression level above 9 is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidCompressionLevel() {
+    EncoderOptions.DEFAULTS.withCompressionLevel(10);
+  }
+
+  /**
+   * Tests that the PNG deflate level trades file size without changing the pixels.
+   */
+  @Test
+  public void testPngCompressionLevel() throws IOException {
+    Image image = new PNGParser().loadImage(testPath);
+    PackedRaster raster = PackedRaster.of(image);
+    PNGParser parser = new PNGParser();
+    parser.saveRaster("res/images/level0.png", raster,
+            EncoderOptions.DEFAULTS.withCompressionLevel(0));
+    parser.saveRaster("res/images/level9.png", raster,
+            EncoderOptions.DEFAULTS.withCompressionLevel(9));
+    assertTrue(new File("res/images/level0.png").length()
+            > new File("res/images/level9.png").length());
+
+    Image stored = parser.loadImage("res/images/level0.png");
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        Pixel expected = image.getPixel(x, y);
+        Pixel actual = stored.getPixel(x, y);
+        assertEquals(expected.getRed(), actual.getRed());
+        assertEquals(expected.getGreen(), actual.getGreen());
+        assertEquals(expected.getBlue(), actual.getBlue());
+      }
+    }
+  }
+
+  /**
+   * Tests that the JPEG quality changes the file size and that progressive mode is written.
+   */
+  @Test
+  public void testJpegQualityAndProgressive() throws IOException {
+    PackedRaster raster = PackedRaster.of(new PNGParser().loadImage(testPath));
+    JPGParser parser = new JPGParser();
+    parser.saveRaster("res/images/quality30.jpg", raster,
+            EncoderOptions.DEFAULTS.withQuality(0.3f));
+    parser.saveRaster("res/images/quality95.jpg", raster,
+            EncoderOptions.DEFAULTS.withQuality(0.95f).withProgressive(true));
+    assertTrue(new File("res/images/quality30.jpg").length()
+            < new File("res/images/quality95.jpg").length());
+    assertFalse(isProgressive("res/images/quality30.jpg"));
+    assertTrue(isProgressive("res/images/quality95.jpg"));
+  }
+
+  /**
+   * Tests that the save command applies the settings to every path.
+   */
+  @Test
+  public void testSaveCommandWithSettings() throws Exception {
+    ImageModel model = new ImageModel();
+    model.addImage(new PNGParser().loadImage(testPath), "film");
+    EncoderOptions options = EncoderOptions.parse(Arrays.asList("quality", "20", "progressive"));
+    assertTrue(new SaveCommand(Collections.singletonList("res/images/command_q20.jpg"), "film",
+            model, options).execute());
+    assertTrue(new SaveCommand(Arrays.asList("res/images/command_q20_multi.jpg",
+            "res/images/command_q20_multi.png"), "film", model, options).execute());
+    assertTrue(isProgressive("res/images/command_q20.jpg"));
+    assertTrue(isProgressive("res/images/command_q20_multi.jpg"));
+    assertEquals(new File("res/images/command_q20.jpg").length(),
+            new File("res/images/command_q20_multi.jpg").length());
+  }
+}
@@ -0,0 +1,272 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+import controller.CommandFactory;
+import controller.CommandRegistry;
+import controller.CompiledCommand;
+import controller.FolderWatcher;
+import controller.PNGParser;
+import controller.PPMParser;
+import controller.ScriptMode;
+import controller.WatchCounters;
+import model.image.Image;
+import model.image.Pixel;
+import view.IView;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for the FolderWatcher.
+ */
+public class FolderWatcherTest {
+  private static final List<String> TEMPLATE = Arrays.asList(
+          "load {input} img",
+          "blur img soft",
+          "save {output}/{name}-soft.png soft");
+
+  private Path input;
+  private Path output;
+  private Image image;
+  private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+  private final IView view = new IView() {
+    @Override
+    public void showMessage(String message) {
+      // Progress is not checked.
+    }
+
+    @Override
+    public String getInput() {
+      return null;
+    }
+
+    @Override
+    public void showError(String errorMessage) {
+      errors.add(errorMessage);
+    }
+  };
+
+  /**
+   * Creates the input and output folders and a small image.
+   */
+  @Before
+  public void setUp() throws IOException {
+    input = Files.createTempDirectory("watch-input");
+    output = Files.createTempDirectory("watch-output");
+    image = new Image(new Pixel[][]{
+        {new Pixel(10, 20, 30), new Pixel(200, 100, 0), new Pixel(5, 5, 5)},
+        {new Pixel(0, 255, 0), new Pixel(90, 90, 90), new Pixel(30, 60, 120)}});
+  }
+
+  /**
+   * Deletes the folders and their files.
+   */
+  @After
+  public void tearDown() {
+    for (Path folder : new Path[]{input, output}) {
+      File[] files = folder.toFile().listFiles();
+      if (files != null) {
+        for (File file : files) {
+          file.delete();
+        }
+      }
+      folder.toFile().delete();
+    }
+  }
+
+  /**
+   * Writes an image into the input folder the way producers should, under a hidden name that
+   * is renamed once the file is complete.
+   *
+   * @param name the name of the file
+   * @throws IOException if the file cannot be written
+   */
+  private void drop(String name) throws IOException {
+    Path hidden = input.resolve("." + name);
+    if (name.endsWith(".ppm")) {
+      new PPMParser().saveImage(hidden.toString(), image);
+    } else {
+      new PNGParser().saveImage(hidden.toString(), image);
+    }
+    Files.move(hidden, input.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Waits until the condition holds, failing after ten seconds.
+   *
+   * @param condition the condition
+   * @throws InterruptedException if the test is interrupted
+   */
+  private void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > deadline) {
+        fail("Timed out, errors: " + errors);
+      }
+      Thread.sleep(10);
+    }
+  }
+
+  /**
+   * Returns the sorted names of the files in the output folder, including hidden ones.
+   *
+   * @return the file names
+   */
+  private List<String> outputFiles() {
+    String[] names = output.toFile().list();
+    Arrays.sort(names);
+    return Arrays.asList(names);
+  }
+
+  /**
+   * Tests that files already in the input folder and files dropped later are processed, that
+   * other files are ignored and that only the finished results appear in the output folder.
+   */
+  @Test
+  public void testProcessesExistingAndNewFiles() throws Exception {
+    drop("first.png");
+    Files.write(input.resolve("notes.txt"), Collections.singletonList("not an image"));
+    try (FolderWatcher watcher = new FolderWatcher(input, output, TEMPLATE, 2, 4, view)) {
+      watcher.start();
+      WatchCounters counters = watcher.getCounters();
+      await(() -> counters.getCompleted() == 1);
+      drop("second.ppm");
+      await(() -> counters.getCompleted() == 2);
+      assertEquals(2, counters.getQueued());
+      assertEquals(0, counters.getFailed());
+      assertEquals(0, counters.getQueueDepth());
+      assertTrue(counters.getMaxLatencyNanos() > 0);
+      assertTrue(counters.getAverageLatencyNanos() <= counters.getMaxLatencyNanos());
+    }
+    assertEquals(Arrays.asList("first-soft.png", "second-soft.png"), outputFiles());
+    Image expected = image.blur();
+    for (String name : outputFiles()) {
+      Image actual = new PNGParser().loadImage(output.resolve(name).toString());
+      for (int y = 0; y < expected.getHeight(); y++) {
+        for (int x = 0; x < expected.getWidth(); x++) {
+          assertEquals(expected.getPixel(x, y).getRed(), actual.getPixel(x, y).getRed());
+          assertEquals(expected.getPixel(x, y).getBlue(), actual.getPixel(x, y).getBlue());
+        }
+      }
+    }
+    assertEquals(Collections.emptyList(), errors);
+  }
+
+  /**
+   * Tests that a file the template fails on is counted as failed and leaves nothing in the
+   * output folder, and that the watcher goes on with the next file.
+   */
+  @Test
+  public void testFailedFileLeavesNoOutput() throws Exception {
+    Files.write(input.resolve("broken.png"), new byte[]{1, 2, 3, 4});
+    List<String> template = Arrays.asList("load {input} img", "save {output}/{name}.ppm img",
+            "blur missing soft", "save {output}/{name}-soft.png soft");
+    try (FolderWatcher watcher = new FolderWatcher(input, output, template, 1, 1,
+            ScriptMode.STREAMED, CommandRegistry.getDefault(), view)) {
+      watcher.start();
+      await(() -> watcher.getCounters().getFailed() == 1);
+      drop("good.png");
+      await(() -> watcher.getCounters().getFailed() == 2);
+    }
+    assertEquals(Collections.emptyList(), outputFiles());
+    assertEquals(2, errors.size());
+    assertTrue(errors.get(0), errors.get(0).startsWith("Error processing broken.png"));
+  }
+
+  /**
+   * Tests that the watcher waits while the queue is full and that every file is processed
+   * once the workers catch up.
+   */
+  @Test
+  public void testQueueIsBounded() throws Exception {
+    for (int i = 0; i < 6; i++) {
+      drop("image" + i + ".png");
+    }
+    CountDownLatch release = new CountDownLatch(1);
+    Map<String, CommandFactory> factories = CommandRegistry.builtIns();
+    factories.put("hold", (text, words) -> CompiledCommand.of(text, "hold", null,
+        model -> () -> {
+          release.await();
+          return true;
+        }));
+    List<String> template = Arrays.asList("load {input} img", "hold",
+            "save {output}/{name}.ppm img");
+    try (FolderWatcher watcher = new FolderWatcher(input, output, template, 1, 2,
+            ScriptMode.DIRECT, new CommandRegistry(factories), view)) {
+      watcher.start();
+      WatchCounters counters = watcher.getCounters();
+      await(() -> counters.getQueued() == 3 && counters.getQueueDepth() == 2);
+      Thread.sleep(100);
+      assertEquals(3, counters.getQueued());
+      assertEquals(0, counters.getCompleted());
+      release.countDown();
+      await(() -> counters.getCompleted() == 6);
+      assertEquals(2, counters.getMaxQueueDepth());
+      assertEquals(0, counters.getQueueDepth());
+      assertTrue(counters.getAverageWaitNanos() > 0);
+      assertTrue(counters.format(), counters.format().startsWith(
+              "Watch: 6 queued, 6 completed, 0 failed, 0 waiting (peak 2); average wait"));
+    }
+    assertEquals(6, outputFiles().size());
+  }
+
+  /**
+   * Tests that invalid folders, counts and templates are rejected.
+   */
+  @Test
+  public void testInvalidArguments() {
+    List<List<String>> templates = Arrays.asList(
+            Arrays.asList("load {input} img", "blurry img soft", "save {output}/a.png soft"),
+            Arrays.asList("load {input} img", "save out/{name}.png img"),
+            Arrays.asList("load {input} img", "save {output}/sub/{name}.png img"),
+            Arrays.asList("load {input} img", "run other.txt", "save {output}/{name}.png img"),
+            Arrays.asList("load {input} img", "blur img soft"));
+    List<String> messages = Arrays.asList(
+            "Line 2: Unknown command blurry",
+            "Templates must save into {output}: save out/input.png img",
+            "Templates must save into {output}: save output/sub/input.png img",
+            "Templates cannot run other scripts.",
+            "Templates must save at least one image.");
+    for (int i = 0; i < templates.size(); i++) {
+      try {
+        new FolderWatcher(input, output, templates.get(i), 1, 1, view);
+        fail("Expected the template to be rejected: " + templates.get(i));
+      } catch (IllegalArgumentException e) {
+        assertEquals(messages.get(i), e.getMessage());
+      }
+    }
+    try {
+      new FolderWatcher(input, input, TEMPLATE, 1, 1, view);
+      fail("Expected the same folders to be rejected.");
+    } catch (IllegalArgumentException e) {
+      assertEquals("The input and output folders must differ.", e.getMessage());
+    }
+    try {
+      new FolderWatcher(input, output, TEMPLATE, 0, 1, view);
+      fail("Expected no workers to be rejected.");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Workers and queue capacity must be positive.", e.getMessage());
+    }
+    try {
+      new FolderWatcher(input.resolve("missing"), output, TEMPLATE, 1, 1, view);
+      fail("Expected a missing folder to be rejected.");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().startsWith("Not a folder: "));
+    }
+  }
+}
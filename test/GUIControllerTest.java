@@ -1,12 +1,21 @@
 import org.junit.Before;
 import org.junit.Test;
 
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+
 import controller.GUIController;
 import model.MockModel;
+import model.image.Image;
 import view.IGUIView;
 import view.MockView;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * JUnit class to test GUIController.
@@ -334,7 +343,8 @@ public class GUIControllerTest {
   /**
    * Tests the confirm() method of GUIController after loading an image.
    * Verifies that the expected log messages are generated when confirm() is called after
-   * loading an image.
+   * loading an image. The invalid path is rejected before a load command is created, so there
+   * is nothing left for confirm() to apply.
    */
   @Test
   public void testConfirm() {
@@ -342,7 +352,6 @@ public class GUIControllerTest {
     controller.confirm();
     String actualResult = MockView.getLog();
     String expectedResult = "Load image window prompt method invoked.\n"
-            + "Show error method invoked.\n"
             + "Show error method invoked.\n";
     assertEquals(expectedResult, actualResult);
   }
@@ -364,6 +373,53 @@ public class GUIControllerTest {
     assertEquals(expectedResult, actualResult);
   }
 
+  /**
+   * Tests that confirm() and cancel() are rejected while an image is loading in the background,
+   * so the load is not executed a second time and no image is shown before it exists.
+   */
+  @Test
+  public void testConfirmAndCancelWhileLoading() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger loads = new AtomicInteger();
+    MockModel blockingModel = new MockModel() {
+      @Override
+      public void addImage(Image image, String imagePath) {
+        loads.incrementAndGet();
+        try {
+          release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+    CountDownLatch shown = new CountDownLatch(1);
+    MockView view = new MockView() {
+      @Override
+      public String loadImage() {
+        super.loadImage();
+        return "res/controllerTest/pixel_image.png";
+      }
+
+      @Override
+      public void setHistogram(BufferedImage histogram) {
+        super.setHistogram(histogram);
+        shown.countDown();
+      }
+    };
+    GUIController loadingController = new GUIController(blockingModel, view);
+    loadingController.loadImage();
+    SwingUtilities.invokeAndWait(() -> {
+      loadingController.confirm();
+      loadingController.cancel();
+    });
+    release.countDown();
+    assertTrue(shown.await(10, TimeUnit.SECONDS));
+    assertEquals(1, loads.get());
+    assertTrue(MockView.getLog().startsWith("Load image window prompt method invoked.\n"
+            + "Show error method invoked.\n"
+            + "Show error method invoked.\n"));
+  }
+
   /**
    * Tests the doubleLoadBeforeSave() method of GUIController.
    * Verifies that the expected log messages are generated when loading an image, applying an
@@ -608,6 +608,28 @@ public class ImageControllerTest {
     assertTrue(model.getLog().contains("Add Image method called."));
   }
 
+  /**
+   * Tests the load command call of the ImageController
+   * class with decode settings using execute.
+   * Ensures it processes the simulated console input correctly.
+   */
+  @Test
+  public void testLoadCommandWithSize() {
+    MockModel model = new MockModel();
+    String inputData = "load res/images/film_original.jpg film_original size 64 subsample 2";
+    ByteArrayInputStream inContent = new ByteArrayInputStream(inputData.getBytes());
+    System.setIn(inContent);
+    ConsoleView view = new ConsoleView();
+    ImageController controller = new ImageController(model, view);
+    try {
+      controller.execute();
+    } catch (NoSuchElementException ignored) {
+    }
+    String expectedOutput = "load operation successful.";
+    assertEquals(expectedOutput + System.lineSeparator(), outContent.toString());
+    assertTrue(model.getLog().contains("Add Image method called."));
+  }
+
   /**
    * Tests the save command call of the ImageController
    * class using execute.
@@ -629,4 +651,70 @@ public class ImageControllerTest {
     assertEquals(expectedOutput + System.lineSeparator(), outContent.toString());
     assertTrue(model.getLog().contains("Get Image method called."));
   }
-}
\ No newline at end of file
+
+  /**
+   * Tests the save command with several paths and encoder settings.
+   * Ensures the image name is found before the settings.
+   */
+  @Test
+  public void testSaveCommandWithSettings() {
+    MockModel model = new MockModel();
+    String inputData = "save res/images/film_settings.jpg res/images/film_settings.png "
+            + "film_original quality 80 progressive compression 1";
+    ByteArrayInputStream inContent = new ByteArrayInputStream(inputData.getBytes());
+    System.setIn(inContent);
+    ConsoleView view = new ConsoleView();
+    ImageController controller = new ImageController(model, view);
+    try {
+      controller.execute();
+    } catch (NoSuchElementException ignored) {
+    }
+    String expectedOutput = "save operation successful.";
+    assertEquals(expectedOutput + System.lineSeparator(), outContent.toString());
+    assertTrue(model.getLog().contains("Get Image method called."));
+  }
+
+  /**
+   * Tests the resize command call of the ImageController
+   * class using execute.
+   * Ensures it processes the simulated console input correctly.
+   */
+  @Test
+  public void testResizeCommand() {
+    MockModel model = new MockModel();
+    String inputData = "resize 100 50 inputName outputName bilinear";
+    ByteArrayInputStream inContent = new ByteArrayInputStream(inputData.getBytes());
+    System.setIn(inContent);
+    ConsoleView view = new ConsoleView();
+    ImageController controller = new ImageController(model, view);
+    try {
+      controller.execute();
+    } catch (NoSuchElementException ignored) {
+    }
+    String expectedOutput = "resize operation successful.";
+    assertEquals(expectedOutput + System.lineSeparator(), outContent.toString());
+    assertTrue(model.getLog().contains("Resize method called."));
+  }
+
+  /**
+   * Tests the thumbnail command call of the ImageController
+   * class using execute.
+   * Ensures it processes the simulated console input correctly.
+   */
+  @Test
+  public void testThumbnailCommand() {
+    MockModel model = new MockModel();
+    String inputData = "thumbnail 128 inputName outputName";
+    ByteArrayInputStream inContent = new ByteArrayInputStream(inputData.getBytes());
+    System.setIn(inContent);
+    ConsoleView view = new ConsoleView();
+    ImageController controller = new ImageController(model, view);
+    try {
+      controller.execute();
+    } catch (NoSuchElementException ignored) {
+    }
+    String expectedOutput = "thumbnail operation successful.";
+    assertEquals(expectedOutput + System.lineSeparator(), outContent.toString());
+    assertTrue(model.getLog().contains("Thumbnail method called."));
+  }
+}
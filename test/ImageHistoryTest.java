@@ -0,0 +1,148 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import model.history.ImageHistory;
+import model.image.Image;
+import model.image.Pixel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JUnit test class for the ImageHistory class.
+ */
+public class ImageHistoryTest {
+  private Image original;
+
+  /**
+   * Sets up a 200x150 gradient image shared by the test cases.
+   */
+  @Before
+  public void setUp() {
+    original = createImage(200, 150, 0);
+  }
+
+  /**
+   * Creates a gradient image whose pixels are offset by the given amount.
+   */
+  private Image createImage(int width, int height, int offset) {
+    Pixel[][] pixels = new Pixel[height][width];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        pixels[y][x] = new Pixel((x + offset) % 256, (y + offset) % 256, (x + y) % 256);
+      }
+    }
+    return new Image(pixels);
+  }
+
+  /**
+   * Asserts that two images hold the same pixel values.
+   */
+  private void assertSameImage(Image expected, Image actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getPixel(x, y).getRed(), actual.getPixel(x, y).getRed());
+        assertEquals(expected.getPixel(x, y).getGreen(), actual.getPixel(x, y).getGreen());
+        assertEquals(expected.getPixel(x, y).getBlue(), actual.getPixel(x, y).getBlue());
+      }
+    }
+  }
+
+  /**
+   * Tests that undo and redo walk back and forth between the recorded states.
+   */
+  @Test
+  public void testUndoRedo() {
+    ImageHistory history = new ImageHistory(Long.MAX_VALUE);
+    Image brightened = original.brighten(20);
+    history.record(original);
+    history.record(brightened);
+
+    assertTrue(history.canUndo());
+    assertFalse(history.canRedo());
+    assertSameImage(original, history.undo());
+    assertFalse(history.canUndo());
+    assertTrue(history.canRedo());
+    assertSameImage(brightened, history.redo());
+  }
+
+  /**
+   * Tests that recording a new state discards the states that could have been redone.
+   */
+  @Test
+  public void testRecordDiscardsRedo() {
+    ImageHistory history = new ImageHistory(Long.MAX_VALUE);
+    history.record(original);
+    history.record(original.brighten(20));
+    history.undo();
+    history.record(original.toSepia());
+
+    assertFalse(history.canRedo());
+    assertEquals(2, history.size());
+  }
+
+  /**
+   * Tests that a region-limited edit only retains the tiles it changed.
+   */
+  @Test
+  public void testUnchangedTilesAreShared() {
+    ImageHistory history = new ImageHistory(Long.MAX_VALUE);
+    history.record(original);
+    long fullSize = history.getRetainedBytes();
+
+    Pixel[][] copy = new Pixel[original.getHeight()][];
+    for (int y = 0; y < copy.length; y++) {
+      copy[y] = original.getPixels()[y].clone();
+    }
+    Image edited = new Image(copy);
+    edited.setPixel(5, 5, new Pixel(1, 2, 3));
+    history.record(edited);
+
+    long editSize = history.getRetainedBytes() - fullSize;
+    assertTrue(editSize > 0);
+    assertTrue(editSize < fullSize / 4);
+    assertSameImage(original, history.undo());
+  }
+
+  /**
+   * Tests that the oldest states are dropped once the memory budget is exceeded,
+   * while the current state is kept.
+   */
+  @Test
+  public void testMemoryBudget() {
+    ImageHistory probe = new ImageHistory(Long.MAX_VALUE);
+    probe.record(original);
+    long oneImage = probe.getRetainedBytes();
+
+    ImageHistory history = new ImageHistory(oneImage * 2);
+    history.record(original);
+    history.record(original.brighten(10));
+    history.record(original.brighten(20));
+
+    assertEquals(2, history.size());
+    assertTrue(history.getRetainedBytes() <= oneImage * 2);
+    assertSameImage(original.brighten(10), history.undo());
+    assertFalse(history.canUndo());
+  }
+
+  /**
+   * Tests that undo without a previous state is rejected.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testUndoWithoutPreviousState() {
+    ImageHistory history = new ImageHistory(Long.MAX_VALUE);
+    history.record(original);
+    history.undo();
+  }
+
+  /**
+   * Tests that a non-positive memory budget is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidBudget() {
+    new ImageHistory(0);
+  }
+}
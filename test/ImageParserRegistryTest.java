@@ -0,0 +1,119 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import controller.IImageFileParser;
+import controller.ImageParserRegistry;
+import controller.JPGParser;
+import controller.PNGParser;
+import controller.PPMParser;
+import controller.RawImageParser;
+import controller.commands.LoadCommand;
+import model.ImageModel;
+import model.image.Image;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for the ImageParserRegistry.
+ */
+public class ImageParserRegistryTest {
+
+  private final ImageParserRegistry registry = ImageParserRegistry.getDefault();
+
+  /**
+   * Copies a test image to a new name in the images folder.
+   *
+   * @param source the name of the image to copy
+   * @param target the name of the copy
+   * @return the path of the copy
+   * @throws IOException If the image cannot be copied.
+   */
+  private String copy(String source, String target) throws IOException {
+    Path path = Paths.get("res/images", target);
+    Files.copy(Paths.get("res/images", source), path, StandardCopyOption.REPLACE_EXISTING);
+    return path.toString();
+  }
+
+  /**
+   * Tests that every built-in format is registered once and that lookups return the same
+   * shared parser for any case of the extension.
+   */
+  @Test
+  public void testSharedParsersByExtension() {
+    assertTrue(registry.getExtensions().containsAll(
+            Arrays.asList("png", "jpg", "jpeg", "ppm", "rawimg")));
+    IImageFileParser png = registry.forSaving("out/image.png");
+    assertTrue(png instanceof PNGParser);
+    assertSame(png, registry.forSaving("OUT/IMAGE.PNG"));
+    assertSame(png, ImageParserRegistry.getDefault().forSaving("a.Png"));
+    assertTrue(registry.forSaving("a.JPG") instanceof JPGParser);
+    assertTrue(registry.forSaving("a.rawimg") instanceof RawImageParser);
+  }
+
+  /**
+   * Tests that an unknown extension is rejected for saving.
+   */
+  @Test(expected = UnsupportedOperationException.class)
+  public void testUnknownExtension() {
+    registry.forSaving("image.gif");
+  }
+
+  /**
+   * Tests that a path without an extension is rejected for saving.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingExtension() {
+    registry.forSaving("image");
+  }
+
+  /**
+   * Tests that the format of a file is detected from its first bytes, whatever its name.
+   */
+  @Test
+  public void testDetectByMagicBytes() throws IOException {
+    assertTrue(registry.detect(copy("film_original.ppm", "misnamed_ppm.png")).get()
+            instanceof PPMParser);
+    assertTrue(registry.detect(copy("film_original.png", "misnamed_png.jpg")).get()
+            instanceof PNGParser);
+    assertTrue(registry.detect(copy("film_original.jpg", "misnamed_jpg.data")).get()
+            instanceof JPGParser);
+    assertFalse(registry.detect("res/images/does_not_exist.png").isPresent());
+    assertFalse(registry.detect("res/images").isPresent());
+  }
+
+  /**
+   * Tests that loading falls back to the extension for files that do not exist yet and uses
+   * the detected format for misnamed files.
+   */
+  @Test
+  public void testForLoading() throws IOException {
+    assertTrue(registry.forLoading("res/images/missing.PPM") instanceof PPMParser);
+    assertTrue(registry.forLoading(copy("film_original.ppm", "misnamed.jpeg"))
+            instanceof PPMParser);
+  }
+
+  /**
+   * Tests that the load command reads a misnamed file and an upper case extension.
+   */
+  @Test
+  public void testLoadCommandUsesDetection() throws Exception {
+    ImageModel model = new ImageModel();
+    assertTrue(new LoadCommand(copy("film_original.ppm", "misnamed_load.png"), "ppm", model)
+            .execute());
+    assertTrue(new LoadCommand(copy("film_original.png", "upper_case.PNG"), "png", model)
+            .execute());
+    Image ppm = model.getImage("ppm");
+    Image png = model.getImage("png");
+    assertEquals(png.getWidth(), ppm.getWidth());
+    assertEquals(png.getHeight(), ppm.getHeight());
+  }
+}
@@ -2,12 +2,17 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Random;
 
+import model.image.HistogramEngine;
 import model.image.Image;
 import model.image.Pixel;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 /**
  * JUnit test class for the Image class.
@@ -677,6 +682,35 @@ public class ImageTest {
     }
   }
 
+  /**
+   * Tests that the striped parallel histogram of a large image matches a sequential count.
+   */
+  @Test
+  public void testCalculateHistogramsLargeImage() {
+    int width = 700;
+    int height = 900;
+    Pixel[][] pixels = new Pixel[height][width];
+    int[][] expected = new int[3][256];
+    Random random = new Random(42);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int r = random.nextInt(256);
+        int g = random.nextInt(256);
+        int b = random.nextInt(256);
+        pixels[y][x] = new Pixel(r, g, b);
+        expected[HistogramEngine.RED][r]++;
+        expected[HistogramEngine.GREEN][g]++;
+        expected[HistogramEngine.BLUE][b]++;
+      }
+    }
+
+    int[][] histograms = new Image(pixels).calculateHistograms();
+    assertEquals(3, histograms.length);
+    for (int channel = 0; channel < 3; channel++) {
+      assertArrayEquals(expected[channel], histograms[channel]);
+    }
+  }
+
   /**
    * Test to check Multiple Operations on an image.
    */
@@ -737,4 +771,170 @@ public class ImageTest {
       }
     }
   }
+
+  /**
+   * Tests that chained flips of a non-square image read the right pixels, that a flipped view
+   * materialises into the same pixels, and that flipping twice restores the original.
+   */
+  @Test
+  public void testChainedFlipViews() {
+    Pixel[][] pixels = new Pixel[3][5];
+    for (int y = 0; y < 3; y++) {
+      for (int x = 0; x < 5; x++) {
+        pixels[y][x] = new Pixel(x * 50, y * 100, 7);
+      }
+    }
+    Image source = new Image(pixels);
+    Image rotated = source.horizontalFlip().verticalFlip();
+    Image restored = source.horizontalFlip().horizontalFlip();
+
+    assertEquals(5, rotated.getWidth());
+    assertEquals(3, rotated.getHeight());
+    for (int y = 0; y < 3; y++) {
+      for (int x = 0; x < 5; x++) {
+        assertSame(pixels[2 - y][4 - x], rotated.getPixel(x, y));
+        assertSame(pixels[y][x], restored.getPixel(x, y));
+      }
+    }
+    Pixel[][] materialised = rotated.getPixels();
+    assertNotSame(pixels, materialised);
+    assertSame(pixels[2][4], materialised[0][0]);
+    assertSame(pixels[0][0], rotated.getPixel(4, 2));
+  }
+
+  /**
+   * Tests that writing to a flipped view or to its source never changes the other image.
+   */
+  @Test
+  public void testFlipViewsAreIsolatedFromWrites() {
+    Pixel[][] pixels = {
+            {new Pixel(1, 1, 1), new Pixel(2, 2, 2)},
+            {new Pixel(3, 3, 3), new Pixel(4, 4, 4)}
+    };
+    Image source = new Image(pixels);
+    Image flipped = source.verticalFlip();
+    Pixel marker = new Pixel(200, 100, 50);
+
+    source.setPixel(0, 0, marker);
+    assertSame(marker, source.getPixel(0, 0));
+    assertSame(pixels[0][0], flipped.getPixel(0, 1));
+    assertNotSame(marker, pixels[0][0]);
+
+    Image mirrored = source.horizontalFlip();
+    mirrored.setPixel(0, 0, marker);
+    assertSame(marker, mirrored.getPixel(0, 0));
+    assertSame(pixels[0][1], source.getPixel(1, 0));
+    assertSame(marker, source.getPixel(0, 0));
+  }
+
+  /**
+   * Tests that point operations and filters read a flipped view correctly.
+   */
+  @Test
+  public void testOperationsOnFlipView() {
+    Pixel[][] pixels = {
+            {new Pixel(10, 0, 0), new Pixel(0, 20, 0), new Pixel(0, 0, 30)}
+    };
+    Image flipped = new Image(pixels).horizontalFlip();
+
+    Image red = flipped.extractRedComponent();
+    assertPixel(0, 0, 0, red.getPixel(0, 0));
+    assertPixel(10, 0, 0, red.getPixel(2, 0));
+    assertGray(30, flipped.toValueComponent().getPixel(0, 0));
+    assertEquals(1, flipped.calculateHistograms()[0][10]);
+    assertPixel(0, 20, 0, flipped.verticalFlip().getPixel(1, 0));
+  }
+
+  /**
+   * Tests that mapPixels hands every row to the kernel once, with a target row of the same
+   * length, and returns a new image built from the mapped rows.
+   */
+  @Test
+  public void testMapPixelsWithCustomKernel() {
+    Pixel[][] pixels = {
+            {new Pixel(10, 20, 30), new Pixel(40, 50, 60)},
+            {new Pixel(70, 80, 90), new Pixel(100, 110, 120)}
+    };
+    Image source = new Image(pixels);
+    int[] rows = new int[1];
+    Image swapped = source.mapPixels((row, target) -> {
+      assertEquals(row.length, target.length);
+      rows[0]++;
+      for (int i = 0; i < row.length; i++) {
+        target[i] = new Pixel(row[i].getBlue(), row[i].getGreen(), row[i].getRed());
+      }
+    });
+
+    assertEquals(2, rows[0]);
+    assertNotSame(source, swapped);
+    assertPixel(30, 20, 10, swapped.getPixel(0, 0));
+    assertPixel(120, 110, 100, swapped.getPixel(1, 1));
+    assertPixel(10, 20, 30, source.getPixel(0, 0));
+  }
+
+  /**
+   * Tests that the row kernels of the point operations produce exactly the values of the
+   * per-pixel formulas, on a random image whose first row holds the extreme channel values.
+   */
+  @Test
+  public void testPointKernelsMatchPerPixelFormulas() {
+    Random random = new Random(7);
+    int width = 131;
+    int height = 67;
+    Pixel[][] pixels = new Pixel[height][width];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        pixels[y][x] = new Pixel(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+      }
+    }
+    for (int x = 0; x < 8; x++) {
+      pixels[0][x] = new Pixel((x & 1) * 255, (x >> 1 & 1) * 255, (x >> 2 & 1) * 255);
+    }
+    Image source = new Image(pixels);
+    Image other = source.horizontalFlip();
+
+    Image value = source.toValueComponent();
+    Image luma = source.toLumaComponent();
+    Image intensity = source.toIntensityComponent();
+    Image sepia = source.toSepia();
+    Image brighter = source.brighten(37);
+    Image darker = source.brighten(-91);
+    Image combined = Image.combineColorChannels(source, other, source);
+
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int r = pixels[y][x].getRed();
+        int g = pixels[y][x].getGreen();
+        int b = pixels[y][x].getBlue();
+
+        assertGray(Math.max(r, Math.max(g, b)), value.getPixel(x, y));
+        assertGray((int) Math.round(0.2126 * r + 0.7152 * g + 0.0722 * b), luma.getPixel(x, y));
+        assertGray((r + g + b) / 3, intensity.getPixel(x, y));
+        assertPixel(Math.min(255, (int) (0.393 * r + 0.769 * g + 0.189 * b)),
+                Math.min(255, (int) (0.349 * r + 0.686 * g + 0.168 * b)),
+                Math.min(255, (int) (0.272 * r + 0.534 * g + 0.131 * b)), sepia.getPixel(x, y));
+        assertPixel(Math.min(255, r + 37), Math.min(255, g + 37), Math.min(255, b + 37),
+                brighter.getPixel(x, y));
+        assertPixel(Math.max(0, r - 91), Math.max(0, g - 91), Math.max(0, b - 91),
+                darker.getPixel(x, y));
+        assertPixel(r, other.getPixel(x, y).getGreen(), b, combined.getPixel(x, y));
+      }
+    }
+  }
+
+  /**
+   * Asserts that the pixel has the given red, green and blue values.
+   */
+  private static void assertPixel(int red, int green, int blue, Pixel pixel) {
+    assertEquals(red, pixel.getRed());
+    assertEquals(green, pixel.getGreen());
+    assertEquals(blue, pixel.getBlue());
+  }
+
+  /**
+   * Asserts that the pixel is the gray of the given value.
+   */
+  private static void assertGray(int value, Pixel pixel) {
+    assertPixel(value, value, value, pixel);
+  }
 }
@@ -0,0 +1,137 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import controller.LivePreview;
+import model.image.Image;
+import model.image.Pixel;
+import model.strategy.FilterStrategy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JUnit test class for the LivePreview class.
+ */
+public class LivePreviewTest {
+  private Image source;
+  private AtomicInteger filterRuns;
+  private FilterStrategy countingFilter;
+  private List<Image> rendered;
+  private CountDownLatch renderedLatch;
+  private LivePreview livePreview;
+
+  /**
+   * Sets up a 10x4 source image, a filter that counts how often it runs and a live preview
+   * that records every rendered preview.
+   */
+  @Before
+  public void setUp() {
+    Pixel[][] pixels = new Pixel[4][10];
+    for (int y = 0; y < 4; y++) {
+      for (int x = 0; x < 10; x++) {
+        pixels[y][x] = new Pixel(100, 100, 100);
+      }
+    }
+    source = new Image(pixels);
+    filterRuns = new AtomicInteger();
+    countingFilter = image -> {
+      filterRuns.incrementAndGet();
+      return image.brighten(50);
+    };
+    rendered = new CopyOnWriteArrayList<>();
+    renderedLatch = new CountDownLatch(1);
+    livePreview = new LivePreview(50, image -> {
+      rendered.add(image);
+      renderedLatch.countDown();
+    });
+  }
+
+  /**
+   * Stops the background worker of the live preview.
+   */
+  @After
+  public void tearDown() {
+    livePreview.shutdown();
+  }
+
+  /**
+   * Tests that a burst of requests is coalesced into a single render of the latest request.
+   */
+  @Test
+  public void testBurstIsCoalesced() throws InterruptedException {
+    for (int split = 0; split <= 100; split += 10) {
+      livePreview.request(source, countingFilter, split);
+    }
+    livePreview.request(source, countingFilter, 30);
+    assertTrue(renderedLatch.await(5, TimeUnit.SECONDS));
+    Thread.sleep(200);
+
+    assertEquals(1, rendered.size());
+    assertEquals(1, filterRuns.get());
+    Image preview = rendered.get(0);
+    assertEquals(150, preview.getPixel(2, 0).getRed());
+    assertEquals(100, preview.getPixel(3, 0).getRed());
+  }
+
+  /**
+   * Tests that moving only the split point reuses the cached filtered image.
+   */
+  @Test
+  public void testSplitChangeReusesFilteredImage() throws InterruptedException {
+    livePreview.request(source, countingFilter, 20);
+    assertTrue(renderedLatch.await(5, TimeUnit.SECONDS));
+
+    renderedLatch = new CountDownLatch(1);
+    livePreview.request(source, countingFilter, 80);
+    assertTrue(renderedLatch.await(5, TimeUnit.SECONDS));
+
+    assertEquals(2, rendered.size());
+    assertEquals(1, filterRuns.get());
+    assertEquals(150, rendered.get(1).getPixel(7, 3).getRed());
+    assertEquals(100, rendered.get(1).getPixel(8, 3).getRed());
+  }
+
+  /**
+   * Tests that a cancelled request is never delivered.
+   */
+  @Test
+  public void testCancelDiscardsPendingRender() throws InterruptedException {
+    livePreview.request(source, countingFilter, 50);
+    livePreview.cancel();
+    Thread.sleep(200);
+
+    assertEquals(0, rendered.size());
+  }
+
+  /**
+   * Tests that a preview that was already delivered is no longer current once it is cancelled
+   * or a newer request arrives, so a listener that shows it later on another thread drops it.
+   */
+  @Test
+  public void testDeliveredPreviewBecomesStale() throws InterruptedException {
+    livePreview.shutdown();
+    List<Long> generations = new CopyOnWriteArrayList<>();
+    CountDownLatch delivered = new CountDownLatch(2);
+    livePreview = new LivePreview(10, (image, generation) -> {
+      generations.add(generation);
+      delivered.countDown();
+    });
+    livePreview.request(source, countingFilter, 50);
+    Thread.sleep(200);
+    livePreview.request(source, countingFilter, 60);
+    assertTrue(delivered.await(2, TimeUnit.SECONDS));
+
+    assertFalse(livePreview.isCurrent(generations.get(0)));
+    assertTrue(livePreview.isCurrent(generations.get(1)));
+    livePreview.cancel();
+    assertFalse(livePreview.isCurrent(generations.get(1)));
+  }
+}
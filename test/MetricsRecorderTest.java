@@ -0,0 +1,216 @@
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import controller.CommandMetrics;
+import controller.ImageController;
+import controller.MetricsRecorder;
+import model.ImageModel;
+import view.ConsoleView;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JUnit test class for the MetricsRecorder class and the metrics recorded by ImageController.
+ */
+public class MetricsRecorderTest {
+  private final File jsonFile = new File("res/controllerTest/metrics.json");
+  private final File csvFile = new File("res/controllerTest/metrics.csv");
+  private final File scriptFile = new File("res/controllerTest/metrics_script.txt");
+
+  /**
+   * Deletes the files written by the tests.
+   */
+  @After
+  public void tearDown() {
+    jsonFile.delete();
+    csvFile.delete();
+    scriptFile.delete();
+  }
+
+  /**
+   * Tests that a finished measurement is recorded with its command and dimensions.
+   */
+  @Test
+  public void testStopRecordsMetrics() {
+    MetricsRecorder recorder = new MetricsRecorder(null);
+    MetricsRecorder.Sample sample = recorder.start();
+    CommandMetrics metrics = recorder.stop(sample, "blur img img-blur", true, 640, 480);
+
+    assertEquals("blur", metrics.getName());
+    assertEquals("blur img img-blur", metrics.getCommand());
+    assertTrue(metrics.isSuccessful());
+    assertTrue(metrics.getWallNanos() >= 0);
+    assertEquals(640, metrics.getWidth());
+    assertEquals(480, metrics.getHeight());
+    assertEquals(1, recorder.getMetrics().size());
+  }
+
+  /**
+   * Tests that the summary table has one row per command name and a total row.
+   */
+  @Test
+  public void testFormatSummary() {
+    MetricsRecorder recorder = new MetricsRecorder(null);
+    recorder.stop(recorder.start(), "load a.png a", true, 2, 2);
+    recorder.stop(recorder.start(), "blur a b", true, 2, 2);
+    recorder.stop(recorder.start(), "blur b c", false, -1, -1);
+
+    String[] lines = recorder.formatSummary().split(System.lineSeparator());
+    assertEquals(4, lines.length);
+    assertTrue(lines[0].startsWith("command"));
+    assertTrue(lines[1].matches("load\\s+1\\s.*"));
+    assertTrue(lines[2].matches("blur\\s+2\\s.*"));
+    assertTrue(lines[3].matches("total\\s+3\\s.*"));
+  }
+
+  /**
+   * Tests that a metrics file with an unsupported extension is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidMetricsFile() {
+    new MetricsRecorder("metrics.txt");
+  }
+
+  /**
+   * Tests that running a script records every command with the dimensions of its output and
+   * writes the metrics as JSON, and that the metrics are reset once they have been written, so
+   * a second script is reported on its own.
+   *
+   * @throws IOException if the script or the metrics file cannot be accessed
+   */
+  @Test
+  public void testScriptMetricsJson() throws IOException {
+    Files.write(scriptFile.toPath(), List.of(
+            "load res/controllerTest/pixel_image.png img",
+            "horizontal-flip img img-flipped",
+            "blur missing missing-blurred"));
+    List<List<CommandMetrics>> written = new ArrayList<>();
+    MetricsRecorder recorder = new MetricsRecorder(jsonFile.getPath()) {
+      @Override
+      public void writeMetricsFile() throws IOException {
+        written.add(new ArrayList<>(getMetrics()));
+        super.writeMetricsFile();
+      }
+    };
+    ImageController controller = new ImageController(new ImageModel(), new ConsoleView(),
+            recorder);
+    controller.runScript(scriptFile.getPath());
+    assertTrue(recorder.getMetrics().isEmpty());
+
+    List<CommandMetrics> metrics = written.get(0);
+    assertEquals(3, metrics.size());
+    assertEquals("horizontal-flip", metrics.get(1).getName());
+    assertTrue(metrics.get(1).isSuccessful());
+    assertTrue(metrics.get(1).getWidth() > 0);
+    assertFalse(metrics.get(2).isSuccessful());
+    assertEquals(-1, metrics.get(2).getWidth());
+
+    String json = new String(Files.readAllBytes(jsonFile.toPath()));
+    assertTrue(json.startsWith("["));
+    assertTrue(json.contains("\"command\": \"horizontal-flip img img-flipped\""));
+    assertTrue(json.contains("\"successful\": false"));
+
+    controller.runScript(scriptFile.getPath());
+    assertEquals(2, written.size());
+    assertEquals(3, written.get(1).size());
+  }
+
+  /**
+   * Tests that the metrics can be written as CSV with a header row.
+   *
+   * @throws IOException if the metrics file cannot be written
+   */
+  @Test
+  public void testWriteCsv() throws IOException {
+    MetricsRecorder recorder = new MetricsRecorder(csvFile.getPath());
+    recorder.stop(recorder.start(), "load \"a b\".png a", true, 3, 4);
+    recorder.writeMetricsFile();
+
+    List<String> lines = Files.readAllLines(csvFile.toPath());
+    assertEquals(2, lines.size());
+    assertEquals("command,name,successful,wallNanos,cpuNanos,allocatedBytes,partial,width,"
+            + "height", lines.get(0));
+    assertTrue(lines.get(1).startsWith("\"load \"\"a b\"\".png a\",load,true,"));
+    assertTrue(lines.get(1).endsWith(",false,3,4"));
+  }
+
+  /**
+   * Tests that the CPU time and allocations of work handed to a pool thread are recorded for
+   * the command, and that the measurement is complete while the pool thread stays alive.
+   *
+   * @throws Exception if the pooled work fails
+   */
+  @Test
+  public void testPooledWorkMeasured() throws Exception {
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+    try {
+      pool.submit(() -> { }).get();
+      MetricsRecorder recorder = new MetricsRecorder(null);
+      MetricsRecorder.Sample sample = recorder.start();
+      long[][] kept = pool.submit(() -> work(32)).get();
+      CommandMetrics metrics = recorder.stop(sample, "save img.png img", true, 1, 1);
+
+      assertEquals(32, kept.length);
+      assertTrue(metrics.getAllocatedBytes() >= 32L * 1024 * 1024);
+      assertTrue(metrics.getCpuNanos() > 0);
+      assertFalse(metrics.isPartial());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Tests that a command whose worker thread ends before the command finishes is marked as
+   * partial in the metrics, the summary table and the metrics file.
+   *
+   * @throws Exception if the worker is interrupted or the metrics file cannot be written
+   */
+  @Test
+  public void testEndedThreadMarksPartial() throws Exception {
+    MetricsRecorder recorder = new MetricsRecorder(csvFile.getPath());
+    MetricsRecorder.Sample sample = recorder.start();
+    Thread worker = new Thread(() -> work(1));
+    worker.start();
+    worker.join();
+    CommandMetrics metrics = recorder.stop(sample, "run script.txt stream", true, -1, -1);
+    recorder.stop(recorder.start(), "load a.png a", true, 2, 2);
+
+    assertTrue(metrics.isPartial());
+    String[] lines = recorder.formatSummary().split(System.lineSeparator());
+    assertEquals(5, lines.length);
+    assertTrue(lines[1].matches("run\\*\\s+1\\s.*"));
+    assertTrue(lines[2].matches("load\\s+1\\s.*"));
+    assertTrue(lines[3].matches("total\\*\\s+2\\s.*"));
+    assertTrue(lines[4].startsWith("*"));
+    recorder.writeMetricsFile();
+    List<String> csv = Files.readAllLines(csvFile.toPath());
+    assertTrue(csv.get(1).endsWith(",true,-1,-1"));
+    assertTrue(csv.get(2).endsWith(",false,2,2"));
+  }
+
+  /**
+   * Allocates and fills arrays of one megabyte each, standing in for the work of a command.
+   *
+   * @param megabytes the number of arrays to allocate
+   * @return the filled arrays
+   */
+  private static long[][] work(int megabytes) {
+    long[][] arrays = new long[megabytes][];
+    for (int i = 0; i < megabytes; i++) {
+      arrays[i] = new long[128 * 1024];
+      Arrays.fill(arrays[i], i);
+    }
+    return arrays;
+  }
+}
@@ -2,6 +2,7 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Optional;
 
 import controller.IImageFileParser;
 import controller.PNGParser;
@@ -9,6 +10,7 @@ import model.image.Image;
 import model.image.Pixel;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -88,4 +90,36 @@ public class PNGParserTest {
     parser.saveImage("res/image/save_incorrect.png", image);
   }
 
-}
\ No newline at end of file
+  /**
+   * Test case for the loadSubsampled() method of the PNGParser class. The reduced image fits
+   * the requested size and starts with the same pixel as the full image.
+   *
+   * @throws IOException if the image cannot be read
+   */
+  @Test
+  public void testLoadSubsampled() throws IOException {
+    PNGParser parser = new PNGParser();
+    Image image = parser.loadImage(testPath);
+    int maxDimension = Math.max(image.getWidth(), image.getHeight()) / 3;
+
+    Optional<Image> preview = parser.loadSubsampled(testPath, maxDimension);
+    assertTrue(preview.isPresent());
+    assertTrue(preview.get().getWidth() <= maxDimension);
+    assertTrue(preview.get().getHeight() <= maxDimension);
+    assertEquals(image.getPixel(0, 0).getRed(), preview.get().getPixel(0, 0).getRed());
+    assertEquals(image.getPixel(0, 0).getGreen(), preview.get().getPixel(0, 0).getGreen());
+    assertEquals(image.getPixel(0, 0).getBlue(), preview.get().getPixel(0, 0).getBlue());
+  }
+
+  /**
+   * Test case for the loadSubsampled() method of the PNGParser class when the image already
+   * fits the requested size.
+   *
+   * @throws IOException if the image cannot be read
+   */
+  @Test
+  public void testLoadSubsampledSmallImage() throws IOException {
+    PNGParser parser = new PNGParser();
+    assertFalse(parser.loadSubsampled(testPath, Integer.MAX_VALUE).isPresent());
+  }
+}
@@ -5,6 +5,8 @@ import model.image.Pixel;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 /**
  * JUnit test class for the Pixel class.
@@ -80,4 +82,45 @@ public class PixelTest {
     assertEquals(0, clampedPixel.getGreen());
     assertEquals(0, clampedPixel.getBlue());
   }
+
+  /**
+   * Tests that Pixel.of shares grayscale and single-channel pixels, clamps its arguments and
+   * creates a new pixel for any other color.
+   */
+  @Test
+  public void testOfSharesTablePixels() {
+    assertSame(Pixel.of(17, 17, 17), Pixel.of(17, 17, 17));
+    assertSame(Pixel.of(0, 0, 0), Pixel.of(-5, 0, 0));
+    assertSame(Pixel.of(255, 255, 255), Pixel.of(300, 999, 256));
+    assertSame(Pixel.of(90, 0, 0), Pixel.of(90, 0, 0));
+    assertSame(Pixel.of(0, 90, 0), Pixel.of(0, 90, 0));
+    assertSame(Pixel.of(0, 0, 90), Pixel.of(0, 0, 90));
+    assertNotSame(Pixel.of(1, 2, 3), Pixel.of(1, 2, 3));
+
+    Pixel clamped = Pixel.of(-1, 128, 400);
+    assertEquals(0, clamped.getRed());
+    assertEquals(128, clamped.getGreen());
+    assertEquals(255, clamped.getBlue());
+  }
+
+  /**
+   * Tests that Pixel.cached returns pixels with the requested colors, reuses a color that is
+   * still in the cache and shares the table pixels.
+   */
+  @Test
+  public void testCachedReusesColors() {
+    Pixel first = Pixel.cached(12, 34, 56);
+    assertEquals(12, first.getRed());
+    assertEquals(34, first.getGreen());
+    assertEquals(56, first.getBlue());
+    assertSame(first, Pixel.cached(12, 34, 56));
+    assertSame(Pixel.of(40, 40, 40), Pixel.cached(40, 40, 40));
+
+    for (int color = 0; color < 1 << 16; color++) {
+      Pixel pixel = Pixel.cached(color >> 8, color & 0xff, 77);
+      assertEquals(color >> 8, pixel.getRed());
+      assertEquals(color & 0xff, pixel.getGreen());
+      assertEquals(77, pixel.getBlue());
+    }
+  }
 }
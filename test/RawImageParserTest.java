@@ -0,0 +1,168 @@
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import controller.EncoderOptions;
+import controller.IImageFileParser;
+import controller.PNGParser;
+import controller.RawImageParser;
+import model.image.Image;
+import model.image.Pixel;
+import model.image.StripSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for the RawImageParser implementation of the
+ * IImageFileParser interface.
+ */
+public class RawImageParserTest {
+
+  private final String testPath = "res/images/film_original.png";
+  private final String outputPath = "res/images/film_output_raw.rawimg";
+
+  /**
+   * Asserts that two images have the same dimensions and color values.
+   *
+   * @param expected the expected image
+   * @param actual   the actual image
+   */
+  private void assertSameImage(Image expected, Image actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        Pixel e = expected.getPixel(x, y);
+        Pixel a = actual.getPixel(x, y);
+        assertEquals(e.getRed(), a.getRed());
+        assertEquals(e.getGreen(), a.getGreen());
+        assertEquals(e.getBlue(), a.getBlue());
+      }
+    }
+  }
+
+  /**
+   * Test case for saving an image in the interleaved layout and loading it back, checking
+   * the header and the exact file size.
+   */
+  @Test
+  public void testSaveAndLoadInterleaved() throws IOException {
+    Image image = new PNGParser().loadImage(testPath);
+    IImageFileParser parser = new RawImageParser();
+    parser.saveImage(outputPath, image);
+
+    File outputFile = new File(outputPath);
+    assertTrue(outputFile.exists());
+    assertEquals(RawImageParser.HEADER_SIZE + 3L * image.getWidth() * image.getHeight(),
+            outputFile.length());
+    assertSameImage(image, parser.loadImage(outputPath));
+  }
+
+  /**
+   * Test case for saving a flipped image in the planar layout and loading it back with a
+   * parser that saves interleaved samples.
+   */
+  @Test
+  public void testSaveAndLoadPlanar() throws IOException {
+    Random random = new Random(3);
+    Pixel[][] pixels = new Pixel[7][13];
+    for (int y = 0; y < 7; y++) {
+      for (int x = 0; x < 13; x++) {
+        pixels[y][x] = new Pixel(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+      }
+    }
+    Image image = new Image(pixels).horizontalFlip();
+    new RawImageParser(true).saveImage(outputPath, image);
+    assertSameImage(image, new RawImageParser().loadImage(outputPath));
+  }
+
+  /**
+   * Test case for writing both layouts strip by strip and reading them back in strips of a
+   * different height.
+   */
+  @Test
+  public void testSaveAndOpenStrips() throws IOException {
+    Random random = new Random(9);
+    Pixel[][] pixels = new Pixel[29][11];
+    for (Pixel[] row : pixels) {
+      for (int x = 0; x < row.length; x++) {
+        row[x] = new Pixel(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+      }
+    }
+    Image image = new Image(pixels);
+    for (boolean planar : new boolean[]{false, true}) {
+      StripSource source = StripSource.of(image);
+      new RawImageParser(planar).saveStrips(outputPath, new StripSource() {
+        @Override
+        public int getWidth() {
+          return source.getWidth();
+        }
+
+        @Override
+        public int getHeight() {
+          return source.getHeight();
+        }
+
+        @Override
+        public Image readStrip(int maxRows) throws IOException {
+          return source.readStrip(Math.min(maxRows, 4));
+        }
+      }, EncoderOptions.DEFAULTS);
+      assertSameImage(image, new RawImageParser().loadImage(outputPath));
+
+      Pixel[][] read = new Pixel[29][];
+      int y = 0;
+      try (StripSource strips = new RawImageParser().openStrips(outputPath)) {
+        assertEquals(11, strips.getWidth());
+        assertEquals(29, strips.getHeight());
+        Image strip;
+        while ((strip = strips.readStrip(6)) != null) {
+          for (Pixel[] row : strip.getPixels()) {
+            read[y++] = row;
+          }
+        }
+      }
+      assertEquals(29, y);
+      assertSameImage(image, new Image(read));
+    }
+  }
+
+  /**
+   * Test case for loading a file that does not start with the raw image header.
+   *
+   * @throws IOException since the file is a PNG image
+   */
+  @Test(expected = IOException.class)
+  public void testLoadInvalidHeader() throws IOException {
+    new RawImageParser().loadImage(testPath);
+  }
+
+  /**
+   * Test case for loading a file whose size does not match the dimensions in its header.
+   *
+   * @throws IOException since the file is truncated
+   */
+  @Test(expected = IOException.class)
+  public void testLoadTruncatedFile() throws IOException {
+    Image image = new Image(new Pixel[][]{{new Pixel(1, 2, 3), new Pixel(4, 5, 6)}});
+    new RawImageParser().saveImage(outputPath, image);
+    try (RandomAccessFile file = new RandomAccessFile(outputPath, "rw")) {
+      file.setLength(file.length() - 1);
+    }
+    new RawImageParser().loadImage(outputPath);
+  }
+
+  /**
+   * Test case for the loadImage() method when a non-existent file path is given.
+   *
+   * @throws IOException if filepath is incorrect
+   */
+  @Test(expected = IOException.class)
+  public void testLoadImageWithNonExistentFile() throws IOException {
+    new RawImageParser().loadImage("nonexistent_file.rawimg");
+  }
+}
@@ -0,0 +1,311 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Random;
+
+import model.ConcurrentImageModel;
+import model.IImageModel;
+import model.ImageModel;
+import model.image.Image;
+import model.image.MipChain;
+import model.image.Pixel;
+import model.image.Resampler;
+import model.image.ResizeFilter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for resizing images with the Resampler, the MipChain and the model.
+ */
+public class ResamplerTest {
+
+  /**
+   * Creates an image of random pixels.
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @param seed   the seed of the random generator
+   * @return the random image
+   */
+  private Image randomImage(int width, int height, long seed) {
+    Random random = new Random(seed);
+    Pixel[][] pixels = new Pixel[height][width];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        pixels[y][x] = new Pixel(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+      }
+    }
+    return new Image(pixels);
+  }
+
+  /**
+   * Tests that a reduction by whole factors averages the blocks of source pixels, also when
+   * the rows are reduced in parallel.
+   */
+  @Test
+  public void testBoxReductionAveragesBlocks() {
+    Image image = randomImage(600, 300, 1);
+    Image reduced = image.resize(200, 150);
+    assertEquals(200, reduced.getWidth());
+    assertEquals(150, reduced.getHeight());
+    for (int y = 0; y < 150; y += 37) {
+      for (int x = 0; x < 200; x += 29) {
+        int red = 0;
+        for (int dy = 0; dy < 2; dy++) {
+          for (int dx = 0; dx < 3; dx++) {
+            red += image.getPixel(3 * x + dx, 2 * y + dy).getRed();
+          }
+        }
+        assertEquals((red + 3) / 6, reduced.getPixel(x, y).getRed());
+      }
+    }
+  }
+
+  /**
+   * Tests that every filter keeps a uniform color when reducing and enlarging by any factor.
+   */
+  @Test
+  public void testFiltersKeepUniformColor() {
+    Pixel[][] pixels = new Pixel[37][53];
+    for (Pixel[] row : pixels) {
+      Arrays.fill(row, new Pixel(200, 100, 30));
+    }
+    Image image = new Image(pixels);
+    for (ResizeFilter filter : ResizeFilter.values()) {
+      for (int[] size : new int[][]{{20, 11}, {53, 37}, {120, 90}, {1, 1}}) {
+        Image resized = image.resize(size[0], size[1], filter);
+        assertEquals(size[0], resized.getWidth());
+        assertEquals(size[1], resized.getHeight());
+        for (int y = 0; y < size[1]; y++) {
+          for (int x = 0; x < size[0]; x++) {
+            Pixel pixel = resized.getPixel(x, y);
+            assertEquals(200, pixel.getRed());
+            assertEquals(100, pixel.getGreen());
+            assertEquals(30, pixel.getBlue());
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that bilinear enlargement interpolates between neighbouring pixels.
+   */
+  @Test
+  public void testBilinearEnlargementInterpolates() {
+    Image image = new Image(new Pixel[][]{{new Pixel(0, 0, 0), new Pixel(200, 200, 200)}});
+    Image enlarged = image.resize(4, 1, ResizeFilter.BILINEAR);
+    assertEquals(0, enlarged.getPixel(0, 0).getRed());
+    assertEquals(50, enlarged.getPixel(1, 0).getRed());
+    assertEquals(150, enlarged.getPixel(2, 0).getRed());
+    assertEquals(200, enlarged.getPixel(3, 0).getRed());
+  }
+
+  /**
+   * Tests the size of thumbnails of wide, tall and small images.
+   */
+  @Test
+  public void testThumbnailKeepsProportions() {
+    assertArrayEquals(new int[]{100, 50}, Resampler.fit(400, 200, 100));
+    assertArrayEquals(new int[]{33, 100}, Resampler.fit(100, 300, 100));
+    assertArrayEquals(new int[]{40, 30}, Resampler.fit(40, 30, 100));
+    Image thumbnail = randomImage(301, 157, 2).thumbnail(64);
+    assertEquals(64, thumbnail.getWidth());
+    assertEquals(33, thumbnail.getHeight());
+  }
+
+  /**
+   * Tests that the mip chain builds every level once and that the levels it returns are
+   * isolated from writes.
+   */
+  @Test
+  public void testMipChainReusesLevels() {
+    Image image = randomImage(256, 128, 3);
+    MipChain chain = new MipChain(image);
+    assertEquals(1, chain.getLevelCount());
+
+    Image small = chain.resize(50, 25);
+    assertEquals(3, chain.getLevelCount());
+    assertEquals(50, small.getWidth());
+    chain.resize(60, 30);
+    chain.thumbnail(64);
+    assertEquals(3, chain.getLevelCount());
+
+    Image level = chain.level(2);
+    assertEquals(64, level.getWidth());
+    assertEquals(32, level.getHeight());
+    Pixel before = level.getPixel(0, 0);
+    level.setPixel(0, 0, new Pixel(1, 2, 3));
+    assertEquals(before.getRed(), chain.level(2).getPixel(0, 0).getRed());
+    assertEquals(1, level.getPixel(0, 0).getRed());
+  }
+
+  /**
+   * Tests that a reduction to a mip level size averages like a direct block reduction.
+   */
+  @Test
+  public void testMipLevelMatchesBoxReduction() {
+    Image image = randomImage(128, 64, 4);
+    Image mip = new MipChain(image).resize(64, 32);
+    Image direct = image.resize(64, 32, ResizeFilter.BOX);
+    for (int y = 0; y < 32; y++) {
+      for (int x = 0; x < 64; x++) {
+        assertEquals(direct.getPixel(x, y).getGreen(), mip.getPixel(x, y).getGreen());
+      }
+    }
+  }
+
+  /**
+   * Asserts that two images have the same size and pixels.
+   *
+   * @param expected the expected image
+   * @param actual   the actual image
+   */
+  private void assertSamePixels(Image expected, Image actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getPixel(x, y).getRed(), actual.getPixel(x, y).getRed());
+        assertEquals(expected.getPixel(x, y).getGreen(), actual.getPixel(x, y).getGreen());
+        assertEquals(expected.getPixel(x, y).getBlue(), actual.getPixel(x, y).getBlue());
+      }
+    }
+  }
+
+  /**
+   * Returns whether two images of the same size differ in any channel of any pixel.
+   *
+   * @param first  the first image
+   * @param second the second image
+   * @return true if a pixel differs, otherwise false
+   */
+  private boolean differ(Image first, Image second) {
+    for (int y = 0; y < first.getHeight(); y++) {
+      for (int x = 0; x < first.getWidth(); x++) {
+        Pixel a = first.getPixel(x, y);
+        Pixel b = second.getPixel(x, y);
+        if (a.getRed() != b.getRed() || a.getGreen() != b.getGreen()
+                || a.getBlue() != b.getBlue()) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Tests that an explicit Lanczos or bilinear resize is computed from the source instead of a
+   * box filtered mip level, so it differs from a box resize, and builds no level of the chain.
+   * The models give the same result.
+   */
+  @Test
+  public void testExplicitFilterResamplesSource() throws IOException {
+    Image image = randomImage(256, 128, 6);
+    MipChain chain = new MipChain(image);
+    Image lanczos = chain.resize(50, 25, ResizeFilter.LANCZOS);
+    assertEquals(1, chain.getLevelCount());
+    assertSamePixels(image.resize(50, 25, ResizeFilter.LANCZOS), lanczos);
+    assertSamePixels(image.resize(60, 30, ResizeFilter.BILINEAR),
+            chain.resize(60, 30, ResizeFilter.BILINEAR));
+    assertEquals(1, chain.getLevelCount());
+    Image box = chain.resize(50, 25, ResizeFilter.BOX);
+    assertTrue(differ(lanczos, box));
+
+    IImageModel[] models = {new ImageModel(), new ConcurrentImageModel()};
+    for (IImageModel model : models) {
+      model.addImage(image, "source");
+      model.resize("source", "lanczos", 50, 25, Optional.of(ResizeFilter.LANCZOS));
+      model.resize("source", "box", 50, 25, Optional.of(ResizeFilter.BOX));
+      assertSamePixels(lanczos, model.getImage("lanczos"));
+      assertTrue(differ(model.getImage("lanczos"), model.getImage("box")));
+    }
+  }
+
+  /**
+   * Tests resizing and thumbnails through the model.
+   */
+  @Test
+  public void testModelResizeAndThumbnail() throws IOException {
+    ImageModel model = new ImageModel();
+    model.addImage(randomImage(320, 240, 5), "source");
+    model.resize("source", "small", 100, 75, Optional.empty());
+    model.resize("source", "sharp", 100, 75, Optional.of(ResizeFilter.LANCZOS));
+    model.thumbnail("source", "thumb", 32);
+    assertEquals(100, model.getImage("small").getWidth());
+    assertEquals(75, model.getImage("sharp").getHeight());
+    assertEquals(32, model.getImage("thumb").getWidth());
+    assertEquals(24, model.getImage("thumb").getHeight());
+  }
+
+  /**
+   * Asserts that an image is no longer reachable, collecting garbage until it is collected.
+   *
+   * @param reference a weak reference to the image
+   */
+  static void assertCollected(WeakReference<Image> reference) {
+    for (int i = 0; i < 20 && reference.get() != null; i++) {
+      System.gc();
+    }
+    assertNull("The image is still reachable.", reference.get());
+  }
+
+  /**
+   * Tests that the mip chain of an image is dropped when its name is written, by adding an
+   * image or by an operation, so the overwritten image can be collected.
+   */
+  @Test
+  public void testOverwrittenImageReleasesMipChain() throws IOException {
+    ImageModel model = new ImageModel();
+    Image image = randomImage(64, 64, 8);
+    WeakReference<Image> added = new WeakReference<>(image);
+    model.addImage(image, "img");
+    image = null;
+    model.thumbnail("img", "thumb", 8);
+    model.addImage(randomImage(32, 32, 9), "img");
+    assertCollected(added);
+
+    WeakReference<Image> replaced = new WeakReference<>(model.getImage("img"));
+    model.resize("img", "small", 4, 4, Optional.empty());
+    model.brightenCommand(10, "img", "img");
+    assertCollected(replaced);
+    assertEquals(8, model.getImage("thumb").getWidth());
+  }
+
+  /**
+   * Tests that a size that is not positive is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSize() {
+    randomImage(4, 4, 6).resize(0, 2);
+  }
+
+  /**
+   * Tests that resizing an image that is not in the model fails.
+   *
+   * @throws IOException since the image does not exist
+   */
+  @Test(expected = IOException.class)
+  public void testModelResizeMissingImage() throws IOException {
+    new ImageModel().thumbnail("missing", "thumb", 10);
+  }
+
+  /**
+   * Tests that a flipped view is resized like the flipped pixels.
+   */
+  @Test
+  public void testResizeFlipView() {
+    Image image = randomImage(64, 64, 7);
+    Image flipped = image.horizontalFlip().resize(32, 32);
+    Image expected = image.resize(32, 32).horizontalFlip();
+    for (int x = 0; x < 32; x++) {
+      assertEquals(expected.getPixel(x, 5).getBlue(), flipped.getPixel(x, 5).getBlue());
+    }
+  }
+}
@@ -0,0 +1,335 @@
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import controller.CommandFactory;
+import controller.CommandRegistry;
+import controller.CompiledCommand;
+import controller.ImageController;
+import controller.OptimizationReport;
+import controller.ScriptMode;
+import controller.ScriptOptimizer;
+import controller.ScriptPlan;
+import model.ImageModel;
+import model.image.Image;
+import model.image.Pixel;
+import view.ConsoleView;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for the ScriptOptimizer.
+ */
+public class ScriptOptimizerTest {
+  private final File scriptFile = new File("res/controllerTest/optimizer_script.txt");
+
+  /**
+   * The registry of the built-in commands and two more: "keep", which observes an image without
+   * writing a file, and "opaque", which is not described to the optimizer.
+   */
+  private final CommandRegistry registry;
+
+  /**
+   * Creates the registry used by the tests.
+   */
+  public ScriptOptimizerTest() {
+    Map<String, CommandFactory> factories = CommandRegistry.builtIns();
+    factories.put("keep", (text, words) -> CompiledCommand.sink(text, words[0], words[1],
+        model -> () -> model.getImage(words[1]) != null));
+    factories.put("opaque", (text, words) -> CompiledCommand.of(text, words[0], null,
+        model -> () -> true));
+    registry = new CommandRegistry(factories);
+  }
+
+  /**
+   * Deletes the script written by the tests.
+   */
+  @After
+  public void tearDown() {
+    scriptFile.delete();
+  }
+
+  /**
+   * Returns the texts of the commands of a plan.
+   *
+   * @param plan the plan
+   * @return the text of every command, in order
+   */
+  private List<String> texts(ScriptPlan plan) {
+    List<String> texts = new ArrayList<>();
+    for (CompiledCommand command : plan.getCommands()) {
+      texts.add(command.getText());
+    }
+    return texts;
+  }
+
+  /**
+   * Returns a model holding an image of random pixels named "img".
+   *
+   * @return the model
+   * @throws IOException if the image cannot be added
+   */
+  private ImageModel modelWithImage() throws IOException {
+    Random random = new Random(3);
+    Pixel[][] pixels = new Pixel[6][8];
+    for (Pixel[] row : pixels) {
+      for (int x = 0; x < row.length; x++) {
+        row[x] = new Pixel(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+      }
+    }
+    ImageModel model = new ImageModel();
+    model.addImage(new Image(pixels), "img");
+    return model;
+  }
+
+  /**
+   * Executes a plan against a model.
+   *
+   * @param plan  the plan
+   * @param model the model
+   * @throws Exception if a command fails
+   */
+  private void execute(ScriptPlan plan, ImageModel model) throws Exception {
+    for (CompiledCommand command : plan.getCommands()) {
+      assertTrue(command.bind(model).execute());
+    }
+  }
+
+  /**
+   * Asserts that two images have the same pixels.
+   *
+   * @param expected the expected image
+   * @param actual   the actual image
+   */
+  private void assertSamePixels(Image expected, Image actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getPixel(x, y).getRed(), actual.getPixel(x, y).getRed());
+        assertEquals(expected.getPixel(x, y).getGreen(), actual.getPixel(x, y).getGreen());
+        assertEquals(expected.getPixel(x, y).getBlue(), actual.getPixel(x, y).getBlue());
+      }
+    }
+  }
+
+  /**
+   * Tests that the rgb-split commands of the example script reuse the component images.
+   */
+  @Test
+  public void testExampleScript() throws IOException {
+    OptimizationReport report = ScriptOptimizer.optimize(CommandRegistry.getDefault().compile(
+            Files.readAllLines(Paths.get("res/commands.txt"))));
+    assertEquals(2, report.getSharedCommands());
+    assertEquals(0, report.getRemovedCommands());
+    assertEquals(6, report.getPassesSaved());
+    List<String> texts = texts(report.getPlan());
+    assertTrue(texts.contains("alias filmRedComponent redSplit"));
+    assertTrue(texts.contains("alias filmBlueComponent filmBlueComp2"));
+    assertFalse(texts.contains("rgb-split film redSplit greenSplit blueSplit"));
+  }
+
+  /**
+   * Tests that results that are never observed, or overwritten before they are, are removed.
+   */
+  @Test
+  public void testDeadStoresRemoved() {
+    OptimizationReport report = ScriptOptimizer.optimize(registry.compile(Arrays.asList(
+            "load a.png img",
+            "load b.png unused",
+            "blur img blurred",
+            "sepia img out",
+            "brighten 10 out out",
+            "sharpen img out",
+            "keep out")));
+    assertEquals(Arrays.asList("load a.png img", "sharpen img out", "keep out"),
+            texts(report.getPlan()));
+    assertEquals(4, report.getRemovedCommands());
+    assertEquals(4, report.getPassesSaved());
+  }
+
+  /**
+   * Tests that with every image live at the end, as for a script run by another script, only
+   * results that the script overwrites before they are observed are removed.
+   */
+  @Test
+  public void testLiveAtEndKeepsImages() {
+    OptimizationReport report = ScriptOptimizer.optimize(registry.compile(Arrays.asList(
+            "load a.png img",
+            "load b.png unused",
+            "blur img blurred",
+            "sepia img out",
+            "brighten 10 out out",
+            "sharpen img out",
+            "keep out")), true);
+    assertEquals(Arrays.asList("load a.png img", "load b.png unused", "blur img blurred",
+            "sharpen img out", "keep out"), texts(report.getPlan()));
+    assertEquals(2, report.getRemovedCommands());
+  }
+
+  /**
+   * Tests that duplicates are aliased and that the optimized plan computes the same images.
+   */
+  @Test
+  public void testDuplicatesGiveSameImages() throws Exception {
+    ScriptPlan plan = registry.compile(Arrays.asList(
+            "red-component img r",
+            "green-component img g",
+            "blue-component img b",
+            "rgb-split img r2 g2 b2",
+            "blur img blurred split 50",
+            "blur img blurred2 split 50",
+            "blur img sharp",
+            "rgb-combine combined r2 g2 b2",
+            "keep combined",
+            "keep blurred2",
+            "keep sharp"));
+    OptimizationReport report = ScriptOptimizer.optimize(plan);
+    assertEquals(2, report.getSharedCommands());
+    assertEquals(0, report.getRemovedCommands());
+    assertEquals(Arrays.asList("red-component img r", "green-component img g",
+            "blue-component img b", "alias r r2", "alias g g2", "alias b b2",
+            "blur img blurred split 50", "alias blurred blurred2", "blur img sharp",
+            "rgb-combine combined r2 g2 b2", "keep combined", "keep blurred2", "keep sharp"),
+            texts(report.getPlan()));
+
+    ImageModel expected = modelWithImage();
+    execute(plan, expected);
+    ImageModel actual = modelWithImage();
+    execute(report.getPlan(), actual);
+    for (String name : Arrays.asList("combined", "blurred2", "sharp")) {
+      assertSamePixels(expected.getImage(name), actual.getImage(name));
+    }
+  }
+
+  /**
+   * Tests that a command is not shared with one whose input has been overwritten since, and
+   * that outputs are not aliased to images the same command overwrites.
+   */
+  @Test
+  public void testOverwrittenInputsNotShared() throws Exception {
+    ScriptPlan plan = registry.compile(Arrays.asList(
+            "blur img first",
+            "brighten 10 img img",
+            "blur img second",
+            "red-component img r",
+            "green-component img g",
+            "blue-component img b",
+            "rgb-split img g r b2",
+            "keep first",
+            "keep second",
+            "keep g",
+            "keep r",
+            "keep b2"));
+    OptimizationReport report = ScriptOptimizer.optimize(plan);
+    assertEquals(0, report.getSharedCommands());
+
+    ImageModel expected = modelWithImage();
+    execute(plan, expected);
+    ImageModel actual = modelWithImage();
+    execute(report.getPlan(), actual);
+    for (String name : Arrays.asList("first", "second", "g", "r", "b2")) {
+      assertSamePixels(expected.getImage(name), actual.getImage(name));
+    }
+  }
+
+  /**
+   * Tests that nothing before an opaque command is removed or shared across it.
+   */
+  @Test
+  public void testOpaqueCommandIsBarrier() {
+    ScriptPlan plan = registry.compile(Arrays.asList(
+            "blur img a",
+            "opaque",
+            "blur img b",
+            "keep b"));
+    OptimizationReport report = ScriptOptimizer.optimize(plan);
+    assertEquals(0, report.getRemovedCommands());
+    assertEquals(0, report.getSharedCommands());
+    assertEquals(texts(plan), texts(report.getPlan()));
+  }
+
+  /**
+   * Tests that the controller shows the report and skips the removed commands.
+   */
+  @Test
+  public void testControllerRunsOptimizedScript() throws IOException {
+    File saved = new File("res/controllerTest/optimizer_flipped.png");
+    Files.write(scriptFile.toPath(), Arrays.asList(
+            "load res/controllerTest/pixel_image.png img",
+            "blur img unused",
+            "horizontal-flip img flipped",
+            "save " + saved.getPath() + " flipped"));
+    ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    PrintStream originalOut = System.out;
+    System.setOut(new PrintStream(outContent));
+    ImageModel model = new ImageModel();
+    try {
+      new ImageController(model, new ConsoleView())
+              .runScript(scriptFile.getPath(), ScriptMode.OPTIMIZED);
+    } finally {
+      System.setOut(originalOut);
+      assertTrue(saved.delete());
+    }
+    assertTrue(outContent.toString().contains("Optimized script: 4 commands, 1 removed as "
+            + "never saved or used, 0 duplicates replaced by aliases; about 1 pixel passes "
+            + "saved."));
+    assertTrue(outContent.toString().contains("horizontal-flip operation successful."));
+    assertFalse(outContent.toString().contains("blur operation"));
+    model.getImage("flipped");
+    try {
+      model.getImage("unused");
+      fail("Expected the blur to be removed.");
+    } catch (IOException expected) {
+      // The blurred image is never saved, so it was not computed.
+    }
+  }
+
+  /**
+   * Tests that a script run optimized by another script keeps every image it leaves, since the
+   * caller may read it after the run.
+   */
+  @Test
+  public void testNestedOptimizedScriptKeepsImages() throws IOException {
+    File inner = new File("res/controllerTest/optimizer_inner.txt");
+    File saved = new File("res/controllerTest/optimizer_blurred.png");
+    Files.write(inner.toPath(), Arrays.asList(
+            "load res/controllerTest/pixel_image.png img",
+            "blur img blurred",
+            "sepia img toned",
+            "sharpen img toned"));
+    Files.write(scriptFile.toPath(), Arrays.asList(
+            "run " + inner.getPath() + " optimize",
+            "save " + saved.getPath() + " blurred"));
+    ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    PrintStream originalOut = System.out;
+    System.setOut(new PrintStream(outContent));
+    ImageModel model = new ImageModel();
+    try {
+      new ImageController(model, new ConsoleView()).runScript(scriptFile.getPath());
+      assertTrue(saved.exists());
+    } finally {
+      System.setOut(originalOut);
+      saved.delete();
+      assertTrue(inner.delete());
+    }
+    assertTrue(outContent.toString().contains("Optimized script: 4 commands, 1 removed"));
+    assertTrue(outContent.toString().contains("save operation successful."));
+    model.getImage("blurred");
+    model.getImage("toned");
+  }
+}
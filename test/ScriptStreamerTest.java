@@ -0,0 +1,276 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import controller.CommandRegistry;
+import controller.CompiledCommand;
+import controller.ImageController;
+import controller.PNGParser;
+import controller.PPMParser;
+import controller.RawImageParser;
+import controller.ScriptMode;
+import controller.ScriptPlan;
+import controller.ScriptStreamer;
+import model.ImageModel;
+import model.image.Image;
+import model.image.Pixel;
+import view.ConsoleView;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for the ScriptStreamer.
+ */
+public class ScriptStreamerTest {
+  private static final String DIR = "res/controllerTest/";
+  private final List<File> files = new ArrayList<>();
+
+  /**
+   * Writes a random image as a PNG file and as a planar raw image.
+   */
+  @Before
+  public void setUp() throws IOException {
+    Random random = new Random(21);
+    Pixel[][] pixels = new Pixel[150][41];
+    for (Pixel[] row : pixels) {
+      for (int x = 0; x < row.length; x++) {
+        row[x] = new Pixel(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+      }
+    }
+    Image image = new Image(pixels);
+    new PNGParser().saveImage(file("stream_source.png"), image);
+    new RawImageParser(true).saveImage(file("stream_source.rawimg"), image);
+  }
+
+  /**
+   * Deletes the files written by the tests.
+   */
+  @After
+  public void tearDown() {
+    for (File file : files) {
+      file.delete();
+    }
+  }
+
+  /**
+   * Returns the path of a file in the test folder, which is deleted after the test.
+   *
+   * @param name the name of the file
+   * @return the path of the file
+   */
+  private String file(String name) {
+    files.add(new File(DIR + name));
+    return DIR + name;
+  }
+
+  /**
+   * Returns the texts of the commands of a streamed script.
+   *
+   * @param lines the lines of the script
+   * @return the text of every command after streaming
+   */
+  private List<String> streamed(String... lines) {
+    ScriptPlan plan = ScriptStreamer.stream(CommandRegistry.getDefault().compile(
+            Arrays.asList(lines)));
+    List<String> texts = new ArrayList<>();
+    for (CompiledCommand command : plan.getCommands()) {
+      texts.add(command.getText());
+    }
+    return texts;
+  }
+
+  /**
+   * Asserts that two images have the same dimensions and color values.
+   *
+   * @param expected the expected image
+   * @param actual   the actual image
+   */
+  private void assertSameImage(Image expected, Image actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        Pixel e = expected.getPixel(x, y);
+        Pixel a = actual.getPixel(x, y);
+        assertEquals(e.getRed(), a.getRed());
+        assertEquals(e.getGreen(), a.getGreen());
+        assertEquals(e.getBlue(), a.getBlue());
+      }
+    }
+  }
+
+  /**
+   * Runs a script through a controller.
+   *
+   * @param mode  how the script is run
+   * @param lines the lines of the script
+   * @return the model after the script has run
+   * @throws IOException if the script cannot be written
+   */
+  private ImageModel run(ScriptMode mode, String... lines) throws IOException {
+    String script = file("stream_script.txt");
+    Files.write(new File(script).toPath(), Arrays.asList(lines));
+    ImageModel model = new ImageModel();
+    PrintStream originalOut = System.out;
+    System.setOut(new PrintStream(new ByteArrayOutputStream()));
+    try {
+      new ImageController(model, new ConsoleView()).runScript(script, mode);
+    } finally {
+      System.setOut(originalOut);
+    }
+    return model;
+  }
+
+  /**
+   * Tests that a chain of a load, filters and a save becomes one streaming command and that
+   * the commands around it are kept.
+   */
+  @Test
+  public void testChainIsStreamed() {
+    assertEquals(Arrays.asList("load a.png other",
+            "stream load a.png img | brighten 20 img bright | sepia bright toned "
+                    + "| blur toned soft split 50 | save out.ppm soft",
+            "sharpen other sharp", "save sharp.png sharp"),
+            streamed("load a.png other",
+                    "load a.png img",
+                    "brighten 20 img bright",
+                    "sepia bright toned",
+                    "blur toned soft split 50",
+                    "save out.ppm soft",
+                    "sharpen other sharp",
+                    "save sharp.png sharp"));
+    assertEquals(Arrays.asList("stream load a.png img | save b.rawimg img"),
+            streamed("load a.png img", "save b.rawimg img"));
+  }
+
+  /**
+   * Tests that chains whose images are used later, that contain a filter needing the whole
+   * image, that are followed by a run command or that save to several files or to the file
+   * they load are not streamed, while an image written again before it is read does not stop
+   * a chain.
+   */
+  @Test
+  public void testChainIsNotStreamed() {
+    List<List<String>> scripts = Arrays.asList(
+            Arrays.asList("load a.png img", "blur img soft", "save out.png soft",
+                    "sharpen img sharp"),
+            Arrays.asList("load a.png img", "blur img soft", "save out.png soft",
+                    "save copy.png soft"),
+            Arrays.asList("load a.png img", "color-correct img fixed", "save out.png fixed"),
+            Arrays.asList("load a.png img", "horizontal-flip img flipped",
+                    "save out.png flipped"),
+            Arrays.asList("load a.png img size 10", "blur img soft", "save out.png soft"),
+            Arrays.asList("load a.png img", "blur img soft", "save out.png out.jpg soft"),
+            Arrays.asList("load a.png img", "blur img soft", "save ./a.png soft"),
+            Arrays.asList("load a.png img", "blur img soft", "save out.png soft",
+                    "run other.txt"),
+            Arrays.asList("load a.png img", "blur img soft", "luma-component img gray",
+                    "save out.png soft"));
+    for (List<String> script : scripts) {
+      assertEquals(script, streamed(script.toArray(new String[0])));
+    }
+    assertEquals(Arrays.asList("stream load a.png img | blur img soft | save out.png soft",
+            "stream load b.png img | sharpen img sharp | save sharp.png sharp"),
+            streamed("load a.png img", "blur img soft", "save out.png soft",
+                    "load b.png img", "sharpen img sharp", "save sharp.png sharp"));
+  }
+
+  /**
+   * Tests that a script run streamed by another script only streams chains whose images it
+   * overwrites itself, since the caller may read any image after the run.
+   */
+  @Test
+  public void testNestedStreamedScriptKeepsImages() throws IOException {
+    ScriptPlan plan = CommandRegistry.getDefault().compile(Arrays.asList(
+            "load a.png img", "blur img soft", "save out.png soft"));
+    assertEquals(1, ScriptStreamer.stream(plan, false).size());
+    assertEquals(3, ScriptStreamer.stream(plan, true).size());
+    ScriptPlan overwritten = CommandRegistry.getDefault().compile(Arrays.asList(
+            "load a.png img", "blur img soft", "save out.png soft", "load b.png img",
+            "alias img soft"));
+    assertEquals(3, ScriptStreamer.stream(overwritten, true).size());
+
+    String inner = file("stream_inner.txt");
+    Files.write(new File(inner).toPath(), Arrays.asList(
+            "load " + file("stream_source.png") + " img", "brighten 10 img bright",
+            "save " + file("stream_bright.ppm") + " bright"));
+    ImageModel model = run(ScriptMode.DIRECT, "run " + inner + " stream",
+            "save " + file("stream_again.ppm") + " bright");
+    Image bright = model.getImage("bright");
+    assertSameImage(new PPMParser().loadImage(DIR + "stream_bright.ppm"), bright);
+    assertSameImage(bright, new PPMParser().loadImage(DIR + "stream_again.ppm"));
+  }
+
+  /**
+   * Tests that streamed chains write the same files as running the script command by
+   * command, reading PNG and planar raw images and writing every format.
+   */
+  @Test
+  public void testStreamedFilesMatchDirectRun() throws IOException {
+    String[] sources = {file("stream_source.png"), file("stream_source.rawimg")};
+    String[] extensions = {"ppm", "rawimg", "png"};
+    for (String source : sources) {
+      for (String extension : extensions) {
+        String direct = file("stream_direct." + extension);
+        String streamedPath = file("stream_streamed." + extension);
+        String chain = "brighten -15 img dark\nsharpen dark sharp\nblur sharp soft split 60\n"
+                + "levels-adjust 10 120 240 soft leveled\nluma-component leveled gray split 30";
+        run(ScriptMode.DIRECT, ("load " + source + " img\n" + chain + "\nsave " + direct
+                + " gray").split("\n"));
+        ImageModel model = run(ScriptMode.STREAMED, ("load " + source + " img\n" + chain
+                + "\nsave " + streamedPath + " gray").split("\n"));
+        Image expected = extension.equals("ppm") ? new PPMParser().loadImage(direct)
+                : extension.equals("png") ? new PNGParser().loadImage(direct)
+                : new RawImageParser().loadImage(direct);
+        Image actual = extension.equals("ppm") ? new PPMParser().loadImage(streamedPath)
+                : extension.equals("png") ? new PNGParser().loadImage(streamedPath)
+                : new RawImageParser().loadImage(streamedPath);
+        assertSameImage(expected, actual);
+        try {
+          model.getImage("gray");
+          fail("Expected the streamed image not to be stored.");
+        } catch (IOException e) {
+          // The images of a streamed chain never enter the model.
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that a streamed chain with a missing file fails like the load it replaces.
+   */
+  @Test
+  public void testMissingFileFails() throws IOException {
+    String script = file("stream_script.txt");
+    Files.write(new File(script).toPath(), Arrays.asList(
+            "load " + DIR + "missing.png img", "blur img soft",
+            "save " + file("stream_missing.ppm") + " soft"));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    PrintStream originalOut = System.out;
+    PrintStream originalErr = System.err;
+    System.setOut(new PrintStream(out));
+    System.setErr(new PrintStream(out));
+    try {
+      new ImageController(new ImageModel(), new ConsoleView())
+              .runScript(script, ScriptMode.STREAMED);
+    } finally {
+      System.setOut(originalOut);
+      System.setErr(originalErr);
+    }
+    assertTrue(out.toString().contains("stream operation failed."));
+    assertFalse(new File(DIR + "stream_missing.ppm").exists());
+  }
+}
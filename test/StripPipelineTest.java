@@ -0,0 +1,227 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import model.image.Image;
+import model.image.Pixel;
+import model.image.StripPipeline;
+import model.image.StripSource;
+import model.strategy.AdjustLevelsFilterStrategy;
+import model.strategy.BlurFilterStrategy;
+import model.strategy.BrightenFilterStrategy;
+import model.strategy.ColorCorrectFilterStrategy;
+import model.strategy.FilterStrategy;
+import model.strategy.SepiaFilterStrategy;
+import model.strategy.SharpenFilterStrategy;
+import model.strategy.SplitFilterDecorator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * JUnit test class for the StripPipeline class.
+ */
+public class StripPipelineTest {
+  private Image image;
+
+  /**
+   * Creates a random image.
+   */
+  @Before
+  public void setUp() {
+    Random random = new Random(5);
+    Pixel[][] pixels = new Pixel[57][23];
+    for (Pixel[] row : pixels) {
+      for (int x = 0; x < row.length; x++) {
+        row[x] = new Pixel(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+      }
+    }
+    image = new Image(pixels);
+  }
+
+  /**
+   * Asserts that two images have the same dimensions and color values.
+   *
+   * @param expected the expected image
+   * @param actual   the actual image
+   */
+  private void assertSameImage(Image expected, Image actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        Pixel e = expected.getPixel(x, y);
+        Pixel a = actual.getPixel(x, y);
+        assertEquals("red at " + x + "," + y, e.getRed(), a.getRed());
+        assertEquals("green at " + x + "," + y, e.getGreen(), a.getGreen());
+        assertEquals("blue at " + x + "," + y, e.getBlue(), a.getBlue());
+      }
+    }
+  }
+
+  /**
+   * A source over an image in memory that records whether it was closed.
+   */
+  private static final class ClosingSource implements StripSource {
+    private final StripSource source;
+    private boolean closed;
+
+    /**
+     * Constructs a source over the given image.
+     *
+     * @param image the image
+     */
+    private ClosingSource(Image image) {
+      this.source = StripSource.of(image);
+    }
+
+    @Override
+    public int getWidth() {
+      return source.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+      return source.getHeight();
+    }
+
+    @Override
+    public Image readStrip(int maxRows) throws IOException {
+      return source.readStrip(maxRows);
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+  /**
+   * Tests that a chain of point and kernel filters gives the same image in strips of any
+   * height as applied to the whole image one filter after another.
+   */
+  @Test
+  public void testChainMatchesWholeImage() throws IOException {
+    List<FilterStrategy> filters = Arrays.asList(new BrightenFilterStrategy(30),
+            new SepiaFilterStrategy(), new BlurFilterStrategy(), new SharpenFilterStrategy(),
+            new SplitFilterDecorator(new BlurFilterStrategy(), 40),
+            new AdjustLevelsFilterStrategy(20, 100, 230));
+    Image expected = image;
+    for (FilterStrategy filter : filters) {
+      expected = filter.apply(expected);
+    }
+    for (int stripHeight : new int[]{1, 2, 5, 16, 57, 100}) {
+      assertSameImage(expected, new StripPipeline(filters, stripHeight).apply(image));
+    }
+  }
+
+  /**
+   * Tests that a pipeline without filters passes the image through.
+   */
+  @Test
+  public void testEmptyPipeline() throws IOException {
+    assertSameImage(image, new StripPipeline(Collections.emptyList(), 7).apply(image));
+  }
+
+  /**
+   * Tests that the result is read in strips of at most the requested height and that the
+   * input is closed with the result.
+   */
+  @Test
+  public void testStripsAreBounded() throws IOException {
+    ClosingSource input = new ClosingSource(image);
+    int rows = 0;
+    try (StripSource output = new StripPipeline(
+            Arrays.asList(new SharpenFilterStrategy(), new BlurFilterStrategy()), 8)
+            .stream(input)) {
+      assertEquals(23, output.getWidth());
+      assertEquals(57, output.getHeight());
+      Image strip;
+      while ((strip = output.readStrip(5)) != null) {
+        assertTrue(strip.getHeight() <= 5);
+        rows += strip.getHeight();
+      }
+      assertNull(output.readStrip(5));
+    }
+    assertEquals(57, rows);
+    assertTrue(input.closed);
+  }
+
+  /**
+   * Tests that closing the result before the last row stops the pipeline and closes the
+   * input.
+   */
+  @Test
+  public void testCloseEarly() throws IOException {
+    ClosingSource input = new ClosingSource(image);
+    StripSource output = new StripPipeline(
+            Collections.singletonList(new BlurFilterStrategy()), 4).stream(input);
+    output.readStrip(4);
+    output.close();
+    assertTrue(input.closed);
+    assertNull(output.readStrip(4));
+  }
+
+  /**
+   * Tests that a failing filter is reported by the next read of the result.
+   */
+  @Test
+  public void testFailureIsReported() throws IOException {
+    FilterStrategy failing = new FilterStrategy() {
+      @Override
+      public Image apply(Image image) {
+        return image;
+      }
+
+      @Override
+      public Image applyToRegion(Image region, int regionX, int regionY, int imageWidth,
+                                 int imageHeight) {
+        if (regionY > 20) {
+          throw new IllegalStateException("Broken filter.");
+        }
+        return region;
+      }
+    };
+    ClosingSource input = new ClosingSource(image);
+    try (StripSource output = new StripPipeline(
+            Arrays.asList(new BlurFilterStrategy(), failing, new SepiaFilterStrategy()), 10)
+            .stream(input)) {
+      List<Image> strips = new ArrayList<>();
+      Image strip;
+      while ((strip = output.readStrip(10)) != null) {
+        strips.add(strip);
+      }
+      fail("Expected the failure of the filter, read " + strips.size() + " strips.");
+    } catch (IOException e) {
+      assertEquals("Broken filter.", e.getMessage());
+    }
+    assertTrue(input.closed);
+  }
+
+  /**
+   * Tests that filters that need the whole image and invalid strip heights are rejected.
+   */
+  @Test
+  public void testInvalidArguments() {
+    try {
+      new StripPipeline(Collections.singletonList(new ColorCorrectFilterStrategy()));
+      fail("Expected an exception for a filter that needs the whole image.");
+    } catch (IllegalArgumentException e) {
+      assertEquals("This filter cannot be applied in row strips.", e.getMessage());
+    }
+    try {
+      new StripPipeline(Collections.emptyList(), 0);
+      fail("Expected an exception for a strip height of 0.");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Strip height must be positive.", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,295 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import model.image.Image;
+import model.image.Pixel;
+import model.image.RasterKernel;
+import model.image.RasterKernels;
+import model.image.StripSource;
+import model.image.TiledImage;
+import model.strategy.BlurFilterStrategy;
+import model.strategy.ColorCorrectFilterStrategy;
+import model.strategy.FilterStrategy;
+import model.strategy.LumaFilterStrategy;
+import model.strategy.SharpenFilterStrategy;
+import model.strategy.SplitFilterDecorator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * JUnit test class for the TiledImage class.
+ */
+public class TiledImageTest {
+  private Image image;
+
+  /**
+   * Creates a random image that spans three tiles in each direction, with partial tiles at
+   * the right and bottom borders.
+   */
+  @Before
+  public void setUp() {
+    Random random = new Random(11);
+    int width = TiledImage.TILE_SIZE * 2 + 37;
+    int height = TiledImage.TILE_SIZE * 2 + 5;
+    Pixel[][] pixels = new Pixel[height][width];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        pixels[y][x] = new Pixel(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+      }
+    }
+    image = new Image(pixels);
+  }
+
+  /**
+   * Asserts that two images have the same dimensions and color values.
+   *
+   * @param expected the expected image
+   * @param actual   the actual image
+   */
+  private void assertSameImage(Image expected, Image actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        Pixel e = expected.getPixel(x, y);
+        Pixel a = actual.getPixel(x, y);
+        assertEquals("red at " + x + "," + y, e.getRed(), a.getRed());
+        assertEquals("green at " + x + "," + y, e.getGreen(), a.getGreen());
+        assertEquals("blue at " + x + "," + y, e.getBlue(), a.getBlue());
+      }
+    }
+  }
+
+  /**
+   * Asserts that applying a filter tile by tile gives the same image as applying it to the
+   * whole image.
+   *
+   * @param strategy the filter to apply
+   * @throws IOException If a tile file cannot be created.
+   */
+  private void assertTiledMatchesWhole(FilterStrategy strategy) throws IOException {
+    try (TiledImage tiled = TiledImage.of(image);
+         TiledImage filtered = tiled.applyFilter(strategy)) {
+      assertSameImage(strategy.apply(image), filtered.toImage());
+    }
+  }
+
+  /**
+   * Tests that an image survives the round trip through tiles, including single pixels and
+   * regions that cross tile borders.
+   */
+  @Test
+  public void testRoundTrip() throws IOException {
+    try (TiledImage tiled = TiledImage.of(image)) {
+      assertEquals(image.getWidth(), tiled.getWidth());
+      assertEquals(image.getHeight(), tiled.getHeight());
+      assertSameImage(image, tiled.toImage());
+
+      Pixel pixel = image.getPixel(300, 260);
+      assertEquals((pixel.getRed() << 16) | (pixel.getGreen() << 8) | pixel.getBlue(),
+              tiled.getRGB(300, 260));
+
+      Image region = tiled.readRegion(250, 250, 20, 10);
+      assertEquals(20, region.getWidth());
+      assertEquals(10, region.getHeight());
+      assertEquals(image.getPixel(261, 257).getBlue(), region.getPixel(11, 7).getBlue());
+    }
+  }
+
+  /**
+   * Tests that an image read from a strip source into tiles and read back in strips keeps its
+   * pixels, and that a source that ends early is rejected.
+   */
+  @Test
+  public void testLoadAndStrips() throws IOException {
+    try (TiledImage tiled = TiledImage.load(StripSource.of(image));
+         StripSource strips = tiled.strips()) {
+      assertSameImage(image, tiled.toImage());
+      assertEquals(image.getWidth(), strips.getWidth());
+      assertEquals(image.getHeight(), strips.getHeight());
+      Image first = strips.readStrip(300);
+      assertEquals(300, first.getHeight());
+      assertEquals(image.getPixel(400, 299).getRed(), first.getPixel(400, 299).getRed());
+      assertEquals(image.getHeight() - 300, strips.readStrip(1000).getHeight());
+      assertNull(strips.readStrip(1));
+    }
+    StripSource truncated = new StripSource() {
+      private final StripSource rows = StripSource.of(image.verticalFlip());
+
+      @Override
+      public int getWidth() {
+        return image.getWidth();
+      }
+
+      @Override
+      public int getHeight() {
+        return image.getHeight() + 1;
+      }
+
+      @Override
+      public Image readStrip(int maxRows) throws IOException {
+        return rows.readStrip(maxRows);
+      }
+    };
+    try {
+      TiledImage.load(truncated);
+      fail("A source with missing rows was accepted.");
+    } catch (IllegalArgumentException e) {
+      assertEquals("The image ended after 517 of 518 rows.", e.getMessage());
+    }
+  }
+
+  /**
+   * Tests that the tiled flips give the pixels of the image flips.
+   */
+  @Test
+  public void testFlips() throws IOException {
+    try (TiledImage tiled = TiledImage.of(image);
+         TiledImage horizontal = tiled.horizontalFlip();
+         TiledImage vertical = tiled.verticalFlip()) {
+      assertSameImage(image.horizontalFlip(), horizontal.toImage());
+      assertSameImage(image.verticalFlip(), vertical.toImage());
+    }
+  }
+
+  /**
+   * Tests that setRGB writes a single pixel and masks the unused high byte.
+   */
+  @Test
+  public void testSetRGB() throws IOException {
+    try (TiledImage tiled = new TiledImage(300, 20)) {
+      assertEquals(0, tiled.getRGB(299, 19));
+      tiled.setRGB(299, 19, 0xff123456);
+      assertEquals(0x123456, tiled.getRGB(299, 19));
+      assertEquals(0x12, tiled.toImage().getPixel(299, 19).getRed());
+    }
+  }
+
+  /**
+   * Tests that only the given number of tiles stays mapped while the whole image is read.
+   */
+  @Test
+  public void testResidentTilesAreBounded() throws IOException {
+    try (TiledImage tiled = new TiledImage(image.getWidth(), image.getHeight(), 2)) {
+      tiled.writeRegion(image, 0, 0, 0, 0, image.getWidth(), image.getHeight());
+      assertTrue(tiled.getResidentTileCount() <= 2);
+      assertSameImage(image, tiled.toImage());
+      assertTrue(tiled.getResidentTileCount() <= 2);
+    }
+  }
+
+  /**
+   * Tests that point operations, kernels with halos and split views give the same result
+   * tile by tile as on the whole image.
+   */
+  @Test
+  public void testApplyFilterMatchesWholeImage() throws IOException {
+    assertTiledMatchesWhole(new LumaFilterStrategy());
+    assertTiledMatchesWhole(new BlurFilterStrategy());
+    assertTiledMatchesWhole(new SharpenFilterStrategy());
+    assertTiledMatchesWhole(new SplitFilterDecorator(new BlurFilterStrategy(), 60));
+  }
+
+  /**
+   * Asserts that a point operation applied to the tiles gives the same image as applied to
+   * the whole image.
+   *
+   * @param expected the image with the operation applied as a whole
+   * @param kernel   the point operation on packed pixels
+   * @throws IOException If a tile file cannot be created.
+   */
+  private void assertMapped(Image expected, RasterKernel kernel) throws IOException {
+    try (TiledImage tiled = TiledImage.of(image);
+         TiledImage mapped = tiled.mapPixels(kernel)) {
+      assertSameImage(expected, mapped.toImage());
+    }
+  }
+
+  /**
+   * Tests that the point operations on tiles give the pixels of the image operations, with
+   * the scalar kernels and with the kernels selected for this runtime.
+   */
+  @Test
+  public void testMapPixelsMatchesImage() throws IOException {
+    RasterKernels[] implementations = {RasterKernels.scalar(), RasterKernels.get()};
+    for (RasterKernels kernels : implementations) {
+      assertMapped(image.extractRedComponent(), kernels::red);
+      assertMapped(image.extractGreenComponent(), kernels::green);
+      assertMapped(image.extractBlueComponent(), kernels::blue);
+      assertMapped(image.toValueComponent(), kernels::value);
+      assertMapped(image.toLumaComponent(), kernels::luma);
+      assertMapped(image.toIntensityComponent(), kernels::intensity);
+      assertMapped(image.toSepia(), kernels::sepia);
+      assertMapped(image.brighten(40),
+              (source, target, length) -> kernels.brighten(40, source, target, length));
+      assertMapped(image.brighten(-300),
+              (source, target, length) -> kernels.brighten(-300, source, target, length));
+    }
+  }
+
+  /**
+   * Tests that combining tiled channels gives the pixels of combining the images, and that
+   * images of different sizes are rejected.
+   */
+  @Test
+  public void testCombineColorChannels() throws IOException {
+    Image red = image.brighten(10);
+    Image blue = image.toSepia();
+    try (TiledImage tiledRed = TiledImage.of(red);
+         TiledImage tiledGreen = TiledImage.of(image);
+         TiledImage tiledBlue = TiledImage.of(blue);
+         TiledImage combined = TiledImage.combineColorChannels(tiledRed, tiledGreen,
+                 tiledBlue)) {
+      assertSameImage(Image.combineColorChannels(red, image, blue), combined.toImage());
+      try (TiledImage small = new TiledImage(10, 10)) {
+        TiledImage.combineColorChannels(tiledRed, small, tiledBlue);
+        fail("Images of different sizes were combined.");
+      } catch (IllegalArgumentException e) {
+        assertEquals("All images must have the same dimensions.", e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Tests that a filter that needs the whole image is rejected.
+   */
+  @Test(expected = UnsupportedOperationException.class)
+  public void testApplyNonLocalFilter() throws IOException {
+    try (TiledImage tiled = TiledImage.of(image)) {
+      tiled.applyFilter(new ColorCorrectFilterStrategy());
+    }
+  }
+
+  /**
+   * Tests that regions outside the image and invalid dimensions are rejected.
+   */
+  @Test
+  public void testInvalidArguments() throws IOException {
+    try (TiledImage tiled = new TiledImage(10, 10)) {
+      try {
+        tiled.readRegion(5, 5, 6, 1);
+        fail("Region outside the image was accepted.");
+      } catch (IllegalArgumentException e) {
+        assertEquals("Coordinates out of bounds!", e.getMessage());
+      }
+      try {
+        tiled.getRGB(-1, 0);
+        fail("Negative coordinate was accepted.");
+      } catch (IllegalArgumentException e) {
+        assertEquals("Coordinates out of bounds!", e.getMessage());
+      }
+    }
+    try {
+      new TiledImage(0, 10);
+      fail("Empty image was accepted.");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Image dimensions must be positive.", e.getMessage());
+    }
+  }
+}
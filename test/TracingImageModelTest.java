@@ -0,0 +1,160 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import controller.PNGParser;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import model.ImageModel;
+import model.TracingImageModel;
+import model.image.Image;
+import model.image.Pixel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * JUnit test class for the Java Flight Recorder events emitted by TracingImageModel, the image
+ * file parsers and the Haar wavelet transform.
+ */
+public class TracingImageModelTest {
+  private Recording recording;
+  private Path recordingFile;
+  private TracingImageModel model;
+
+  /**
+   * Starts a recording of the image processor events and creates a traced model holding a
+   * 40x30 gradient image.
+   *
+   * @throws IOException if the recording file cannot be created
+   */
+  @Before
+  public void setUp() throws IOException {
+    recordingFile = Files.createTempFile("image-events", ".jfr");
+    recording = new Recording();
+    recording.enable("imageprocessor.ImageOperation").withoutThreshold();
+    recording.enable("imageprocessor.ImageFile").withoutThreshold();
+    recording.enable("imageprocessor.WaveletPhase").withoutThreshold();
+    recording.start();
+
+    Pixel[][] pixels = new Pixel[30][40];
+    for (int y = 0; y < 30; y++) {
+      for (int x = 0; x < 40; x++) {
+        pixels[y][x] = new Pixel(x * 6, y * 8, (x + y) * 3);
+      }
+    }
+    model = new TracingImageModel(new ImageModel());
+    model.addImage(new Image(pixels), "img");
+  }
+
+  /**
+   * Closes the recording and deletes its file.
+   */
+  @After
+  public void tearDown() {
+    recording.close();
+    new File(recordingFile.toString()).delete();
+  }
+
+  /**
+   * Stops the recording and returns its events of the given type.
+   *
+   * @param eventName the name of the event type
+   * @return the recorded events of the type, in commit order
+   * @throws IOException if the recording cannot be written or read
+   */
+  private List<RecordedEvent> stopAndRead(String eventName) throws IOException {
+    recording.stop();
+    recording.dump(recordingFile);
+    return RecordingFile.readAllEvents(recordingFile).stream()
+            .filter(event -> event.getEventType().getName().equals(eventName))
+            .collect(Collectors.toList());
+  }
+
+  /**
+   * Tests that model operations emit events with their image names and output dimensions.
+   *
+   * @throws IOException if the recording cannot be read
+   */
+  @Test
+  public void testOperationEvents() throws IOException {
+    model.blur("img", "img-blurred", Optional.empty());
+    try {
+      model.sepia("missing", "missing-sepia", Optional.empty());
+      fail("Sepia of a missing image should fail");
+    } catch (IOException e) {
+      // expected
+    }
+
+    List<RecordedEvent> events = stopAndRead("imageprocessor.ImageOperation");
+    assertEquals(3, events.size());
+    RecordedEvent blur = events.get(1);
+    assertEquals("blur", blur.getString("operation"));
+    assertEquals("img", blur.getString("source"));
+    assertEquals("img-blurred", blur.getString("destination"));
+    assertEquals(40, blur.getInt("width"));
+    assertEquals(30, blur.getInt("height"));
+    assertEquals(3600, blur.getLong("pixelBytes"));
+    assertTrue(blur.getBoolean("successful"));
+
+    RecordedEvent sepia = events.get(2);
+    assertEquals("sepia", sepia.getString("operation"));
+    assertFalse(sepia.getBoolean("successful"));
+  }
+
+  /**
+   * Tests that compression emits events for the wavelet phases.
+   *
+   * @throws IOException if the recording cannot be read
+   */
+  @Test
+  public void testWaveletPhaseEvents() throws IOException {
+    model.compressImage("img", "img-compressed", 50);
+
+    List<String> phases = stopAndRead("imageprocessor.WaveletPhase").stream()
+            .map(event -> event.getString("phase"))
+            .collect(Collectors.toList());
+    assertEquals(List.of("forward", "forward", "forward", "threshold",
+            "inverse", "inverse", "inverse"), phases);
+  }
+
+  /**
+   * Tests that saving and loading a file emits events with the file size and dimensions.
+   *
+   * @throws IOException if the file or the recording cannot be accessed
+   */
+  @Test
+  public void testFileEvents() throws IOException {
+    Path file = Files.createTempFile("image-events", ".png");
+    try {
+      PNGParser parser = new PNGParser();
+      parser.saveImage(file.toString(), model.getImage("img"));
+      parser.loadImage(file.toString());
+
+      List<RecordedEvent> events = stopAndRead("imageprocessor.ImageFile");
+      assertEquals(2, events.size());
+      assertEquals("save", events.get(0).getString("operation"));
+      assertEquals("load", events.get(1).getString("operation"));
+      for (RecordedEvent event : events) {
+        assertEquals("png", event.getString("format"));
+        assertEquals(40, event.getInt("width"));
+        assertEquals(30, event.getInt("height"));
+        assertEquals(Files.size(file), event.getLong("fileBytes"));
+        assertTrue(event.getBoolean("successful"));
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
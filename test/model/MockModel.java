@@ -5,6 +5,7 @@ import java.util.Optional;
 
 import model.image.Image;
 import model.image.Pixel;
+import model.image.ResizeFilter;
 
 /**
  * Represents the mock model class for images, responsible for
@@ -297,6 +298,33 @@ public class MockModel implements IImageModel {
     log.append("Compress method called.");
   }
 
+  /**
+   * Logs the operation to resize the specified image.
+   *
+   * @param imageName     the name of the source image
+   * @param destImageName the name of the destination image
+   * @param width         the width of the resized image
+   * @param height        the height of the resized image
+   * @param filterOpt     an optional reconstruction filter
+   */
+  @Override
+  public void resize(String imageName, String destImageName, int width, int height,
+                     Optional<ResizeFilter> filterOpt) {
+    log.append("Resize method called.");
+  }
+
+  /**
+   * Logs the operation to create a thumbnail of the specified image.
+   *
+   * @param imageName     the name of the source image
+   * @param destImageName the name of the destination image
+   * @param maxDimension  the largest width or height of the thumbnail
+   */
+  @Override
+  public void thumbnail(String imageName, String destImageName, int maxDimension) {
+    log.append("Thumbnail method called.");
+  }
+
   /**
    * Retrieves the accumulated log of operations performed by the mock model.
    *
@@ -0,0 +1,235 @@
+package model.image;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The {@link RasterKernels} on the incubating Vector API, processing one register of packed
+ * pixels per step in the preferred int species of the machine (16 lanes with AVX-512, 8 with
+ * AVX2). All arithmetic stays in int lanes, since conversions between int and double lanes are
+ * not compiled to SIMD instructions on Java 17: luma and sepia divide exact integer weighted
+ * sums by a multiply and a shift. The integer result only differs from the double formula of
+ * {@link ScalarRasterKernels} where the exact value is a rounding boundary, so those rare
+ * registers are recomputed with the scalar formula, as are the pixels after the last full
+ * register. This class is compiled for Java 17 with {@code --add-modules jdk.incubator.vector}
+ * and only loaded by reflection from {@link RasterKernelSelection}.
+ */
+final class VectorRasterKernels implements RasterKernels {
+  private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+  /**
+   * Creates the vector kernels.
+   *
+   * @throws UnsupportedOperationException if the machine has no SIMD registers of four ints
+   */
+  VectorRasterKernels() {
+    if (SPECIES.length() < 4) {
+      throw new UnsupportedOperationException("No SIMD registers to run the kernels on.");
+    }
+  }
+
+  /**
+   * Extracts a channel from every lane.
+   *
+   * @param pixels the packed pixels
+   * @param shift  the position of the channel, 16 for red, 8 for green and 0 for blue
+   * @return the channel values in [0, 255]
+   */
+  private static IntVector channel(IntVector pixels, int shift) {
+    return pixels.lanewise(VectorOperators.LSHR, shift).and(0xff);
+  }
+
+  /**
+   * Divides weighted sums of the channels in thousandths by 1000, truncating like the double
+   * formula does.
+   *
+   * @param sum the weighted sums, at most 1351 * 255
+   * @return the quotients
+   */
+  private static IntVector thousandths(IntVector sum) {
+    // sum / 1000 == (sum / 8) / 125, and (n * 33555) >>> 22 == n / 125 for n below 43690.
+    return sum.lanewise(VectorOperators.LSHR, 3).mul(33555).lanewise(VectorOperators.LSHR, 22);
+  }
+
+  /**
+   * Finds the lanes where a weighted sum is a positive multiple of 1000, which the double
+   * formula may truncate one lower.
+   *
+   * @param sum      the weighted sums
+   * @param quotient the sums divided by 1000
+   * @return lanes with the sign bit set where the sum is an exact positive multiple
+   */
+  private static IntVector exact(IntVector sum, IntVector quotient) {
+    return sum.sub(quotient.mul(1000)).sub(1).lanewise(VectorOperators.AND_NOT, sum.sub(1));
+  }
+
+  @Override
+  public String getName() {
+    return "vector (" + SPECIES.vectorBitSize() + " bits)";
+  }
+
+  @Override
+  public void red(int[] source, int[] target, int length) {
+    mask(source, target, length, 0xff0000);
+  }
+
+  @Override
+  public void green(int[] source, int[] target, int length) {
+    mask(source, target, length, 0xff00);
+  }
+
+  @Override
+  public void blue(int[] source, int[] target, int length) {
+    mask(source, target, length, 0xff);
+  }
+
+  /**
+   * Keeps the bits of a mask in every pixel.
+   *
+   * @param source the packed pixels to read
+   * @param target the array that receives the masked pixels
+   * @param length the number of pixels to mask
+   * @param mask   the bits to keep
+   */
+  private static void mask(int[] source, int[] target, int length, int mask) {
+    int i = 0;
+    for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+      IntVector.fromArray(SPECIES, source, i).and(mask).intoArray(target, i);
+    }
+    for (; i < length; i++) {
+      target[i] = source[i] & mask;
+    }
+  }
+
+  @Override
+  public void value(int[] source, int[] target, int length) {
+    int i = 0;
+    for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+      IntVector pixels = IntVector.fromArray(SPECIES, source, i);
+      channel(pixels, 16).max(channel(pixels, 8)).max(channel(pixels, 0)).mul(0x010101)
+              .intoArray(target, i);
+    }
+    for (; i < length; i++) {
+      target[i] = ScalarRasterKernels.value(source[i]);
+    }
+  }
+
+  @Override
+  public void luma(int[] source, int[] target, int length) {
+    int i = 0;
+    for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+      IntVector pixels = IntVector.fromArray(SPECIES, source, i);
+      IntVector sum = channel(pixels, 16).mul(2126).add(channel(pixels, 8).mul(7152))
+              .add(channel(pixels, 0).mul(722)).add(5000);
+      // sum / 10000 == (sum / 16) / 625; (n * 13422) >>> 23 is n / 625 or one more.
+      IntVector quotient = sum.lanewise(VectorOperators.LSHR, 4).mul(13422)
+              .lanewise(VectorOperators.LSHR, 23);
+      IntVector remainder = sum.sub(quotient.mul(10000));
+      IntVector over = remainder.lanewise(VectorOperators.ASHR, 31);
+      quotient = quotient.add(over);
+      remainder = remainder.add(over.and(10000));
+      quotient.mul(0x010101).intoArray(target, i);
+      // A zero remainder is a tie of .5, which the double formula may round either way.
+      if (remainder.sub(1).reduceLanes(VectorOperators.OR) < 0) {
+        for (int j = i; j < i + SPECIES.length(); j++) {
+          target[j] = ScalarRasterKernels.luma(source[j]);
+        }
+      }
+    }
+    for (; i < length; i++) {
+      target[i] = ScalarRasterKernels.luma(source[i]);
+    }
+  }
+
+  @Override
+  public void intensity(int[] source, int[] target, int length) {
+    int i = 0;
+    for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+      IntVector pixels = IntVector.fromArray(SPECIES, source, i);
+      channel(pixels, 16).add(channel(pixels, 8)).add(channel(pixels, 0)).mul(43691)
+              .lanewise(VectorOperators.LSHR, 17).mul(0x010101).intoArray(target, i);
+    }
+    for (; i < length; i++) {
+      target[i] = ScalarRasterKernels.intensity(source[i]);
+    }
+  }
+
+  @Override
+  public void sepia(int[] source, int[] target, int length) {
+    // One pass per channel; a single pass is too large for the JIT to inline all vector
+    // operations, and its vectors would then be allocated on the heap.
+    sepiaChannel(source, target, length, 16, 393, 769, 189);
+    sepiaChannel(source, target, length, 8, 349, 686, 168);
+    sepiaChannel(source, target, length, 0, 272, 534, 131);
+  }
+
+  /**
+   * Computes one channel of the sepia tone, the weighted sum of the channels in thousandths
+   * divided by 1000 and capped at 255. The red pass writes the target, the others add their
+   * channel to it.
+   *
+   * @param source the packed pixels to read
+   * @param target the array that receives the sepia pixels
+   * @param length the number of pixels to map
+   * @param shift  the position of the channel, 16 for red, 8 for green and 0 for blue
+   * @param wr     the weight of red in thousandths
+   * @param wg     the weight of green in thousandths
+   * @param wb     the weight of blue in thousandths
+   */
+  private static void sepiaChannel(int[] source, int[] target, int length, int shift, int wr,
+                                   int wg, int wb) {
+    boolean first = shift == 16;
+    int mask = 0xff << shift;
+    int i = 0;
+    for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+      IntVector pixels = IntVector.fromArray(SPECIES, source, i);
+      IntVector sum = channel(pixels, 16).mul(wr).add(channel(pixels, 8).mul(wg))
+              .add(channel(pixels, 0).mul(wb));
+      IntVector quotient = thousandths(sum);
+      IntVector value = quotient.min(255).lanewise(VectorOperators.LSHL, shift);
+      if (!first) {
+        value = value.or(IntVector.fromArray(SPECIES, target, i));
+      }
+      value.intoArray(target, i);
+      if (exact(sum, quotient).reduceLanes(VectorOperators.OR) < 0) {
+        for (int j = i; j < i + SPECIES.length(); j++) {
+          target[j] = target[j] & ~mask | ScalarRasterKernels.sepia(source[j]) & mask;
+        }
+      }
+    }
+    for (; i < length; i++) {
+      target[i] = (first ? 0 : target[i]) | ScalarRasterKernels.sepia(source[i]) & mask;
+    }
+  }
+
+  @Override
+  public void brighten(int increment, int[] source, int[] target, int length) {
+    int i = 0;
+    for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+      IntVector pixels = IntVector.fromArray(SPECIES, source, i);
+      channel(pixels, 16).add(increment).max(0).min(255).lanewise(VectorOperators.LSHL, 16)
+              .or(channel(pixels, 8).add(increment).max(0).min(255)
+                      .lanewise(VectorOperators.LSHL, 8))
+              .or(channel(pixels, 0).add(increment).max(0).min(255))
+              .intoArray(target, i);
+    }
+    for (; i < length; i++) {
+      target[i] = ScalarRasterKernels.brighten(increment, source[i]);
+    }
+  }
+
+  @Override
+  public void combine(int[] red, int[] green, int[] blue, int[] target, int length) {
+    int i = 0;
+    for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+      IntVector.fromArray(SPECIES, red, i).and(0xff0000)
+              .or(IntVector.fromArray(SPECIES, green, i).and(0xff00))
+              .or(IntVector.fromArray(SPECIES, blue, i).and(0xff))
+              .intoArray(target, i);
+    }
+    for (; i < length; i++) {
+      target[i] = red[i] & 0xff0000 | green[i] & 0xff00 | blue[i] & 0xff;
+    }
+  }
+}
@@ -0,0 +1,112 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import model.image.RasterKernel;
+import model.image.RasterKernels;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for the vector kernels, which must give exactly the pixels of the scalar kernels.
+ * The point operations are compared on every one of the 2^24 colors, at a length that is not a
+ * multiple of the register size so the scalar tail is covered as well. The tests must run with
+ * {@code --add-modules jdk.incubator.vector}.
+ */
+public class VectorRasterKernelsTest {
+  private static final int COLORS = 1 << 24;
+  private static final int LENGTH = COLORS - 3;
+
+  private int[] colors;
+  private RasterKernels scalar;
+  private RasterKernels vector;
+
+  /**
+   * Loads both implementations and an array holding every color.
+   */
+  @Before
+  public void setUp() {
+    colors = new int[COLORS];
+    for (int i = 0; i < COLORS; i++) {
+      colors[i] = i;
+    }
+    scalar = RasterKernels.scalar();
+    assertTrue("The vector kernels did not load.", RasterKernels.vector().isPresent());
+    vector = RasterKernels.vector().get();
+  }
+
+  /**
+   * Maps every color with a scalar and a vector kernel and compares the results.
+   *
+   * @param name     the name of the operation, for failure messages
+   * @param expected the scalar kernel
+   * @param actual   the vector kernel
+   */
+  private void assertSamePixels(String name, RasterKernel expected, RasterKernel actual) {
+    int[] expectedPixels = new int[COLORS];
+    int[] actualPixels = new int[COLORS];
+    expected.apply(colors, expectedPixels, LENGTH);
+    actual.apply(colors, actualPixels, LENGTH);
+    assertArrayEquals(name, expectedPixels, actualPixels);
+  }
+
+  /**
+   * Tests that the vector kernels are selected by default.
+   */
+  @Test
+  public void testSelection() {
+    assertEquals(vector, RasterKernels.get());
+    assertNotSame(scalar, vector);
+    assertTrue(vector.getName().startsWith("vector"));
+  }
+
+  /**
+   * Tests the component and sepia kernels on every color.
+   */
+  @Test
+  public void testPointOperations() {
+    assertSamePixels("red", scalar::red, vector::red);
+    assertSamePixels("green", scalar::green, vector::green);
+    assertSamePixels("blue", scalar::blue, vector::blue);
+    assertSamePixels("value", scalar::value, vector::value);
+    assertSamePixels("luma", scalar::luma, vector::luma);
+    assertSamePixels("intensity", scalar::intensity, vector::intensity);
+    assertSamePixels("sepia", scalar::sepia, vector::sepia);
+  }
+
+  /**
+   * Tests brightening every color by increments that clamp at both ends.
+   */
+  @Test
+  public void testBrighten() {
+    for (int increment : new int[]{-300, -255, -37, 0, 1, 99, 255, 300}) {
+      assertSamePixels("brighten " + increment,
+              (source, target, length) -> scalar.brighten(increment, source, target, length),
+              (source, target, length) -> vector.brighten(increment, source, target, length));
+    }
+  }
+
+  /**
+   * Tests combining the channels of three rows of random pixels.
+   */
+  @Test
+  public void testCombine() {
+    Random random = new Random(7);
+    int length = 100003;
+    int[][] channels = new int[3][length];
+    for (int[] channel : channels) {
+      for (int i = 0; i < length; i++) {
+        channel[i] = random.nextInt(COLORS);
+      }
+    }
+    int[] expected = new int[length];
+    int[] actual = new int[length];
+    scalar.combine(channels[0], channels[1], channels[2], expected, length);
+    vector.combine(channels[0], channels[1], channels[2], actual, length);
+    assertArrayEquals(expected, actual);
+  }
+}